@@ -0,0 +1,275 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.deidentifier.arx.framework.check.TransformationChecker;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.distribution.DistributionAggregateFunction;
+import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.history.History;
+import org.deidentifier.arx.framework.data.DataManager;
+import org.deidentifier.arx.framework.data.DataMatrixStorage;
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.deidentifier.arx.metric.Metric;
+
+/**
+ * Prepares the internal operators of the anonymization engine in the same way as the
+ * anonymizer does, so that they can be benchmarked in isolation.
+ *
+ * @author Fabian Prasser
+ */
+public class BenchmarkEnvironment {
+
+    /** The configuration */
+    private final ARXConfiguration config;
+
+    /** The data definition */
+    private final DataDefinition   definition;
+
+    /** The data manager */
+    private final DataManager      manager;
+
+    /** The solution space */
+    private final SolutionSpace<?> solutionSpace;
+
+    /**
+     * Encodes the given data and initializes the configuration and its quality model.
+     * The data object must not be used for anything else afterwards.
+     *
+     * @param data
+     * @param config
+     * @param bitPacking
+     * @throws IOException
+     */
+    public BenchmarkEnvironment(Data data, ARXConfiguration config, boolean bitPacking) throws IOException {
+
+        // Encode, as in the anonymizer
+        DataHandleInput handle = (DataHandleInput) data.getHandle();
+        this.definition = handle.getDefinition();
+        this.definition.materializeHierarchies(handle);
+        this.config = config.clone();
+        this.manager = new DataManager(handle.header,
+                                       handle.data,
+                                       handle.dictionary,
+                                       definition,
+                                       new HashMap<String, DistributionAggregateFunction>(),
+                                       this.config,
+                                       DataMatrixStorage.Type.HEAP,
+                                       bitPacking);
+
+        // Initialize
+        this.config.initialize(manager);
+        this.solutionSpace = SolutionSpace.create(manager.getHierarchiesMinLevels(), manager.getHierarchiesMaxLevels());
+        this.config.getQualityModel().initialize(manager, definition, manager.getDataGeneralized(), manager.getHierarchies(), this.config);
+    }
+
+    /**
+     * Creates a groupify operator that is compatible with the given transformer
+     * 
+     * @param transformer
+     * @return
+     */
+    public HashGroupify createGroupify(Transformer transformer) {
+        return new HashGroupify(getInitialSize(),
+                                config.getInternalConfiguration(),
+                                manager.getAggregationInformation().getHotThreshold(),
+                                manager.getDataGeneralized().getArray(),
+                                transformer.getBuffer(),
+                                manager.getDataAnalyzed().getArray(),
+                                manager.getDataGeneralized().getDictionary().getSuppressedCodes());
+    }
+
+    /**
+     * Creates a history, which stores snapshots for all transformations
+     * 
+     * @param size
+     * @return
+     */
+    public History createHistory(int size) {
+        History history = new History(manager.getDataGeneralized().getArray().getNumRows(),
+                                      size,
+                                      1d,
+                                      1d,
+                                      0L,
+                                      config.getInternalConfiguration(),
+                                      new IntArrayDictionary(getInitialSize()),
+                                      new IntArrayDictionary(getInitialSize()),
+                                      solutionSpace);
+        history.setStorageStrategy(History.StorageStrategy.ALL);
+        return history;
+    }
+
+    /**
+     * Creates a transformation checker
+     * 
+     * @param historySize
+     * @param numberOfThreads
+     * @return
+     */
+    public TransformationChecker createTransformationChecker(int historySize, int numberOfThreads) {
+        return new TransformationChecker(manager,
+                                         config.getQualityModel(),
+                                         config.getInternalConfiguration(),
+                                         historySize,
+                                         0.2d,
+                                         0.8d,
+                                         0L,
+                                         solutionSpace,
+                                         numberOfThreads);
+    }
+
+    /**
+     * Performs the setup of an iteration of local recoding for the given rows, which must
+     * be sorted in ascending order, in the same way as the iterative local recoding methods
+     * do before searching: the configuration, the data definition and the data manager are
+     * projected, and a solution space, the quality model and a transformation checker are
+     * initialized.
+     * 
+     * @param rows
+     * @param gsFactor
+     * @param historySize
+     * @return
+     */
+    public TransformationChecker createLocalRecodingChecker(int[] rows, double gsFactor, int historySize) {
+        
+        // Project
+        RowSet rowset = RowSet.create(manager.getDataGeneralized().getArray().getNumRows());
+        for (int row : rows) {
+            rowset.add(row);
+        }
+        ARXConfiguration config = this.config.getInstanceForLocalRecoding(rowset, gsFactor);
+        DataDefinition definition = this.definition.clone();
+        DataManager manager = this.manager.getSubsetInstance(rows);
+        
+        // Initialize
+        config.initialize(manager);
+        SolutionSpace<?> solutionSpace = SolutionSpace.create(manager.getHierarchiesMinLevels(), manager.getHierarchiesMaxLevels());
+        config.getQualityModel().initialize(manager, definition, manager.getDataGeneralized(), manager.getHierarchies(), config);
+        return new TransformationChecker(manager,
+                                         config.getQualityModel(),
+                                         config.getInternalConfiguration(),
+                                         historySize,
+                                         0.2d,
+                                         0.8d,
+                                         0L,
+                                         solutionSpace,
+                                         1);
+    }
+
+    /**
+     * Creates a single-threaded transformer
+     * 
+     * @return
+     */
+    public Transformer createTransformer() {
+        return new Transformer(manager.getDataGeneralized().getArray(),
+                               manager.getDataAnalyzed().getArray(),
+                               manager.getAggregationInformation().getHotThreshold(),
+                               manager.getHierarchies(),
+                               config.getInternalConfiguration(),
+                               new IntArrayDictionary(getInitialSize()),
+                               new IntArrayDictionary(getInitialSize()),
+                               manager.getDataGeneralized().getDictionary().getSuppressedCodes(),
+                               1);
+    }
+
+    /**
+     * Returns the data manager
+     * 
+     * @return
+     */
+    public DataManager getDataManager() {
+        return manager;
+    }
+
+    /**
+     * Returns a transformation in the middle of the solution space
+     * 
+     * @return
+     */
+    public int[] getMiddleTransformation() {
+        int[] min = manager.getHierarchiesMinLevels();
+        int[] max = manager.getHierarchiesMaxLevels();
+        int[] result = new int[min.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (min[i] + max[i]) / 2;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a direct predecessor of the given transformation, from which it can be rolled up.
+     * Returns the transformation itself if it is the bottom.
+     * 
+     * @param transformation
+     * @return
+     */
+    public int[] getPredecessor(int[] transformation) {
+        int[] min = manager.getHierarchiesMinLevels();
+        int[] result = transformation.clone();
+        for (int i = 0; i < result.length; i++) {
+            if (result[i] > min[i]) {
+                result[i]--;
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the quality model
+     * 
+     * @return
+     */
+    public Metric<?> getQualityModel() {
+        return config.getQualityModel();
+    }
+
+    /**
+     * Returns the solution space
+     * 
+     * @return
+     */
+    public SolutionSpace<?> getSolutionSpace() {
+        return solutionSpace;
+    }
+
+    /**
+     * Returns the transformation object for the given levels
+     * 
+     * @param transformation
+     * @return
+     */
+    public Transformation<?> getTransformation(int[] transformation) {
+        return solutionSpace.getTransformation(transformation);
+    }
+
+    /**
+     * Initial size of hash tables, as used by the checker
+     * @return
+     */
+    private int getInitialSize() {
+        return (int) (manager.getDataGeneralized().getDataLength() * 0.01d);
+    }
+}
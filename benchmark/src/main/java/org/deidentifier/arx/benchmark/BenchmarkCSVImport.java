@@ -0,0 +1,109 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.io.CSVDataInput;
+import org.deidentifier.arx.io.CSVOptions;
+import org.deidentifier.arx.io.CSVSyntax;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks importing data from CSV files
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BenchmarkCSVImport {
+
+    /** The dataset */
+    @Param({ "adult", "adult-x4", "adult-x16" })
+    public String dataset;
+
+    /** The number of threads used for parsing */
+    @Param({ "1", "4" })
+    public int    threads;
+
+    /** The delimiter */
+    private char  delimiter;
+
+    /** The file */
+    private File  file;
+
+    /**
+     * Prepares the file
+     * 
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkDataset dataset = new BenchmarkDataset(this.dataset);
+        this.file = dataset.getFile();
+        this.delimiter = dataset.getDelimiter();
+    }
+
+    /**
+     * Parses and encodes the file
+     * 
+     * @return
+     * @throws IOException
+     */
+    @Benchmark
+    public int load() throws IOException {
+        CSVOptions options = new CSVOptions(0);
+        options.setNumberOfThreads(threads);
+        return Data.create(file, StandardCharsets.UTF_8, new CSVSyntax(delimiter), options).getHandle().getNumRows();
+    }
+
+    /**
+     * Parses the file
+     * 
+     * @return
+     * @throws IOException
+     */
+    @Benchmark
+    public int read() throws IOException {
+        int result = 0;
+        Iterator<String[]> iter = new CSVDataInput(file, StandardCharsets.UTF_8, delimiter).iterator();
+        while (iter.hasNext()) {
+            result += iter.next().length;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.BenchmarkEnvironment;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks hashing and comparing the rows of a data matrix
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BenchmarkDataMatrix {
+
+    /** The dataset */
+    @Param({ "adult", "adult-x4", "adult-x16" })
+    public String     dataset;
+
+    /** Whether bit-packing is enabled */
+    @Param({ "false", "true" })
+    public boolean    bitPacking;
+
+    /** The matrix */
+    private DataMatrix matrix;
+
+    /**
+     * Encodes the data
+     * 
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkDataset dataset = new BenchmarkDataset(this.dataset);
+        BenchmarkEnvironment environment = new BenchmarkEnvironment(dataset.getData(), dataset.getConfiguration(), bitPacking);
+        this.matrix = environment.getDataManager().getDataGeneralized().getArray();
+    }
+
+    /**
+     * Compares all neighboring rows
+     * 
+     * @return
+     */
+    @Benchmark
+    public int compareRows() {
+        int result = 0;
+        for (int row = 1; row < matrix.getNumRows(); row++) {
+            result += matrix.equals(row - 1, row) ? 1 : 0;
+        }
+        return result;
+    }
+
+    /**
+     * Hashes all rows
+     * 
+     * @return
+     */
+    @Benchmark
+    public int hashRows() {
+        int result = 0;
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            result += matrix.hashCode(row);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.DataMatrixStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks hashing and comparing the rows of synthetic data matrices with different numbers of columns
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BenchmarkDataMatrixWidth {
+
+    /** The number of rows */
+    private static final int        ROWS = 250000;
+
+    /** The number of columns */
+    @Param({ "5", "10", "20", "40" })
+    public int                      columns;
+
+    /** The type of storage */
+    @Param({ "HEAP", "OFF_HEAP" })
+    public DataMatrixStorage.Type   storage;
+
+    /** The matrix */
+    private DataMatrix              matrix;
+
+    /**
+     * Creates the matrix. Every second row equals its predecessor, so that
+     * comparisons need to process complete rows.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(0xDEADBEEF);
+        this.matrix = new DataMatrix(ROWS, columns, storage);
+        for (int row = 0; row < ROWS; row++) {
+            boolean copy = row > 0 && random.nextBoolean();
+            for (int column = 0; column < columns; column++) {
+                matrix.set(row, column, copy ? matrix.get(row - 1, column) : random.nextInt(16));
+            }
+        }
+    }
+
+    /**
+     * Compares all neighboring rows
+     * 
+     * @return
+     */
+    @Benchmark
+    public int compareRows() {
+        int result = 0;
+        for (int row = 1; row < ROWS; row++) {
+            result += matrix.equals(row - 1, row) ? 1 : 0;
+        }
+        return result;
+    }
+
+    /**
+     * Compares all neighboring rows, ignoring the column in the middle
+     * 
+     * @return
+     */
+    @Benchmark
+    public int compareRowsIgnore() {
+        int result = 0;
+        int ignore = columns / 2;
+        for (int row = 1; row < ROWS; row++) {
+            result += matrix.equalsIgnore(row - 1, row, ignore) ? 1 : 0;
+        }
+        return result;
+    }
+
+    /**
+     * Hashes all rows
+     * 
+     * @return
+     */
+    @Benchmark
+    public int hashRows() {
+        int result = 0;
+        for (int row = 0; row < ROWS; row++) {
+            result += matrix.hashCode(row);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.AttributeType;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.io.CSVDataInput;
+import org.deidentifier.arx.io.CSVDataOutput;
+
+/**
+ * A dataset used in benchmarks. Datasets are loaded from the directory specified by the
+ * system property <code>arx.data</code>, which defaults to <code>../data</code>. Each attribute
+ * for which a file <code>[dataset]_hierarchy_[attribute].csv</code> exists is a quasi-identifier.
+ * Names with a suffix <code>-x[factor]</code> denote synthetic variants which are created by
+ * sampling records from the dataset with replacement until it is <code>factor</code> times as large.
+ *
+ * @author Fabian Prasser
+ */
+public class BenchmarkDataset {
+
+    /** The seed used for creating synthetic variants */
+    private static final long SEED      = 0xDEADBEEFL;
+
+    /** The delimiter */
+    private static final char DELIMITER = ';';
+
+    /** The directory */
+    private final File        directory;
+
+    /** The name of the dataset without suffix */
+    private final String      base;
+
+    /** The header and records */
+    private final List<String[]> records;
+
+    /** The file, lazily created for synthetic variants */
+    private File              file;
+
+    /**
+     * Loads the dataset with the given name
+     * 
+     * @param name
+     * @throws IOException
+     */
+    public BenchmarkDataset(String name) throws IOException {
+
+        // Parse
+        int factor = 1;
+        int index = name.lastIndexOf("-x");
+        if (index != -1) {
+            factor = Integer.valueOf(name.substring(index + 2));
+            name = name.substring(0, index);
+        }
+        if (factor < 1) {
+            throw new IllegalArgumentException("Invalid scaling factor: " + factor);
+        }
+        this.directory = new File(System.getProperty("arx.data", "../data"));
+        this.base = name;
+
+        // Load
+        List<String[]> original = new ArrayList<String[]>();
+        Iterator<String[]> iter = new CSVDataInput(getOriginalFile(), StandardCharsets.UTF_8, DELIMITER).iterator();
+        while (iter.hasNext()) {
+            original.add(iter.next());
+        }
+        if (factor == 1) {
+            this.records = original;
+            this.file = getOriginalFile();
+            return;
+        }
+
+        // Sample
+        int rows = original.size() - 1;
+        Random random = new Random(SEED);
+        this.records = new ArrayList<String[]>(rows * factor + 1);
+        this.records.add(original.get(0));
+        for (int i = 0; i < rows * factor; i++) {
+            this.records.add(original.get(1 + random.nextInt(rows)));
+        }
+    }
+
+    /**
+     * Returns a configuration with 5-anonymity and a suppression limit of 2%
+     * 
+     * @return
+     */
+    public ARXConfiguration getConfiguration() {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(0.02d);
+        return config;
+    }
+
+    /**
+     * Creates a new data object with hierarchies attached
+     * 
+     * @return
+     * @throws IOException
+     */
+    public Data getData() throws IOException {
+        Data data = Data.create(records);
+        for (String attribute : records.get(0)) {
+            File hierarchy = getHierarchyFile(attribute);
+            if (hierarchy.exists()) {
+                data.getDefinition().setAttributeType(attribute, Hierarchy.create(hierarchy, StandardCharsets.UTF_8, DELIMITER));
+            } else {
+                data.getDefinition().setAttributeType(attribute, AttributeType.INSENSITIVE_ATTRIBUTE);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Returns a CSV file containing the dataset
+     * 
+     * @return
+     * @throws IOException
+     */
+    public File getFile() throws IOException {
+        if (file == null) {
+            file = File.createTempFile("arx-benchmark-" + base, ".csv");
+            file.deleteOnExit();
+            new CSVDataOutput(file, DELIMITER).write(records.iterator());
+        }
+        return file;
+    }
+
+    /**
+     * Returns the delimiter
+     * 
+     * @return
+     */
+    public char getDelimiter() {
+        return DELIMITER;
+    }
+
+    /**
+     * Returns the header and all records
+     * 
+     * @return
+     */
+    public List<String[]> getRecords() {
+        return records;
+    }
+
+    /**
+     * Returns the hierarchy file for the given attribute
+     * 
+     * @param attribute
+     * @return
+     */
+    private File getHierarchyFile(String attribute) {
+        return new File(directory, base + "_hierarchy_" + attribute + ".csv");
+    }
+
+    /**
+     * Returns the original file
+     * 
+     * @return
+     */
+    private File getOriginalFile() {
+        return new File(directory, base + ".csv");
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.framework.data.Dictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks encoding values with a dictionary
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BenchmarkDictionary {
+
+    /** The dataset */
+    @Param({ "adult", "adult-x4", "adult-x16" })
+    public String          dataset;
+
+    /** The header and records */
+    private List<String[]> records;
+
+    /**
+     * Loads the data
+     * 
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        this.records = new BenchmarkDataset(this.dataset).getRecords();
+    }
+
+    /**
+     * Registers all values
+     * 
+     * @return
+     */
+    @Benchmark
+    public Dictionary register() {
+        int columns = records.get(0).length;
+        Dictionary dictionary = new Dictionary(columns);
+        for (int row = 1; row < records.size(); row++) {
+            String[] record = records.get(row);
+            for (int column = 0; column < columns; column++) {
+                dictionary.register(column, record[column]);
+            }
+        }
+        dictionary.finalizeAll();
+        return dictionary;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.BenchmarkEnvironment;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.history.History;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks creating snapshots in the history
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BenchmarkHistory {
+
+    /** The dataset */
+    @Param({ "adult", "adult-x4", "adult-x16" })
+    public String             dataset;
+
+    /** The groupify operator */
+    private HashGroupify      groupify;
+
+    /** The history */
+    private History           history;
+
+    /** The transformation */
+    private Transformation<?> transformation;
+
+    /**
+     * Transforms the data
+     * 
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkDataset dataset = new BenchmarkDataset(this.dataset);
+        BenchmarkEnvironment environment = new BenchmarkEnvironment(dataset.getData(), dataset.getConfiguration(), false);
+        Transformer transformer = environment.createTransformer();
+        int[] levels = environment.getMiddleTransformation();
+        this.groupify = environment.createGroupify(transformer);
+        this.history = environment.createHistory(1);
+        this.transformation = environment.getTransformation(levels);
+        transformer.apply(0L, levels, groupify);
+    }
+
+    /**
+     * Creates a snapshot
+     * 
+     * @return
+     */
+    @Benchmark
+    public boolean store() {
+        history.reset();
+        return history.store(transformation, groupify, null);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXProcessStatistics;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.BenchmarkEnvironment;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.exceptions.RollbackRequiredException;
+import org.deidentifier.arx.framework.check.TransformationChecker;
+import org.deidentifier.arx.metric.Metric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the setup of an iteration of local recoding compared to a complete iteration,
+ * which includes the search. Both operate on the records suppressed by the global optimum.
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class BenchmarkLocalRecoding {
+
+    /**
+     * A fresh output for each invocation, as local recoding modifies it
+     *
+     * @author Fabian Prasser
+     */
+    @State(Scope.Thread)
+    public static class Output {
+
+        /** The output */
+        private DataHandle output;
+
+        /**
+         * Creates the output
+         *
+         * @param benchmark
+         */
+        @Setup(Level.Invocation)
+        public void setup(BenchmarkLocalRecoding benchmark) {
+            this.output = benchmark.result.getOutput();
+        }
+
+        /**
+         * Releases the output
+         */
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            this.output.release();
+        }
+    }
+
+    /** The factor weighting generalization and suppression */
+    private static final double GS_FACTOR = 0.05d;
+
+    /** The dataset */
+    @Param({ "adult-x16", "adult-x64" })
+    public String               dataset;
+
+    /** The parameter k */
+    @Param({ "50" })
+    public int                  k;
+
+    /** The environment */
+    private BenchmarkEnvironment environment;
+
+    /** The result of global recoding */
+    private ARXResult            result;
+
+    /** The records suppressed by the global optimum */
+    private int[]                rows;
+
+    /**
+     * Anonymizes the data and collects the suppressed records
+     *
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkDataset dataset = new BenchmarkDataset(this.dataset);
+        ARXConfiguration config = ARXConfiguration.create(1d, Metric.createLossMetric(GS_FACTOR));
+        config.addPrivacyModel(new KAnonymity(k));
+        this.environment = new BenchmarkEnvironment(dataset.getData(), config, false);
+        this.result = new ARXAnonymizer().anonymize(dataset.getData(), config);
+        DataHandle output = result.getOutput();
+        this.rows = new int[output.getNumRows()];
+        int size = 0;
+        for (int row = 0; row < output.getNumRows(); row++) {
+            if (output.isOutlier(row)) {
+                rows[size++] = row;
+            }
+        }
+        this.rows = Arrays.copyOf(rows, size);
+        output.release();
+    }
+
+    /**
+     * Performs one iteration of local recoding
+     *
+     * @param output
+     * @return
+     * @throws RollbackRequiredException
+     */
+    @Benchmark
+    public ARXProcessStatistics iteration(Output output) throws RollbackRequiredException {
+        return result.optimize(output.output, GS_FACTOR);
+    }
+
+    /**
+     * Performs the setup of one iteration of local recoding
+     *
+     * @return
+     */
+    @Benchmark
+    public TransformationChecker iterationSetup() {
+        return environment.createLocalRecodingChecker(rows, GS_FACTOR, 200);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.BenchmarkEnvironment;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.deidentifier.arx.metric.InformationLossWithBound;
+import org.deidentifier.arx.metric.Metric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks evaluating the main quality models
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BenchmarkMetric {
+
+    /** The dataset */
+    @Param({ "adult", "adult-x4", "adult-x16" })
+    public String             dataset;
+
+    /** The quality model */
+    @Param({ "AECS", "Discernability", "Entropy", "Height", "Loss", "NormalizedEntropy", "Precision" })
+    public String             model;
+
+    /** The groupify operator */
+    private HashGroupify      groupify;
+
+    /** The quality model */
+    private Metric<?>         metric;
+
+    /** The transformation */
+    private Transformation<?> transformation;
+
+    /**
+     * Transforms the data
+     * 
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkDataset dataset = new BenchmarkDataset(this.dataset);
+        ARXConfiguration config = dataset.getConfiguration();
+        config.setQualityModel(getQualityModel(model));
+        BenchmarkEnvironment environment = new BenchmarkEnvironment(dataset.getData(), config, false);
+        Transformer transformer = environment.createTransformer();
+        int[] levels = environment.getMiddleTransformation();
+        this.metric = environment.getQualityModel();
+        this.groupify = environment.createGroupify(transformer);
+        this.transformation = environment.getTransformation(levels);
+        transformer.apply(0L, levels, groupify);
+        groupify.stateAnalyze(transformation, true);
+    }
+
+    /**
+     * Evaluates the quality model
+     * 
+     * @return
+     */
+    @Benchmark
+    public InformationLossWithBound<?> evaluate() {
+        return metric.getInformationLoss(transformation, groupify);
+    }
+
+    /**
+     * Returns the quality model with the given name
+     * 
+     * @param name
+     * @return
+     */
+    private static Metric<?> getQualityModel(String name) {
+        switch (name) {
+        case "AECS":
+            return Metric.createAECSMetric();
+        case "Discernability":
+            return Metric.createDiscernabilityMetric();
+        case "Entropy":
+            return Metric.createEntropyMetric();
+        case "Height":
+            return Metric.createHeightMetric();
+        case "Loss":
+            return Metric.createLossMetric();
+        case "NormalizedEntropy":
+            return Metric.createNormalizedEntropyMetric();
+        case "Precision":
+            return Metric.createPrecisionMetric();
+        default:
+            throw new IllegalArgumentException("Unknown quality model: " + name);
+        }
+    }
+}
@@ -44,6 +44,7 @@ import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.distribution.DistributionAggregateFunction;
 import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.DataMatrixStorage;
 import org.deidentifier.arx.framework.data.Dictionary;
 import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
@@ -153,6 +154,9 @@ public class ARXAnonymizer { // NO_UCD
     /** History size. */
     private int         historySize          = 200;
 
+    /** History size on disk in bytes. */
+    private long        historySizeOnDisk    = 0L;
+
     /** The listener, if any. */
     private ARXListener listener             = null;
 
@@ -165,6 +169,15 @@ public class ARXAnonymizer { // NO_UCD
     /** The maximal number of QIs that can be processed. */
     private int         maxQuasiIdentifiers  = Integer.MAX_VALUE;
 
+    /** The number of threads used for checking transformations. */
+    private int         numberOfThreads      = 1;
+
+    /** The type of storage used for the data processed by the anonymizer. */
+    private DataMatrixStorage.Type storageType = DataMatrixStorage.Type.HEAP;
+
+    /** Whether the data processed by the anonymizer is bit-packed. */
+    private boolean     bitPacking           = false;
+
 
     /**
      * Creates a new anonymizer with the default configuration.
@@ -262,6 +275,57 @@ public class ARXAnonymizer { // NO_UCD
         return maxQuasiIdentifiers;
     }
 
+    /**
+     * Returns the maximal size of the history on disk in bytes.
+     * 
+     * @return
+     */
+    public long getHistorySizeOnDisk() {
+        return historySizeOnDisk;
+    }
+
+    /**
+     * Returns the number of threads used for checking transformations.
+     * 
+     * @return
+     */
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * Returns the type of storage used for the data processed by the anonymizer.
+     * 
+     * @return
+     */
+    public DataMatrixStorage.Type getStorageType() {
+        return storageType;
+    }
+
+    /**
+     * Returns whether the data processed by the anonymizer is bit-packed.
+     * 
+     * @return
+     */
+    public boolean isBitPackingEnabled() {
+        return bitPacking;
+    }
+
+    /**
+     * Enables or disables bit-packing of the data processed by the anonymizer. When enabled,
+     * the codes of all quasi-identifiers of a record are packed into as few 32-bit words as
+     * possible, using the minimal number of bits required by the domain of each attribute.
+     * This reduces the memory requirements of the input and output buffers and speeds up
+     * hashing and comparing records, especially for many quasi-identifiers with small domains.
+     * In turn, accessing individual values is slightly more expensive. By default, bit-packing
+     * is disabled.
+     * 
+     * @param bitPacking
+     */
+    public void setBitPackingEnabled(boolean bitPacking) {
+        this.bitPacking = bitPacking;
+    }
+
     /**
      * Sets the maximum number of snapshots allowed to store in the history.
      * 
@@ -273,6 +337,19 @@ public class ARXAnonymizer { // NO_UCD
         this.historySize = historySize;
     }
 
+    /**
+     * Sets the maximal size in bytes of the second tier of the history, in which snapshots
+     * evicted from memory are kept in a temporary memory-mapped file. This keeps rollups
+     * cheap when the solution space is large. When the second tier is full, the oldest
+     * snapshots are removed. Set to 0 to disable the second tier, which is the default.
+     * 
+     * @param historySizeOnDisk
+     */
+    public void setHistorySizeOnDisk(final long historySizeOnDisk) {
+        if (historySizeOnDisk < 0) { throw new IllegalArgumentException("Size of history on disk must be positive or 0"); }
+        this.historySizeOnDisk = historySizeOnDisk;
+    }
+
     /**
      * Sets a listener.
      * 
@@ -314,6 +391,33 @@ public class ARXAnonymizer { // NO_UCD
         this.maxQuasiIdentifiers = maxQuasiIdentifiers;
     }
 
+    /**
+     * Sets the number of threads used for checking transformations. If more than one thread
+     * is used, search algorithms which are able to do so will check multiple transformations
+     * in parallel. Each thread maintains its own copy of the output buffer and its own history,
+     * which increases memory requirements accordingly. By default, one thread is used.
+     * 
+     * @param numberOfThreads
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads <= 0) { throw new IllegalArgumentException("Number of threads must be positive"); }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Sets the type of storage used for the data processed by the anonymizer. Data can be
+     * stored on the heap, off the heap or in temporary memory-mapped files. The latter two
+     * options support datasets consisting of more than 2^31-1 cells and reduce the size
+     * of the heap required. Data stored on the heap is automatically moved off the
+     * heap, if it is too large to be stored in an array. By default, data is stored on the heap.
+     * 
+     * @param storageType
+     */
+    public void setStorageType(DataMatrixStorage.Type storageType) {
+        if (storageType == null) { throw new NullPointerException("Storage type must not be null"); }
+        this.storageType = storageType;
+    }
+
     /**
      * Performs some sanity checks.
      *
@@ -725,7 +829,9 @@ public class ARXAnonymizer { // NO_UCD
                                                     dictionary,
                                                     definition,
                                                     getAggregateFunctions(definition),
-                                                    config);
+                                                    config,
+                                                    storageType,
+                                                    bitPacking);
         return manager;
     }
 
@@ -761,7 +867,9 @@ public class ARXAnonymizer { // NO_UCD
                                                                         historySize,
                                                                         snapshotSizeDataset,
                                                                         snapshotSizeSnapshot,
-                                                                        solutionSpace);
+                                                                        historySizeOnDisk,
+                                                                        solutionSpace,
+                                                                        numberOfThreads);
 
         // Create an algorithm instance
         AbstractAlgorithm algorithm = getAlgorithm(config,
@@ -789,8 +897,12 @@ public class ARXAnonymizer { // NO_UCD
      */
     protected void parse(ARXAnonymizer anonymizer) {
         this.historySize = anonymizer.historySize;
+        this.historySizeOnDisk = anonymizer.historySizeOnDisk;
         this.snapshotSizeDataset = anonymizer.snapshotSizeDataset;
         this.snapshotSizeSnapshot = anonymizer.snapshotSizeSnapshot;
         this.maxQuasiIdentifiers = anonymizer.maxQuasiIdentifiers;
+        this.numberOfThreads = anonymizer.numberOfThreads;
+        this.storageType = anonymizer.storageType;
+        this.bitPacking = anonymizer.bitPacking;
     }
 }
\ No newline at end of file
@@ -61,6 +61,8 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
     public static final int     DEFAULT_NUMBER_OF_FOLDS = 10;
     /** Default value */
     public static final int     DEFAULT_VECTOR_LENGTH   = 1000;
+    /** Default value */
+    public static final int     DEFAULT_NUMBER_OF_THREADS = 1;
 
     /** Deterministic */
     private boolean             deterministic           = DEFAULT_DETERMINISTIC;
@@ -74,6 +76,8 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
     private int                 vectorLength            = DEFAULT_VECTOR_LENGTH;
     /** Modified */
     private boolean             modified                = false;
+    /** Number of threads used for evaluating folds */
+    private int                 numberOfThreads         = DEFAULT_NUMBER_OF_THREADS;
 
     /**
      * Creates a new instance with default settings
@@ -115,6 +119,14 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         return numberOfFolds;
     }
 
+    /**
+     * Returns the number of threads used for evaluating folds
+     * @return
+     */
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
     /**
      * @return the seed
      */
@@ -155,6 +167,7 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         this.setNumFolds(config.numberOfFolds);
         this.setSeed((int)config.seed);
         this.setVectorLength(config.vectorLength);
+        this.setNumberOfThreads(config.numberOfThreads);
     }
     
     /**
@@ -208,6 +221,20 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         return (T)this;
     }
     
+    /**
+     * Sets the number of threads used for evaluating folds. Results do not depend on this setting.
+     * @param numberOfThreads
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public T setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("Must be >0");
+        }
+        this.numberOfThreads = numberOfThreads;
+        return (T)this;
+    }
+    
     /**
      * Seed for randomization. Set to Integer.MAX_VALUE for randomization.
      * @param seed the seed to set
@@ -19,6 +19,7 @@ package org.deidentifier.arx;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -336,13 +337,13 @@ public class ARXLattice implements Serializable {
         private Integer              id         = null;
 
         /** The access. */
-        private final Access         access     = new Access(this);
+        private Access               access     = null;
 
         /** Is it anonymous. */
         private Anonymity            anonymity;
 
         /** Attributes. */
-        private Map<Integer, Object> attributes = new HashMap<Integer, Object>();
+        private Map<Integer, Object> attributes = null;
 
         /** Has the node been checked. */
         private boolean              checked;
@@ -460,6 +461,9 @@ public class ARXLattice implements Serializable {
          * @return
          */
         public Access access() {
+            if (access == null) {
+                access = new Access(this);
+            }
             return access;
         }
         
@@ -485,6 +489,9 @@ public class ARXLattice implements Serializable {
          * @return
          */
         public Map<Integer, Object> getAttributes() {
+            if (attributes == null) {
+                attributes = new HashMap<Integer, Object>();
+            }
             return attributes;
         }
         
@@ -532,6 +539,9 @@ public class ARXLattice implements Serializable {
          * @return
          */
         public ARXNode[] getPredecessors() {
+            if (predecessors == null) {
+                predecessors = lattice.getNeighbors(this, false);
+            }
             return predecessors;
         }
 
@@ -554,6 +564,9 @@ public class ARXLattice implements Serializable {
          * @return
          */
         public ARXNode[] getSuccessors() {
+            if (successors == null) {
+                successors = lattice.getNeighbors(this, true);
+            }
             return successors;
         }
 
@@ -630,6 +643,22 @@ public class ARXLattice implements Serializable {
                                                                             getDeserializationContext().maxLevel);
         }
 
+        /**
+         * Serialization. Materializes relationships, which are otherwise created on demand.
+         *
+         * @param aOutputStream
+         * @throws IOException
+         */
+        private void writeObject(ObjectOutputStream aOutputStream) throws IOException {
+            
+            // Create relationships
+            getPredecessors();
+            getSuccessors();
+            
+            // Default serialization
+            aOutputStream.defaultWriteObject();
+        }
+
         /**
          * Renders this object
          * @return
@@ -693,6 +722,39 @@ public class ARXLattice implements Serializable {
         public int maxLevel = 0;
     }
 
+    /**
+     * Key for indexing nodes by transformation.
+     *
+     * @author Fabian Prasser
+     */
+    private static class TransformationKey {
+
+        /** Transformation */
+        private final int[] transformation;
+
+        /** Hashcode */
+        private final int   hashcode;
+
+        /**
+         * Creates a new instance
+         * @param transformation
+         */
+        private TransformationKey(int[] transformation) {
+            this.transformation = transformation;
+            this.hashcode = Arrays.hashCode(transformation);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return Arrays.equals(this.transformation, ((TransformationKey) other).transformation);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashcode;
+        }
+    }
+
     /** Deserialization context. */
     private static LatticeDeserializationContext deserializationContext = new LatticeDeserializationContext();
 
@@ -815,36 +877,42 @@ public class ARXLattice implements Serializable {
             levels[level] = lattice.get(level).toArray(new ARXNode[lattice.get(level).size()]);
         }
         
-        // Create relationships
-        for (int level = 0; level < levels.length - 1; level++) {
-
-            // Outer loop
-            for (ARXNode lower : levels[level]) {
-                
-                // Inner loop
-                for (ARXNode upper : levels[level + 1]) {
-                    
-                    // Check
-                    boolean relationship = true;
-                    loop: for (int i=0; i<lower.getTransformation().length; i++) {
-                        if (lower.getTransformation()[i] > upper.getTransformation()[i]) {
-                            relationship = false;
-                            break loop;
-                        }
-                    }
-                    
-                    // Connect
-                    if (relationship) {
-                        List<ARXNode> predecessors = new ArrayList<>();
-                        predecessors.addAll(Arrays.asList(upper.getPredecessors()));
-                        List<ARXNode> successors = new ArrayList<>();
-                        successors.addAll(Arrays.asList(lower.getSuccessors()));
-                        predecessors.add(lower);
-                        successors.add(upper);
-                        lower.predecessors = predecessors.toArray(new ARXNode[predecessors.size()]);
-                        lower.successors = successors.toArray(new ARXNode[successors.size()]);
-                    }
+        // Index nodes by transformation
+        Map<TransformationKey, List<ARXNode>> index = new HashMap<TransformationKey, List<ARXNode>>();
+        for (ARXNode[] level : levels) {
+            for (ARXNode node : level) {
+                TransformationKey key = new TransformationKey(node.getTransformation());
+                if (!index.containsKey(key)) {
+                    index.put(key, new ArrayList<ARXNode>());
                 }
+                index.get(key).add(node);
+            }
+        }
+        
+        // Create relationships. Nodes on adjacent levels are related, if their
+        // transformations differ by one generalization level in exactly one attribute
+        Map<ARXNode, List<ARXNode>> predecessors = new HashMap<ARXNode, List<ARXNode>>();
+        Map<ARXNode, List<ARXNode>> successors = new HashMap<ARXNode, List<ARXNode>>();
+        for (ARXNode[] level : levels) {
+            for (ARXNode node : level) {
+                predecessors.put(node, new ArrayList<ARXNode>());
+                successors.put(node, new ArrayList<ARXNode>());
+            }
+        }
+        for (ARXNode[] level : levels) {
+            for (ARXNode node : level) {
+                for (ARXNode upper : getRelatedNodes(index, node, +1)) {
+                    predecessors.get(upper).add(node);
+                }
+                for (ARXNode lower : getRelatedNodes(index, node, -1)) {
+                    successors.get(lower).add(node);
+                }
+            }
+        }
+        for (ARXNode[] level : levels) {
+            for (ARXNode node : level) {
+                node.predecessors = predecessors.get(node).toArray(new ARXNode[0]);
+                node.successors = successors.get(node).toArray(new ARXNode[0]);
             }
         }
     }
@@ -1050,9 +1118,9 @@ public class ARXLattice implements Serializable {
                     }
                 }
             }
-            node.access.setLowestScore(min);
-            node.access.setLowerBound(lowerBound);
-            node.access.setHighestScore(max);
+            node.access().setLowestScore(min);
+            node.access().setLowerBound(lowerBound);
+            node.access().setHighestScore(max);
         }
     }
 
@@ -1260,12 +1328,7 @@ public class ARXLattice implements Serializable {
             }
         }
         
-        // Create relationships
-        for (ObjectIterator<?> iterator = solutions.getMaterializedTransformations(); iterator.hasNext();) {
-            createRelationships(solutions, iterator.next());
-        }
-        createRelationships(solutions, solutions.getTop().getIdentifier());
-        createRelationships(solutions, solutions.getBottom().getIdentifier());
+        // Relationships are created on demand
     }
     
     /**
@@ -1354,9 +1417,13 @@ public class ARXLattice implements Serializable {
         center.successors = successors.toArray(new ARXNode[successors.size()]);
         center.predecessors = predecessors.toArray(new ARXNode[predecessors.size()]);
         
-        // Update predecessors
+        // Update predecessors, if their relationships have already been created
         for (ARXNode node : predecessors) {
             
+           if (node.successors == null) {
+               continue;
+           }
+           
            List<ARXNode> nodeSuccessors = new ArrayList<ARXNode>();
            nodeSuccessors.addAll(Arrays.asList(node.successors));
            int index = 0;
@@ -1372,9 +1439,13 @@ public class ARXLattice implements Serializable {
         }
         
 
-        // Update successors
+        // Update successors, if their relationships have already been created
         for (ARXNode node : successors) {
             
+           if (node.predecessors == null) {
+               continue;
+           }
+           
            List<ARXNode> nodePredecessors = new ArrayList<ARXNode>();
            nodePredecessors.addAll(Arrays.asList(node.predecessors));
            int index = 0;
@@ -1392,41 +1463,52 @@ public class ARXLattice implements Serializable {
 
 
     /**
-     * Creates all relationships
-     * @param solutions
-     * @param map
-     * @param id
+     * Returns the nodes which are related to the given node and whose transformations
+     * differ by the given offset in exactly one generalization level
+     * @param index
+     * @param node
+     * @param offset
+     * @return
      */
-    private void createRelationships(final SolutionSpace<?> solutions,
-                                     final Object id) {
-        
-        final ARXNode fnode = map.get(id);
-        final Transformation<?> transformation = solutions.getTransformation(id);
-        
-        List<ARXNode> successors = new ArrayList<ARXNode>();
-        List<ARXNode> predecessors = new ArrayList<ARXNode>();
-        
-        TransformationList<?> list1 = transformation.getSuccessors();
-        for (int i = 0; i < list1.size(); i++) {
-            ARXNode node = map.get(list1.getQuick(i));
-            if (node != null) {
-                successors.add(node);
+    private static List<ARXNode> getRelatedNodes(Map<TransformationKey, List<ARXNode>> index, ARXNode node, int offset) {
+        List<ARXNode> result = new ArrayList<ARXNode>();
+        int[] transformation = node.getTransformation().clone();
+        for (int i = 0; i < transformation.length; i++) {
+            transformation[i] += offset;
+            List<ARXNode> nodes = index.get(new TransformationKey(transformation));
+            if (nodes != null) {
+                result.addAll(nodes);
             }
+            transformation[i] -= offset;
         }
-
-        TransformationList<?> list2 = transformation.getPredecessors();
-        for (int i = 0; i < list2.size(); i++) {
-            ARXNode node = map.get(list2.getQuick(i));
-            if (node != null) {
-                predecessors.add(node);
-            }
+        return result;
+    }
+    
+    /**
+     * Creates the predecessors or successors of the given node from the solution space.
+     * Returns <code>null</code> if the solution space is not available.
+     * @param node
+     * @param successors
+     * @return
+     */
+    private ARXNode[] getNeighbors(final ARXNode node, final boolean successors) {
+        
+        if (solutions == null || map == null) {
+            return null;
         }
         
-        fnode.successors = successors.toArray(new ARXNode[successors.size()]);
-        fnode.predecessors = predecessors.toArray(new ARXNode[predecessors.size()]);
+        Transformation<?> transformation = solutions.getTransformation(node.getTransformation());
+        TransformationList<?> list = successors ? transformation.getSuccessors() : transformation.getPredecessors();
+        List<ARXNode> result = new ArrayList<ARXNode>();
+        for (int i = 0; i < list.size(); i++) {
+            ARXNode neighbor = map.get(list.getQuick(i));
+            if (neighbor != null) {
+                result.add(neighbor);
+            }
+        }
+        return result.toArray(new ARXNode[result.size()]);
     }
     
-
     /**
      * De-serialization.
      *
@@ -1498,4 +1580,24 @@ public class ARXLattice implements Serializable {
     boolean _legacySearchedWithFlash() {
         return complete == null ? true : complete;
     }
+
+    /**
+     * Returns the predecessors of the given node without storing relationships
+     * which have not been created, yet
+     * @param node
+     * @return
+     */
+    ARXNode[] getPredecessors(ARXNode node) {
+        return node.predecessors != null ? node.predecessors : getNeighbors(node, false);
+    }
+
+    /**
+     * Returns the successors of the given node without storing relationships
+     * which have not been created, yet
+     * @param node
+     * @return
+     */
+    ARXNode[] getSuccessors(ARXNode node) {
+        return node.successors != null ? node.successors : getNeighbors(node, true);
+    }
 }
@@ -19,6 +19,7 @@ package org.deidentifier.arx;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -46,6 +47,190 @@ import org.deidentifier.arx.metric.Metric;
  */
 public class ARXResult {
 
+    /**
+     * A local recoding session, which tracks the records that remain to be optimized
+     * across the iterations of the iterative local recoding methods. The remaining
+     * records are shrunk in place after each iteration, so that the output does not
+     * need to be rescanned.
+     * 
+     * @author Fabian Prasser
+     */
+    private class LocalRecodingSession {
+
+        /** The output */
+        private final DataHandleOutput output;
+
+        /** The number of baseline records */
+        private final int              baselineRecords;
+
+        /** The remaining records */
+        private final RowSet           rowset;
+
+        /** The remaining records, sorted in ascending order */
+        private int[]                  rows;
+
+        /** The number of remaining records */
+        private int                    size;
+
+        /**
+         * Creates a new session
+         * @param output
+         */
+        private LocalRecodingSession(DataHandleOutput output) {
+            
+            // Check, if input matches
+            if (output.getInputBuffer() == null || !output.getInputBuffer().equals(manager.getDataGeneralized().getArray())) {
+                throw new IllegalArgumentException("This output data is not associated to the correct input data");
+            }
+            
+            // Baseline records
+            RowSet baselineRowSet = config.getSubset() == null ? null : config.getSubset().getSet();
+            
+            // Collect row indices
+            this.output = output;
+            this.baselineRecords = baselineRowSet == null ? output.getNumRows() : baselineRowSet.size();
+            this.rowset = RowSet.create(output.getNumRows());
+            this.rows = new int[output.getNumRows()];
+            this.size = 0;
+            for (int row = 0; row < output.getNumRows(); row++) {
+                if (output.isOutlier(row) && (baselineRowSet == null || baselineRowSet.contains(row))) {
+                    this.rowset.add(row);
+                    this.rows[this.size++] = row;
+                }
+            }
+            this.rows = Arrays.copyOf(this.rows, this.size);
+        }
+
+        /**
+         * Returns whether local recoding can be applied to the remaining records
+         * @return
+         */
+        private boolean isOptimizable() {
+            
+            // Check minimal group size
+            if (config.getMinimalGroupSize() != Integer.MAX_VALUE && size < config.getMinimalGroupSize()) {
+                return false;
+            }
+            
+            // Check, if there are any outliers
+            return size != 0;
+        }
+
+        /**
+         * Optimizes the remaining records
+         * @param records
+         * @param gsFactor
+         * @param listener
+         * @return
+         * @throws RollbackRequiredException
+         */
+        private ARXProcessStatistics optimize(double records, double gsFactor, ARXListener listener) throws RollbackRequiredException {
+
+            // Prepare tracking of duration
+            long time = System.currentTimeMillis();
+            int initialRecords = baselineRecords - size;
+            
+            // Everything that is used from here on, needs to be either
+            // (a) state-less, or
+            // (b) a fresh copy of the original configuration.
+
+            // We start by creating a projected instance of the configuration
+            // - All privacy models will be cloned
+            // - Subsets will be projected accordingly
+            // - Utility measures will be cloned
+            ARXConfiguration config = ARXResult.this.config.getInstanceForLocalRecoding(rowset, gsFactor);
+            if (!Double.isNaN(records)) {
+                double absoluteRecords = records * baselineRecords;
+                double relativeRecords = absoluteRecords / (double)size;
+                relativeRecords = relativeRecords < 0d ? 0d : relativeRecords;
+                relativeRecords = relativeRecords > 1d ? 1d : relativeRecords;
+                config.setSuppressionLimit(1d - relativeRecords);
+            }
+            
+            // In the data definition, only microaggregation functions maintain a state, but these 
+            // are cloned, when cloning the definition
+            DataDefinition definition = ARXResult.this.definition.clone();
+            
+            // Project the data manager
+            DataManager manager = ARXResult.this.manager.getSubsetInstance(rows);
+            
+            // Create an anonymizer
+            ARXAnonymizer anonymizer = new ARXAnonymizer();
+            anonymizer.setListener(listener);
+            if (ARXResult.this.anonymizer != null) {
+                anonymizer.parse(ARXResult.this.anonymizer);
+            }
+            
+            // Anonymize
+            Result result = null;
+            try {
+                result = anonymizer.anonymize(manager, definition, config);
+            } catch (IOException e) {
+                // This should not happen at this point in time, as data has already been read from the source
+                throw new RuntimeException("Internal error: unexpected IO issue");
+            }
+            
+            // Break, if no solution has been found
+            if (result.optimum == null) {
+                return new ARXProcessStatistics();
+            }
+            
+            // Else, merge the results back into the given handle
+            TransformedData data = result.checker.getApplicator().applyTransformation(result.optimum, output.getOutputBufferMicroaggregated().getDictionary());
+            DataMatrix oldGeneralized = output.getOutputBufferGeneralized().getArray();
+            DataMatrix oldMicroaggregated = output.getOutputBufferMicroaggregated().getArray();
+            DataMatrix newGeneralized = data.bufferGeneralized.getArray();
+            DataMatrix newMicroaggregated = data.bufferMicroaggregated.getArray();
+            
+            try {
+                
+                int optimized = 0;
+                for (int newIndex = 0; newIndex < size; newIndex++) {
+                    int oldIndex = rows[newIndex];
+                    if (oldGeneralized != null && oldGeneralized.getNumRows() != 0) {
+                        oldGeneralized.copyFrom(oldIndex, newGeneralized, newIndex);
+                        optimized += (newGeneralized.get(newIndex, 0) & Data.OUTLIER_MASK) != 0 ? 0 : 1;
+                    }
+                    if (oldMicroaggregated != null && oldMicroaggregated.getNumRows() != 0) {
+                        oldMicroaggregated.copyFrom(oldIndex, newMicroaggregated, newIndex);
+                    }
+                }
+                
+                // Update data types
+                output.updateDataTypes(result.optimum.getGeneralization());
+                
+                // Mark as optimized
+                if (optimized != 0) {
+                    output.setOptimized(true);
+                }
+                
+                // Shrink the remaining records
+                if (optimized != 0) {
+                    int remaining = 0;
+                    for (int index = 0; index < size; index++) {
+                        int row = rows[index];
+                        if (output.isOutlier(row)) {
+                            rows[remaining++] = row;
+                        } else {
+                            rowset.remove(row);
+                        }
+                    }
+                    rows = Arrays.copyOf(rows, remaining);
+                    size = remaining;
+                }
+                
+                // Done
+                time = System.currentTimeMillis() - time;
+                return new ARXProcessStatistics(result, initialRecords, optimized, time);
+                
+            // If anything happens in the above block, the operation needs to be rolled back, because
+            // the buffer might be in an inconsistent state
+            } catch (Exception e) {
+                throw new RollbackRequiredException("Handle must be rebuilt to guarantee privacy", e);
+            }
+        }
+    }
+
     /** Anonymizer */
     private ARXAnonymizer                   anonymizer;
 
@@ -134,7 +319,9 @@ public class ARXResult {
                                               dictionary,
                                               handle.getDefinition(),
                                               getAggregateFunctions(handle.getDefinition()),
-                                              config);
+                                              config,
+                                              dataArray.getStorageType(),
+                                              false);
 
         // Update handle
         ((DataHandleInput)handle).update(manager.getDataGeneralized().getArray(), 
@@ -149,8 +336,7 @@ public class ARXResult {
         // Initialize the metric
         metric.initialize(manager, definition, manager.getDataGeneralized(), manager.getHierarchies(), config);
 
-        this.buffer = new DataMatrix(manager.getDataGeneralized().getArray().getNumRows(), 
-                                     manager.getDataGeneralized().getArray().getNumColumns());
+        this.buffer = manager.getDataGeneralized().getArray().newInstance(manager.getDataGeneralized().getArray().getNumRows());
         
         // Initialize the result
         this.registry = handle.getRegistry();
@@ -587,153 +773,16 @@ public class ARXResult {
                                              double gsFactor,
                                              ARXListener listener) throws RollbackRequiredException {
         
-        // Check if null
-        if (listener == null) {
-            throw new NullPointerException("Listener must not be null");
-        }
-        
-        // Check if null
-        if (handle == null) {
-            throw new NullPointerException("Handle must not be null");
-        }
-
-        // Check bounds
-        if (!Double.isNaN(records) && (records <= 0d || records > 1d)) {
-            throw new IllegalArgumentException("Number of records to optimize must be in ]0, 1]");
-        }
-        
-        // Check bounds
-        if (!Double.isNaN(gsFactor) && (gsFactor < 0d || gsFactor > 1d)) {
-            throw new IllegalArgumentException("Generalization/suppression factor must be in [0, 1]");
-        }
-        
-        // Check if output
-        if (!(handle instanceof DataHandleOutput)) {
-            throw new IllegalArgumentException("Local recoding can only be applied to output data");
-        }
+        // Check arguments
+        checkLocalRecoding(handle, records, gsFactor, listener);
         
         // Check if optimizable
         if (!isOptimizable(handle)) {
             return new ARXProcessStatistics();
         }
         
-        // Prepare tracking of duration
-        long time = System.currentTimeMillis();
-        
-        // Extract
-        DataHandleOutput output = (DataHandleOutput)handle;
-        
-        // Check, if input matches
-        if (output.getInputBuffer() == null || !output.getInputBuffer().equals(this.manager.getDataGeneralized().getArray())) {
-            throw new IllegalArgumentException("This output data is not associated to the correct input data");
-        }
-        
-        // Baseline records
-        RowSet baselineRowSet = config.getSubset() == null ? null : config.getSubset().getSet();
-        int baselineRecords = baselineRowSet == null ? output.getNumRows() : baselineRowSet.size();
-        
-        // We are now ready to go
-        // Collect input and row indices
-        int initialRecords = 0;
-        RowSet rowset = RowSet.create(output.getNumRows());
-        for (int row = 0; row < output.getNumRows(); row++) {
-            if (output.isOutlier(row) && (baselineRowSet == null || baselineRowSet.contains(row))) {
-                rowset.add(row);
-                initialRecords++;
-            }
-        }
-        initialRecords = baselineRecords - initialRecords;
-        
-        // Everything that is used from here on, needs to be either
-        // (a) state-less, or
-        // (b) a fresh copy of the original configuration.
-
-        // We start by creating a projected instance of the configuration
-        // - All privacy models will be cloned
-        // - Subsets will be projected accordingly
-        // - Utility measures will be cloned
-        ARXConfiguration config = this.config.getInstanceForLocalRecoding(rowset, gsFactor);
-        if (!Double.isNaN(records)) {
-            double absoluteRecords = records * baselineRecords;
-            double relativeRecords = absoluteRecords / (double)rowset.size();
-            relativeRecords = relativeRecords < 0d ? 0d : relativeRecords;
-            relativeRecords = relativeRecords > 1d ? 1d : relativeRecords;
-            config.setSuppressionLimit(1d - relativeRecords);
-        }
-        
-        // In the data definition, only microaggregation functions maintain a state, but these 
-        // are cloned, when cloning the definition
-        // TODO: This is probably not necessary, because they are used from the data manager,
-        //       which in turn creates a clone by itself
-        DataDefinition definition = this.definition.clone();
-        
-        // Clone the data manager
-        DataManager manager = this.manager.getSubsetInstance(rowset);
-        
-        // Create an anonymizer
-        ARXAnonymizer anonymizer = new ARXAnonymizer();
-        if (listener != null) {
-            anonymizer.setListener(listener);
-        }
-        if (this.anonymizer != null) {
-            anonymizer.parse(this.anonymizer);
-        }
-        
-        // Anonymize
-        Result result = null;
-        try {
-            result = anonymizer.anonymize(manager, definition, config);
-        } catch (IOException e) {
-            // This should not happen at this point in time, as data has already been read from the source
-            throw new RuntimeException("Internal error: unexpected IO issue");
-        }
-        
-        // Break, if no solution has been found
-        if (result.optimum == null) {
-            return new ARXProcessStatistics();
-        }
-        
-        // Else, merge the results back into the given handle
-        TransformedData data = result.checker.getApplicator().applyTransformation(result.optimum, output.getOutputBufferMicroaggregated().getDictionary());
-        int newIndex = -1;
-        DataMatrix oldGeneralized = output.getOutputBufferGeneralized().getArray();
-        DataMatrix oldMicroaggregated = output.getOutputBufferMicroaggregated().getArray();
-        DataMatrix newGeneralized = data.bufferGeneralized.getArray();
-        DataMatrix newMicroaggregated = data.bufferMicroaggregated.getArray();
-        
-        try {
-            
-            int optimized = 0;
-            for (int oldIndex = 0; oldIndex < rowset.length(); oldIndex++) {
-                if (rowset.contains(oldIndex)) {
-                    newIndex++;
-                    if (oldGeneralized != null && oldGeneralized.getNumRows() != 0) {
-                        oldGeneralized.copyFrom(oldIndex, newGeneralized, newIndex);
-                        optimized += (newGeneralized.get(newIndex, 0) & Data.OUTLIER_MASK) != 0 ? 0 : 1;
-                    }
-                    if (oldMicroaggregated != null && oldMicroaggregated.getNumRows() != 0) {
-                        oldMicroaggregated.copyFrom(oldIndex, newMicroaggregated, newIndex);
-                    }
-                }
-            }
-            
-            // Update data types
-            output.updateDataTypes(result.optimum.getGeneralization());
-            
-            // Mark as optimized
-            if (optimized != 0) {
-                output.setOptimized(true);
-            }
-            
-            // Done
-            time = System.currentTimeMillis() - time;
-            return new ARXProcessStatistics(result, initialRecords, optimized, time);
-            
-        // If anything happens in the above block, the operation needs to be rolled back, because
-        // the buffer might be in an inconsistent state
-        } catch (Exception e) {
-            throw new RollbackRequiredException("Handle must be rebuilt to guarantee privacy", e);
-        }
+        // Optimize
+        return new LocalRecodingSession((DataHandleOutput)handle).optimize(records, gsFactor, listener);
     }
     
     /**
@@ -807,14 +856,27 @@ public class ARXResult {
         // Statistics
         ARXProcessStatistics statistics = new ARXProcessStatistics();
 
+        // Create session, which tracks the remaining records across iterations
+        LocalRecodingSession session = null;
+        ARXListener sessionListener = new ARXListener(){
+            @Override
+            public void progress(double progress) {
+                // Empty by design
+            }
+        };
+        if (isOptimizable(handle)) {
+            checkLocalRecoding(handle, Double.NaN, gsFactor, sessionListener);
+            session = new LocalRecodingSession((DataHandleOutput)handle);
+        }
+
         // Progress
         listener.progress(0d);
         
         // Outer loop
-        while (isOptimizable(handle) && iterationsTotal < maxIterations && optimizedCurrent > 0) {
+        while (session != null && session.isOptimizable() && iterationsTotal < maxIterations && optimizedCurrent > 0) {
 
             // Perform individual optimization
-            ARXProcessStatistics _statistics = optimize(handle, gsFactor);
+            ARXProcessStatistics _statistics = session.optimize(Double.NaN, gsFactor, sessionListener);
             optimizedCurrent = 0;
             if (_statistics.isSolutationAvailable()) {
                 optimizedCurrent = _statistics.getStep(0).getNumberOfRecordsTransformed();
@@ -915,18 +977,25 @@ public class ARXResult {
         // Statistics
         ARXProcessStatistics statistics = new ARXProcessStatistics();
 
+        // Create session, which tracks the remaining records across iterations
+        LocalRecodingSession session = null;
+        if (isOptimizable(handle)) {
+            checkLocalRecoding(handle, records, gsFactor, listener);
+            session = new LocalRecodingSession((DataHandleOutput)handle);
+        }
+
         // Progress
         listener.progress(0d);
         
         // Outer loop
-        while (isOptimizable(handle) && optimizedCurrent > 0) {
+        while (session != null && session.isOptimizable() && optimizedCurrent > 0) {
 
             // Progress
             final double minProgress = (double)optimizedTotal / (double)optimizedGoal;
             final double maxProgress = minProgress + records;
             
             // Perform individual optimization
-            ARXProcessStatistics _statistics = optimizeFast(handle, records, gsFactor, new ARXListener() {
+            ARXProcessStatistics _statistics = session.optimize(records, gsFactor, new ARXListener() {
                 @Override
                 public void progress(double progress) {
                     listener.progress(minProgress + progress * (maxProgress - minProgress));
@@ -950,6 +1019,41 @@ public class ARXResult {
         return statistics;
     }
     
+    /**
+     * Checks the arguments for local recoding
+     * @param handle
+     * @param records
+     * @param gsFactor
+     * @param listener
+     */
+    private void checkLocalRecoding(DataHandle handle, double records, double gsFactor, ARXListener listener) {
+        
+        // Check if null
+        if (listener == null) {
+            throw new NullPointerException("Listener must not be null");
+        }
+        
+        // Check if null
+        if (handle == null) {
+            throw new NullPointerException("Handle must not be null");
+        }
+
+        // Check bounds
+        if (!Double.isNaN(records) && (records <= 0d || records > 1d)) {
+            throw new IllegalArgumentException("Number of records to optimize must be in ]0, 1]");
+        }
+        
+        // Check bounds
+        if (!Double.isNaN(gsFactor) && (gsFactor < 0d || gsFactor > 1d)) {
+            throw new IllegalArgumentException("Generalization/suppression factor must be in [0, 1]");
+        }
+        
+        // Check if output
+        if (!(handle instanceof DataHandleOutput)) {
+            throw new IllegalArgumentException("Local recoding can only be applied to output data");
+        }
+    }
+
     /**
      * Returns a map of all microaggregation functions
      * @param definition
@@ -29,6 +29,7 @@ import java.util.NoSuchElementException;
 import org.deidentifier.arx.io.CSVDataInput;
 import org.deidentifier.arx.io.CSVOptions;
 import org.deidentifier.arx.io.CSVSyntax;
+import org.deidentifier.arx.io.IImportEncoder;
 import org.deidentifier.arx.io.ImportAdapter;
 import org.deidentifier.arx.io.ImportConfiguration;
 
@@ -117,6 +118,84 @@ public abstract class Data { // NO_UCD
 
     }
 
+    /**
+     * A data object for sources, which are encoded on the fly while being read.
+     *
+     * @author Fabian Prasser
+     */
+    static class EncodedData extends Data {
+
+        /** The input, released after encoding. */
+        private IImportEncoder                           input;
+
+        /** The encoded data. */
+        private org.deidentifier.arx.framework.data.Data data;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param input the input
+         */
+        private EncodedData(final IImportEncoder input) {
+            this.input = input;
+        }
+
+        /**
+         * Parses and encodes the data, if this has not been done before.
+         * 
+         * @return the encoded data, null if there is no header
+         */
+        protected org.deidentifier.arx.framework.data.Data encode() {
+            if (input != null) {
+                try {
+                    data = input.encode();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                input = null;
+            }
+            return data;
+        }
+
+        @Override
+        protected Iterator<String[]> iterator() {
+            final org.deidentifier.arx.framework.data.Data data = encode();
+            return new Iterator<String[]>() {
+
+                private int row = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return data != null && row < data.getDataLength();
+                }
+
+                @Override
+                public String[] next() throws NoSuchElementException {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    String[] result;
+                    if (row == -1) {
+                        result = data.getHeader().clone();
+                    } else {
+                        String[][] mapping = data.getDictionary().getMapping();
+                        result = new String[mapping.length];
+                        for (int column = 0; column < result.length; column++) {
+                            result[column] = mapping[column][data.getArray().get(row, column)];
+                        }
+                    }
+                    row++;
+                    return result;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
     /**
      * A data object for iterators.
      *
@@ -182,6 +261,13 @@ public abstract class Data { // NO_UCD
 
         ImportConfiguration config = source.getConfiguration();
         ImportAdapter adapter = ImportAdapter.create(config);
+        
+        // Encode directly, if possible
+        if (adapter instanceof IImportEncoder) {
+            Data result = new EncodedData((IImportEncoder) adapter);
+            result.getDefinition().parse(adapter);
+            return result;
+        }
         return create(adapter, adapter.getLength());
     }
 
@@ -193,7 +279,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset).iterator());
+        return new EncodedData(new CSVDataInput(file, charset));
     }
 
     /**
@@ -205,7 +291,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter).iterator());
+        return new EncodedData(new CSVDataInput(file, charset, delimiter));
     }
 
     /**
@@ -218,7 +304,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter, final char quote) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter, quote).iterator());
+        return new EncodedData(new CSVDataInput(file, charset, delimiter, quote));
     }
 
     /**
@@ -232,7 +318,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter, final char quote, final char escape) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter, quote, escape).iterator());
+        return new EncodedData(new CSVDataInput(file, charset, delimiter, quote, escape));
     }
 
     /**
@@ -247,7 +333,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter, final char quote, final char escape, final char[] linebreak) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter, quote, escape, linebreak).iterator());
+        return new EncodedData(new CSVDataInput(file, charset, delimiter, quote, escape, linebreak));
     }
 
     /**
@@ -259,7 +345,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final CSVSyntax config) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, config).iterator());
+        return new EncodedData(new CSVDataInput(file, charset, config));
     }
 
     /**
@@ -272,7 +358,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final CSVSyntax config, final CSVOptions options) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, config, options).iterator());
+        return new EncodedData(new CSVDataInput(file, charset, config, options));
     }
 
     /**
@@ -285,7 +371,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final CSVSyntax config, final DataType<?>[] datatypes) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, config, datatypes).iterator());
+        return new EncodedData(new CSVDataInput(file, charset, config, datatypes));
     }
     /**
      * Creates a new data object from a CSV file. Assumes that the file contains a header.
@@ -295,7 +381,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset).iterator());
+        return new EncodedData(new CSVDataInput(stream, charset));
     }
 
     /**
@@ -307,7 +393,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter).iterator());
+        return new EncodedData(new CSVDataInput(stream, charset, delimiter));
     }
 
     /**
@@ -333,7 +419,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter, final char quote) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote).iterator());
+        return new EncodedData(new CSVDataInput(stream, charset, delimiter, quote));
     }
 
     /**
@@ -347,7 +433,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter, final char quote, final char escape) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote, escape).iterator());
+        return new EncodedData(new CSVDataInput(stream, charset, delimiter, quote, escape));
     }
 
     /**
@@ -362,7 +448,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter, final char quote, final char escape, final char[] linebreak) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote, escape, linebreak).iterator());
+        return new EncodedData(new CSVDataInput(stream, charset, delimiter, quote, escape, linebreak));
     }
 
     /**
@@ -374,7 +460,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final CSVSyntax config) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, config).iterator());
+        return new EncodedData(new CSVDataInput(stream, charset, config));
     }
 
     /**
@@ -387,7 +473,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final CSVSyntax config, final DataType<?>[] datatypes) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, config, datatypes).iterator());
+        return new EncodedData(new CSVDataInput(stream, charset, config, datatypes));
     }
 
     /**
@@ -461,7 +547,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset).iterator());
+        return new EncodedData(new CSVDataInput(path, charset));
     }
 
     /**
@@ -473,7 +559,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter).iterator());
+        return new EncodedData(new CSVDataInput(path, charset, delimiter));
     }
 
     /**
@@ -486,7 +572,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter, final char quote) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter, quote).iterator());
+        return new EncodedData(new CSVDataInput(path, charset, delimiter, quote));
     }
 
     /**
@@ -500,7 +586,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter, final char quote, final char escape) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter, quote, escape).iterator());
+        return new EncodedData(new CSVDataInput(path, charset, delimiter, quote, escape));
     }
 
     /**
@@ -515,7 +601,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter, final char quote, final char escape, final char[] linebreak) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter, quote, escape, linebreak).iterator());
+        return new EncodedData(new CSVDataInput(path, charset, delimiter, quote, escape, linebreak));
     }
 
     /**
@@ -528,7 +614,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final CSVSyntax config, final CSVOptions options) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, config, options).iterator());
+        return new EncodedData(new CSVDataInput(path, charset, config, options));
     }
 
     /**
@@ -541,7 +627,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final CSVSyntax config, final DataType<?>[] datatypes) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, config, datatypes).iterator());
+        return new EncodedData(new CSVDataInput(path, charset, config, datatypes));
     }
 
     /**
@@ -20,6 +20,7 @@ package org.deidentifier.arx;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -45,6 +46,7 @@ import org.deidentifier.arx.DataType.DataTypeDescription;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
 import org.deidentifier.arx.certificate.elements.ElementData;
 import org.deidentifier.arx.io.CSVDataOutput;
+import org.deidentifier.arx.io.CSVEncodedDataOutput;
 import org.deidentifier.arx.io.CSVSyntax;
 import org.deidentifier.arx.risk.RiskEstimateBuilder;
 import org.deidentifier.arx.risk.RiskModelHistogram;
@@ -182,6 +184,71 @@ public abstract class DataHandle {
         }
     }
 
+    /**
+     * Returns the dictionary of the given column. The codes returned by
+     * {@link #getEncodedValues(int)} are indices into this array. The result is a copy.
+     *
+     * @param column the column
+     * @return the dictionary
+     */
+    public String[] getEncodedDictionary(int column) {
+        checkReleased();
+        checkColumn(column);
+        return internalGetEncodedDictionary(column).clone();
+    }
+
+    /**
+     * Returns the codes of all values in the given column. Codes can be decoded
+     * with the dictionary returned by {@link #getEncodedDictionary(int)}.
+     *
+     * @param column the column
+     * @return the codes
+     */
+    public int[] getEncodedValues(int column) {
+        int[] result = new int[getNumRows()];
+        getEncodedValues(column, result);
+        return result;
+    }
+
+    /**
+     * Writes the codes of all values in the given column into the given buffer, which
+     * must provide space for at least {@link #getNumRows()} elements. Codes can be decoded
+     * with the dictionary returned by {@link #getEncodedDictionary(int)}.
+     *
+     * @param column the column
+     * @param buffer the buffer
+     */
+    public void getEncodedValues(int column, int[] buffer) {
+        checkReleased();
+        checkColumn(column);
+        if (buffer.length < getNumRows()) {
+            throw new IllegalArgumentException("Buffer too small: " + buffer.length + " < " + getNumRows());
+        }
+        internalGetEncodedValues(column, null, 0, getNumRows(), buffer);
+    }
+
+    /**
+     * Writes the codes of the values in the given range of rows of the given column into
+     * the given buffer, which must provide space for at least <code>toRow - fromRow</code>
+     * elements. Codes can be decoded with the dictionary returned by {@link #getEncodedDictionary(int)}.
+     *
+     * @param column the column
+     * @param fromRow the first row, inclusive
+     * @param toRow the last row, exclusive
+     * @param buffer the buffer
+     */
+    public void getEncodedValues(int column, int fromRow, int toRow, int[] buffer) {
+        checkReleased();
+        checkColumn(column);
+        if (fromRow < 0 || toRow > getNumRows() || fromRow > toRow) {
+            throw new IndexOutOfBoundsException("Row range (" + fromRow + ", " + toRow + ") out of range (0 <= row <= " + getNumRows() + ")");
+        }
+        if (buffer.length < toRow - fromRow) {
+            throw new IllegalArgumentException("Buffer too small: " + buffer.length + " < " + (toRow - fromRow));
+        }
+        internalGetEncodedValues(column, null, fromRow, toRow, buffer);
+    }
+
     /**
      * Returns a float value from the specified cell.
      *
@@ -461,6 +528,23 @@ public abstract class DataHandle {
      */
     public abstract int getNumRows();
 
+    /**
+     * Returns the set of rows which are outliers in the currently associated
+     * data transformation.
+     *
+     * @return the outliers
+     */
+    public RowSet getOutliers() {
+        checkReleased();
+        RowSet result = RowSet.create(getNumRows());
+        for (int row = 0; row < getNumRows(); row++) {
+            if (isOutlier(row)) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns a risk estimator, using the US population if required
      * @return
@@ -668,9 +752,7 @@ public abstract class DataHandle {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public void save(final File file) throws IOException {
-        checkReleased();
-        final CSVDataOutput output = new CSVDataOutput(file);
-        output.write(iterator());
+        save(file, new CSVSyntax(), Charset.defaultCharset());
     }
 
     /**
@@ -681,9 +763,7 @@ public abstract class DataHandle {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public void save(final File file, final char separator) throws IOException {
-        checkReleased();
-        final CSVDataOutput output = new CSVDataOutput(file, separator);
-        output.write(iterator());
+        save(file, new CSVSyntax(separator), Charset.defaultCharset());
     }
 
     /**
@@ -694,9 +774,36 @@ public abstract class DataHandle {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public void save(final File file, final CSVSyntax config) throws IOException {
+        save(file, config, Charset.defaultCharset());
+    }
+
+    /**
+     * Writes the data to a CSV file.
+     *
+     * @param file the file
+     * @param config the config
+     * @param charset the charset
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void save(final File file, final CSVSyntax config, final Charset charset) throws IOException {
         checkReleased();
-        final CSVDataOutput output = new CSVDataOutput(file, config);
-        output.write(iterator());
+        final CSVEncodedDataOutput output = new CSVEncodedDataOutput(file, config, charset);
+        output.write(this);
+    }
+
+    /**
+     * Writes the data to several CSV files in parallel. The data is partitioned into
+     * consecutive ranges of rows, one per file, and each file contains the header.
+     *
+     * @param files the files
+     * @param config the config
+     * @param charset the charset
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void save(final File[] files, final CSVSyntax config, final Charset charset) throws IOException {
+        checkReleased();
+        final CSVEncodedDataOutput output = new CSVEncodedDataOutput(files, config, charset);
+        output.write(this);
     }
 
     /**
@@ -744,9 +851,7 @@ public abstract class DataHandle {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public void save(final String path) throws IOException {
-        checkReleased();
-        final CSVDataOutput output = new CSVDataOutput(path);
-        output.write(iterator());
+        save(new File(path), new CSVSyntax(), Charset.defaultCharset());
     }
 
     /**
@@ -757,9 +862,7 @@ public abstract class DataHandle {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public void save(final String path, final char separator) throws IOException {
-        checkReleased();
-        final CSVDataOutput output = new CSVDataOutput(path, separator);
-        output.write(iterator());
+        save(new File(path), new CSVSyntax(separator), Charset.defaultCharset());
     }
 
     /**
@@ -770,9 +873,7 @@ public abstract class DataHandle {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public void save(final String path, final CSVSyntax config) throws IOException {
-        checkReleased();
-        final CSVDataOutput output = new CSVDataOutput(path, config);
-        output.write(iterator());
+        save(new File(path), config, Charset.defaultCharset());
     }
 
     /**
@@ -988,6 +1089,26 @@ public abstract class DataHandle {
         }
     }
 
+    /**
+     * Returns the dictionary used for encoding the given column in bulk.
+     *
+     * @param column the column
+     * @return the dictionary, must not be modified
+     */
+    protected abstract String[] internalGetEncodedDictionary(int column);
+
+    /**
+     * Writes the codes of the given column into the buffer in bulk. Codes refer
+     * to {@link #internalGetEncodedDictionary(int)}.
+     *
+     * @param column the column
+     * @param rows the rows to read from, null to read the range of rows in order
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @param buffer the buffer
+     */
+    protected abstract void internalGetEncodedValues(int column, int[] rows, int from, int to, int[] buffer);
+
     /**
      * Internal representation of get encoded value. Returns -1 for suppressed values.
      *
@@ -23,6 +23,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import org.deidentifier.arx.Data.EncodedData;
 import org.deidentifier.arx.DataHandleInternal.InterruptHandler;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
 import org.deidentifier.arx.framework.data.DataMatrix;
@@ -57,6 +58,9 @@ public class DataHandleInput extends DataHandle {
     /** Stores the set of rows which are suppressed */
     private RowSet       suppressionRecords = null;
 
+    /** The number of times rows have been swapped or values have been replaced */
+    private long         modifications      = 0L;
+
     /**
      * Creates a new data handle.
      *
@@ -64,6 +68,23 @@ public class DataHandleInput extends DataHandle {
      */
     protected DataHandleInput(final Data data) {
         
+        // Use data which has been encoded while parsing
+        if (data instanceof EncodedData) {
+            org.deidentifier.arx.framework.data.Data encoded = ((EncodedData) data).encode();
+            if (encoded == null) {
+                throw new IllegalArgumentException("Data object is empty!"); 
+            }
+            this.setRegistry(new DataRegistry());
+            this.getRegistry().updateInput(this);
+            this.definition = data.getDefinition().clone();
+            String[] columns = encoded.getHeader();
+            super.setHeader(Arrays.copyOf(columns, columns.length));
+            this.dictionary = encoded.getDictionary();
+            this.data = encoded.getArray();
+            this.columnToDataType = getColumnToDataType();
+            return;
+        }
+        
         // Obtain and check iterator
         Iterator<String[]> iterator = data.iterator();
         if (!iterator.hasNext()) { 
@@ -310,6 +331,15 @@ public class DataHandleInput extends DataHandle {
         return vals;
     }
     
+    /**
+     * Returns the number of times rows have been swapped or values have been replaced.
+     * Can be used to detect whether results derived from this handle are outdated.
+     * @return
+     */
+    protected long getModifications() {
+        return this.modifications;
+    }
+    
     /**
      * Returns the input buffer
      * @return
@@ -330,6 +360,24 @@ public class DataHandleInput extends DataHandle {
         return -1;
     }
 
+    @Override
+    protected String[] internalGetEncodedDictionary(int column) {
+        return dictionary.getMapping()[column];
+    }
+
+    @Override
+    protected void internalGetEncodedValues(int column, int[] rows, int from, int to, int[] buffer) {
+        if (rows == null) {
+            for (int row = from; row < to; row++) {
+                buffer[row - from] = data.get(row, column);
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                buffer[i - from] = data.get(rows[i], column);
+            }
+        }
+    }
+
     @Override
     protected int internalGetEncodedValue(final int row, final int column, final boolean ignoreSuppression) {
         return data.get(row, column);
@@ -388,6 +436,9 @@ public class DataHandleInput extends DataHandle {
                 found = true;
             }
         }
+        if (found) {
+            modifications++;
+        }
         return found;
     }
 
@@ -404,6 +455,7 @@ public class DataHandleInput extends DataHandle {
         checkRow(row2, data.getNumRows());
 
         // Swap
+        modifications++;
         data.swap(row1, row2);
         if (dataGeneralized != null) dataGeneralized.swap(row1, row2);
         if (dataAnalyzed != null) dataAnalyzed.swap(row1, row2);
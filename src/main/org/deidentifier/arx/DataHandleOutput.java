@@ -22,6 +22,7 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -570,6 +571,52 @@ public class DataHandleOutput extends DataHandle {
         return 0;
     }
 
+    /**
+     * Returns the dictionary of the column, extended by a code for suppressed values,
+     * which is the last code.
+     */
+    @Override
+    protected String[] internalGetEncodedDictionary(int column) {
+        
+        // Identifying values
+        Data data = columnToData[column];
+        if (data == null) {
+            return new String[] { DataType.ANY_VALUE };
+        }
+        
+        // Other values
+        String[] mapping = data.getDictionary().getMapping()[columnToIndex[column]];
+        String[] result = Arrays.copyOf(mapping, mapping.length + 1);
+        result[mapping.length] = DataType.ANY_VALUE;
+        return result;
+    }
+
+    @Override
+    protected void internalGetEncodedValues(int column, int[] rows, int from, int to, int[] buffer) {
+        
+        // Identifying values
+        Data data = columnToData[column];
+        if (data == null) {
+            Arrays.fill(buffer, 0, to - from, 0);
+            return;
+        }
+        
+        // Other values
+        int index = columnToIndex[column];
+        int suppressed = data.getDictionary().getMapping()[index].length;
+        boolean suppression = columnToSuppressionStatus[column];
+        DataMatrix values = data.getArray();
+        DataMatrix outliers = dataGeneralized.getArray();
+        for (int i = from; i < to; i++) {
+            int row = rows == null ? i : rows[i];
+            if (suppression && (outliers.get(row, 0) & Data.OUTLIER_MASK) != 0) {
+                buffer[i - from] = suppressed;
+            } else {
+                buffer[i - from] = values.get(row, index) & Data.REMOVE_OUTLIER_MASK;
+            }
+        }
+    }
+
     @Override
     protected int internalGetEncodedValue(final int row,
                                           final int col,
@@ -210,6 +210,25 @@ public class DataHandleSubset extends DataHandle {
         return source.internalCompare(this.subset.getArray()[row1], this.subset.getArray()[row2], columns, ascending);
     }
     
+    @Override
+    protected String[] internalGetEncodedDictionary(int column) {
+        return source.internalGetEncodedDictionary(column);
+    }
+
+    @Override
+    protected void internalGetEncodedValues(int column, int[] rows, int from, int to, int[] buffer) {
+        int[] subset = this.subset.getArray();
+        if (rows != null) {
+            int[] mapped = new int[to - from];
+            for (int i = from; i < to; i++) {
+                mapped[i - from] = subset[rows[i]];
+            }
+            source.internalGetEncodedValues(column, mapped, 0, mapped.length, buffer);
+        } else {
+            source.internalGetEncodedValues(column, subset, from, to, buffer);
+        }
+    }
+
     @Override
     protected int internalGetEncodedValue(int row, int col, boolean ignoreSuppression) {
         return source.internalGetEncodedValue(this.subset.getArray()[row], col, ignoreSuppression);
@@ -18,8 +18,10 @@
 package org.deidentifier.arx;
 
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.deidentifier.arx.DataType.ARXDate;
@@ -31,7 +33,10 @@ import de.linearbits.objectselector.SelectorBuilder;
 import de.linearbits.objectselector.datatypes.DataType;
 
 /**
- * A selector for tuples.
+ * A selector for tuples. When built, the expression is compiled into one predicate per
+ * column, which is evaluated once for each value in the column's dictionary. The resulting
+ * sets of rows are then combined word by word. They are determined again, if rows of the
+ * input have been swapped, e.g. by sorting, or values have been replaced.
  *
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -98,6 +103,76 @@ public class DataSelector { // NO_UCD
             return true;
         }
 
+        /**
+         * Returns the number of modifications of the handle.
+         *
+         * @return
+         */
+        private long getModifications() {
+            return handle instanceof DataHandleInput ? ((DataHandleInput) handle).getModifications() : 0L;
+        }
+
+        /**
+         * Evaluates the given predicate and returns the set of matching rows
+         * 
+         * @param token
+         * @return
+         * @throws ParseException 
+         */
+        private RowSet evaluate(Token token) throws ParseException {
+            
+            // Evaluate predicate for each value in the dictionary
+            int column = indices.get(token.field);
+            final DataType<?> type = types.get(token.field);
+            final String[] dictionary = handle.getEncodedDictionary(column);
+            Selector<Integer> predicate = token.append(new SelectorBuilder<Integer>(new IAccessor<Integer>() {
+                
+                @Override
+                public boolean exists(String arg0) {
+                    return true;
+                }
+
+                @Override
+                public DataType<?> getType(String arg0) {
+                    return type;
+                }
+
+                @Override
+                public Object getValue(Integer arg0, String arg1) {
+                    return type.fromString(dictionary[arg0]);
+                }
+
+                @Override
+                public boolean isDataTypesSupported() {
+                    return true;
+                }
+
+                @Override
+                public boolean isExistanceSupported() {
+                    return true;
+                }
+            })).build();
+            boolean[] selected = new boolean[dictionary.length];
+            for (int code = 0; code < dictionary.length; code++) {
+                selected[code] = predicate.isSelected(code);
+            }
+            
+            // Collect rows
+            int rows = handle.getNumRows();
+            RowSet result = RowSet.create(rows);
+            int[] buffer = new int[Math.min(rows, 65536)];
+            for (int offset = 0; offset < rows; offset += buffer.length) {
+                int length = Math.min(buffer.length, rows - offset);
+                handle.getEncodedValues(column, offset, offset + length, buffer);
+                for (int i = 0; i < length; i++) {
+                    if (selected[buffer[i]]) {
+                        result.add(offset + i);
+                    }
+                }
+            }
+            return result;
+        }
+
         /**
          * Returns the indices.
          *
@@ -138,6 +213,318 @@ public class DataSelector { // NO_UCD
             return result;
         }        
     }
+
+    /**
+     * A builder, which records the expression for compilation.
+     *
+     * @author Fabian Prasser
+     */
+    private class DataSelectorBuilder extends SelectorBuilder<Integer> {
+
+        /** The current field */
+        private String field;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param accessor
+         */
+        private DataSelectorBuilder(DataAccessor accessor) {
+            super(accessor);
+        }
+
+        /**
+         * Creates a new instance.
+         *
+         * @param accessor
+         * @param query
+         * @throws ParseException
+         */
+        private DataSelectorBuilder(DataAccessor accessor, String query) throws ParseException {
+            super(accessor, query);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> and() {
+            tokens.add(new Token(TokenType.AND, null, null, null));
+            return super.and();
+        }
+
+        @Override
+        public SelectorBuilder<Integer> begin() {
+            tokens.add(new Token(TokenType.BEGIN, null, null, null));
+            return super.begin();
+        }
+
+        @Override
+        public SelectorBuilder<Integer> end() {
+            tokens.add(new Token(TokenType.END, null, null, null));
+            return super.end();
+        }
+
+        @Override
+        public SelectorBuilder<Integer> equals(Boolean val) {
+            compilable = false;
+            return super.equals(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> equals(Date val) {
+            predicate(Operator.EQUALS, val);
+            return super.equals(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> equals(double val) {
+            predicate(Operator.EQUALS, val);
+            return super.equals(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> equals(String val) {
+            predicate(Operator.EQUALS, val);
+            return super.equals(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> field(String name) {
+            this.field = name;
+            return super.field(name);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> geq(Boolean val) {
+            compilable = false;
+            return super.geq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> geq(Date val) {
+            predicate(Operator.GEQ, val);
+            return super.geq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> geq(double val) {
+            predicate(Operator.GEQ, val);
+            return super.geq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> geq(String val) {
+            predicate(Operator.GEQ, val);
+            return super.geq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> greater(Boolean val) {
+            compilable = false;
+            return super.greater(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> greater(Date val) {
+            predicate(Operator.GREATER, val);
+            return super.greater(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> greater(double val) {
+            predicate(Operator.GREATER, val);
+            return super.greater(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> greater(String val) {
+            predicate(Operator.GREATER, val);
+            return super.greater(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> leq(Boolean val) {
+            compilable = false;
+            return super.leq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> leq(Date val) {
+            predicate(Operator.LEQ, val);
+            return super.leq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> leq(double val) {
+            predicate(Operator.LEQ, val);
+            return super.leq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> leq(String val) {
+            predicate(Operator.LEQ, val);
+            return super.leq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> less(Boolean val) {
+            compilable = false;
+            return super.less(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> less(Date val) {
+            predicate(Operator.LESS, val);
+            return super.less(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> less(double val) {
+            predicate(Operator.LESS, val);
+            return super.less(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> less(String val) {
+            predicate(Operator.LESS, val);
+            return super.less(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> matches(String val) {
+            compilable = false;
+            return super.matches(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> neq(Boolean val) {
+            compilable = false;
+            return super.neq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> neq(Date val) {
+            predicate(Operator.NEQ, val);
+            return super.neq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> neq(double val) {
+            predicate(Operator.NEQ, val);
+            return super.neq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> neq(String val) {
+            predicate(Operator.NEQ, val);
+            return super.neq(val);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> or() {
+            tokens.add(new Token(TokenType.OR, null, null, null));
+            return super.or();
+        }
+
+        /**
+         * Records a predicate
+         * @param operator
+         * @param value
+         */
+        private void predicate(Operator operator, Object value) {
+            tokens.add(new Token(TokenType.PREDICATE, field, operator, value));
+        }
+    }
+
+    /**
+     * Comparison operators.
+     *
+     * @author Fabian Prasser
+     */
+    private static enum Operator {
+        EQUALS, NEQ, GEQ, GREATER, LEQ, LESS
+    }
+
+    /**
+     * An element of a recorded expression.
+     *
+     * @author Fabian Prasser
+     */
+    private static class Token {
+
+        /** The type */
+        private final TokenType type;
+
+        /** The field, if predicate */
+        private final String    field;
+
+        /** The operator, if predicate */
+        private final Operator  operator;
+
+        /** The value, if predicate */
+        private final Object    value;
+
+        /**
+         * Creates a new instance
+         * @param type
+         * @param field
+         * @param operator
+         * @param value
+         */
+        private Token(TokenType type, String field, Operator operator, Object value) {
+            this.type = type;
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        /**
+         * Appends this predicate to the given builder
+         * @param builder
+         * @return
+         */
+        private SelectorBuilder<Integer> append(SelectorBuilder<Integer> builder) {
+            builder.field(field);
+            if (value instanceof Double) {
+                double val = (Double) value;
+                switch (operator) {
+                case EQUALS:  return builder.equals(val);
+                case NEQ:     return builder.neq(val);
+                case GEQ:     return builder.geq(val);
+                case GREATER: return builder.greater(val);
+                case LEQ:     return builder.leq(val);
+                default:      return builder.less(val);
+                }
+            } else if (value instanceof Date) {
+                Date val = (Date) value;
+                switch (operator) {
+                case EQUALS:  return builder.equals(val);
+                case NEQ:     return builder.neq(val);
+                case GEQ:     return builder.geq(val);
+                case GREATER: return builder.greater(val);
+                case LEQ:     return builder.leq(val);
+                default:      return builder.less(val);
+                }
+            } else {
+                String val = (String) value;
+                switch (operator) {
+                case EQUALS:  return builder.equals(val);
+                case NEQ:     return builder.neq(val);
+                case GEQ:     return builder.geq(val);
+                case GREATER: return builder.greater(val);
+                case LEQ:     return builder.leq(val);
+                default:      return builder.less(val);
+                }
+            }
+        }
+    }
+
+    /**
+     * Types of elements of recorded expressions.
+     *
+     * @author Fabian Prasser
+     */
+    private static enum TokenType {
+        AND, OR, BEGIN, END, PREDICATE
+    }
     
     /**
      * 
@@ -161,11 +548,26 @@ public class DataSelector { // NO_UCD
         return new DataSelector(data, query);
     }
    
+    /** The recorded expression. */
+    private final List<Token>              tokens     = new ArrayList<Token>();
+
+    /** Whether the recorded expression can be compiled. */
+    private boolean                        compilable = true;
+
+    /** The accessor. */
+    private final DataAccessor             accessor;
+
     /** The builder. */
     private final SelectorBuilder<Integer> builder;
 
     /** The selector. */
-    private Selector<Integer> selector = null;
+    private Selector<Integer>              selector   = null;
+
+    /** The selected rows, if the expression has been compiled. */
+    private RowSet                         selected   = null;
+
+    /** The number of modifications of the handle when the selected rows have been determined. */
+    private long                           selectedModifications;
 
     /**
      * 
@@ -173,7 +575,8 @@ public class DataSelector { // NO_UCD
      * @param data
      */
     private DataSelector(Data data){
-        this.builder = new SelectorBuilder<Integer>(new DataAccessor(data)); 
+        this.accessor = new DataAccessor(data);
+        this.builder = new DataSelectorBuilder(accessor); 
     }
 
     /**
@@ -184,7 +587,8 @@ public class DataSelector { // NO_UCD
      * @throws ParseException
      */
     private DataSelector(Data data, String query) throws ParseException {
-        this.builder = new SelectorBuilder<Integer>(new DataAccessor(data), query);
+        this.accessor = new DataAccessor(data);
+        this.builder = new DataSelectorBuilder(accessor, query);
     }
     
     /**
@@ -214,6 +618,10 @@ public class DataSelector { // NO_UCD
      */
     public void build() throws ParseException{
         this.selector = this.builder.build();
+        this.selected = null;
+        if (this.compilable) {
+            compile();
+        }
     }
     
     /**
@@ -336,6 +744,33 @@ public class DataSelector { // NO_UCD
         return this;
     }
     
+    /**
+     * Returns the set of selected rows.
+     *
+     * @return
+     */
+    RowSet getSelectedRows() {
+        if (selector == null) {
+            try {
+                build();
+            } catch (ParseException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        RowSet selected = getCompiledRows();
+        if (selected != null) {
+            return selected.clone();
+        }
+        int rows = accessor.handle.getNumRows();
+        RowSet result = RowSet.create(rows);
+        for (int row = 0; row < rows; row++) {
+            if (selector.isSelected(row)) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+    
     /**
      * Determines whether the given row is selected by the expression.
      *
@@ -350,7 +785,25 @@ public class DataSelector { // NO_UCD
                 throw new RuntimeException(e);
             }
         }
-        return selector.isSelected(row);
+        RowSet selected = getCompiledRows();
+        return selected != null ? selected.contains(row) : selector.isSelected(row);
+    }
+
+    /**
+     * Returns whether the expression has been compiled into sets of rows. Otherwise, it is
+     * evaluated for each row.
+     *
+     * @return
+     */
+    public boolean isCompiled() {
+        if (selector == null) {
+            try {
+                build();
+            } catch (ParseException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return selected != null;
     }
 
     /* **************************************
@@ -437,4 +890,85 @@ public class DataSelector { // NO_UCD
         this.builder.or();
         return this;
     }
+
+    /**
+     * Compiles the expression into the set of selected rows. Falls back to evaluating
+     * the expression for each row, if this fails.
+     */
+    private void compile() {
+        try {
+            this.selectedModifications = accessor.getModifications();
+            this.selected = evaluate(0, tokens.size());
+        } catch (Exception e) {
+            this.selected = null;
+        }
+    }
+
+    /**
+     * Returns the compiled set of selected rows, <code>null</code> if the expression has not
+     * been compiled. The set is compiled again, if rows of the handle have been swapped or
+     * values have been replaced since it has been determined.
+     * 
+     * @return
+     */
+    private RowSet getCompiledRows() {
+        if (selected != null && selectedModifications != accessor.getModifications()) {
+            compile();
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the length of the operand starting at the given offset.
+     * 
+     * @param offset
+     * @return
+     * @throws ParseException
+     */
+    private int find(int offset) throws ParseException {
+        switch (tokens.get(offset).type) {
+        case PREDICATE:
+            return 1;
+        case BEGIN:
+            int level = 0;
+            for (int index = offset; index < tokens.size(); index++) {
+                TokenType type = tokens.get(index).type;
+                level += type == TokenType.BEGIN ? 1 : (type == TokenType.END ? -1 : 0);
+                if (level == 0) {
+                    return index - offset + 1;
+                }
+            }
+            throw new ParseException("Missing closing parentheses", offset);
+        default:
+            throw new ParseException("Invalid expression", offset);
+        }
+    }
+
+    /**
+     * Evaluates the given part of the recorded expression. Binary operators are
+     * evaluated from right to left, as is done by the selector
+     * 
+     * @param offset
+     * @param length
+     * @return
+     * @throws ParseException
+     */
+    private RowSet evaluate(int offset, int length) throws ParseException {
+        
+        // Operand
+        int operand = find(offset);
+        if (operand == length) {
+            return length == 1 ? accessor.evaluate(tokens.get(offset)) : evaluate(offset + 1, length - 2);
+        }
+        
+        // Binary operator
+        RowSet left = evaluate(offset, operand);
+        RowSet right = evaluate(offset + operand + 1, length - operand - 1);
+        if (tokens.get(offset + operand).type == TokenType.AND) {
+            left.and(right);
+        } else {
+            left.or(right);
+        }
+        return left;
+    }
 }
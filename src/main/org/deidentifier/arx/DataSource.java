@@ -332,6 +332,35 @@ public class DataSource { // NO_UCD
         }
     }
     
+    /**
+     * Sets the number of rows fetched at once from JDBC sources. 0 means that the
+     * default of the driver is used.
+     *
+     * @param fetchSize
+     */
+    public void setFetchSize(int fetchSize) {
+        if (config instanceof ImportConfigurationJDBC) {
+            ((ImportConfigurationJDBC) config).setFetchSize(fetchSize);
+        } else {
+            throw new IllegalArgumentException("Only supported for JDBC sources");
+        }
+    }
+    
+    /**
+     * Enables parallel reads from JDBC sources. The table will be split into ranges
+     * of the given numeric column, which are read by the given number of threads.
+     *
+     * @param column
+     * @param threads
+     */
+    public void setPartitioning(String column, int threads) {
+        if (config instanceof ImportConfigurationJDBC) {
+            ((ImportConfigurationJDBC) config).setPartitioning(column, threads);
+        } else {
+            throw new IllegalArgumentException("Only supported for JDBC sources");
+        }
+    }
+    
     /**
      * Returns the configuration.
      *
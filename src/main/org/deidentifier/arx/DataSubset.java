@@ -145,23 +145,17 @@ public class DataSubset implements Serializable {
         
         // Init
         int rows = data.getHandle().getNumRows();
-        RowSet bitset = RowSet.create(data);
-        ArrayList<Integer> list = new ArrayList<Integer>();
+        RowSet bitset = selector.getSelectedRows();
         
-        // Check
+        // Convert
+        int[] array = new int[bitset.size()];
+        int index = 0;
         for (int i=0; i<rows; i++){
-            if (selector.isSelected(i)) {
-                bitset.add(i);
-                list.add(i);
+            if (bitset.contains(i)) {
+                array[index++] = i;
             }
         }
         
-        // Convert
-        int[] array = new int[list.size()];
-        for (int i=0; i<list.size(); i++){
-            array[i] = list.get(i);
-        }
-        
         // Return
         return new DataSubset(bitset, array);
     }
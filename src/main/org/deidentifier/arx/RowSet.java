@@ -98,6 +98,19 @@ public class RowSet implements Serializable, Cloneable {
         this.size += array[offset] != temp ? 1 : 0; 
     }
     
+    /**
+     * Intersects this set with the given set, word by word
+     *
+     * @param other
+     */
+    void and(RowSet other) {
+        this.size = 0;
+        for (int i = 0; i < array.length; i++) {
+            this.array[i] &= other.array[i];
+            this.size += Long.bitCount(this.array[i]);
+        }
+    }
+
     @Override
     public RowSet clone() {
         RowSet set = new RowSet(this.length);
@@ -125,6 +138,19 @@ public class RowSet implements Serializable, Cloneable {
         return this.length;
     }
     
+    /**
+     * Unites this set with the given set, word by word
+     *
+     * @param other
+     */
+    void or(RowSet other) {
+        this.size = 0;
+        for (int i = 0; i < array.length; i++) {
+            this.array[i] |= other.array[i];
+            this.size += Long.bitCount(this.array[i]);
+        }
+    }
+    
     /**
      * Unsets a bit
      *
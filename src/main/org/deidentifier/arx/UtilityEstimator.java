@@ -244,7 +244,7 @@ class UtilityEstimator {
         int id = node.getId();
         
         // Pull all values
-        for (ARXNode pre : node.getPredecessors()) {
+        for (ARXNode pre : lattice.getPredecessors(node)) {
             int preId = pre.getId();
             pullMax(minimumAnonymous, id, preId);
             pullMax(minimumNonAnonymous, id, preId);
@@ -299,7 +299,7 @@ class UtilityEstimator {
         int id = node.getId();
         
         // Pull all values
-        for (ARXNode succ : node.getSuccessors()) {
+        for (ARXNode succ : lattice.getSuccessors(node)) {
             int succId = succ.getId();
             pullMin(maximumAnonymous, id, succId);
             pullMin(maximumNonAnonymous, id, succId);
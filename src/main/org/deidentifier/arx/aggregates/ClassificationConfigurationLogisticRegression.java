@@ -140,7 +140,7 @@ public class ClassificationConfigurationLogisticRegression extends ARXClassifica
                                                                  seed,
                                                                  numberOfFolds,
                                                                  deterministic,
-                                                                 prior);
+                                                                 prior).setNumberOfThreads(getNumberOfThreads());
     }
 
     /**
@@ -91,7 +91,7 @@ public class ClassificationConfigurationNaiveBayes extends ARXClassificationConf
                                                          super.getSeed(),
                                                          super.getVectorLength(),
                                                          type,
-                                                         sigma);
+                                                         sigma).setNumberOfThreads(getNumberOfThreads());
     }
 
     /**
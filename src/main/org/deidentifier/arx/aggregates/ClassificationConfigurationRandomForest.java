@@ -132,7 +132,7 @@ public class ClassificationConfigurationRandomForest extends ARXClassificationCo
                                                          minimumSizeOfLeafNodes,
                                                          maximumNumberOfLeafNodes,
                                                          subsample,
-                                                         splitRule);
+                                                         splitRule).setNumberOfThreads(getNumberOfThreads());
     }
     
     /**
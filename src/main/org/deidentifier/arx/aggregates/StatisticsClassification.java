@@ -24,11 +24,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.deidentifier.arx.ARXClassificationConfiguration;
 import org.deidentifier.arx.ARXFeatureScaling;
 import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.aggregates.classification.ClassificationDataSpecification;
+import org.deidentifier.arx.aggregates.classification.ClassificationFeatures;
 import org.deidentifier.arx.aggregates.classification.ClassificationMethod;
 import org.deidentifier.arx.aggregates.classification.ClassificationResult;
 import org.deidentifier.arx.aggregates.classification.MultiClassLogisticRegression;
@@ -240,25 +247,71 @@ public class StatisticsClassification {
      * @param interrupt
      * @param specification
      * @param config
-     * @param inputHandle
      * @return
      */
     private static ClassificationMethod getClassifier(WrappedBoolean interrupt,
                                                       ClassificationDataSpecification specification,
-                                                      ARXClassificationConfiguration<?> config,
-                                                      DataHandleInternal inputHandle) {
+                                                      ARXClassificationConfiguration<?> config) {
         if (config instanceof ClassificationConfigurationLogisticRegression) {
-            return new MultiClassLogisticRegression(interrupt, specification, (ClassificationConfigurationLogisticRegression)config, inputHandle);
+            return new MultiClassLogisticRegression(interrupt, specification, (ClassificationConfigurationLogisticRegression)config);
         } else if (config instanceof ClassificationConfigurationNaiveBayes) {
             System.setProperty("smile.threads", "1");
-            return new MultiClassNaiveBayes(interrupt, specification, (ClassificationConfigurationNaiveBayes)config, inputHandle);
+            return new MultiClassNaiveBayes(interrupt, specification, (ClassificationConfigurationNaiveBayes)config);
         } else if (config instanceof ClassificationConfigurationRandomForest) {
             System.setProperty("smile.threads", "1");
-            return new MultiClassRandomForest(interrupt, specification, (ClassificationConfigurationRandomForest)config, inputHandle);
+            return new MultiClassRandomForest(interrupt, specification, (ClassificationConfigurationRandomForest)config);
         } else {
             throw new IllegalArgumentException("Unknown type of configuration");
         }
     }
+
+    /**
+     * Executes the given tasks, using the given number of threads
+     * @param tasks
+     * @param numberOfThreads
+     */
+    private static void execute(List<Runnable> tasks, int numberOfThreads) {
+        
+        // Sequential
+        numberOfThreads = Math.min(numberOfThreads, tasks.size());
+        if (numberOfThreads <= 1) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
+        
+        // Parallel
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+            int count = 0;
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task);
+                thread.setDaemon(true);
+                thread.setName("ARX Classification " + (count++));
+                return thread;
+            }
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else {
+                throw new UnexpectedErrorException(e.getCause());
+            }
+        } catch (InterruptedException e) {
+            throw new ComputationInterruptedException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
     
     /** Interrupt flag */
     private final WrappedBoolean  interrupt;
@@ -350,106 +403,150 @@ public class StatisticsClassification {
         int k = numSamples > config.getNumFolds() ? config.getNumFolds() : numSamples;
         List<List<Integer>> folds = getFolds(inputHandle.getNumRows(), numSamples, k);
 
+        // Encode features once, shared by all folds
+        List<Integer> rows = new ArrayList<>();
+        for (List<Integer> fold : folds) {
+            rows.addAll(fold);
+        }
+        final ClassificationFeatures inputFeatures = new ClassificationFeatures(specification, inputHandle, outputHandle, inputHandle, rows, interrupt);
+        final ClassificationFeatures outputFeatures = (inputHandle == outputHandle) ? null : new ClassificationFeatures(specification, outputHandle, outputHandle, inputHandle, rows, interrupt);
+        
         // Track
-        int classifications = 0;
-        double total = 100d / ((double)numSamples * (double)folds.size());
-        double done = 0d;
+        final double total = 100d / ((double)numSamples * (double)folds.size());
+        final AtomicLong done = new AtomicLong();
         
         // ROC
-        double[] inputConfidences = new double[numSamples * ( 1 + numClasses)];
-        double[] outputConfidences = (inputHandle == outputHandle) ? null : new double[numSamples * ( 1 + numClasses)];
-        double[] zerorConfidences = new double[numSamples * ( 1 + numClasses)];
-        int confidencesIndex = 0;
-                
-        // For each fold as a validation set
-        for (int evaluationFold = 0; evaluationFold < folds.size(); evaluationFold++) {
-            
-            // Create classifiers
-            ClassificationMethod inputClassifier = getClassifier(interrupt, specification, config, inputHandle);
-            ClassificationMethod inputZeroR = new MultiClassZeroR(interrupt, specification);
-            ClassificationMethod outputClassifier = null;
-            if (inputHandle != outputHandle) {
-                outputClassifier = getClassifier(interrupt, specification, config, inputHandle);
-            }
+        final double[] inputConfidences = new double[numSamples * ( 1 + numClasses)];
+        final double[] outputConfidences = (inputHandle == outputHandle) ? null : new double[numSamples * ( 1 + numClasses)];
+        final double[] zerorConfidences = new double[numSamples * ( 1 + numClasses)];
+        
+        // Errors and correctness per classification, aggregated in a fixed order afterwards
+        final double[] zerorErrors = new double[numSamples];
+        final double[] inputErrors = new double[numSamples];
+        final double[] outputErrors = new double[numSamples];
+        final boolean[] zerorCorrect = new boolean[numSamples];
+        final boolean[] inputCorrect = new boolean[numSamples];
+        final boolean[] outputCorrect = new boolean[numSamples];
+        final boolean[] outputTrained = new boolean[folds.size()];
+        
+        // Create one task per fold. Each task uses its own classifiers and writes to a disjoint range of the arrays.
+        List<Runnable> tasks = new ArrayList<>();
+        int offset = 0;
+        for (int fold = 0; fold < folds.size(); fold++) {
             
-            // Try
-            try {
-                
-                // Train with all training sets
-                boolean trained = false;
-                for (int trainingFold = 0; trainingFold < folds.size(); trainingFold++) {
-                    if (trainingFold != evaluationFold) {                        
-                        for (int index : folds.get(trainingFold)) {
-                            checkInterrupt();
-                            inputClassifier.train(inputHandle, outputHandle, index);
-                            inputZeroR.train(inputHandle, outputHandle, index);
-                            if (outputClassifier != null && !outputHandle.isOutlier(index)) {
-                                outputClassifier.train(outputHandle, outputHandle, index);
-                                trained = true;
-                            }
-                            this.progress.value = (int)((++done) * total);
-                        }
-                    }
-                }
-                
-                // Close
-                inputClassifier.close();
-                inputZeroR.close();
-                if (outputClassifier != null && trained) {
-                    outputClassifier.close();
-                }
-                
-                // Now validate
-                for (int index : folds.get(evaluationFold)) {
+            final int evaluationFold = fold;
+            final int first = offset;
+            offset += folds.get(fold).size();
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
                     
-                    // Check
-                    checkInterrupt();
+                    // Create classifiers
+                    ClassificationMethod inputClassifier = getClassifier(interrupt, specification, config);
+                    ClassificationMethod inputZeroR = new MultiClassZeroR(interrupt, specification);
+                    ClassificationMethod outputClassifier = null;
+                    if (outputFeatures != null) {
+                        outputClassifier = getClassifier(interrupt, specification, config);
+                    }
                     
-                    // Classify
-                    ClassificationResult resultInput = inputClassifier.classify(inputHandle, index);
-                    ClassificationResult resultInputZR = inputZeroR.classify(inputHandle, index);
-                    ClassificationResult resultOutput = outputClassifier == null || !trained ? null : outputClassifier.classify(outputHandle, index);
-                    classifications++;
+                    // Try
+                    try {
                         
-                    // Correct result
-                    String actualValue = outputHandle.getValue(index, specification.classIndex, true);
+                        // Train with all training sets
+                        boolean trained = false;
+                        for (int trainingFold = 0; trainingFold < folds.size(); trainingFold++) {
+                            if (trainingFold != evaluationFold) {                        
+                                for (int index : folds.get(trainingFold)) {
+                                    checkInterrupt();
+                                    inputClassifier.train(inputFeatures, index);
+                                    inputZeroR.train(inputFeatures, index);
+                                    if (outputClassifier != null && !outputHandle.isOutlier(index)) {
+                                        outputClassifier.train(outputFeatures, index);
+                                        trained = true;
+                                    }
+                                    progress.value = (int)(done.incrementAndGet() * total);
+                                }
+                            }
+                        }
                         
-                    // Maintain data about ZeroR
-                    this.zeroRAverageError += resultInputZR.error(actualValue);
-                    this.zeroRAccuracy += resultInputZR.correct(actualValue) ? 1d : 0d;
-                    double[] confidences = resultInputZR.confidences();
-                    zerorConfidences[confidencesIndex] = index;
-                    System.arraycopy(confidences, 0, zerorConfidences, confidencesIndex + 1, confidences.length);
-
-                    // Maintain data about input-based classifier
-                    boolean correct = resultInput.correct(actualValue);
-                    this.originalAverageError += resultInput.error(actualValue);
-                    this.originalAccuracy += correct ? 1d : 0d;
-                    confidences = resultInput.confidences();
-                    inputConfidences[confidencesIndex] = index;
-                    System.arraycopy(confidences, 0, inputConfidences, confidencesIndex + 1, confidences.length);
-
-                    // Maintain data about output-based                     
-                    if (resultOutput != null) {
-                        correct = resultOutput.correct(actualValue);
-                        this.averageError += resultOutput.error(actualValue);
-                        this.accuracy += correct ? 1d : 0d;
-                        confidences = resultOutput.confidences();
-                        outputConfidences[confidencesIndex] = index;
-                        System.arraycopy(confidences, 0, outputConfidences, confidencesIndex + 1, confidences.length);
-                    }
+                        // Close
+                        inputClassifier.close();
+                        inputZeroR.close();
+                        if (outputClassifier != null && trained) {
+                            outputClassifier.close();
+                        }
+                        outputTrained[evaluationFold] = trained;
                         
-                    // Next
-                    confidencesIndex += numClasses + 1;
-                    
-                    this.progress.value = (int)((++done) * total);
+                        // Now validate
+                        int classification = first;
+                        for (int index : folds.get(evaluationFold)) {
+                            
+                            // Check
+                            checkInterrupt();
+                            
+                            // Classify
+                            ClassificationResult resultInput = inputClassifier.classify(inputFeatures, index);
+                            ClassificationResult resultInputZR = inputZeroR.classify(inputFeatures, index);
+                            ClassificationResult resultOutput = outputClassifier == null || !trained ? null : outputClassifier.classify(outputFeatures, index);
+                                
+                            // Correct result
+                            String actualValue = inputFeatures.getClassValue(index);
+                            int confidencesIndex = classification * (numClasses + 1);
+                                
+                            // Maintain data about ZeroR
+                            zerorErrors[classification] = resultInputZR.error(actualValue);
+                            zerorCorrect[classification] = resultInputZR.correct(actualValue);
+                            double[] confidences = resultInputZR.confidences();
+                            zerorConfidences[confidencesIndex] = index;
+                            System.arraycopy(confidences, 0, zerorConfidences, confidencesIndex + 1, confidences.length);
+        
+                            // Maintain data about input-based classifier
+                            inputErrors[classification] = resultInput.error(actualValue);
+                            inputCorrect[classification] = resultInput.correct(actualValue);
+                            confidences = resultInput.confidences();
+                            inputConfidences[confidencesIndex] = index;
+                            System.arraycopy(confidences, 0, inputConfidences, confidencesIndex + 1, confidences.length);
+        
+                            // Maintain data about output-based                     
+                            if (resultOutput != null) {
+                                outputErrors[classification] = resultOutput.error(actualValue);
+                                outputCorrect[classification] = resultOutput.correct(actualValue);
+                                confidences = resultOutput.confidences();
+                                outputConfidences[confidencesIndex] = index;
+                                System.arraycopy(confidences, 0, outputConfidences, confidencesIndex + 1, confidences.length);
+                            }
+                                
+                            // Next
+                            classification++;
+                            progress.value = (int)(done.incrementAndGet() * total);
+                        }
+                    } catch (Exception e) {
+                        if (e instanceof ComputationInterruptedException) {
+                            throw e;
+                        } else {
+                            throw new UnexpectedErrorException(e);
+                        }
+                    }
                 }
-            } catch (Exception e) {
-                if (e instanceof ComputationInterruptedException) {
-                    throw e;
-                } else {
-                    throw new UnexpectedErrorException(e);
+            });
+        }
+        
+        // Evaluate folds
+        execute(tasks, config.getNumberOfThreads());
+        
+        // Aggregate in the order of folds
+        int classifications = 0;
+        for (int fold = 0; fold < folds.size(); fold++) {
+            for (int i = 0; i < folds.get(fold).size(); i++) {
+                this.zeroRAverageError += zerorErrors[classifications];
+                this.zeroRAccuracy += zerorCorrect[classifications] ? 1d : 0d;
+                this.originalAverageError += inputErrors[classifications];
+                this.originalAccuracy += inputCorrect[classifications] ? 1d : 0d;
+                if (outputTrained[fold]) {
+                    this.averageError += outputErrors[classifications];
+                    this.accuracy += outputCorrect[classifications] ? 1d : 0d;
                 }
+                classifications++;
             }
         }
         
@@ -23,10 +23,18 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.RowSet;
 import org.deidentifier.arx.aggregates.quality.QualityConfiguration;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShare;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShareRaw;
@@ -47,6 +55,9 @@ import org.deidentifier.arx.common.TupleWrapper;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+import org.deidentifier.arx.exceptions.UnexpectedErrorException;
+
+import com.carrotsearch.hppc.LongIntOpenHashMap;
 
 /**
  * Encapsulates statistics obtained using various quality models
@@ -55,6 +66,53 @@ import org.deidentifier.arx.exceptions.ComputationInterruptedException;
  */
 public class StatisticsQuality {
 
+    /**
+     * Evaluates a quality model, tracking its progress separately
+     * 
+     * @param <T>
+     */
+    private abstract class QualityTask<T> implements Runnable {
+
+        /** Progress of this model */
+        protected final WrappedInteger progress = new WrappedInteger();
+        /** Workload of this model */
+        protected final int            workload;
+        /** Result */
+        private T                      result;
+
+        /**
+         * Creates a new instance
+         * @param workload
+         */
+        private QualityTask(int workload) {
+            this.workload = workload;
+        }
+
+        @Override
+        public void run() {
+            try {
+                this.result = evaluate();
+                checkInterrupt();
+            } catch (Exception e) {
+                // Fail silently
+                this.result = fallback();
+            }
+            this.progress.value = workload;
+        }
+
+        /**
+         * Evaluates the model
+         * @return
+         */
+        protected abstract T evaluate();
+
+        /**
+         * Returns the result used if the model fails
+         * @return
+         */
+        protected abstract T fallback();
+    }
+
     /** Column-oriented model */
     private QualityMeasureColumnOriented       loss;
     /** Column-oriented model */
@@ -143,223 +201,148 @@ public class StatisticsQuality {
         }
         
         // Pre-computed frequently needed data
-        Groupify<TupleWrapper> groupedInput = this.getGroupify(input, indices);
+        final Groupify<TupleWrapper> groupedInput = this.getGroupify(input, indices);
         this.progress.value = 6;
-        Groupify<TupleWrapper> groupedOutput = this.getGroupify(output, indices);
+        final Groupify<TupleWrapper> groupedOutput = this.getGroupify(output, indices);
         this.progress.value = 8;
-        String[][][] hierarchies = getHierarchies(input, indices, configuration);
-        QualityDomainShare[] shares = getDomainShares(input, indices, hierarchies, configuration);
-        int suppressedInput = getSuppressed(input);
-        int suppressedOutput = getSuppressed(output);
+        final String[][][] hierarchies = getHierarchies(input, indices, configuration);
+        final QualityDomainShare[] shares = getDomainShares(input, indices, hierarchies, configuration);
+        final int suppressedInput = getSuppressed(input);
+        final int suppressedOutput = getSuppressed(output);
+        final QualityConfiguration _configuration = configuration;
+        final int[] _indices = indices;
         this.progress.value = 10;
         
         // Build
-        int workload = 10;
-        try {
-            
-            this.loss = new QualityModelColumnOrientedLoss(stop,
-                                                           progress,
-                                                           workload,
-                                                           input,
-                                                           output,
-                                                           suppressedInput,
-                                                           suppressedOutput,
-                                                           groupedInput,
-                                                           groupedOutput,
-                                                           hierarchies,
-                                                           shares,
-                                                           indices,
-                                                           configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.loss = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
+        QualityTask<QualityMeasureColumnOriented> loss = new QualityTask<QualityMeasureColumnOriented>(10) {
+            @Override
+            protected QualityMeasureColumnOriented evaluate() {
+                return new QualityModelColumnOrientedLoss(stop, progress, workload, input, output, suppressedInput, suppressedOutput,
+                                                          groupedInput, groupedOutput, hierarchies, shares, _indices, _configuration).evaluate();
+            }
+            @Override
+            protected QualityMeasureColumnOriented fallback() {
+                return new QualityMeasureColumnOriented();
+            }
+        };
         
         // Build
-        workload = 15;
-        try {
-            this.entropy = new QualityModelColumnOrientedNonUniformEntropy(stop,
-                                                                           progress,
-                                                                           workload,
-                                                                           input,
-                                                                           output,
-                                                                           suppressedInput,
-                                                                           suppressedOutput,
-                                                                           groupedInput,
-                                                                           groupedOutput,
-                                                                           hierarchies,
-                                                                           shares,
-                                                                           indices,
-                                                                           configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.entropy = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
+        QualityTask<QualityMeasureColumnOriented> entropy = new QualityTask<QualityMeasureColumnOriented>(15) {
+            @Override
+            protected QualityMeasureColumnOriented evaluate() {
+                return new QualityModelColumnOrientedNonUniformEntropy(stop, progress, workload, input, output, suppressedInput, suppressedOutput,
+                                                                       groupedInput, groupedOutput, hierarchies, shares, _indices, _configuration).evaluate();
+            }
+            @Override
+            protected QualityMeasureColumnOriented fallback() {
+                return new QualityMeasureColumnOriented();
+            }
+        };
 
         // Build
-        workload = 10;
-        try {
-            this.precision = new QualityModelColumnOrientedPrecision(stop,
-                                                                     progress,
-                                                                     workload,
-                                                                     input,
-                                                                     output,
-                                                                     suppressedInput,
-                                                                     suppressedOutput,
-                                                                     groupedInput,
-                                                                     groupedOutput,
-                                                                     hierarchies,
-                                                                     shares,
-                                                                     indices,
-                                                                     configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.precision = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
+        QualityTask<QualityMeasureColumnOriented> precision = new QualityTask<QualityMeasureColumnOriented>(10) {
+            @Override
+            protected QualityMeasureColumnOriented evaluate() {
+                return new QualityModelColumnOrientedPrecision(stop, progress, workload, input, output, suppressedInput, suppressedOutput,
+                                                               groupedInput, groupedOutput, hierarchies, shares, _indices, _configuration).evaluate();
+            }
+            @Override
+            protected QualityMeasureColumnOriented fallback() {
+                return new QualityMeasureColumnOriented();
+            }
+        };
 
         // Build
-        workload = 10;
-        try {
-            this.mse = new QualityModelColumnOrientedSquaredError(stop,
-                                                                  progress,
-                                                                  workload,
-                                                                  input,
-                                                                  output,
-                                                                  suppressedInput,
-                                                                  suppressedOutput,
-                                                                  groupedInput,
-                                                                  groupedOutput,
-                                                                  hierarchies,
-                                                                  shares,
-                                                                  indices,
-                                                                  configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.mse = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
+        QualityTask<QualityMeasureColumnOriented> mse = new QualityTask<QualityMeasureColumnOriented>(10) {
+            @Override
+            protected QualityMeasureColumnOriented evaluate() {
+                return new QualityModelColumnOrientedSquaredError(stop, progress, workload, input, output, suppressedInput, suppressedOutput,
+                                                                  groupedInput, groupedOutput, hierarchies, shares, _indices, _configuration).evaluate();
+            }
+            @Override
+            protected QualityMeasureColumnOriented fallback() {
+                return new QualityMeasureColumnOriented();
+            }
+        };
 
         // Build
-        workload = 5;
-        try {
-            this.aecs = new QualityModelRowOrientedAECS(stop,
-                                                        progress,
-                                                        workload,
-                                                        input,
-                                                        output,
-                                                        suppressedInput,
-                                                        suppressedOutput,
-                                                        groupedInput,
-                                                        groupedOutput,
-                                                        hierarchies,
-                                                        shares,
-                                                        indices,
-                                                        configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.aecs = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
+        QualityTask<QualityMeasureRowOriented> aecs = new QualityTask<QualityMeasureRowOriented>(5) {
+            @Override
+            protected QualityMeasureRowOriented evaluate() {
+                return new QualityModelRowOrientedAECS(stop, progress, workload, input, output, suppressedInput, suppressedOutput,
+                                                       groupedInput, groupedOutput, hierarchies, shares, _indices, _configuration).evaluate();
+            }
+            @Override
+            protected QualityMeasureRowOriented fallback() {
+                return new QualityMeasureRowOriented();
+            }
+        };
 
         // Build
-        workload = 10;
-        try {
-            this.ambiguity = new QualityModelRowOrientedAmbiguity(stop,
-                                                                  progress,
-                                                                  workload,
-                                                                  input,
-                                                                  output,
-                                                                  suppressedInput,
-                                                                  suppressedOutput,
-                                                                  groupedInput,
-                                                                  groupedOutput,
-                                                                  hierarchies,
-                                                                  shares,
-                                                                  indices,
-                                                                  configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.ambiguity = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
+        QualityTask<QualityMeasureRowOriented> ambiguity = new QualityTask<QualityMeasureRowOriented>(10) {
+            @Override
+            protected QualityMeasureRowOriented evaluate() {
+                return new QualityModelRowOrientedAmbiguity(stop, progress, workload, input, output, suppressedInput, suppressedOutput,
+                                                            groupedInput, groupedOutput, hierarchies, shares, _indices, _configuration).evaluate();
+            }
+            @Override
+            protected QualityMeasureRowOriented fallback() {
+                return new QualityMeasureRowOriented();
+            }
+        };
         
         // Build
-        workload = 5;
-        try {
-            this.discernibility = new QualityModelRowOrientedDiscernibility(stop,
-                                                                            progress,
-                                                                            workload,
-                                                                            input,
-                                                                            output,
-                                                                            suppressedInput,
-                                                                            suppressedOutput,
-                                                                            groupedInput,
-                                                                            groupedOutput,
-                                                                            hierarchies,
-                                                                            shares,
-                                                                            indices,
-                                                                            configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.discernibility = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
+        QualityTask<QualityMeasureRowOriented> discernibility = new QualityTask<QualityMeasureRowOriented>(5) {
+            @Override
+            protected QualityMeasureRowOriented evaluate() {
+                return new QualityModelRowOrientedDiscernibility(stop, progress, workload, input, output, suppressedInput, suppressedOutput,
+                                                                 groupedInput, groupedOutput, hierarchies, shares, _indices, _configuration).evaluate();
+            }
+            @Override
+            protected QualityMeasureRowOriented fallback() {
+                return new QualityMeasureRowOriented();
+            }
+        };
 
         // Build
-        workload = 10;
-        try {
-            this.ssesst = new QualityModelRowOrientedSSESST(stop,
-                                                            progress,
-                                                            workload,
-                                                            input,
-                                                            output,
-                                                            suppressedInput,
-                                                            suppressedOutput,
-                                                            groupedInput,
-                                                            groupedOutput,
-                                                            hierarchies,
-                                                            shares,
-                                                            indices,
-                                                            configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.ssesst = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
+        QualityTask<QualityMeasureRowOriented> ssesst = new QualityTask<QualityMeasureRowOriented>(10) {
+            @Override
+            protected QualityMeasureRowOriented evaluate() {
+                return new QualityModelRowOrientedSSESST(stop, progress, workload, input, output, suppressedInput, suppressedOutput,
+                                                         groupedInput, groupedOutput, hierarchies, shares, _indices, _configuration).evaluate();
+            }
+            @Override
+            protected QualityMeasureRowOriented fallback() {
+                return new QualityMeasureRowOriented();
+            }
+        };
         
         // Build
-        workload = 15;
-        try {
-            this.sse = new QualityModelRowOrientedSquaredError(stop,
-                                                               progress,
-                                                               workload,
-                                                               input,
-                                                               output,
-                                                               suppressedInput,
-                                                               suppressedOutput,
-                                                               groupedInput,
-                                                               groupedOutput,
-                                                               hierarchies,
-                                                               shares,
-                                                               indices,
-                                                               configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.sse = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
+        QualityTask<QualityMeasureRowOriented> sse = new QualityTask<QualityMeasureRowOriented>(15) {
+            @Override
+            protected QualityMeasureRowOriented evaluate() {
+                return new QualityModelRowOrientedSquaredError(stop, progress, workload, input, output, suppressedInput, suppressedOutput,
+                                                               groupedInput, groupedOutput, hierarchies, shares, _indices, _configuration).evaluate();
+            }
+            @Override
+            protected QualityMeasureRowOriented fallback() {
+                return new QualityMeasureRowOriented();
+            }
+        };
+        
+        // Evaluate the independent models concurrently
+        execute(Arrays.<QualityTask<?>>asList(loss, entropy, precision, mse, aecs, ambiguity, discernibility, ssesst, sse), 10);
+        
+        // Store
+        this.loss = loss.result;
+        this.entropy = entropy.result;
+        this.precision = precision.result;
+        this.mse = mse.result;
+        this.aecs = aecs.result;
+        this.ambiguity = ambiguity.result;
+        this.discernibility = discernibility.result;
+        this.ssesst = ssesst.result;
+        this.sse = sse.result;
     }
 
     /**
@@ -504,6 +487,61 @@ public class StatisticsQuality {
         }
     }
     
+    /**
+     * Evaluates the given tasks concurrently on a bounded number of threads,
+     * aggregating their progress
+     * @param tasks
+     * @param offset
+     */
+    private void execute(List<QualityTask<?>> tasks, int offset) {
+        
+        // Prepare
+        int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            int count = 0;
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task);
+                thread.setDaemon(true);
+                thread.setName("ARX Quality Model " + (count++));
+                return thread;
+            }
+        });
+        
+        // Execute
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (QualityTask<?> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get(100, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        setProgress(tasks, offset);
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            } else {
+                throw new UnexpectedErrorException(e.getCause());
+            }
+        } catch (InterruptedException e) {
+            throw new ComputationInterruptedException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        // Done
+        setProgress(tasks, offset);
+    }
+
     /**
      * Returns a list of the attributes covered
      * @param output
@@ -580,7 +618,28 @@ public class StatisticsQuality {
     }
 
     /**
-     * Returns a groupified version of the dataset
+     * Maps each code of the dictionary to the first code representing the same value
+     * @param dictionary
+     * @return
+     */
+    private int[] getCanonicalCodes(String[] dictionary) {
+        Map<String, Integer> first = new HashMap<>();
+        int[] result = new int[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++) {
+            Integer canonical = first.get(dictionary[code]);
+            if (canonical == null) {
+                canonical = code;
+                first.put(dictionary[code], code);
+            }
+            result[code] = canonical;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a groupified version of the dataset. Rows are grouped based on encoded values
+     * and every distinct tuple is decoded only once. Groups are created in order of their
+     * first occurrence.
      * 
      * @param handle
      * @param indices
@@ -589,18 +648,72 @@ public class StatisticsQuality {
     private Groupify<TupleWrapper> getGroupify(DataHandle handle, int[] indices) {
         
         // Prepare
-        int capacity = handle.getNumRows() / 10;
-        capacity = capacity > 10 ? capacity : 10;
-        Groupify<TupleWrapper> groupify = new Groupify<TupleWrapper>(capacity);
         int numRows = handle.getNumRows();
+        RowSet outliers = handle.getOutliers();
+        int[] groups = new int[numRows];
+        int[] codes = new int[numRows];
+        int numGroups = 1;
+        
+        // Refine groups column by column
+        for (int index : indices) {
+            
+            // Dictionaries may contain a value multiple times, e.g. on different levels of a hierarchy
+            handle.getEncodedValues(index, codes);
+            String[] dictionary = handle.getEncodedDictionary(index);
+            int[] canonical = getCanonicalCodes(dictionary);
+            long size = dictionary.length;
+            
+            // Refine
+            LongIntOpenHashMap map = new LongIntOpenHashMap();
+            int next = 0;
+            for (int row = 0; row < numRows; row++) {
+                if (!outliers.contains(row)) {
+                    long key = groups[row] * size + canonical[codes[row]];
+                    int group;
+                    if (map.containsKey(key)) {
+                        group = map.lget();
+                    } else {
+                        group = next++;
+                        map.put(key, group);
+                    }
+                    groups[row] = group;
+                }
+            }
+            numGroups = next;
+            checkInterrupt();
+        }
+        
+        // Count and find a representative for each group
+        int[] counts = new int[numGroups];
+        int[] representatives = new int[numGroups];
         for (int row = 0; row < numRows; row++) {
-            if (!handle.isOutlier(row)) {
-                TupleWrapper tuple = new TupleWrapper(handle, indices, row);
-                groupify.add(tuple);
+            if (!outliers.contains(row)) {
+                int group = groups[row];
+                if (counts[group]++ == 0) {
+                    representatives[group] = row;
+                }
+            }
+        }
+        
+        // Decode representatives
+        String[][] tuples = new String[numGroups][indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            handle.getEncodedValues(indices[i], codes);
+            String[] dictionary = handle.getEncodedDictionary(indices[i]);
+            for (int group = 0; group < numGroups; group++) {
+                tuples[group][i] = dictionary[codes[representatives[group]]];
             }
             checkInterrupt();
         }
         
+        // Build
+        int capacity = numGroups > 10 ? numGroups : 10;
+        Groupify<TupleWrapper> groupify = new Groupify<TupleWrapper>(capacity);
+        for (int group = 0; group < numGroups; group++) {
+            if (counts[group] != 0) {
+                groupify.add(new TupleWrapper(tuples[group]), counts[group]);
+            }
+        }
         return groupify;
     }
 
@@ -758,10 +871,19 @@ public class StatisticsQuality {
      * @return
      */
     private int getSuppressed(DataHandle handle) {
-        int suppressed = 0;
-        for (int row = 0; row < handle.getNumRows(); row++) {
-            suppressed += handle.isOutlier(row) ? 1 : 0;
+        return handle.getOutliers().size();
+    }
+
+    /**
+     * Aggregates the progress of the given tasks
+     * @param tasks
+     * @param offset
+     */
+    private void setProgress(List<QualityTask<?>> tasks, int offset) {
+        int value = offset;
+        for (QualityTask<?> task : tasks) {
+            value += Math.min(task.progress.value, task.workload);
         }
-        return suppressed;
+        this.progress.value = value;
     }
 }
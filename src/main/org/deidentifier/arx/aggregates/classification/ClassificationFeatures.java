@@ -0,0 +1,235 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.aggregates.classification;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.WrappedBoolean;
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+
+/**
+ * Features and classes of a data handle, encoded once and shared read-only
+ * between classifiers, which may be trained and evaluated concurrently.
+ * 
+ * @author Fabian Prasser
+ */
+public class ClassificationFeatures {
+
+    /** Number of features */
+    private final int                             numFeatures;
+    /** Codes used for training, [feature][row] */
+    private final int[][]                         trainCodes;
+    /** Codes used for classification, [feature][row] */
+    private final int[][]                         classifyCodes;
+    /** Numeric values per code, [feature][code] */
+    private final double[][]                      numerics;
+    /** Words per code, [feature][code] */
+    private final String[][]                      words;
+    /** Value identifiers per code, [feature][code] */
+    private final int[][]                         identifiers;
+    /** Class codes, [row] */
+    private final int[]                           classes;
+    /** Class values, [code] */
+    private final String[]                        classValues;
+    /** Interrupt */
+    private final WrappedBoolean                  interrupt;
+
+    /**
+     * Creates a new instance
+     * @param specification
+     * @param features - The handle from which features are obtained
+     * @param clazz - The handle from which classes are obtained
+     * @param inputHandle - The input handle, used when classifying records with microaggregated numeric features
+     * @param rows - The rows to encode
+     * @param interrupt
+     */
+    public ClassificationFeatures(ClassificationDataSpecification specification,
+                                  DataHandleInternal features,
+                                  DataHandleInternal clazz,
+                                  DataHandleInternal inputHandle,
+                                  Iterable<Integer> rows,
+                                  WrappedBoolean interrupt) {
+        
+        // Prepare
+        int numRows = features.getNumRows();
+        this.interrupt = interrupt;
+        this.numFeatures = specification.featureIndices.length;
+        this.trainCodes = new int[numFeatures][];
+        this.classifyCodes = new int[numFeatures][];
+        this.numerics = new double[numFeatures][];
+        this.words = new String[numFeatures][];
+        this.identifiers = new int[numFeatures][];
+        
+        // Encode features
+        for (int feature = 0; feature < numFeatures; feature++) {
+            
+            // Prepare
+            int index = specification.featureIndices[feature];
+            ClassificationFeatureMetadata metadata = specification.featureMetadata[feature];
+            Map<String, Integer> dictionary = new HashMap<>();
+            this.trainCodes[feature] = encode(features, index, rows, numRows, dictionary);
+            if (features != inputHandle && metadata.isNumericMicroaggregation()) {
+                this.classifyCodes[feature] = encode(inputHandle, index, rows, numRows, dictionary);
+            } else {
+                this.classifyCodes[feature] = this.trainCodes[feature];
+            }
+            
+            // Translate each distinct value once
+            double[] numerics = new double[dictionary.size()];
+            String[] words = new String[dictionary.size()];
+            int[] identifiers = new int[dictionary.size()];
+            for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+                checkInterrupt();
+                String value = entry.getKey();
+                int code = entry.getValue();
+                double numeric = metadata.getNumericValue(value);
+                numerics[code] = numeric;
+                if (Double.isNaN(numeric)) {
+                    words[code] = "Attribute-" + index + ":" + value;
+                    identifiers[code] = features.getValueIdentifier(index, value);
+                } else {
+                    words[code] = "Attribute-" + index;
+                }
+            }
+            this.numerics[feature] = numerics;
+            this.words[feature] = words;
+            this.identifiers[feature] = identifiers;
+        }
+        
+        // Encode classes
+        this.classes = new int[numRows];
+        for (int row : rows) {
+            checkInterrupt();
+            this.classes[row] = specification.classMap.get(clazz.getValue(row, specification.classIndex, true));
+        }
+        this.classValues = new String[specification.classMap.size()];
+        for (Map.Entry<String, Integer> entry : specification.classMap.entrySet()) {
+            this.classValues[entry.getValue()] = entry.getKey();
+        }
+    }
+
+    /**
+     * Returns the class code of the given row
+     * @param row
+     * @return
+     */
+    public int getClassCode(int row) {
+        return classes[row];
+    }
+
+    /**
+     * Returns the class value of the given row
+     * @param row
+     * @return
+     */
+    public String getClassValue(int row) {
+        return classValues[classes[row]];
+    }
+
+    /**
+     * Returns the number of features
+     * @return
+     */
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    /**
+     * Returns the numeric value of a feature, NaN if it is not numeric
+     * @param feature
+     * @param row
+     * @param classify
+     * @return
+     */
+    public double getNumericValue(int feature, int row, boolean classify) {
+        return numerics[feature][getCode(feature, row, classify)];
+    }
+
+    /**
+     * Returns the identifier of the value of a non-numeric feature
+     * @param feature
+     * @param row
+     * @param classify
+     * @return
+     */
+    public int getValueIdentifier(int feature, int row, boolean classify) {
+        return identifiers[feature][getCode(feature, row, classify)];
+    }
+
+    /**
+     * Returns the word representing a feature for hashed encoders
+     * @param feature
+     * @param row
+     * @param classify
+     * @return
+     */
+    public String getWord(int feature, int row, boolean classify) {
+        return words[feature][getCode(feature, row, classify)];
+    }
+
+    /**
+     * Checks whether an interruption happened.
+     */
+    private void checkInterrupt() {
+        if (interrupt.value) {
+            throw new ComputationInterruptedException("Interrupted");
+        }
+    }
+
+    /**
+     * Encodes a column
+     * @param handle
+     * @param column
+     * @param rows
+     * @param numRows
+     * @param dictionary
+     * @return
+     */
+    private int[] encode(DataHandleInternal handle,
+                         int column,
+                         Iterable<Integer> rows,
+                         int numRows,
+                         Map<String, Integer> dictionary) {
+        int[] codes = new int[numRows];
+        for (int row : rows) {
+            checkInterrupt();
+            String value = handle.getValue(row, column, true);
+            Integer code = dictionary.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.put(value, code);
+            }
+            codes[row] = code;
+        }
+        return codes;
+    }
+
+    /**
+     * Returns the code of a feature
+     * @param feature
+     * @param row
+     * @param classify
+     * @return
+     */
+    private int getCode(int feature, int row, boolean classify) {
+        return classify ? classifyCodes[feature][row] : trainCodes[feature][row];
+    }
+}
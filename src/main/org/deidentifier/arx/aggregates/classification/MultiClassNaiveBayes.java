@@ -23,7 +23,6 @@ import org.apache.mahout.math.function.DoubleDoubleFunction;
 import org.apache.mahout.math.function.DoubleFunction;
 import org.apache.mahout.vectorizer.encoders.ConstantValueEncoder;
 import org.apache.mahout.vectorizer.encoders.StaticWordValueEncoder;
-import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.aggregates.ClassificationConfigurationNaiveBayes;
 import org.deidentifier.arx.aggregates.ClassificationConfigurationNaiveBayes.Type;
 import org.deidentifier.arx.common.WrappedBoolean;
@@ -103,27 +102,22 @@ public class MultiClassNaiveBayes extends ClassificationMethod {
     private final ClassificationDataSpecification       specification;
     /** Encoder */
     private final StaticWordValueEncoder                wordEncoder;
-    /** Input handle */
-    private final DataHandleInternal                    inputHandle;
 
     /**
      * Creates a new instance
      * @param interrupt
      * @param specification
      * @param config
-     * @param inputHandle
      */
     public MultiClassNaiveBayes(WrappedBoolean interrupt,
                                 ClassificationDataSpecification specification,
-                                ClassificationConfigurationNaiveBayes config,
-                                DataHandleInternal inputHandle) {
+                                ClassificationConfigurationNaiveBayes config) {
 
         super(interrupt);
 
         // Store
         this.config = config;
         this.specification = specification;
-        this.inputHandle = inputHandle;
         
         // Prepare classifier
         this.nb = new NaiveBayes(config.getType() == Type.BERNOULLI ? Model.BERNOULLI : Model.MULTINOMIAL, 
@@ -135,7 +129,7 @@ public class MultiClassNaiveBayes extends ClassificationMethod {
     }
 
     @Override
-    public ClassificationResult classify(DataHandleInternal features, int row) {
+    public ClassificationResult classify(ClassificationFeatures features, int row) {
         double[] probabilities = new double[specification.classMap.size()];
         int result = nb.predict(encodeFeatures(features, row, true), probabilities);
         return new MultiClassNaiveBayesClassificationResult(result, probabilities, specification.classMap);
@@ -147,58 +141,33 @@ public class MultiClassNaiveBayes extends ClassificationMethod {
     }
 
     @Override
-    public void train(DataHandleInternal features, DataHandleInternal clazz, int row) {
-        nb.learn(encodeFeatures(features, row, false), encodeClass(clazz, row));
-    }
-
-    /**
-     * Encodes a class
-     * @param handle
-     * @param row
-     * @return
-     */
-    private int encodeClass(DataHandleInternal handle, int row) {
-        return specification.classMap.get(handle.getValue(row, specification.classIndex, true));
+    public void train(ClassificationFeatures features, int row) {
+        nb.learn(encodeFeatures(features, row, false), features.getClassCode(row));
     }
 
     /**
      * Encodes a feature
-     * @param handle
+     * @param features
      * @param row
      * @param classify
      * @return
      */
-    private double[] encodeFeatures(DataHandleInternal handle, int row, boolean classify) {
+    private double[] encodeFeatures(ClassificationFeatures features, int row, boolean classify) {
 
         // Prepare
         NBVector vector = new NBVector(config.getVectorLength());
         interceptEncoder.addToVector("1", vector);
         
         // Special case where there are no features
-        if (specification.featureIndices.length == 0) {
+        if (features.getNumFeatures() == 0) {
             wordEncoder.addToVector("Feature:1", 1, vector);
             return vector.array;
         }
         
         // For each attribute
-        int count = 0;
-        for (int index : specification.featureIndices) {
-            
-            // Obtain data
-            ClassificationFeatureMetadata metadata = specification.featureMetadata[count];
-            String value = null;
-            if (classify && metadata.isNumericMicroaggregation()) {
-                value = inputHandle.getValue(row, index, true);
-            } else {
-                value = handle.getValue(row, index, true);
-            }
-            Double numeric = metadata.getNumericValue(value);
-            if (Double.isNaN(numeric)) {    
-                wordEncoder.addToVector("Attribute-" + index + ":" + value, 1, vector);
-            } else {
-                wordEncoder.addToVector("Attribute-" + index, numeric, vector);
-            }
-            count++;
+        for (int feature = 0; feature < features.getNumFeatures(); feature++) {
+            double numeric = features.getNumericValue(feature, row, classify);
+            wordEncoder.addToVector(features.getWord(feature, row, classify), Double.isNaN(numeric) ? 1d : numeric, vector);
         }
         
         // Return
@@ -19,7 +19,6 @@ package org.deidentifier.arx.aggregates.classification;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.aggregates.ClassificationConfigurationRandomForest;
 import org.deidentifier.arx.common.WrappedBoolean;
 
@@ -50,8 +49,6 @@ public class MultiClassRandomForest extends ClassificationMethod {
     private IntArrayList                                  classes         = new IntArrayList();
     /** Config */
     private final int                                     numberOfVariablesToSplit;
-    /** Input handle */
-    private final DataHandleInternal                      inputHandle;
     /** Because SMILE sucks */
     private IntIntOpenHashMap                             mapping;
 
@@ -60,19 +57,16 @@ public class MultiClassRandomForest extends ClassificationMethod {
      * @param interrupt
      * @param specification
      * @param config
-     * @param inputHandle
      */
     public MultiClassRandomForest(WrappedBoolean interrupt,
                                   ClassificationDataSpecification specification,
-                                  ClassificationConfigurationRandomForest config,
-                                  DataHandleInternal inputHandle) {
+                                  ClassificationConfigurationRandomForest config) {
 
         super(interrupt);
 
         // Store
         this.config = config;
         this.specification = specification;
-        this.inputHandle = inputHandle;
         
         // Set number of variables to split as floor(sqrt(number of features)) if default value was chosen
         if (config.getNumberOfVariablesToSplit() == ClassificationConfigurationRandomForest.DEFAULT_NUMBER_OF_VARIABLES_TO_SPLIT) {
@@ -83,7 +77,7 @@ public class MultiClassRandomForest extends ClassificationMethod {
     }
 
     @Override
-    public ClassificationResult classify(DataHandleInternal features, int row) {
+    public ClassificationResult classify(ClassificationFeatures features, int row) {
 
         // Call SMILE
         double[] _probabilities = new double[mapping.size()];
@@ -154,58 +148,37 @@ public class MultiClassRandomForest extends ClassificationMethod {
     }
 
     @Override
-    public void train(DataHandleInternal features, DataHandleInternal clazz, int row) {
+    public void train(ClassificationFeatures features, int row) {
         // The Random Forest does not support online learning, so we have to cache data
         this.features.add(encodeFeatures(features, row, false));
-        this.classes.add(encodeClass(clazz, row));
-    }
-
-    /**
-     * Encodes a class
-     * @param handle
-     * @param row
-     * @return
-     */
-    private int encodeClass(DataHandleInternal handle, int row) {
-        return specification.classMap.get(handle.getValue(row, specification.classIndex, true));
+        this.classes.add(features.getClassCode(row));
     }
 
     /**
      * Encodes a feature
-     * @param handle
+     * @param features
      * @param row
      * @param classify
      * @return
      */
-    private double[] encodeFeatures(DataHandleInternal handle, int row, boolean classify) {
+    private double[] encodeFeatures(ClassificationFeatures features, int row, boolean classify) {
 
         // Prepare
         double[] vector = new double[specification.featureIndices.length];
         
         // Special case where there are no features
-        if (specification.featureIndices.length == 0) {
+        if (features.getNumFeatures() == 0) {
             return vector;
         }
         
         // For each attribute
-        int count = 0;
-        for (int index : specification.featureIndices) {
-            
-            // Obtain data
-            ClassificationFeatureMetadata metadata = specification.featureMetadata[count];
-            String value = null;
-            if (classify && metadata.isNumericMicroaggregation()) {
-                value = inputHandle.getValue(row, index, true);
-            } else {
-                value = handle.getValue(row, index, true);
-            }
-            Double numeric = metadata.getNumericValue(value);
-            if (Double.isNaN(numeric)) {    
-                vector[count] = handle.getValueIdentifier(index, value);
+        for (int feature = 0; feature < vector.length; feature++) {
+            double numeric = features.getNumericValue(feature, row, classify);
+            if (Double.isNaN(numeric)) {
+                vector[feature] = features.getValueIdentifier(feature, row, classify);
             } else {
-                vector[count] = numeric;
+                vector[feature] = numeric;
             }
-            count++;
         }
         
         // Return
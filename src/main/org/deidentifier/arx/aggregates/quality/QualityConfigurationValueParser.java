@@ -32,17 +32,21 @@ import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
 class QualityConfigurationValueParser<T> {
     
     /**
-     * Returns a new instance
+     * Returns a new instance. Uses a private copy of the data type, because formats
+     * are not thread-safe and quality models may be evaluated concurrently.
      * @param type
      * @return
      */
     static QualityConfigurationValueParser<?> create(DataType<?> datatype) {
         if (datatype instanceof ARXDecimal) {
-            return new QualityConfigurationValueParser<Double>((ARXDecimal)datatype);
+            ARXDecimal type = (ARXDecimal)datatype;
+            return new QualityConfigurationValueParser<Double>((ARXDecimal)DataType.createDecimal(type.getFormat(), type.getLocale()));
         } else if (datatype instanceof ARXInteger) {
-            return new QualityConfigurationValueParser<Long>((ARXInteger)datatype);
+            ARXInteger type = (ARXInteger)datatype;
+            return new QualityConfigurationValueParser<Long>((ARXInteger)DataType.createInteger(type.getFormat(), type.getLocale()));
         } else if (datatype instanceof ARXDate) {
-            return new QualityConfigurationValueParser<Date>((ARXDate)datatype); 
+            ARXDate type = (ARXDate)datatype;
+            return new QualityConfigurationValueParser<Date>((ARXDate)DataType.createDate(type.getFormat(), type.getLocale())); 
         }
         throw new IllegalArgumentException("Unknown data type");
     }
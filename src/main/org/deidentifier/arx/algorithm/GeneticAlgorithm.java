@@ -18,14 +18,17 @@ package org.deidentifier.arx.algorithm;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 import org.apache.commons.math3.distribution.EnumeratedDistribution;
 import org.apache.commons.math3.random.AbstractRandomGenerator;
 import org.apache.commons.math3.util.Pair;
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
+import org.deidentifier.arx.framework.check.TransformationResult;
 import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
@@ -42,6 +45,30 @@ import org.deidentifier.arx.metric.InformationLoss;
  */
 public class GeneticAlgorithm extends AbstractAlgorithm {
 
+    /**
+     * The offspring of a sub-population in one iteration
+     * 
+     * @author Fabian Prasser
+     */
+    private static class Offspring {
+
+        /** Generalizations of children created by crossover */
+        private final int[][] crossovers;
+        /** Generalizations of children created by mutation */
+        private final int[][] mutations;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param crossovers
+         * @param mutations
+         */
+        private Offspring(int crossovers, int mutations) {
+            this.crossovers = new int[crossovers][];
+            this.mutations = new int[mutations][];
+        }
+    }
+
     /**
      * Returns a new instance
      * 
@@ -111,6 +138,8 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
     private int                         geneticAlgorithmSubpopulationSize;
     /** Configuration */
     private double                      geneticAlgorithmProductionFraction;
+    /** Transformations that have been checked in advance but not yet been added to a sub-population */
+    private final Set<Object>           prefetched = new HashSet<Object>();
 
     /**
      * Creates a new instance
@@ -157,6 +186,16 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
         this.random = geneticAlgorithmDeterministic ? new Random(0xDEADBEEF) : new Random();
     }
 
+    /**
+     * Returns the number of checks performed, excluding checks performed in advance for individuals
+     * which have not yet been added to a sub-population. Used for progress monitoring and limits.
+     * @return
+     */
+    @Override
+    public int getCheckCount() {
+        return super.getCheckCount() - prefetched.size();
+    }
+
     @Override
     public boolean traverse() {
 
@@ -175,8 +214,10 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
         // Build sub-populations
         GeneticAlgorithmSubpopulation z1 = new GeneticAlgorithmSubpopulation();
         GeneticAlgorithmSubpopulation z2 = new GeneticAlgorithmSubpopulation();
+        int[][] individuals1 = new int[k][];
+        int[][] individuals2 = new int[k][];
 
-        // Fill sub-population 1
+        // Create individuals of sub-population 1
         for (int i = 0; i < k; i++) {
 
             // Prepare
@@ -203,13 +244,10 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
                 }
             }
 
-            // Stop
-            if (mustStop()) { return false; }
-
-            z1.addIndividual(getIndividual(generalization));
+            individuals1[i] = generalization;
         }
 
-        // Fill sub-population 2
+        // Create individuals of sub-population 2
         for (int i = 0; i < k; i++) {
 
             // Prepare
@@ -220,9 +258,19 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
                 generalization[j] = getRandomGeneralizationLevel(j);
             }
 
-            // Stop
-            if (mustStop()) { return false; }
+            individuals2[i] = generalization;
+        }
+
+        // Check all individuals at once
+        prefetch(individuals1, individuals2);
 
+        // Fill sub-populations
+        for (int[] generalization : individuals1) {
+            if (mustStop()) { return false; }
+            z1.addIndividual(getIndividual(generalization));
+        }
+        for (int[] generalization : individuals2) {
+            if (mustStop()) { return false; }
             z2.addIndividual(getIndividual(generalization));
         }
 
@@ -245,9 +293,16 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
                 z2.sort();
             }
 
+            // Create offspring of both sub-populations and check it at once.
+            // Random numbers are drawn in the same order as when iterating
+            // sequentially, which keeps results reproducible
+            Offspring o1 = getOffspring(z1);
+            Offspring o2 = getOffspring(z2);
+            prefetch(o1.crossovers, o1.mutations, o2.crossovers, o2.mutations);
+
             // Iterate
-            iterateSubpopulation(z1);
-            iterateSubpopulation(z2);
+            iterateSubpopulation(z1, o1);
+            iterateSubpopulation(z2, o2);
 
             // Stop
             if (mustStop()) { return false; }
@@ -268,6 +323,7 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
         if (!transformation.hasProperty(this.solutionSpace.getPropertyChecked())) {
             transformation.setChecked(this.checker.check(transformation, true, ScoreType.INFORMATION_LOSS));
         }
+        prefetched.remove(transformation.getIdentifier());
         trackOptimum(transformation);
         trackProgressFromLimits();
         return transformation;
@@ -284,7 +340,7 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
      * 
      * @return
      */
-    private Transformation<?> getMutatedIndividual(Transformation<?> transformation) {
+    private int[] getMutatedGeneralization(Transformation<?> transformation) {
 
         // Prepare
         int[] generalization = transformation.getGeneralization().clone();
@@ -310,7 +366,7 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
         }
 
         // Done
-        return getIndividual(generalization);
+        return generalization;
     }
 
     /**
@@ -380,27 +436,24 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
     }
 
     /**
-     * Performs one iteration on a sub-population.
+     * Creates the offspring of a sub-population. The population (ordered by fitness descending) consists of 3 groups:<br>
+     * - First: all individuals in the elite group will remain unchanged<br>
+     * - Second: a crossover fraction of individuals will be generated by
+     * crossing parent instances from the old population<br>
+     * - Third: the remaining population will be populated by mutated
+     * individuals
      * 
      * @param population
+     * @return
      */
-    private void iterateSubpopulation(GeneticAlgorithmSubpopulation population) {
-
-        // Copy old Population
-        GeneticAlgorithmSubpopulation oldPopulation = new GeneticAlgorithmSubpopulation(population);
-
-        // The population (ordered by fitness descending) consists of 3 groups
-        // - First: all individuals in the elite group will remain unchanged
-        // - Second: a crossover fraction of individuals will be generated by
-        // crossing parent instances from the old population
-        // - Third: the remaining populated will be populated by mutated
-        // individuals
+    private Offspring getOffspring(GeneticAlgorithmSubpopulation population) {
 
         // Calculate mutation configuration parameters
         int k = population.individualCount();
         int crossoverCount = (int) Math.ceil(geneticAlgorithmCrossoverFraction * k);
         int eliteCount = (int) Math.ceil(geneticAlgorithmEliteFraction * k);
         int productionCount = (int) Math.ceil(geneticAlgorithmProductionFraction * k);
+        Offspring offspring = new Offspring(crossoverCount, Math.max(0, k - crossoverCount - eliteCount));
 
         // Crossover individuals
         Transformation<?>[] parents1 = getRandomIndividuals(population, productionCount, crossoverCount);
@@ -412,25 +465,94 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
             for (int i = 0; i < maxLevels.length; i++) {
                 vec[i] = (random.nextDouble() < 0.5 ? parents1[crossover] : parents2[crossover]).getGeneralization()[i];
             }
+            offspring.crossovers[crossover] = vec;
+        }
+
+        // Mutate individuals
+        for (int mutation = 0; mutation < offspring.mutations.length; mutation++) {
+            offspring.mutations[mutation] = getMutatedGeneralization(population.getIndividual(random.nextInt(k)));
+        }
+
+        // Done
+        return offspring;
+    }
+
+    /**
+     * Performs one iteration on a sub-population by replacing individuals with the given offspring.
+     * 
+     * @param population
+     * @param offspring
+     */
+    private void iterateSubpopulation(GeneticAlgorithmSubpopulation population, Offspring offspring) {
+
+        // Prepare
+        int k = population.individualCount();
+        int eliteCount = k - offspring.crossovers.length - offspring.mutations.length;
+
+        // Crossover individuals
+        for (int crossover = 0; crossover < offspring.crossovers.length; crossover++) {
 
             // Stop
             if (mustStop()) { return; }
 
             // Replace
-            population.setIndividual(k - crossover - 1, getIndividual(vec));
+            population.setIndividual(k - crossover - 1, getIndividual(offspring.crossovers[crossover]));
         }
 
         // Mutate individuals
-        for (int mutation = eliteCount; mutation < k - crossoverCount; mutation++) {
+        for (int mutation = 0; mutation < offspring.mutations.length; mutation++) {
 
-            // Mutate
-            Transformation<?> individual = getMutatedIndividual(oldPopulation.getIndividual(random.nextInt(k)));
-            if (individual != null) {
-                population.setIndividual(mutation, individual);
-            }
+            // Replace
+            population.setIndividual(eliteCount + mutation, getIndividual(offspring.mutations[mutation]));
 
             // Stop
             if (mustStop()) { return; }
         }
     }
+
+    /**
+     * Checks the transformations with the given generalizations at once, if this can be parallelized.
+     * Transformations are checked in the order in which they would be checked sequentially, as long
+     * as the limit on the number of checks is not exceeded.
+     * 
+     * @param generalizations
+     */
+    private void prefetch(int[][]... generalizations) {
+
+        // Check
+        if (!checker.isParallel()) {
+            return;
+        }
+
+        // Collect unchecked transformations
+        List<Transformation<?>> unchecked = new ArrayList<>();
+        Set<Object> identifiers = new HashSet<>();
+        int budget = getCheckLimit() - checker.getNumChecksPerformed();
+        outer: for (int[][] list : generalizations) {
+            for (int[] generalization : list) {
+                if (unchecked.size() >= budget) {
+                    break outer;
+                }
+                Transformation<?> transformation = this.solutionSpace.getTransformation(generalization);
+                if (!transformation.hasProperty(this.solutionSpace.getPropertyChecked()) &&
+                    identifiers.add(transformation.getIdentifier())) {
+                    unchecked.add(transformation);
+                }
+            }
+        }
+
+        // Check in parallel
+        TransformationResult[] results = checker.check(unchecked, true, ScoreType.INFORMATION_LOSS);
+        for (int i = 0; i < results.length; i++) {
+            unchecked.get(i).setChecked(results[i]);
+            prefetched.add(unchecked.get(i).getIdentifier());
+        }
+    }
+
+    @Override
+    protected boolean mustStop() {
+        // Checks performed in advance are accounted for when the individuals are added
+        return ((int) (System.currentTimeMillis() - getTimeStart()) > getTimeLimit()) ||
+               (getCheckCount() >= getCheckLimit());
+    }
 }
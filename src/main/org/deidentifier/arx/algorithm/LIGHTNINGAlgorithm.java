@@ -17,12 +17,15 @@
 
 package org.deidentifier.arx.algorithm;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.PriorityQueue;
 
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
+import org.deidentifier.arx.framework.check.TransformationResult;
 import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
@@ -134,6 +137,27 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
         }
     }
 
+    /**
+    * Makes sure that the given transformations have been checked, as long as the limit on the number
+    * of checks is not exceeded. Checks are performed in parallel, if possible.
+    * @param transformations
+    */
+    protected void assureChecked(final List<Transformation<?>> transformations) {
+        List<Transformation<?>> unchecked = new ArrayList<>();
+        int budget = getCheckLimit() - getCheckCount();
+        for (Transformation<?> transformation : transformations) {
+            if (!transformation.hasProperty(propertyChecked) && unchecked.size() < budget) {
+                unchecked.add(transformation);
+            }
+        }
+        TransformationResult[] results = checker.check(unchecked, true, ScoreType.INFORMATION_LOSS);
+        for (int i = 0; i < results.length; i++) {
+            unchecked.get(i).setChecked(results[i]);
+            trackOptimum(unchecked.get(i));
+        }
+        trackProgressFromLimits();
+    }
+
     /**
     * Performs a depth first search (without backtracking) starting from the the given transformation
     * @param queue
@@ -161,6 +185,19 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
         
         Transformation<?> result = null;
         TransformationList<?> list = up ? transformation.getSuccessors() : transformation.getPredecessors();
+        
+        // Check all candidates at once, if this can be parallelized
+        if (checker.isParallel()) {
+            List<Transformation<?>> candidates = new ArrayList<>();
+            for (int i = 0; i < list.size(); i++) {
+                Transformation<?> successor = solutionSpace.getTransformation(list.getQuick(i));
+                if (!successor.hasProperty(propertyExpanded) && !successor.hasProperty(propertyInsufficientUtility)) {
+                    candidates.add(successor);
+                }
+            }
+            assureChecked(candidates);
+        }
+        
         for (int i = 0; i < list.size(); i++) {
             Object id = list.getQuick(i);
             Transformation<?> successor = solutionSpace.getTransformation(id);
@@ -0,0 +1,268 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.common;
+
+import java.util.Arrays;
+
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.DataType;
+
+/**
+ * A groupify operator for risk analyses, which groups records by the dictionary-encoded values
+ * of a set of columns. Groups are stored in primitive arrays and located with open addressing,
+ * which avoids materializing the values as strings. Suppressed values are treated like the
+ * value <code>*</code>, which is consistent with grouping the decoded values.
+ * 
+ * @author Fabian Prasser
+ */
+public class EncodedGroupify {
+
+    /** Load factor. */
+    private static final float       LOAD_FACTOR = 0.75f;
+
+    /** The handle */
+    private final DataHandleInternal handle;
+
+    /** The columns */
+    private final int[]              columns;
+
+    /** Whether suppression is ignored */
+    private final boolean            ignoreSuppression;
+
+    /** The codes used for suppressed values in each column */
+    private final int[]              suppressed;
+
+    /** Buffer for the codes of the current record */
+    private final int[]              buffer;
+
+    /** The hash table, containing group indices + 1 */
+    private int[]                    table;
+
+    /** The codes of all groups */
+    private int[]                    codes;
+
+    /** The hash codes of all groups */
+    private int[]                    hashes;
+
+    /** The sizes of all groups */
+    private int[]                    counts;
+
+    /** A representative row for each group */
+    private int[]                    rows;
+
+    /** The number of groups */
+    private int                      size;
+
+    /** The maximal number of groups before rehashing */
+    private int                      threshold;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param handle
+     * @param columns
+     * @param ignoreSuppression
+     * @param capacity
+     */
+    public EncodedGroupify(DataHandleInternal handle, int[] columns, boolean ignoreSuppression, int capacity) {
+        
+        // Store
+        this.handle = handle;
+        this.columns = columns;
+        this.ignoreSuppression = ignoreSuppression;
+        this.buffer = new int[columns.length];
+        this.suppressed = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            this.suppressed[i] = handle.getValueIdentifier(columns[i], DataType.ANY_VALUE);
+        }
+
+        // Initialize
+        int tableSize = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, capacity / LOAD_FACTOR)) - 1) << 1;
+        capacity = (int) (tableSize * LOAD_FACTOR);
+        this.table = new int[tableSize];
+        this.threshold = capacity;
+        this.codes = new int[capacity * columns.length];
+        this.hashes = new int[capacity];
+        this.counts = new int[capacity];
+        this.rows = new int[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Adds the given row and returns the index of its group
+     * 
+     * @param row
+     * @return
+     */
+    public int add(int row) {
+
+        // Encode
+        int hash = 1;
+        for (int i = 0; i < columns.length; i++) {
+            int code = handle.getEncodedValue(row, columns[i], ignoreSuppression);
+            code = code == -1 ? suppressed[i] : code;
+            buffer[i] = code;
+            hash = 31 * hash + code;
+        }
+        hash = spread(hash);
+
+        // Find
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int group = table[slot] - 1;
+            if (hashes[group] == hash && equals(group, buffer, 0)) {
+                counts[group]++;
+                return group;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Create
+        if (size == threshold) {
+            rehash();
+            slot = hash & (table.length - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+        }
+        int group = size++;
+        System.arraycopy(buffer, 0, codes, group * columns.length, columns.length);
+        hashes[group] = hash;
+        counts[group] = 1;
+        rows[group] = row;
+        table[slot] = group + 1;
+        return group;
+    }
+
+    /**
+     * Returns the index of the group which matches the given group from another instance
+     * built for the same columns of a handle sharing the same dictionaries, -1 if there is none
+     * 
+     * @param other
+     * @param group
+     * @return
+     */
+    public int get(EncodedGroupify other, int group) {
+        int hash = other.hashes[group];
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int candidate = table[slot] - 1;
+            if (hashes[candidate] == hash && equals(candidate, other.codes, group * columns.length)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the size of the given group
+     * 
+     * @param group
+     * @return
+     */
+    public int getCount(int group) {
+        return counts[group];
+    }
+
+    /**
+     * Returns a representative row of the given group
+     * 
+     * @param group
+     * @return
+     */
+    public int getRow(int group) {
+        return rows[group];
+    }
+
+    /**
+     * Returns the decoded values of the given group
+     * 
+     * @param group
+     * @return
+     */
+    public String[] getValues(int group) {
+        String[] result = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            result[i] = handle.getValue(rows[group], columns[i], ignoreSuppression);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of groups
+     * 
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Compares the codes of the given group with the given codes
+     * 
+     * @param group
+     * @param other
+     * @param offset
+     * @return
+     */
+    private boolean equals(int group, int[] other, int offset) {
+        int base = group * columns.length;
+        for (int i = 0; i < columns.length; i++) {
+            if (codes[base + i] != other[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the size of the table
+     */
+    private void rehash() {
+        int capacity = threshold * 2;
+        this.codes = Arrays.copyOf(codes, capacity * columns.length);
+        this.hashes = Arrays.copyOf(hashes, capacity);
+        this.counts = Arrays.copyOf(counts, capacity);
+        this.rows = Arrays.copyOf(rows, capacity);
+        this.table = new int[table.length * 2];
+        this.threshold = capacity;
+        int mask = table.length - 1;
+        for (int group = 0; group < size; group++) {
+            int slot = hashes[group] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = group + 1;
+        }
+    }
+
+    /**
+     * Spreads the bits of the hash code
+     * 
+     * @param hash
+     * @return
+     */
+    private int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -144,6 +144,16 @@ public class Groupify<T> {
      * @param element
      */
     public void add(T element) {
+        add(element, 1);
+    }
+
+    /**
+     * Adds a new element with the given multiplicity
+     * 
+     * @param element
+     * @param multiplicity
+     */
+    public void add(T element, int multiplicity) {
 
         // Add
         final int hash = element.hashCode();
@@ -160,7 +170,7 @@ public class Groupify<T> {
         }
 
         // Track size
-        entry.count++;
+        entry.count += multiplicity;
     }
 
     /**
@@ -51,6 +51,19 @@ public class TupleWrapper {
         this.hashcode = hashcode;
     }
     
+    /**
+     * Creates a new instance from the given values
+     * @param values
+     */
+    public TupleWrapper(String[] values) {
+        this.values = values;
+        int hashcode = 1;
+        for (String value : values) {
+            hashcode = 31 * hashcode + value.hashCode();
+        }
+        this.hashcode = hashcode;
+    }
+    
     /**
      * Creates a new instance
      * @param handle
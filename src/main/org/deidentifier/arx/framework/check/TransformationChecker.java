@@ -17,8 +17,18 @@
 
 package org.deidentifier.arx.framework.check;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
 import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.Transition;
 import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
 import org.deidentifier.arx.framework.check.groupify.HashGroupify;
@@ -90,6 +100,30 @@ public class TransformationChecker {
     /** Count the number of checks performed */
     private int                                     numChecksPerformed = 0;
 
+    /** The maximal size of the history */
+    private final int                               historyMaxSize;
+
+    /** A history threshold */
+    private final double                            snapshotSizeDataset;
+
+    /** A history threshold */
+    private final double                            snapshotSizeSnapshot;
+
+    /** The maximal size of the history on disk */
+    private final long                              historyMaxSizeOnDisk;
+
+    /** The number of threads to use */
+    private final int                               numberOfThreads;
+
+    /** Monitor guarding the state shared between this checker and its workers */
+    private final Object                            monitor;
+
+    /** Workers for checking multiple transformations in parallel, initialized lazily */
+    private TransformationChecker[]                 workers;
+
+    /** Executor for the workers and the transformer, initialized lazily */
+    private ExecutorService                         executor;
+
     /**
      * Creates a new transformation checker.
      * 
@@ -99,7 +133,10 @@ public class TransformationChecker {
      * @param historyMaxSize The history max size
      * @param snapshotSizeDataset A history threshold
      * @param snapshotSizeSnapshot A history threshold
+     * @param historyMaxSizeOnDisk The max size of the history on disk in bytes
      * @param solutionSpace
+     * @param numberOfThreads The number of threads to use for checking multiple transformations at once
+     *                        and for transforming large datasets
      */
     public TransformationChecker(final DataManager manager,
                                  final Metric<?> metric,
@@ -107,7 +144,51 @@ public class TransformationChecker {
                                  final int historyMaxSize,
                                  final double snapshotSizeDataset,
                                  final double snapshotSizeSnapshot,
-                                 final SolutionSpace<?> solutionSpace) {
+                                 final long historyMaxSizeOnDisk,
+                                 final SolutionSpace<?> solutionSpace,
+                                 final int numberOfThreads) {
+        this(manager,
+             metric,
+             config,
+             historyMaxSize,
+             snapshotSizeDataset,
+             snapshotSizeSnapshot,
+             historyMaxSizeOnDisk,
+             solutionSpace,
+             numberOfThreads,
+             manager.getDataGeneralized().getArray(),
+             manager.getDataAnalyzed().getArray(),
+             new Object());
+    }
+
+    /**
+     * Creates a new transformation checker operating on the given input matrices.
+     * 
+     * @param manager The manager
+     * @param metric The metric
+     * @param config The configuration
+     * @param historyMaxSize The history max size
+     * @param snapshotSizeDataset A history threshold
+     * @param snapshotSizeSnapshot A history threshold
+     * @param historyMaxSizeOnDisk The max size of the history on disk in bytes
+     * @param solutionSpace
+     * @param numberOfThreads
+     * @param inputGeneralized
+     * @param inputAnalyzed
+     * @param monitor
+     */
+    private TransformationChecker(final DataManager manager,
+                                  final Metric<?> metric,
+                                  final ARXConfigurationInternal config,
+                                  final int historyMaxSize,
+                                  final double snapshotSizeDataset,
+                                  final double snapshotSizeSnapshot,
+                                  final long historyMaxSizeOnDisk,
+                                  final SolutionSpace<?> solutionSpace,
+                                  final int numberOfThreads,
+                                  final DataMatrix inputGeneralized,
+                                  final DataMatrix inputAnalyzed,
+                                  final Object monitor) {
         
         // Store data
         this.metric = metric;
@@ -116,6 +197,12 @@ public class TransformationChecker {
         this.dataGeneralized = manager.getDataGeneralized();
         this.solutionSpace = solutionSpace;
         this.minimalClassSizeRequired = config.getMinimalGroupSize() != Integer.MAX_VALUE;
+        this.historyMaxSize = historyMaxSize;
+        this.snapshotSizeDataset = snapshotSizeDataset;
+        this.snapshotSizeSnapshot = snapshotSizeSnapshot;
+        this.historyMaxSizeOnDisk = historyMaxSizeOnDisk;
+        this.numberOfThreads = numberOfThreads;
+        this.monitor = monitor;
         
         // Initialize all operators
         int initialSize = (int) (manager.getDataGeneralized().getDataLength() * 0.01d);
@@ -134,30 +221,33 @@ public class TransformationChecker {
                                    historyMaxSize,
                                    snapshotSizeDataset,
                                    snapshotSizeSnapshot,
+                                   historyMaxSizeOnDisk,
                                    config,
                                    dictionarySensValue,
                                    dictionarySensFreq,
                                    solutionSpace);
         
-        this.stateMachine = new TransformationCheckerStateMachine(history);
-        this.transformer = new Transformer(manager.getDataGeneralized().getArray(),
-                                           manager.getDataAnalyzed().getArray(),
+        this.stateMachine = new TransformationCheckerStateMachine(history, manager.getDataGeneralized().getArray().getNumRows());
+        this.transformer = new Transformer(inputGeneralized,
+                                           inputAnalyzed,
                                            manager.getAggregationInformation().getHotThreshold(),
                                            manager.getHierarchies(),
                                            config,
                                            dictionarySensValue,
-                                           dictionarySensFreq);
+                                           dictionarySensFreq,
+                                           manager.getDataGeneralized().getDictionary().getSuppressedCodes(),
+                                           numberOfThreads);
         
         this.currentGroupify = new HashGroupify(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
-                                                manager.getDataGeneralized().getArray(),
+                                                inputGeneralized,
                                                 transformer.getBuffer(),
-                                                manager.getDataAnalyzed().getArray(),
+                                                inputAnalyzed,
                                                 manager.getDataGeneralized().getDictionary().getSuppressedCodes());
         
         this.lastGroupify = new HashGroupify(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
-                                             manager.getDataGeneralized().getArray(),
+                                             inputGeneralized,
                                              transformer.getBuffer(),
-                                             manager.getDataAnalyzed().getArray(),
+                                             inputAnalyzed,
                                              manager.getDataGeneralized().getDictionary().getSuppressedCodes());
     }
 
@@ -182,68 +272,78 @@ public class TransformationChecker {
         // Count number of checks
         numChecksPerformed++;
         
-        // If the result is already know, simply return it
-        if (node.getData() != null && node.getData() instanceof TransformationResult) {
-            return (TransformationResult) node.getData();
-        }
+        // Check
+        return checkInternal(node, forceMeasureInfoLoss, scoreType);
+    }
+
+    /**
+     * Checks the given transformations. If more than one thread has been configured, the transformations
+     * are distributed amongst a set of workers, each of which maintains its own transformer, groupify
+     * operators and history. Access to the solution space, the privacy models and the quality model is
+     * serialized, which means that the results are identical to checking the transformations one after
+     * another. The caller is responsible for attaching the results to the transformations.
+     * 
+     * @param nodes
+     * @param forceMeasureInfoLoss
+     * @param scoreType
+     * @return The results, in the order of the given transformations
+     */
+    public TransformationResult[] check(final List<Transformation<?>> nodes, final boolean forceMeasureInfoLoss, final ScoreType scoreType) {
+
+        // Prepare
+        TransformationResult[] results = new TransformationResult[nodes.size()];
         
-        // Store snapshot from last check
-        if (stateMachine.getLastTransformation() != null) {
-            history.store(solutionSpace.getTransformation(stateMachine.getLastTransformation()), currentGroupify, stateMachine.getLastTransition().snapshot);
+        // Sequential execution
+        if (!isParallel() || nodes.size() <= 1) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = check(nodes.get(i), forceMeasureInfoLoss, scoreType);
+            }
+            return results;
         }
         
-        // Transition
-        final Transition transition = stateMachine.transition(node.getGeneralization());
+        // Count number of checks
+        numChecksPerformed += nodes.size();
         
-        // Switch groupifies
-        final HashGroupify temp = lastGroupify;
-        lastGroupify = currentGroupify;
-        currentGroupify = temp;
+        // Prepare workers
+        initializeWorkers();
         
-        // Apply transition
-        switch (transition.type) {
-        case UNOPTIMIZED:
-            currentGroupify = transformer.apply(transition.projection, node.getGeneralization(), currentGroupify);
-            break;
-        case ROLLUP:
-            currentGroupify = transformer.applyRollup(transition.projection, node.getGeneralization(), lastGroupify, currentGroupify);
-            break;
-        case SNAPSHOT:
-            currentGroupify = transformer.applySnapshot(transition.projection, node.getGeneralization(), currentGroupify, transition.snapshot);
-            break;
+        // Distribute consecutive ranges of transformations amongst the workers, as
+        // transformations that are close to each other are likely to be related
+        int numTasks = Math.min(workers.length, results.length);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int task = 0; task < numTasks; task++) {
+            final TransformationChecker worker = workers[task];
+            final TransformationResult[] _results = results;
+            final int start = (int) ((long) task * results.length / numTasks);
+            final int end = (int) ((long) (task + 1) * results.length / numTasks);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int i = start; i < end; i++) {
+                        _results[i] = worker.checkInternal(nodes.get(i), forceMeasureInfoLoss, scoreType);
+                    }
+                    return null;
+                }
+            });
         }
         
-        // We are done with transforming and adding
-        currentGroupify.stateAnalyze(node, forceMeasureInfoLoss);
-        if (forceMeasureInfoLoss && !currentGroupify.isPrivacyModelFulfilled() && !config.isSuppressionAlwaysEnabled()) {
-            currentGroupify.stateResetSuppression();
+        // Execute
+        try {
+            for (Future<Void> future : getExecutor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ComputationInterruptedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
         }
         
-        // Compute information loss and lower bound
-        InformationLoss<?> loss = null;
-        InformationLoss<?> bound = null;
-        
-        switch (scoreType) {
-        case DP_SCORE:
-            // Evaluate score function
-            loss = metric.getScore(node, currentGroupify);
-            break;
-        case INFORMATION_LOSS:
-            // Calculate conventional information loss and bound
-            InformationLossWithBound<?> result = (currentGroupify.isPrivacyModelFulfilled() || forceMeasureInfoLoss) ?
-                                                  metric.getInformationLoss(node, currentGroupify) : null;
-            loss = result != null ? result.getInformationLoss() : null;
-            bound = result != null ? result.getLowerBound() : metric.getLowerBound(node, currentGroupify);
-            break;
-        default:
-            throw new RuntimeException("The score type " + scoreType + " is not supported");
-        }
-        
-        // Return result;
-        return new TransformationResult(currentGroupify.isPrivacyModelFulfilled(),
-                                      minimalClassSizeRequired ? currentGroupify.isMinimalClassSizeFulfilled() : null,
-                                      loss,
-                                      bound);
+        // Done
+        return results;
     }
     
     /**
@@ -311,6 +411,14 @@ public class TransformationChecker {
         return this.transformer.getBuffer();
     }
 
+    /**
+     * Returns whether this checker is able to check multiple transformations in parallel
+     * @return
+     */
+    public boolean isParallel() {
+        return this.numberOfThreads > 1;
+    }
+
     /**
      * Frees memory
      */
@@ -320,5 +428,152 @@ public class TransformationChecker {
         history.setSize(0);
         currentGroupify.stateClear();
         lastGroupify.stateClear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (workers != null) {
+            for (TransformationChecker worker : workers) {
+                worker.reset();
+            }
+            workers = null;
+        }
+    }
+
+    /**
+     * Checks the given transformation without accounting for it
+     * @param node
+     * @param forceMeasureInfoLoss
+     * @param scoreType
+     * @return
+     */
+    private TransformationResult checkInternal(final Transformation<?> node, final boolean forceMeasureInfoLoss, final ScoreType scoreType) {
+        
+        // Prepare the transition. This accesses the solution space.
+        final Transition transition;
+        synchronized (monitor) {
+        
+            // If the result is already know, simply return it
+            if (node.getData() != null && node.getData() instanceof TransformationResult) {
+                return (TransformationResult) node.getData();
+            }
+            
+            // Store snapshot from last check
+            if (stateMachine.getLastTransformation() != null) {
+                history.store(solutionSpace.getTransformation(stateMachine.getLastTransformation()), currentGroupify, stateMachine.getLastTransition().snapshot);
+            }
+            
+            // Transition
+            transition = stateMachine.transition(node.getGeneralization(), currentGroupify.getNumberOfEquivalenceClasses());
+        }
+        
+        // Switch groupifies
+        final HashGroupify temp = lastGroupify;
+        lastGroupify = currentGroupify;
+        currentGroupify = temp;
+        
+        // Apply transition
+        switch (transition.type) {
+        case UNOPTIMIZED:
+            if (isParallel()) {
+                currentGroupify = transformer.apply(transition.projection, node.getGeneralization(), currentGroupify, getExecutor());
+            } else {
+                currentGroupify = transformer.apply(transition.projection, node.getGeneralization(), currentGroupify);
+            }
+            break;
+        case ROLLUP:
+            currentGroupify = transformer.applyRollup(transition.projection, node.getGeneralization(), lastGroupify, currentGroupify);
+            break;
+        case SNAPSHOT:
+            currentGroupify = transformer.applySnapshot(transition.projection, node.getGeneralization(), currentGroupify, transition.snapshot);
+            break;
+        }
+        
+        // Evaluate privacy and quality models, which may not be thread-safe
+        synchronized (monitor) {
+            
+            // We are done with transforming and adding
+            currentGroupify.stateAnalyze(node, forceMeasureInfoLoss);
+            if (forceMeasureInfoLoss && !currentGroupify.isPrivacyModelFulfilled() && !config.isSuppressionAlwaysEnabled()) {
+                currentGroupify.stateResetSuppression();
+            }
+            
+            // Compute information loss and lower bound
+            InformationLoss<?> loss = null;
+            InformationLoss<?> bound = null;
+            
+            switch (scoreType) {
+            case DP_SCORE:
+                // Evaluate score function
+                loss = metric.getScore(node, currentGroupify);
+                break;
+            case INFORMATION_LOSS:
+                // Calculate conventional information loss and bound
+                InformationLossWithBound<?> result = (currentGroupify.isPrivacyModelFulfilled() || forceMeasureInfoLoss) ?
+                                                      metric.getInformationLoss(node, currentGroupify) : null;
+                loss = result != null ? result.getInformationLoss() : null;
+                bound = result != null ? result.getLowerBound() : metric.getLowerBound(node, currentGroupify);
+                break;
+            default:
+                throw new RuntimeException("The score type " + scoreType + " is not supported");
+            }
+            
+            // Return result;
+            return new TransformationResult(currentGroupify.isPrivacyModelFulfilled(),
+                                          minimalClassSizeRequired ? currentGroupify.isMinimalClassSizeFulfilled() : null,
+                                          loss,
+                                          bound);
+        }
+    }
+
+    /**
+     * Creates the workers. Each worker operates on its own views of the input data
+     * and maintains its own output buffer, groupify operators and history.
+     */
+    private void initializeWorkers() {
+        
+        // Already initialized
+        if (workers != null) {
+            return;
+        }
+        
+        // Create workers
+        DataMatrix inputGeneralized = manager.getDataGeneralized().getArray();
+        DataMatrix inputAnalyzed = manager.getDataAnalyzed().getArray();
+        workers = new TransformationChecker[numberOfThreads];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new TransformationChecker(manager,
+                                                   metric,
+                                                   config,
+                                                   historyMaxSize,
+                                                   snapshotSizeDataset,
+                                                   snapshotSizeSnapshot,
+                                                   historyMaxSizeOnDisk,
+                                                   solutionSpace,
+                                                   1,
+                                                   inputGeneralized.getView(),
+                                                   inputAnalyzed != null ? inputAnalyzed.getView() : null,
+                                                   monitor);
+            workers[i].history.setStorageStrategy(history.getStorageStrategy());
+        }
+        
+    }
+
+    /**
+     * Returns the executor, which is created lazily
+     * @return
+     */
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ARX transformation checker");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
     }
 }
\ No newline at end of file
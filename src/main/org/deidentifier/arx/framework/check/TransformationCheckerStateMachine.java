@@ -22,7 +22,9 @@ import org.deidentifier.arx.framework.check.history.History;
 /**
  * This class implements a state machine, which determines which optimizations
  * can be applied to the current transition depending on the previous
- * transition.
+ * transition. If multiple optimizations can be applied, the cheapest source is chosen,
+ * where the costs are estimated by the number of records or classes which need to be
+ * processed.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -68,6 +70,9 @@ public class TransformationCheckerStateMachine {
     /** The history. */
     private History    history  = null;
 
+    /** The number of rows in the dataset. */
+    private final int  numRows;
+
     /** The last node, which has been checked for k-anonymity. */
     private int[]      lastTransformation;
 
@@ -84,11 +89,13 @@ public class TransformationCheckerStateMachine {
      * Instantiates a new state machine.
      * 
      * @param history the history
+     * @param numRows the number of rows in the dataset
      */
-    public TransformationCheckerStateMachine(final History history) {
+    public TransformationCheckerStateMachine(final History history, final int numRows) {
         this.lastTransformation = null;
         this.lastTransition = null;
         this.history = history;
+        this.numRows = numRows;
     }
 
     /**
@@ -121,9 +128,10 @@ public class TransformationCheckerStateMachine {
      * Calculates the best state transition.
      * 
      * @param transformation the current transformation
+     * @param lastNumberOfClasses the number of classes resulting from the last transformation
      * @return the transition
      */
-    public Transition transition(final int[] transformation) {
+    public Transition transition(final int[] transformation, final int lastNumberOfClasses) {
 
         // Result
         Transition result = new Transition();
@@ -134,36 +142,32 @@ public class TransformationCheckerStateMachine {
             result.projection = 0L;
             result.snapshot = null;
         } else {
-            switch (lastTransition.type) {
-            case UNOPTIMIZED:
-                result.projection = getProjection(transformation);
-                if (isPossibleSnapshot(transformation)) {
-                    result.type = TransitionType.SNAPSHOT;
-                    result.snapshot = snapshot;
-                } else if (isPossibleRollup(transformation)) {
-                    result.type = TransitionType.ROLLUP;
-                    result.snapshot = null;
-                } else {
-                    result.type = TransitionType.UNOPTIMIZED;
-                    result.snapshot = null;
-                }
-                break;
-            case ROLLUP:
-            case SNAPSHOT:
-                if (isPossibleSnapshot(transformation)) {
-                    result.projection = isPredecessor(snapshotTransformation, lastTransformation) ? getProjection(transformation) : 0L;
-                    result.type = TransitionType.SNAPSHOT;
-                    result.snapshot = snapshot;
-                } else if (isPossibleRollup(transformation)) {
+            
+            // Estimate costs
+            long costSnapshot = isPossibleSnapshot(transformation) ? history.getNumberOfEquivalenceClasses(snapshot) : Long.MAX_VALUE;
+            long costRollup = isPossibleRollup(transformation) ? lastNumberOfClasses : Long.MAX_VALUE;
+            
+            // Choose cheapest source
+            if (costSnapshot <= costRollup && costSnapshot <= numRows) {
+                switch (lastTransition.type) {
+                case UNOPTIMIZED:
                     result.projection = getProjection(transformation);
-                    result.type = TransitionType.ROLLUP;
-                    result.snapshot = null;
-                } else {
-                    result.projection = 0L;
-                    result.type = TransitionType.UNOPTIMIZED;
-                    result.snapshot = null;
+                    break;
+                case ROLLUP:
+                case SNAPSHOT:
+                    result.projection = isPredecessor(snapshotTransformation, lastTransformation) ? getProjection(transformation) : 0L;
+                    break;
                 }
-                break;
+                result.type = TransitionType.SNAPSHOT;
+                result.snapshot = snapshot;
+            } else if (costRollup <= numRows) {
+                result.projection = getProjection(transformation);
+                result.type = TransitionType.ROLLUP;
+                result.snapshot = null;
+            } else {
+                result.projection = lastTransition.type == TransitionType.UNOPTIMIZED ? getProjection(transformation) : 0L;
+                result.type = TransitionType.UNOPTIMIZED;
+                result.snapshot = null;
             }
         }
 
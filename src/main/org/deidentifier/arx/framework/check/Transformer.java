@@ -17,7 +17,14 @@
 
 package org.deidentifier.arx.framework.check;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
 import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.TransitionType;
 import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
 import org.deidentifier.arx.framework.check.groupify.HashGroupify;
@@ -39,6 +46,7 @@ import org.deidentifier.arx.framework.check.transformer.Transformer13;
 import org.deidentifier.arx.framework.check.transformer.Transformer14;
 import org.deidentifier.arx.framework.check.transformer.Transformer15;
 import org.deidentifier.arx.framework.check.transformer.TransformerAll;
+import org.deidentifier.arx.framework.check.transformer.TransformerN;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 
@@ -50,6 +58,9 @@ import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
  */
 public class Transformer {
 
+    /** The minimal number of rows to be processed by each thread when transforming the complete input */
+    private static final int                  MIN_ROWS_PER_THREAD = 10000;
+
     /** The config. */
     protected final ARXConfigurationInternal  config;
 
@@ -80,6 +91,21 @@ public class Transformer {
     /** Number of columns to analyze */
     protected final int                       dataAnalyzedNumberOfColumns;
 
+    /** The number of threads to use for transforming the complete input */
+    protected final int                       numberOfThreads;
+
+    /** The codes of suppressed values */
+    protected final int[]                     suppressedCodes;
+
+    /** The instances for each partition of rows, initialized lazily */
+    private AbstractTransformer[][]           partitionInstances;
+
+    /** The groupify operators for each partition of rows, initialized lazily */
+    private HashGroupify[]                    partitionGroupifies;
+
+    /** The views on the buffer for each partition of rows, initialized lazily */
+    private DataMatrix[]                      partitionBuffers;
+
     /**
      * Instantiates a new transformer.
      *
@@ -90,6 +116,8 @@ public class Transformer {
      * @param config
      * @param dictionarySensValue
      * @param dictionarySensFreq
+     * @param suppressedCodes
+     * @param numberOfThreads
      */
     public Transformer(final DataMatrix inputGeneralized,
                        final DataMatrix inputAnalyzed,
@@ -97,22 +125,24 @@ public class Transformer {
                        final GeneralizationHierarchy[] hierarchies,
                        final ARXConfigurationInternal config,
                        final IntArrayDictionary dictionarySensValue,
-                       final IntArrayDictionary dictionarySensFreq) {
+                       final IntArrayDictionary dictionarySensFreq,
+                       final int[] suppressedCodes,
+                       final int numberOfThreads) {
 
         this.config = config;
         this.inputGeneralized = inputGeneralized;
         this.dataAnalyzedNumberOfColumns = dataAnalyzedNumberOfColumns;
         this.hierarchies = hierarchies;
-        this.instances = new AbstractTransformer[16];
-        this.outputGeneralized = new DataMatrix(inputGeneralized.getNumRows(), 
-                                                inputGeneralized.getNumColumns());
+        this.suppressedCodes = suppressedCodes;
+        this.numberOfThreads = numberOfThreads;
+        this.outputGeneralized = inputGeneralized.newInstance(inputGeneralized.getNumRows());
 
         this.dimensions = inputGeneralized.getNumColumns();
         this.dictionarySensValue = dictionarySensValue;
         this.dictionarySensFreq = dictionarySensFreq;
         this.inputAnalyzed = inputAnalyzed;
 
-        buildTransformers();
+        this.instances = buildTransformers(inputGeneralized, inputAnalyzed);
     }
 
     /**
@@ -145,6 +175,8 @@ public class Transformer {
         this.dimensions = inputGeneralized.getNumColumns();
         this.dictionarySensValue = null;
         this.dictionarySensFreq = null;
+        this.suppressedCodes = null;
+        this.numberOfThreads = 1;
 
         // Build just one applicator
         this.instances = new AbstractTransformer[1];
@@ -177,6 +209,75 @@ public class Transformer {
                              TransitionType.UNOPTIMIZED);
     }
 
+    /**
+     * Apply. If the input is large enough, its rows are partitioned and each partition is
+     * transformed and grouped by a separate thread. The results are then merged into the target,
+     * in the order of the partitions, which results in exactly the same equivalence classes,
+     * representatives and iteration order as sequential processing.
+     * 
+     * @param projection the projection
+     * @param transformation the transformation
+     * @param target the target
+     * @param executor the executor to use
+     * @return the hash groupify
+     */
+    public HashGroupify apply(final long projection,
+                              final int[] transformation,
+                              final HashGroupify target,
+                              final ExecutorService executor) {
+
+        // Determine number of partitions
+        int partitions = Math.min(numberOfThreads, inputGeneralized.getNumRows() / MIN_ROWS_PER_THREAD);
+        if (executor == null || partitions <= 1) {
+            return apply(projection, transformation, target);
+        }
+
+        // Prepare
+        initializePartitions();
+        List<AbstractTransformer> tasks = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            AbstractTransformer transformer = getTransformer(partitionInstances[partition], projection);
+            transformer.init(projection,
+                             transformation,
+                             partitionGroupifies[partition],
+                             null,
+                             null,
+                             TransitionType.UNOPTIMIZED,
+                             (int) ((long) partition * inputGeneralized.getNumRows() / partitions),
+                             (int) ((long) (partition + 1) * inputGeneralized.getNumRows() / partitions),
+                             null,
+                             partitionBuffers[partition]);
+            tasks.add(transformer);
+        }
+
+        // Execute
+        try {
+            for (Future<HashGroupify> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ComputationInterruptedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+
+        // Merge, in the order of the partitions
+        target.stateClear();
+        for (int partition = 0; partition < partitions; partition++) {
+            HashGroupifyEntry entry = partitionGroupifies[partition].getFirstEquivalenceClass();
+            while (entry != null) {
+                target.addFromGroupify(entry.row, entry.distributions, entry.representative, entry.count, entry.pcount);
+                entry = entry.nextOrdered;
+            }
+            partitionGroupifies[partition].stateClear();
+        }
+        return target;
+    }
+
     /**
      * Apply rollup.
      * 
@@ -232,8 +333,20 @@ public class Transformer {
 
     /**
      * Builds the applicators.
+     * 
+     * @param inputGeneralized
+     * @param inputAnalyzed
+     * @return
      */
-    private void buildTransformers() {
+    private AbstractTransformer[] buildTransformers(final DataMatrix inputGeneralized, final DataMatrix inputAnalyzed) {
+        AbstractTransformer[] instances = new AbstractTransformer[17];
+        instances[16] = new TransformerN(inputGeneralized,
+                                         hierarchies,
+                                         inputAnalyzed,
+                                         dataAnalyzedNumberOfColumns,
+                                         dictionarySensValue,
+                                         dictionarySensFreq,
+                                         config);
         instances[15] = new Transformer15(inputGeneralized,
                                           hierarchies,
                                           inputAnalyzed,
@@ -346,6 +459,38 @@ public class Transformer {
                                           dictionarySensValue,
                                           dictionarySensFreq,
                                           config);
+        return instances;
+    }
+
+    /**
+     * Initializes the instances, groupify operators and buffers used for processing partitions of rows.
+     * Each partition operates on its own views of the input data and of the buffer.
+     */
+    private void initializePartitions() {
+
+        // Already initialized
+        if (partitionInstances != null) {
+            return;
+        }
+
+        // Initialize
+        int capacity = (int) (inputGeneralized.getNumRows() * 0.01d / numberOfThreads);
+        partitionInstances = new AbstractTransformer[numberOfThreads][];
+        partitionGroupifies = new HashGroupify[numberOfThreads];
+        partitionBuffers = new DataMatrix[numberOfThreads];
+        for (int i = 0; i < numberOfThreads; i++) {
+            DataMatrix input = inputGeneralized.getView();
+            DataMatrix analyzed = inputAnalyzed != null ? inputAnalyzed.getView() : null;
+            partitionBuffers[i] = outputGeneralized.getView();
+            partitionInstances[i] = buildTransformers(input, analyzed);
+            partitionGroupifies[i] = new HashGroupify(capacity,
+                                                      config,
+                                                      dataAnalyzedNumberOfColumns,
+                                                      input,
+                                                      partitionBuffers[i],
+                                                      analyzed,
+                                                      suppressedCodes);
+        }
     }
 
     /**
@@ -412,9 +557,21 @@ public class Transformer {
      * @return the applicator
      */
     protected AbstractTransformer getTransformer(final long projection) {
+        return getTransformer(instances, projection);
+    }
+
+    /**
+     * Gets the applicator from the given instances. Transformations of more columns than
+     * supported by the unrolled transformers are handled by the last instance.
+     * 
+     * @param instances the instances
+     * @param projection the projection
+     * @return the applicator
+     */
+    private AbstractTransformer getTransformer(final AbstractTransformer[] instances, final long projection) {
         final int index = dimensions - Long.bitCount(projection);
         if (index > (instances.length - 1)) {
-            return instances[0];
+            return instances[instances.length - 1];
         } else {
             return instances[index];
         }
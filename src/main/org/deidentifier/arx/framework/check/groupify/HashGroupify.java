@@ -17,6 +17,8 @@
 
 package org.deidentifier.arx.framework.check.groupify;
 
+import java.util.Arrays;
+
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.RowSet;
 import org.deidentifier.arx.criteria.DPresence;
@@ -35,8 +37,10 @@ import org.deidentifier.arx.metric.Metric;
 import com.carrotsearch.hppc.ObjectIntOpenHashMap;
 
 /**
- * A hash groupify operator. It implements a hash table with chaining and keeps
- * track of additional properties per equivalence class
+ * A hash groupify operator. It implements a hash table with open addressing and keeps
+ * track of additional properties per equivalence class. The table itself consists of
+ * primitive arrays, which store the hash codes and the indices of the entries. Entries
+ * are kept in insertion order and are reused after the operator has been cleared.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -49,8 +53,14 @@ public class HashGroupify {
     /** The current number of outliers. */
     private int                          currentNumOutliers;
 
-    /** The entry array. */
-    private HashGroupifyEntry[]          hashTableBuckets;
+    /** The slots, containing the index of the according entry plus one, or zero if empty. */
+    private int[]                        hashTableSlots;
+
+    /** The hash codes of the entries referenced by the slots. */
+    private int[]                        hashTableHashes;
+
+    /** The entries, in insertion order. Entries beyond the current number of elements are reused. */
+    private HashGroupifyEntry[]          hashTableEntries;
 
     /** Current number of elements. */
     private int                          hashTableElementCount;
@@ -62,7 +72,7 @@ public class HashGroupify {
     private HashGroupifyEntry            hashTableLastEntry;
 
     /** Load factor. */
-    private final float                  hashTableLoadFactor = 0.75f;
+    private final float                  hashTableLoadFactor = 0.5f;
 
     /** Maximum number of elements that can be put in this map before having to rehash. */
     private int                          hashTableThreshold;
@@ -142,8 +152,10 @@ public class HashGroupify {
         // Set capacity
         capacity = HashTableUtil.calculateCapacity(capacity);
         this.hashTableElementCount = 0;
-        this.hashTableBuckets = new HashGroupifyEntry[capacity];
-        this.hashTableThreshold = HashTableUtil.calculateThreshold(hashTableBuckets.length, hashTableLoadFactor);
+        this.hashTableSlots = new int[capacity];
+        this.hashTableHashes = new int[capacity];
+        this.hashTableEntries = new HashGroupifyEntry[HashTableUtil.calculateThreshold(capacity, hashTableLoadFactor)];
+        this.hashTableThreshold = HashTableUtil.calculateThreshold(hashTableSlots.length, hashTableLoadFactor);
         
         // Set params
         this.currentNumOutliers = 0;
@@ -282,12 +294,16 @@ public class HashGroupify {
      */
     public HashGroupifyEntry getEntry(int[] tuple) {
         final int hash = dataOutput.hashCode(tuple);
-        int index = hash & (hashTableBuckets.length - 1);
-        HashGroupifyEntry m = hashTableBuckets[index];
-        while ((m != null) && ((m.hashcode != hash) || !dataOutput.equals(m.row, tuple))) {
-            m = m.next;
+        final int mask = hashTableSlots.length - 1;
+        int index = getSlot(hash, mask);
+        int slot;
+        while ((slot = hashTableSlots[index]) != 0) {
+            if (hashTableHashes[index] == hash && dataOutput.equals(hashTableEntries[slot - 1].row, tuple)) {
+                return hashTableEntries[slot - 1];
+            }
+            index = (index + 1) & mask;
         }
-        return m;
+        return null;
     }
     
     /**
@@ -373,18 +389,13 @@ public class HashGroupify {
         int[] columns = microaggregationData.getMicroaggregationColumns();
         
         // Prepare result
-        Data result = Data.createWrapper(new DataMatrix(dataOutput.getNumRows(), indices.length), header, columns, dictionary);
+        Data result = Data.createWrapper(new DataMatrix(dataOutput.getNumRows(), indices.length, dataOutput.getStorageType()), header, columns, dictionary);
 
         // TODO: To improve performance, microaggregation and marking of outliers could be performed in one pass
         ObjectIntOpenHashMap<Distribution> cache = new ObjectIntOpenHashMap<Distribution>();
         for (int row = 0; row < dataOutput.getNumRows(); row++) {
             if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
-                final int hash = dataOutput.hashCode(row);
-                final int index = hash & (hashTableBuckets.length - 1);
-                HashGroupifyEntry m = hashTableBuckets[index];
-                while ((m != null) && ((m.hashcode != hash) || !dataOutput.equalsIgnoringOutliers(row, m.row))) {
-                    m = m.next;
-                }
+                final HashGroupifyEntry m = findEntryIgnoringOutliers(row);
                 if (m == null) { throw new RuntimeException("Invalid state! Groupify the data before performing microaggregation!"); }
                 result.getArray().iterator(row);
                 for (int i = 0; i < indices.length; i++) {
@@ -418,12 +429,7 @@ public class HashGroupify {
         
         for (int row = 0; row < dataOutput.getNumRows(); row++) {
             if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
-                final int hash = dataOutput.hashCode(row);
-                final int index = hash & (hashTableBuckets.length - 1);
-                HashGroupifyEntry m = hashTableBuckets[index];
-                while ((m != null) && ((m.hashcode != hash) || !dataOutput.equalsIgnoringOutliers(row, m.row))) {
-                    m = m.next;
-                }
+                final HashGroupifyEntry m = findEntryIgnoringOutliers(row);
                 if (m == null) {
                     throw new RuntimeException("Invalid state! Group the data before suppressing records!");
                 }
@@ -452,11 +458,16 @@ public class HashGroupify {
      */
     public void stateClear() {
         if (hashTableElementCount > 0) {
+            
+            // Release distributions of entries, which are kept for reuse
+            for (int i = 0; i < hashTableElementCount; i++) {
+                hashTableEntries[i].distributions = null;
+            }
             this.hashTableElementCount = 0;
             this.currentNumOutliers = 0;
             this.hashTableFirstEntry = null;
             this.hashTableLastEntry = null;
-            HashTableUtil.nullifyArray(hashTableBuckets);
+            Arrays.fill(hashTableSlots, 0);
         }
     }
     
@@ -485,12 +496,21 @@ public class HashGroupify {
     private HashGroupifyEntry addInternal(final int generalized, final int hash, final int representative, int count, final int pcount) {
         
         // Find or create entry
-        int index = hash & (hashTableBuckets.length - 1);
-        HashGroupifyEntry entry = findEntry(generalized, index, hash);
+        final int mask = hashTableSlots.length - 1;
+        int index = getSlot(hash, mask);
+        int slot;
+        HashGroupifyEntry entry = null;
+        while ((slot = hashTableSlots[index]) != 0) {
+            if (hashTableHashes[index] == hash && dataOutput.equals(generalized, hashTableEntries[slot - 1].row)) {
+                entry = hashTableEntries[slot - 1];
+                break;
+            }
+            index = (index + 1) & mask;
+        }
         if (entry == null) {
-            if (++hashTableElementCount > hashTableThreshold) {
+            if (hashTableElementCount + 1 > hashTableThreshold) {
                 rehash();
-                index = hash & (hashTableBuckets.length - 1);
+                index = getFreeSlot(hash, hashTableSlots.length - 1);
             }
             entry = createEntry(generalized, index, hash, representative);
         }
@@ -689,12 +709,12 @@ public class HashGroupify {
     }
 
     /**
-     * Creates a new entry.
+     * Creates a new entry, reusing a previously allocated one, if possible.
      * 
      * @param row
      *            the row
      * @param index
-     *            the index
+     *            the index of the free slot
      * @param hash
      *            the hash
      * @param line
@@ -702,10 +722,24 @@ public class HashGroupify {
      * @return the hash groupify entry
      */
     private HashGroupifyEntry createEntry(final int row, final int index, final int hash, final int line) {
-        final HashGroupifyEntry entry = new HashGroupifyEntry(this.dataOutput, row, hash);
-        entry.next = hashTableBuckets[index];
+        
+        // Obtain entry
+        if (hashTableElementCount == hashTableEntries.length) {
+            hashTableEntries = Arrays.copyOf(hashTableEntries, Math.max(16, hashTableEntries.length << 1));
+        }
+        HashGroupifyEntry entry = hashTableEntries[hashTableElementCount];
+        if (entry == null) {
+            entry = new HashGroupifyEntry(this.dataOutput, row, hash);
+            hashTableEntries[hashTableElementCount] = entry;
+        } else {
+            entry.reset(row, hash);
+        }
+        
+        // Store
+        hashTableElementCount++;
+        hashTableSlots[index] = hashTableElementCount;
+        hashTableHashes[index] = hash;
         entry.representative = line;
-        hashTableBuckets[index] = entry;
         if (hashTableFirstEntry == null) {
             hashTableFirstEntry = entry;
             hashTableLastEntry = entry;
@@ -717,22 +751,56 @@ public class HashGroupify {
     }
 
     /**
-     * Returns the according entry.
+     * Returns the entry for the given row, ignoring outlier flags.
      * 
      * @param row
      *            the row
-     * @param index
-     *            the index
-     * @param keyHash
-     *            the key hash
      * @return the hash groupify entry
      */
-    private HashGroupifyEntry findEntry(final int row, final int index, final int keyHash) {
-        HashGroupifyEntry m = hashTableBuckets[index];
-        while ((m != null) && ((m.hashcode != keyHash) || !dataOutput.equals(row, m.row))) {
-            m = m.next;
+    private HashGroupifyEntry findEntryIgnoringOutliers(final int row) {
+        final int hash = dataOutput.hashCode(row);
+        final int mask = hashTableSlots.length - 1;
+        int index = getSlot(hash, mask);
+        int slot;
+        while ((slot = hashTableSlots[index]) != 0) {
+            if (hashTableHashes[index] == hash && dataOutput.equalsIgnoringOutliers(row, hashTableEntries[slot - 1].row)) {
+                return hashTableEntries[slot - 1];
+            }
+            index = (index + 1) & mask;
         }
-        return m;
+        return null;
+    }
+
+    /**
+     * Returns the index of the first free slot for the given hash code.
+     * 
+     * @param hash
+     *            the hash
+     * @param mask
+     *            the mask
+     * @return the index
+     */
+    private int getFreeSlot(final int hash, final int mask) {
+        int index = getSlot(hash, mask);
+        while (hashTableSlots[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the initial slot for the given hash code. As we use linear probing, the bits
+     * of the hash code are spread to prevent clustering.
+     * 
+     * @param hash
+     *            the hash
+     * @param mask
+     *            the mask
+     * @return the index
+     */
+    private int getSlot(final int hash, final int mask) {
+        final int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
     }
 
     /**
@@ -767,16 +835,16 @@ public class HashGroupify {
      */
     private void rehash() {
         
-        final int length = HashTableUtil.calculateCapacity((hashTableBuckets.length == 0 ? 1 : hashTableBuckets.length << 1));
-        final HashGroupifyEntry[] newData = new HashGroupifyEntry[length];
-        HashGroupifyEntry entry = hashTableFirstEntry;
-        while (entry != null) {
-            final int index = entry.hashcode & (length - 1);
-            entry.next = newData[index];
-            newData[index] = entry;
-            entry = entry.nextOrdered;
+        final int length = HashTableUtil.calculateCapacity((hashTableSlots.length == 0 ? 1 : hashTableSlots.length << 1));
+        hashTableSlots = new int[length];
+        hashTableHashes = new int[length];
+        final int mask = length - 1;
+        for (int i = 0; i < hashTableElementCount; i++) {
+            final int hash = hashTableEntries[i].hashcode;
+            final int index = getFreeSlot(hash, mask);
+            hashTableSlots[index] = i + 1;
+            hashTableHashes[index] = hash;
         }
-        hashTableBuckets = newData;
-        hashTableThreshold = HashTableUtil.calculateThreshold(hashTableBuckets.length, hashTableLoadFactor);
+        hashTableThreshold = HashTableUtil.calculateThreshold(hashTableSlots.length, hashTableLoadFactor);
     }
 }
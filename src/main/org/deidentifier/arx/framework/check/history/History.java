@@ -80,6 +80,15 @@ public class History {
     /** The solution space */
     private final SolutionSpace<?>             solutionSpace;
 
+    /** The second tier, which stores evicted snapshots on disk. */
+    private final SnapshotStore             store;
+
+    /** The number of rows. */
+    private final int                       rowCount;
+
+    /** The maximal generalization levels. */
+    private final int[]                     top;
+
     /** Store the results of all types of transformations. */
     private final DependentAction STORAGE_TRIGGER_ALL = new DependentAction(){
         @Override
@@ -96,9 +105,12 @@ public class History {
         }
     };
 
-    /** The current storage strategy. */
+    /** The current storage trigger. */
     private DependentAction                      storageTrigger;
 
+    /** The current storage strategy. */
+    private StorageStrategy                      storageStrategy;
+
     /**
      * Creates a new history.
      *
@@ -106,6 +118,7 @@ public class History {
      * @param size the max size
      * @param snapshotSizeDataset the snapshotSizeDataset
      * @param snapshotSizeSnapshot
+     * @param sizeOnDisk the max size of the second tier in bytes, 0 disables it
      * @param config
      * @param dictionarySensValue
      * @param dictionarySensFreq
@@ -115,6 +128,7 @@ public class History {
                    final int size,
                    final double snapshotSizeDataset,
                    final double snapshotSizeSnapshot,
+                   final long sizeOnDisk,
                    final ARXConfigurationInternal config,
                    final IntArrayDictionary dictionarySensValue,
                    final IntArrayDictionary dictionarySensFreq,
@@ -130,7 +144,11 @@ public class History {
         this.config = config;
         this.requirements = config.getRequirements();
         this.storageTrigger = STORAGE_TRIGGER_NON_ANONYMOUS;
+        this.storageStrategy = StorageStrategy.NON_ANONYMOUS;
         this.solutionSpace = solutionSpace;
+        this.store = new SnapshotStore(sizeOnDisk);
+        this.rowCount = rowCount;
+        this.top = solutionSpace.getTop().getGeneralization();
     }
     
     /**
@@ -161,9 +179,26 @@ public class History {
             }
             entry = entry.next;
         }
+        
+        // Search second tier
+        SnapshotStore.Entry resultEntry = null;
+        for (SnapshotStore.Entry currentEntry : store) {
+            MRUCacheEntryMetadata currentMetadata = currentEntry.metadata;
+            if (currentMetadata.level < level) {
+                int resultLength = resultEntry != null ? resultEntry.length : resultSnapshot != null ? resultSnapshot.length : Integer.MAX_VALUE;
+                if (currentEntry.length < resultLength) {
+                    if (solutionSpace.isParentChildOrEqual(transformation, currentMetadata.transformation)) {
+                        resultMetadata = currentMetadata;
+                        resultEntry = currentEntry;
+                    }
+                }
+            }
+        }
 
         // Manager
-        if (resultMetadata != null) {
+        if (resultEntry != null) {
+            resultSnapshot = store.load(resultEntry);
+        } else if (resultMetadata != null) {
             cache.touch(resultMetadata);
         }
         this.resultMetadata = resultMetadata;
@@ -190,11 +225,30 @@ public class History {
         return dictionarySensValue;
     }
 
+    /**
+     * Returns the number of equivalence classes represented by the given snapshot.
+     *
+     * @param snapshot
+     * @return
+     */
+    public int getNumberOfEquivalenceClasses(int[] snapshot) {
+        return snapshot.length / config.getSnapshotLength();
+    }
+
     /**
      * Returns the current storage strategy.
      *
      * @return
      */
+    public StorageStrategy getStorageStrategy() {
+        return storageStrategy;
+    }
+
+    /**
+     * Returns the current storage trigger.
+     *
+     * @return
+     */
     public DependentAction getStorageTrigger() {
         return storageTrigger;
     }
@@ -218,6 +272,7 @@ public class History {
     public void reset() {
         this.cache.clear();
         this.nodeToSnapshot.clear();
+        this.store.clear();
         this.dictionarySensFreq.clear();
         this.dictionarySensValue.clear();
         this.resultMetadata = null;
@@ -239,8 +294,10 @@ public class History {
     public void setStorageStrategy(StorageStrategy strategy) {
         if (strategy == StorageStrategy.ALL) {
             this.storageTrigger = STORAGE_TRIGGER_ALL;
+            this.storageStrategy = strategy;
         } else if (strategy == StorageStrategy.NON_ANONYMOUS) {
             this.storageTrigger = STORAGE_TRIGGER_NON_ANONYMOUS;
+            this.storageStrategy = strategy;
         }
     }
     
@@ -274,9 +331,11 @@ public class History {
         // Clear the cache
         cleanUpHistory();
 
-        // Perform LRU eviction, if still too large
+        // Perform cost-aware eviction, if still too large
         if (cache.size() >= size) {
-            removeHistoryEntry(cache.removeHead());
+            final MRUCacheEntryMetadata metadata = getEvictionCandidate();
+            cache.remove(metadata);
+            evictHistoryEntry(metadata);
         }
         
         // Create the snapshot
@@ -303,6 +362,18 @@ public class History {
                 removeHistoryEntry(node);
             }
         }
+        
+        // Clean up second tier
+        if (!store.isEmpty()) {
+            final Iterator<SnapshotStore.Entry> entries = store.iterator();
+            while (entries.hasNext()) {
+                final SnapshotStore.Entry entry = entries.next();
+                if (solutionSpace.hasProperty(entry.metadata.transformation, solutionSpace.getPropertySuccessorsPruned())) {
+                    releaseSnapshot(store.load(entry));
+                    entries.remove();
+                }
+            }
+        }
     }
     
     /**
@@ -358,12 +429,79 @@ public class History {
     }
 
     /**
-     * Removes a snapshot.
+     * Evicts a snapshot from memory. If possible, it is moved to the second tier,
+     * from which the oldest snapshots are removed if required.
      *
      * @param metadata
      */
-    private final void removeHistoryEntry(final MRUCacheEntryMetadata metadata) {
-        final int[] snapshot = nodeToSnapshot.remove(metadata.id);
+    private final void evictHistoryEntry(final MRUCacheEntryMetadata metadata) {
+        final int[] snapshot = nodeToSnapshot.get(metadata.id);
+        if (!store.isAcceptable(snapshot.length)) {
+            removeHistoryEntry(metadata);
+            return;
+        }
+        while (!store.isAvailable(snapshot.length)) {
+            releaseSnapshot(store.load(store.removeOldest()));
+        }
+        store.put(metadata, snapshot);
+        nodeToSnapshot.remove(metadata.id);
+    }
+
+    /**
+     * Returns the snapshot which should be evicted from memory. Snapshots are weighted by the
+     * number of records saved when using them instead of the dataset, multiplied by their
+     * expected reuse, which is estimated by the number of unchecked successors. The least
+     * recently used snapshot with the smallest weight is returned.
+     *
+     * @return
+     */
+    private final MRUCacheEntryMetadata getEvictionCandidate() {
+        MRUCacheEntryMetadata result = null;
+        long resultWeight = Long.MAX_VALUE;
+        MRUCacheEntry<MRUCacheEntryMetadata> entry = cache.getHead();
+        while (entry != null) {
+            final MRUCacheEntryMetadata metadata = entry.data;
+            final long savings = rowCount - getNumberOfEquivalenceClasses(nodeToSnapshot.get(metadata.id));
+            final long weight = savings * getNumberOfUncheckedSuccessors(metadata.transformation);
+            if (weight < resultWeight) {
+                result = metadata;
+                resultWeight = weight;
+                if (weight == 0) {
+                    break;
+                }
+            }
+            entry = entry.next;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of direct successors of the given transformation, which have not been checked.
+     *
+     * @param transformation
+     * @return
+     */
+    private final int getNumberOfUncheckedSuccessors(final int[] transformation) {
+        final int[] successor = transformation.clone();
+        int result = 0;
+        for (int i = 0; i < successor.length; i++) {
+            if (successor[i] < top[i]) {
+                successor[i]++;
+                if (!solutionSpace.hasProperty(successor, solutionSpace.getPropertyChecked())) {
+                    result++;
+                }
+                successor[i]--;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Releases the distributions referenced by a snapshot.
+     *
+     * @param snapshot
+     */
+    private final void releaseSnapshot(final int[] snapshot) {
 
         switch (requirements) {
         case ARXConfiguration.REQUIREMENT_COUNTER | ARXConfiguration.REQUIREMENT_SECONDARY_COUNTER | ARXConfiguration.REQUIREMENT_DISTRIBUTION:
@@ -385,4 +523,13 @@ public class History {
             }
         }
     }
+
+    /**
+     * Removes a snapshot.
+     *
+     * @param metadata
+     */
+    private final void removeHistoryEntry(final MRUCacheEntryMetadata metadata) {
+        releaseSnapshot(nodeToSnapshot.remove(metadata.id));
+    }
 }
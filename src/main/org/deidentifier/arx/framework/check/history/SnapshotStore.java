@@ -0,0 +1,238 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.framework.check.history;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import org.deidentifier.arx.framework.data.DataMatrixStorage;
+
+/**
+ * A second tier of the history, which keeps snapshots evicted from memory in a
+ * temporary memory-mapped file. The file is used as a circular log: snapshots are
+ * appended at the current write position and the oldest snapshots are evicted
+ * until a contiguous region large enough for a new snapshot becomes available.
+ * 
+ * @author Fabian Prasser
+ */
+public class SnapshotStore implements Iterable<SnapshotStore.Entry> {
+
+    /**
+     * An entry in the store.
+     * 
+     * @author Fabian Prasser
+     */
+    public static class Entry {
+
+        /** The metadata */
+        public final MRUCacheEntryMetadata metadata;
+
+        /** The offset in the file */
+        public final long                  offset;
+
+        /** The length of the snapshot */
+        public final int                   length;
+
+        /**
+         * Creates a new instance
+         * @param metadata
+         * @param offset
+         * @param length
+         */
+        private Entry(MRUCacheEntryMetadata metadata, long offset, int length) {
+            this.metadata = metadata;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /** The capacity in number of integers */
+    private final long               capacity;
+
+    /** The entries, from oldest to newest */
+    private final ArrayDeque<Entry>  entries = new ArrayDeque<Entry>();
+
+    /** The backing storage, initialized lazily */
+    private DataMatrixStorage        storage = null;
+
+    /** The current write position */
+    private long                     position = 0;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param size The maximal size in bytes, 0 disables the store
+     */
+    public SnapshotStore(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must be positive or 0");
+        }
+        this.capacity = size / 4L;
+    }
+
+    /**
+     * Removes all snapshots and releases the file
+     */
+    public void clear() {
+        this.entries.clear();
+        this.storage = null;
+        this.position = 0;
+    }
+
+    /**
+     * Returns whether a snapshot of the given length can be stored at all
+     * 
+     * @param length
+     * @return
+     */
+    public boolean isAcceptable(int length) {
+        return length <= capacity;
+    }
+
+    /**
+     * Returns whether a snapshot of the given length can be stored without evicting other snapshots
+     * 
+     * @param length
+     * @return
+     */
+    public boolean isAvailable(int length) {
+        return getOffset(length) != -1;
+    }
+
+    /**
+     * Returns whether the store is empty
+     * 
+     * @return
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public Iterator<Entry> iterator() {
+        final Iterator<Entry> iterator = entries.iterator();
+        return new Iterator<Entry>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Entry next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                if (entries.isEmpty()) {
+                    position = 0;
+                }
+            }
+        };
+    }
+
+    /**
+     * Loads the snapshot represented by the given entry
+     * 
+     * @param entry
+     * @return
+     */
+    public int[] load(Entry entry) {
+        int[] snapshot = new int[entry.length];
+        long offset = entry.offset;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = storage.get(offset++);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Stores the given snapshot. Space must be available.
+     * 
+     * @param metadata
+     * @param snapshot
+     */
+    public void put(MRUCacheEntryMetadata metadata, int[] snapshot) {
+        long offset = getOffset(snapshot.length);
+        if (offset == -1) {
+            throw new IllegalStateException("Not enough space available");
+        }
+        if (storage == null) {
+            storage = DataMatrixStorage.create(DataMatrixStorage.Type.MEMORY_MAPPED, capacity);
+        }
+        long index = offset;
+        for (int i = 0; i < snapshot.length; i++) {
+            storage.set(index++, snapshot[i]);
+        }
+        entries.addLast(new Entry(metadata, offset, snapshot.length));
+        position = offset + snapshot.length;
+    }
+
+    /**
+     * Removes the oldest entry
+     * 
+     * @return
+     */
+    public Entry removeOldest() {
+        Entry entry = entries.removeFirst();
+        if (entries.isEmpty()) {
+            position = 0;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the number of snapshots stored
+     * 
+     * @return
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the offset at which a snapshot of the given length can be stored,
+     * -1 if there is not enough contiguous space.
+     * 
+     * @param length
+     * @return
+     */
+    private long getOffset(int length) {
+        if (length > capacity) {
+            return -1;
+        }
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        long head = entries.peekFirst().offset;
+        if (position > head) {
+            // Free space at the end and at the beginning
+            if (capacity - position >= length) {
+                return position;
+            } else if (head >= length) {
+                return 0;
+            }
+        } else if (head - position >= length) {
+            // Free space between the newest and the oldest snapshot
+            return position;
+        }
+        return -1;
+    }
+}
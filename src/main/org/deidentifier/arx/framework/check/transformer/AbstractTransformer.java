@@ -214,6 +214,9 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
         public abstract void callSnapshot(final int outtuple, final int[] snapshot, final int i);
     }
 
+    /** The number of rows generalized at a time when processing the input column by column. */
+    private static final int                  BLOCK_SIZE = 1024;
+
     /** The hash groupify. */
     private HashGroupify                      groupify;
 
@@ -244,17 +247,12 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
     /** The hierarchies. */
     protected final GeneralizationHierarchy[] hierarchies;
     
-    /** The hierarchies */
-    protected int[][]                         hierarchy0, hierarchy1, hierarchy2, hierarchy3, hierarchy4, hierarchy5,
-                                              hierarchy6, hierarchy7, hierarchy8, hierarchy9, hierarchy10, hierarchy11, hierarchy12, hierarchy13, hierarchy14;
+    /** The generalization maps for the levels to apply */
+    protected int[]                           map0, map1, map2, map3, map4, map5, map6, map7, map8, map9, map10, map11, map12, map13, map14;
     /** The columns. */
     protected int                             column0, column1, column2, column3, column4, column5, column6, column7,
                                               column8, column9, column10, column11, column12, column13, column14;
 
-    /** The levels. */
-    protected int                             level0, level1, level10, level11, level12, level13, level14, level2, level3, level4, level5, 
-                                              level6, level7, level8, level9;
-
     /** The sensitive values. */
     protected final DataMatrix                dataAnalyzed;
     /** Analyzed number of columns. */
@@ -280,8 +278,8 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
     protected final int[]                     mappedLevels;
     /** The column index array. */
     protected final int[]                     mappedColumns;
-    /** The column map array. */
-    protected final int[][][]                 mappedHierarchies;
+    /** The generalization map array. */
+    protected final int[][]                   mappedMaps;
     
     /**
      * Instantiates a new abstract transformer.
@@ -318,7 +316,7 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
         }
         this.mappedLevels = new int[arraySizes];
         this.mappedColumns = new int[arraySizes];
-        this.mappedHierarchies = new int[arraySizes][][];
+        this.mappedMaps = new int[arraySizes][];
 
         // Prepare delegate
         switch (config.getRequirements()) {
@@ -408,7 +406,7 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
             if ((projection & (1L << i)) == 0) {
                 mappedLevels[index] = state[i];
                 mappedColumns[index] = i;
-                mappedHierarchies[index] = hierarchies[i].getArray();
+                mappedMaps[index] = hierarchies[i].getArray(state[i]);
                 index++;
             }
         }
@@ -430,39 +428,22 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
         this.column13 = mappedColumns[13];
         this.column14 = mappedColumns[14];
 
-        // Store generalization levels
-        this.level0 = mappedLevels[0];
-        this.level1 = mappedLevels[1];
-        this.level2 = mappedLevels[2];
-        this.level3 = mappedLevels[3];
-        this.level4 = mappedLevels[4];
-        this.level5 = mappedLevels[5];
-        this.level6 = mappedLevels[6];
-        this.level7 = mappedLevels[7];
-        this.level8 = mappedLevels[8];
-        this.level9 = mappedLevels[9];
-        this.level10 = mappedLevels[10];
-        this.level11 = mappedLevels[11];
-        this.level12 = mappedLevels[12];
-        this.level13 = mappedLevels[13];
-        this.level14 = mappedLevels[14];
-
-        // Store generalization hierarchies
-        this.hierarchy0 = mappedHierarchies[0];
-        this.hierarchy1 = mappedHierarchies[1];
-        this.hierarchy2 = mappedHierarchies[2];
-        this.hierarchy3 = mappedHierarchies[3];
-        this.hierarchy4 = mappedHierarchies[4];
-        this.hierarchy5 = mappedHierarchies[5];
-        this.hierarchy6 = mappedHierarchies[6];
-        this.hierarchy7 = mappedHierarchies[7];
-        this.hierarchy8 = mappedHierarchies[8];
-        this.hierarchy9 = mappedHierarchies[9];
-        this.hierarchy10 = mappedHierarchies[10];
-        this.hierarchy11 = mappedHierarchies[11];
-        this.hierarchy12 = mappedHierarchies[12];
-        this.hierarchy13 = mappedHierarchies[13];
-        this.hierarchy14 = mappedHierarchies[14];
+        // Store generalization maps
+        this.map0 = mappedMaps[0];
+        this.map1 = mappedMaps[1];
+        this.map2 = mappedMaps[2];
+        this.map3 = mappedMaps[3];
+        this.map4 = mappedMaps[4];
+        this.map5 = mappedMaps[5];
+        this.map6 = mappedMaps[6];
+        this.map7 = mappedMaps[7];
+        this.map8 = mappedMaps[8];
+        this.map9 = mappedMaps[9];
+        this.map10 = mappedMaps[10];
+        this.map11 = mappedMaps[11];
+        this.map12 = mappedMaps[12];
+        this.map13 = mappedMaps[13];
+        this.map14 = mappedMaps[14];
     }
 
     /**
@@ -470,6 +451,39 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
      */
     protected abstract void processAll();
 
+    /**
+     * Process complete input dataset column by column. Each block of rows is
+     * generalized one column at a time, before the rows are passed to the groupify operator.
+     *
+     * @param columns the columns to generalize
+     * @param maps the generalization maps for the columns
+     * @param width the number of columns to generalize
+     */
+    protected void processAllColumnwise(final int[] columns, final int[][] maps, final int width) {
+
+        for (int start = startIndex; start < stopIndex;) {
+            
+            final int stop = start + Math.min(BLOCK_SIZE, stopIndex - start);
+
+            // Transform
+            for (int index = 0; index < width; index++) {
+                final int column = columns[index];
+                final int[] map = maps[index];
+                for (int i = start; i < stop; i++) {
+                    buffer.set(i, column, map[data.get(i, column)]);
+                }
+            }
+
+            // Call
+            for (int i = start; i < stop; i++) {
+                delegate.callAll(i, i);
+            }
+            
+            // Next block
+            start = stop;
+        }
+    }
+
     /**
      * Process groupify.
      */
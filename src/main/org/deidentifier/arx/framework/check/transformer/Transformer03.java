@@ -57,9 +57,9 @@ public class Transformer03 extends AbstractTransformer {
             // Transform
             buffer.setRow(i);
             data.setRow(i);
-            buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
-            buffer.setValueAtColumn(column1, hierarchy1[data.getValueAtColumn(column1)][level1]);
-            buffer.setValueAtColumn(column2, hierarchy2[data.getValueAtColumn(column2)][level2]);
+            buffer.setValueAtColumn(column0, map0[data.getValueAtColumn(column0)]);
+            buffer.setValueAtColumn(column1, map1[data.getValueAtColumn(column1)]);
+            buffer.setValueAtColumn(column2, map2[data.getValueAtColumn(column2)]);
 
             // Call
             delegate.callAll(i, i);
@@ -74,9 +74,9 @@ public class Transformer03 extends AbstractTransformer {
             // Transform
             buffer.setRow(element.representative);
             data.setRow(element.representative);
-            buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
-            buffer.setValueAtColumn(column1, hierarchy1[data.getValueAtColumn(column1)][level1]);
-            buffer.setValueAtColumn(column2, hierarchy2[data.getValueAtColumn(column2)][level2]);
+            buffer.setValueAtColumn(column0, map0[data.getValueAtColumn(column0)]);
+            buffer.setValueAtColumn(column1, map1[data.getValueAtColumn(column1)]);
+            buffer.setValueAtColumn(column2, map2[data.getValueAtColumn(column2)]);
 
             // Call
             delegate.callGroupify(element.representative, element);
@@ -96,9 +96,9 @@ public class Transformer03 extends AbstractTransformer {
             // Transform
             buffer.setRow(snapshot[i]);
             data.setRow(snapshot[i]);
-            buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
-            buffer.setValueAtColumn(column1, hierarchy1[data.getValueAtColumn(column1)][level1]);
-            buffer.setValueAtColumn(column2, hierarchy2[data.getValueAtColumn(column2)][level2]);
+            buffer.setValueAtColumn(column0, map0[data.getValueAtColumn(column0)]);
+            buffer.setValueAtColumn(column1, map1[data.getValueAtColumn(column1)]);
+            buffer.setValueAtColumn(column2, map2[data.getValueAtColumn(column2)]);
 
             // Call
             delegate.callSnapshot(snapshot[i], snapshot, i);
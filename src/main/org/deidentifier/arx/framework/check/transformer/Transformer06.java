@@ -57,12 +57,12 @@ public class Transformer06 extends AbstractTransformer {
             // Transform
             buffer.setRow(i);
             data.setRow(i);
-            buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
-            buffer.setValueAtColumn(column1, hierarchy1[data.getValueAtColumn(column1)][level1]);
-            buffer.setValueAtColumn(column2, hierarchy2[data.getValueAtColumn(column2)][level2]);
-            buffer.setValueAtColumn(column3, hierarchy3[data.getValueAtColumn(column3)][level3]);
-            buffer.setValueAtColumn(column4, hierarchy4[data.getValueAtColumn(column4)][level4]);
-            buffer.setValueAtColumn(column5, hierarchy5[data.getValueAtColumn(column5)][level5]);
+            buffer.setValueAtColumn(column0, map0[data.getValueAtColumn(column0)]);
+            buffer.setValueAtColumn(column1, map1[data.getValueAtColumn(column1)]);
+            buffer.setValueAtColumn(column2, map2[data.getValueAtColumn(column2)]);
+            buffer.setValueAtColumn(column3, map3[data.getValueAtColumn(column3)]);
+            buffer.setValueAtColumn(column4, map4[data.getValueAtColumn(column4)]);
+            buffer.setValueAtColumn(column5, map5[data.getValueAtColumn(column5)]);
 
             // Call
             delegate.callAll(i, i);
@@ -77,12 +77,12 @@ public class Transformer06 extends AbstractTransformer {
             // Transform
             buffer.setRow(element.representative);
             data.setRow(element.representative);
-            buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
-            buffer.setValueAtColumn(column1, hierarchy1[data.getValueAtColumn(column1)][level1]);
-            buffer.setValueAtColumn(column2, hierarchy2[data.getValueAtColumn(column2)][level2]);
-            buffer.setValueAtColumn(column3, hierarchy3[data.getValueAtColumn(column3)][level3]);
-            buffer.setValueAtColumn(column4, hierarchy4[data.getValueAtColumn(column4)][level4]);
-            buffer.setValueAtColumn(column5, hierarchy5[data.getValueAtColumn(column5)][level5]);
+            buffer.setValueAtColumn(column0, map0[data.getValueAtColumn(column0)]);
+            buffer.setValueAtColumn(column1, map1[data.getValueAtColumn(column1)]);
+            buffer.setValueAtColumn(column2, map2[data.getValueAtColumn(column2)]);
+            buffer.setValueAtColumn(column3, map3[data.getValueAtColumn(column3)]);
+            buffer.setValueAtColumn(column4, map4[data.getValueAtColumn(column4)]);
+            buffer.setValueAtColumn(column5, map5[data.getValueAtColumn(column5)]);
  
             // Call
             delegate.callGroupify(element.representative, element);
@@ -102,12 +102,12 @@ public class Transformer06 extends AbstractTransformer {
             // Transform
             buffer.setRow(snapshot[i]);
             data.setRow(snapshot[i]);
-            buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
-            buffer.setValueAtColumn(column1, hierarchy1[data.getValueAtColumn(column1)][level1]);
-            buffer.setValueAtColumn(column2, hierarchy2[data.getValueAtColumn(column2)][level2]);
-            buffer.setValueAtColumn(column3, hierarchy3[data.getValueAtColumn(column3)][level3]);
-            buffer.setValueAtColumn(column4, hierarchy4[data.getValueAtColumn(column4)][level4]);
-            buffer.setValueAtColumn(column5, hierarchy5[data.getValueAtColumn(column5)][level5]);
+            buffer.setValueAtColumn(column0, map0[data.getValueAtColumn(column0)]);
+            buffer.setValueAtColumn(column1, map1[data.getValueAtColumn(column1)]);
+            buffer.setValueAtColumn(column2, map2[data.getValueAtColumn(column2)]);
+            buffer.setValueAtColumn(column3, map3[data.getValueAtColumn(column3)]);
+            buffer.setValueAtColumn(column4, map4[data.getValueAtColumn(column4)]);
+            buffer.setValueAtColumn(column5, map5[data.getValueAtColumn(column5)]);
 
             // Call
             delegate.callSnapshot(snapshot[i], snapshot, i);
@@ -30,6 +30,9 @@ import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
  */
 public class TransformerAll extends AbstractTransformer {
 
+    /** The columns. */
+    private final int[] columns;
+
     /**
      * Instantiates a new transformer.
      *
@@ -49,37 +52,21 @@ public class TransformerAll extends AbstractTransformer {
                           final IntArrayDictionary dictionarySensFreq,
                           final ARXConfigurationInternal config) {
         super(data, hierarchies, dataAnalyzed, dataAnalyzedNumberOfColumns, dictionarySensValue, dictionarySensFreq, config);
+        this.columns = new int[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            this.columns[i] = i;
+        }
     }
 
     @Override
     protected void processAll() {
-        
-        int[][][] mHierarchies = new int[dimensions][][];
-        for (int i = 0; i < dimensions; i++) {
-            mHierarchies[i] = hierarchies[i].getArray();
-        }
-        
-        for (int i = startIndex; i < stopIndex; i++) {
-
-            // Transform
-            buffer.setRow(i);
-            data.setRow(i);
-            for (int d = 0; d < dimensions; d++) {
-                buffer.setValueAtColumn(d, mHierarchies[d][data.getValueAtColumn(d)][generalization[d]]);
-            }
-
-            // Call
-            delegate.callAll(i, i);
-        }
+        processAllColumnwise(columns, getMaps(), dimensions);
     }
 
     @Override
     protected void processGroupify() {
 
-        int[][][] mHierarchies = new int[dimensions][][];
-        for (int i = 0; i < dimensions; i++) {
-            mHierarchies[i] = hierarchies[i].getArray();
-        }
+        int[][] maps = getMaps();
         
         while (element != null) {
 
@@ -88,7 +75,7 @@ public class TransformerAll extends AbstractTransformer {
             data.setRow(element.representative);
 
             for (int d = 0; d < dimensions; d++) {
-                buffer.setValueAtColumn(d, mHierarchies[d][data.getValueAtColumn(d)][generalization[d]]);
+                buffer.setValueAtColumn(d, maps[d][data.getValueAtColumn(d)]);
             }
 
             // Call
@@ -102,10 +89,7 @@ public class TransformerAll extends AbstractTransformer {
     @Override
     protected void processSnapshot() {
 
-        int[][][] mHierarchies = new int[dimensions][][];
-        for (int i = 0; i < dimensions; i++) {
-            mHierarchies[i] = hierarchies[i].getArray();
-        }
+        int[][] maps = getMaps();
         
         startIndex *= ssStepWidth;
         stopIndex *= ssStepWidth;
@@ -114,11 +98,24 @@ public class TransformerAll extends AbstractTransformer {
             buffer.setRow(snapshot[i]);
             data.setRow(snapshot[i]);
             for (int d = 0; d < dimensions; d++) {
-                buffer.setValueAtColumn(d, mHierarchies[d][data.getValueAtColumn(d)][generalization[d]]);
+                buffer.setValueAtColumn(d, maps[d][data.getValueAtColumn(d)]);
             }
 
             // Call
             delegate.callSnapshot(snapshot[i], snapshot, i);
         }
     }
+
+    /**
+     * Returns the generalization maps for all columns.
+     *
+     * @return
+     */
+    private int[][] getMaps() {
+        int[][] maps = new int[dimensions][];
+        for (int i = 0; i < dimensions; i++) {
+            maps[i] = hierarchies[i].getArray(generalization[i]);
+        }
+        return maps;
+    }
 }
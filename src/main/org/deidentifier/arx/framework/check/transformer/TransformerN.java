@@ -0,0 +1,142 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.transformer;
+
+import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
+import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.TransitionType;
+import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.groupify.HashGroupifyEntry;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
+
+/**
+ * A transformer for an arbitrary number of columns. The columns to be transformed
+ * are determined from the projection when the transformer is initialized and
+ * processed with an unrolled kernel, which skips all projected columns. The
+ * complete input is generalized column by column.
+ * 
+ * @author Fabian Prasser
+ */
+public class TransformerN extends AbstractTransformer {
+
+    /** The number of columns to transform. */
+    private int width;
+
+    /**
+     * Instantiates a new transformer.
+     *
+     * @param data the data
+     * @param hierarchies the hierarchies
+     * @param dataAnalyzed
+     * @param dataAnalyzedNumberOfColumns
+     * @param dictionarySensValue
+     * @param dictionarySensFreq
+     * @param config
+     */
+    public TransformerN(final DataMatrix data,
+                        final GeneralizationHierarchy[] hierarchies,
+                        final DataMatrix dataAnalyzed,
+                        final int dataAnalyzedNumberOfColumns,
+                        final IntArrayDictionary dictionarySensValue,
+                        final IntArrayDictionary dictionarySensFreq,
+                        final ARXConfigurationInternal config) {
+        super(data, hierarchies, dataAnalyzed, dataAnalyzedNumberOfColumns, dictionarySensValue, dictionarySensFreq, config);
+    }
+
+    @Override
+    public void init(final long projection,
+                     final int[] state,
+                     final HashGroupify groupify,
+                     final HashGroupify source,
+                     final int[] snapshot,
+                     final TransitionType transition,
+                     final int startIndex,
+                     final int stopIndex,
+                     final HashGroupifyEntry element,
+                     final DataMatrix buffer) {
+        super.init(projection, state, groupify, source, snapshot, transition, startIndex, stopIndex, element, buffer);
+        this.width = dimensions - Long.bitCount(projection);
+    }
+
+    @Override
+    protected void processAll() {
+        processAllColumnwise(mappedColumns, mappedMaps, width);
+    }
+
+    @Override
+    protected void processGroupify() {
+
+        while (element != null) {
+
+            // Transform
+            buffer.setRow(element.representative);
+            data.setRow(element.representative);
+            transform(mappedColumns, mappedMaps, width);
+
+            // Call
+            delegate.callGroupify(element.representative, element);
+
+            // Next element
+            element = element.nextOrdered;
+        }
+    }
+
+    @Override
+    protected void processSnapshot() {
+
+        startIndex *= ssStepWidth;
+        stopIndex *= ssStepWidth;
+
+        for (int i = startIndex; i < stopIndex; i += ssStepWidth) {
+
+            // Transform
+            buffer.setRow(snapshot[i]);
+            data.setRow(snapshot[i]);
+            transform(mappedColumns, mappedMaps, width);
+
+            // Call
+            delegate.callSnapshot(snapshot[i], snapshot, i);
+        }
+    }
+
+    /**
+     * Transforms the current row, four columns at a time.
+     *
+     * @param columns
+     * @param maps
+     * @param width
+     */
+    private void transform(final int[] columns, final int[][] maps, final int width) {
+        int index = 0;
+        for (final int limit = width - 3; index < limit; index += 4) {
+            final int column0 = columns[index];
+            final int column1 = columns[index + 1];
+            final int column2 = columns[index + 2];
+            final int column3 = columns[index + 3];
+            buffer.setValueAtColumn(column0, maps[index][data.getValueAtColumn(column0)]);
+            buffer.setValueAtColumn(column1, maps[index + 1][data.getValueAtColumn(column1)]);
+            buffer.setValueAtColumn(column2, maps[index + 2][data.getValueAtColumn(column2)]);
+            buffer.setValueAtColumn(column3, maps[index + 3][data.getValueAtColumn(column3)]);
+        }
+        for (; index < width; index++) {
+            final int column = columns[index];
+            buffer.setValueAtColumn(column, maps[index][data.getValueAtColumn(column)]);
+        }
+    }
+}
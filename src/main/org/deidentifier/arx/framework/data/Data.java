@@ -55,6 +55,25 @@ public class Data implements Cloneable, Serializable {
                                         final String[] header,
                                         final int[] columns,
                                         final Dictionary dictionary) {
+        return createProjection(data, header, columns, dictionary, data.getStorageType());
+    }
+    
+    /**
+     * Creates an object which projects the given data onto the given set of columns,
+     * using the given type of storage
+     * 
+     * @param data
+     * @param header
+     * @param columns
+     * @param dictionary
+     * @param storageType
+     * @return
+     */
+    public static Data createProjection(final DataMatrix data,
+                                        final String[] header,
+                                        final int[] columns,
+                                        final Dictionary dictionary,
+                                        final DataMatrixStorage.Type storageType) {
         
         // Empty object
         if (columns.length == 0) {
@@ -62,7 +81,7 @@ public class Data implements Cloneable, Serializable {
         }
 
         // Clone matrix
-        DataMatrix matrix = new DataMatrix(data.getNumRows(), columns.length);
+        DataMatrix matrix = new DataMatrix(data.getNumRows(), columns.length, storageType);
         for (int row = 0; row < data.getNumRows(); row++) {
             
             // Prepare row
@@ -213,9 +232,36 @@ public class Data implements Cloneable, Serializable {
                 rows[index++] = row;
             }
         }
+        return getSubsetInstance(rows);
+    }
+
+    /**
+     * Returns a subset instance for the given rows, which must be sorted in ascending order
+     * @param rows
+     * @return
+     */
+    public Data getSubsetInstance(int[] rows) {
         return new Data(new DataMatrixSubset(data, rows), header, columns, dictionary);
     }
 
+    /**
+     * Returns an instance in which the data is bit-packed according to the sizes
+     * of the domains in the dictionary, which must have been finalized.
+     * 
+     * @return
+     */
+    public Data getPackedInstance() {
+        if (data == null || data instanceof DataMatrixPacked) {
+            return this;
+        }
+        String[][] mapping = dictionary.getMapping();
+        int[] domainSizes = new int[header.length];
+        for (int column = 0; column < domainSizes.length; column++) {
+            domainSizes[column] = mapping[column].length;
+        }
+        return new Data(new DataMatrixPacked(data, domainSizes), header, columns, dictionary);
+    }
+
     /**
      * Returns whether this object is empty
      * @return
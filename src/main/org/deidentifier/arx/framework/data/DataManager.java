@@ -61,7 +61,7 @@ public class DataManager {
     private final Data                        dataAnalyzed;
 
     /** Data */
-    private final Data                        dataGeneralized;
+    private Data                              dataGeneralized;
 
     /** Data. */
     private final Data                        dataInput;
@@ -108,13 +108,17 @@ public class DataManager {
      * @param definition
      * @param functions
      * @param config
+     * @param storageType
+     * @param bitPacking
      */
     public DataManager(final String[] header,
                        final DataMatrix data,
                        final Dictionary dictionary,
                        final DataDefinition definition,
                        final Map<String, DistributionAggregateFunction> functions,
-                       final ARXConfiguration config) {
+                       final ARXConfiguration config,
+                       final DataMatrixStorage.Type storageType,
+                       final boolean bitPacking) {
 
         // Store basic info
         this.header = header;
@@ -178,13 +182,14 @@ public class DataManager {
         hotOtherAttributes.removeAll(definition.getQuasiIdentifiersWithMicroaggregation());
         
         // Create data objects
-        this.dataGeneralized = Data.createProjection(data, header, getColumns(header, qisGeneralized), dictionary);
+        this.dataGeneralized = Data.createProjection(data, header, getColumns(header, qisGeneralized), dictionary, storageType);
         this.dataAnalyzed = Data.createProjection(data, header, getColumns(header, 
                                                                            hotOtherAttributes,
                                                                            hotQIsNotGeneralized,
                                                                            hotQIsGeneralized,
                                                                            coldQIs), 
-                                                                           dictionary);
+                                                                           dictionary,
+                                                                           storageType);
         this.dataInput = Data.createWrapper(data, header, getColumns(header), dictionary);
         
         // Store information about aggregated attributes
@@ -275,6 +280,11 @@ public class DataManager {
         dataGeneralized.getDictionary().finalizeAll();
         dataAnalyzed.getDictionary().finalizeAll();
 
+        // Pack generalized data, as the domains are known now
+        if (bitPacking) {
+            this.dataGeneralized = dataGeneralized.getPackedInstance();
+        }
+
         // Store research subset
         for (PrivacyCriterion c : config.getPrivacyModels()) {
             if (c instanceof EDDifferentialPrivacy) {
@@ -577,11 +587,28 @@ public class DataManager {
      * @return
      */
     public DataManager getSubsetInstance(RowSet rowset) {
+        int[] rows = new int[rowset.size()];
+        int index = 0;
+        for (int row = 0; row < rowset.length(); row++) {
+            if (rowset.contains(row)) {
+                rows[index++] = row;
+            }
+        }
+        return getSubsetInstance(rows);
+    }
+
+    /**
+     * Returns an instance of this data manager, that is projected onto the given rows,
+     * which must be sorted in ascending order
+     * @param rows
+     * @return
+     */
+    public DataManager getSubsetInstance(int[] rows) {
         
         return new DataManagerSubset(this,
-                                     dataAnalyzed.getSubsetInstance(rowset),
-                                     dataGeneralized.getSubsetInstance(rowset),
-                                     dataInput.getSubsetInstance(rowset),
+                                     dataAnalyzed.getSubsetInstance(rows),
+                                     dataGeneralized.getSubsetInstance(rows),
+                                     dataInput.getSubsetInstance(rows),
                                      definition,
                                      shares,
                                      header,
@@ -17,52 +17,92 @@
 
 package org.deidentifier.arx.framework.data;
 
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 
-
 /**
- * A fast implementation of an array of arrays of equal size
+ * A fast implementation of an array of arrays of equal size. The cells are stored
+ * in a pluggable storage, which may reside on the heap, off the heap or in a
+ * memory-mapped file. Cells are addressed with long indices, which means that
+ * more than 2^31-1 cells are supported by storages off the heap.
  * 
  * @author Fabian Prasser
  */
 public class DataMatrix implements Serializable {
 
     /** SVUID */
-    private static final long serialVersionUID = 1626391500373995527L;
+    private static final long                 serialVersionUID       = 1626391500373995527L;
+
+    /** The serialized form, which is compatible with previous versions */
+    private static final ObjectStreamField[]  serialPersistentFields = {
+                                                                         new ObjectStreamField("array", int[].class),
+                                                                         new ObjectStreamField("rows", int.class),
+                                                                         new ObjectStreamField("columns", int.class),
+                                                                         new ObjectStreamField("iteratorI", int.class),
+                                                                         new ObjectStreamField("iteratorOffset", int.class),
+                                                                         new ObjectStreamField("baseOffset", int.class) };
 
-    /** Backing array */
-    private final int[]       array;
+    /** Backing storage */
+    private transient DataMatrixStorage       storage;
 
     /** The number of rows. */
-    private final int         rows;
+    private transient int                     rows;
 
     /** The number of columns. */
-    private final int         columns;
+    private transient int                     columns;
 
     /** Iterate */
-    private int               iteratorI        = 0;
+    private transient int                     iteratorI              = 0;
 
     /** Iterate */
-    private int               iteratorOffset   = 0;
+    private transient long                    iteratorOffset         = 0;
 
     /** Iterate */
-    private int               baseOffset       = 0;
+    private transient long                    baseOffset             = 0;
 
     /**
-     * Instantiates a new memory block.
+     * Instantiates a new memory block on the heap. If the number of cells exceeds
+     * the capacity of an array, the block is allocated off the heap.
      *
      * @param rows the num rows
      * @param columns the num columns
      */
     public DataMatrix(final int rows, final int columns) {
-        try {
-            this.columns = columns;
-            this.rows = rows;
-            int cells = Math.multiplyExact(rows, columns);
-            this.array = new int[cells];
-        } catch (ArithmeticException e) {
-            throw new IllegalArgumentException("Not more then 2^31-1 cells supported");
+        this(rows, columns, DataMatrixStorage.Type.HEAP);
+    }
+
+    /**
+     * Instantiates a new memory block using the given type of storage. If the type is 
+     * heap and the number of cells exceeds the capacity of an array, the block is 
+     * allocated off the heap.
+     *
+     * @param rows the num rows
+     * @param columns the num columns
+     * @param type the type of storage
+     */
+    public DataMatrix(final int rows, final int columns, final DataMatrixStorage.Type type) {
+        if (rows < 0 || columns < 0) {
+            throw new IllegalArgumentException("Invalid size");
         }
+        this.columns = columns;
+        this.rows = rows;
+        this.storage = DataMatrixStorage.create(type, (long) rows * (long) columns);
+    }
+
+    /**
+     * Instantiates a new view on the given memory block. The backing
+     * storage is shared, while iterators and row cursors are independent.
+     *
+     * @param matrix the matrix
+     */
+    protected DataMatrix(final DataMatrix matrix) {
+        this.columns = matrix.columns;
+        this.rows = matrix.rows;
+        this.storage = matrix.storage;
     }
 
     /**
@@ -71,13 +111,14 @@ public class DataMatrix implements Serializable {
      * @param value
      */
     public void and(int row, int value) {
-        array[row * columns] &= value;
+        long offset = (long) row * columns;
+        storage.set(offset, storage.get(offset) & value);
     }
 
     @Override
     public DataMatrix clone() {
-        DataMatrix result = new DataMatrix(this.rows, this.columns);
-        System.arraycopy(this.array, 0, result.array, 0, this.array.length);
+        DataMatrix result = new DataMatrix(this.rows, this.columns, this.storage.getType());
+        this.storage.copy(0, result.storage, 0, this.storage.getSize());
         return result;
     }
     
@@ -88,9 +129,15 @@ public class DataMatrix implements Serializable {
      * @param sourceRow
      */
     public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
-        int sourceOffset = sourceRow * columns;
-        int thisOffset = row * columns;
-        System.arraycopy(sourceMatrix.array, sourceOffset, this.array, thisOffset, columns);
+        long thisOffset = (long) row * columns;
+        if (sourceMatrix.getClass() != DataMatrix.class) {
+            for (int column = 0; column < columns; column++) {
+                this.storage.set(thisOffset + column, sourceMatrix.get(sourceRow, column));
+            }
+            return;
+        }
+        long sourceOffset = (long) sourceRow * columns;
+        sourceMatrix.storage.copy(sourceOffset, this.storage, thisOffset, columns);
     }
 
     /**
@@ -110,9 +157,9 @@ public class DataMatrix implements Serializable {
      * @return
      */
     public boolean equals(int row, int[] data) {
-        int offset = row * columns;
+        long offset = (long) row * columns;
         for (int i = 0; i < columns; i++) {
-            if (this.array[offset++] != data[i]) { 
+            if (this.storage.get(offset++) != data[i]) { 
                 return false; 
             }
         }
@@ -128,102 +175,15 @@ public class DataMatrix implements Serializable {
      */
     public boolean equalsIgnore(int row1, int row2, int ignore) {
 
-        int offset1 = row1 * columns;
-        int offset2 = row2 * columns;
+        long offset1 = (long) row1 * columns;
+        long offset2 = (long) row2 * columns;
 
-        switch (columns) {
-        case 20:
-            if ((ignore != 19) && this.array[offset1 + 19] != this.array[offset2 + 19]) {
-                return false;
-            }
-        case 19:
-            if ((ignore != 18) && this.array[offset1 + 18] != this.array[offset2 + 18]) {
-                return false;
-            }
-        case 18:
-            if ((ignore != 17) && this.array[offset1 + 17] != this.array[offset2 + 17]) {
-                return false;
-            }
-        case 17:
-            if ((ignore != 16) && this.array[offset1 + 16] != this.array[offset2 + 16]) {
-                return false;
-            }
-        case 16:
-            if ((ignore != 15) && this.array[offset1 + 15] != this.array[offset2 + 15]) {
-                return false;
-            }
-        case 15:
-            if ((ignore != 14) && this.array[offset1 + 14] != this.array[offset2 + 14]) {
-                return false;
-            }
-        case 14:
-            if ((ignore != 13) && this.array[offset1 + 13] != this.array[offset2 + 13]) {
-                return false;
-            }
-        case 13:
-            if ((ignore != 12) && this.array[offset1 + 12] != this.array[offset2 + 12]) {
-                return false;
-            }
-        case 12:
-            if ((ignore != 11) && this.array[offset1 + 11] != this.array[offset2 + 11]) {
-                return false;
-            }
-        case 11:
-            if ((ignore != 10) && this.array[offset1 + 10] != this.array[offset2 + 10]) {
-                return false;
-            }
-        case 10:
-            if ((ignore != 9) && this.array[offset1 + 9] != this.array[offset2 + 9]) {
-                return false;
-            }
-        case 9:
-            if ((ignore != 8) && this.array[offset1 + 8] != this.array[offset2 + 8]) {
-                return false;
-            }
-        case 8:
-            if ((ignore != 7) && this.array[offset1 + 7] != this.array[offset2 + 7]) {
-                return false;
-            }
-        case 7:
-            if ((ignore != 6) && this.array[offset1 + 6] != this.array[offset2 + 6]) {
-                return false;
-            }
-        case 6:
-            if ((ignore != 5) && this.array[offset1 + 5] != this.array[offset2 + 5]) {
-                return false;
-            }
-        case 5:
-            if ((ignore != 4) && this.array[offset1 + 4] != this.array[offset2 + 4]) {
-                return false;
-            }
-        case 4:
-            if ((ignore != 3) && this.array[offset1 + 3] != this.array[offset2 + 3]) {
-                return false;
-            }
-        case 3:
-            if ((ignore != 2) && this.array[offset1 + 2] != this.array[offset2 + 2]) {
-                return false;
-            }
-        case 2:
-            if ((ignore != 1) && this.array[offset1 + 1] != this.array[offset2 + 1]) {
-                return false;
-            }
-        case 1:
-            if ((ignore != 0) && (this.array[offset1 + 0]) != (this.array[offset2 + 0])) {
-                return false;
-            }
-            break;
-        default:
-            if ((ignore != 0) && (this.array[offset1]) != (this.array[offset2] )) {
-                return false;
-            }
-            for (int i = 1; i < columns; i++) {
-                if ((ignore != i) && this.array[offset1 + i] != this.array[offset2 + i]) {
-                    return false;
-                }
-            }
+        if (ignore < 0 || ignore >= columns) {
+            return this.storage.equals(offset1, offset2, columns);
+        } else {
+            return this.storage.equals(offset1, offset2, ignore) &&
+                   this.storage.equals(offset1 + ignore + 1, offset2 + ignore + 1, columns - ignore - 1);
         }
-        return true;
     }
     
     /**
@@ -243,7 +203,7 @@ public class DataMatrix implements Serializable {
      * @return
      */
     public int get(final int row, final int col) {
-        return this.array[row * columns + col];
+        return this.storage.get((long) row * columns + col);
     }
     
     /**
@@ -262,6 +222,14 @@ public class DataMatrix implements Serializable {
         return rows;
     }
 
+    /**
+     * Returns the type of storage backing this matrix
+     * @return
+     */
+    public DataMatrixStorage.Type getStorageType() {
+        return storage.getType();
+    }
+
     /**
      * Gets the value in the given column for the row which
      * has been set via setRow(row).
@@ -269,7 +237,18 @@ public class DataMatrix implements Serializable {
      * @param value
      */
     public int getValueAtColumn(int column) {
-        return this.array[baseOffset + column];
+        return this.storage.get(baseOffset + column);
+    }
+
+    /**
+     * Returns a view on this matrix, which shares the underlying data but
+     * maintains its own iterator and row cursor. Views can be used to
+     * concurrently read the matrix from multiple threads.
+     * 
+     * @return
+     */
+    public DataMatrix getView() {
+        return new DataMatrix(this);
     }
 
     /**
@@ -278,12 +257,7 @@ public class DataMatrix implements Serializable {
      * @return
      */
     public int hashCode(final int row) {
-        int offset = row * columns;
-        int result = 23;
-        for (int i = 0; i < columns; i++) {
-            result = (37 * result) + this.array[offset++];
-        }
-        return result;        
+        return this.storage.hashCode((long) row * columns, columns, 23);
     }
 
     /**
@@ -292,7 +266,7 @@ public class DataMatrix implements Serializable {
      * @param array
      * @return the hashcode
      */
-    public final int hashCode(final int[] array) {
+    public int hashCode(final int[] array) {
         final int len = array.length;
         int result = 23;
         int i = 0;
@@ -318,13 +292,13 @@ public class DataMatrix implements Serializable {
      * @return
      */
     public int hashCodeIgnore(final int row, final int ignore) {
-        int offset = row * columns;
-        int result = 23;
-        for (int i = 0; i < columns; i++) {
-            result = (i == ignore) ? result : ((37 * result) + this.array[offset]);
-            offset++;
+        long offset = (long) row * columns;
+        if (ignore < 0 || ignore >= columns) {
+            return this.storage.hashCode(offset, columns, 23);
+        } else {
+            int result = this.storage.hashCode(offset, ignore, 23);
+            return this.storage.hashCode(offset + ignore + 1, columns - ignore - 1, result);
         }
-        return result;        
     }
     
     /**
@@ -332,7 +306,7 @@ public class DataMatrix implements Serializable {
      * @param row
      */
     public void iterator(int row) {
-        iteratorOffset = row * columns;
+        iteratorOffset = (long) row * columns;
         iteratorI = 0;
     }
 
@@ -349,7 +323,7 @@ public class DataMatrix implements Serializable {
      * @return
      */
     public int iterator_next() {
-        int result = this.array[iteratorOffset++];
+        int result = this.storage.get(iteratorOffset++);
         iteratorI++;
         return result;
     }
@@ -360,17 +334,28 @@ public class DataMatrix implements Serializable {
      * @return
      */
     public void iterator_write(int value) {
-        this.array[iteratorOffset++] = value;
+        this.storage.set(iteratorOffset++, value);
         iteratorI++;
     }
 
+    /**
+     * Creates a new matrix with the given number of rows, which uses the same
+     * number of columns, layout and type of storage as this matrix
+     * @param rows
+     * @return
+     */
+    public DataMatrix newInstance(int rows) {
+        return new DataMatrix(rows, this.columns, this.storage.getType());
+    }
+
     /**
      * ORs the first value of the row with the given value
      * @param row
      * @param value
      */
     public void or(int row, int value) {
-        array[row * columns] |= value;
+        long offset = (long) row * columns;
+        storage.set(offset, storage.get(offset) | value);
     }
 
     /**
@@ -380,7 +365,7 @@ public class DataMatrix implements Serializable {
      * @param value
      */
     public void set(int row, int column, int value) {
-        this.array[row * columns + column] = value;
+        this.storage.set((long) row * columns + column, value);
     }
 
     /**
@@ -388,7 +373,7 @@ public class DataMatrix implements Serializable {
      * @param row
      */
     public void setRow(int row) {
-        this.baseOffset = row * columns;
+        this.baseOffset = (long) row * columns;
     }
 
     /**
@@ -397,8 +382,10 @@ public class DataMatrix implements Serializable {
      * @param data
      */
     public void setRow(int row, int[] data) {
-        int offset = row * columns;
-        System.arraycopy(data, 0, this.array, offset, data.length);
+        long offset = (long) row * columns;
+        for (int i = 0; i < data.length; i++) {
+            this.storage.set(offset++, data[i]);
+        }
     }
 
     /**
@@ -408,7 +395,7 @@ public class DataMatrix implements Serializable {
      * @param value
      */
     public void setValueAtColumn(int column, int value) {
-        this.array[baseOffset + column] = value;
+        this.storage.set(baseOffset + column, value);
     }
 
     /**
@@ -417,12 +404,12 @@ public class DataMatrix implements Serializable {
      * @param row2
      */
     public void swap(int row1, int row2) {
-        int offset1 = row1 * columns;
-        int offset2 = row2 * columns;
+        long offset1 = (long) row1 * columns;
+        long offset2 = (long) row2 * columns;
         for (int i = 0; i < this.columns; i++) {
-            int temp = this.array[offset1];
-            this.array[offset1] = this.array[offset2];
-            this.array[offset2] = temp;
+            int temp = this.storage.get(offset1);
+            this.storage.set(offset1, this.storage.get(offset2));
+            this.storage.set(offset2, temp);
             offset1 ++;
             offset2 ++;
         }
@@ -437,102 +424,17 @@ public class DataMatrix implements Serializable {
      */
     private boolean equals(int row1, int row2, int flag) {
 
-        int offset1 = row1 * columns;
-        int offset2 = row2 * columns;
+        if (columns == 0) {
+            return true;
+        }
 
-        switch (columns) {
-        case 20:
-            if (this.array[offset1 + 19] != this.array[offset2 + 19]) {
-                return false;
-            }
-        case 19:
-            if (this.array[offset1 + 18] != this.array[offset2 + 18]) {
-                return false;
-            }
-        case 18:
-            if (this.array[offset1 + 17] != this.array[offset2 + 17]) {
-                return false;
-            }
-        case 17:
-            if (this.array[offset1 + 16] != this.array[offset2 + 16]) {
-                return false;
-            }
-        case 16:
-            if (this.array[offset1 + 15] != this.array[offset2 + 15]) {
-                return false;
-            }
-        case 15:
-            if (this.array[offset1 + 14] != this.array[offset2 + 14]) {
-                return false;
-            }
-        case 14:
-            if (this.array[offset1 + 13] != this.array[offset2 + 13]) {
-                return false;
-            }
-        case 13:
-            if (this.array[offset1 + 12] != this.array[offset2 + 12]) {
-                return false;
-            }
-        case 12:
-            if (this.array[offset1 + 11] != this.array[offset2 + 11]) {
-                return false;
-            }
-        case 11:
-            if (this.array[offset1 + 10] != this.array[offset2 + 10]) {
-                return false;
-            }
-        case 10:
-            if (this.array[offset1 + 9] != this.array[offset2 + 9]) {
-                return false;
-            }
-        case 9:
-            if (this.array[offset1 + 8] != this.array[offset2 + 8]) {
-                return false;
-            }
-        case 8:
-            if (this.array[offset1 + 7] != this.array[offset2 + 7]) {
-                return false;
-            }
-        case 7:
-            if (this.array[offset1 + 6] != this.array[offset2 + 6]) {
-                return false;
-            }
-        case 6:
-            if (this.array[offset1 + 5] != this.array[offset2 + 5]) {
-                return false;
-            }
-        case 5:
-            if (this.array[offset1 + 4] != this.array[offset2 + 4]) {
-                return false;
-            }
-        case 4:
-            if (this.array[offset1 + 3] != this.array[offset2 + 3]) {
-                return false;
-            }
-        case 3:
-            if (this.array[offset1 + 2] != this.array[offset2 + 2]) {
-                return false;
-            }
-        case 2:
-            if (this.array[offset1 + 1] != this.array[offset2 + 1]) {
-                return false;
-            }
-        case 1:
-            if ((this.array[offset1 + 0] & flag) != (this.array[offset2 + 0] & flag)) {
-                return false;
-            }
-            break;
-        default:
-            if ((this.array[offset1] & flag) != (this.array[offset2] & flag)) {
-                return false;
-            }
-            for (int i = 1; i < columns; i++) {
-                if (this.array[offset1 + i] != this.array[offset2 + i]) {
-                    return false;
-                }
-            }
+        long offset1 = (long) row1 * columns;
+        long offset2 = (long) row2 * columns;
+
+        if ((this.storage.get(offset1) & flag) != (this.storage.get(offset2) & flag)) {
+            return false;
         }
-        return true;
+        return this.storage.equals(offset1 + 1, offset2 + 1, columns - 1);
     }
 
     /**
@@ -543,17 +445,53 @@ public class DataMatrix implements Serializable {
     protected DataMatrix clone(int[] subset) {
         
         // Create instance
-        DataMatrix result = new DataMatrix(subset.length, this.columns);
+        DataMatrix result = new DataMatrix(subset.length, this.columns, this.storage.getType());
         
         // Copy subset
-        int targetOffset = 0;
+        long targetOffset = 0;
         for (int source : subset) {
-            int sourceOffset = source * columns;
-            System.arraycopy(this.array, sourceOffset, result.array, targetOffset, columns);
+            long sourceOffset = (long) source * columns;
+            this.storage.copy(sourceOffset, result.storage, targetOffset, columns);
             targetOffset += columns;
         }
         
         // Return
         return result;
     }
+
+    /**
+     * Deserializes this matrix, which is always stored on the heap
+     * @param stream
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = stream.readFields();
+        this.rows = fields.get("rows", 0);
+        this.columns = fields.get("columns", 0);
+        this.storage = new DataMatrixStorageHeap((int[]) fields.get("array", null));
+    }
+
+    /**
+     * Serializes this matrix in a format which is compatible with previous versions
+     * @param stream
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        if (storage.getSize() > Integer.MAX_VALUE) {
+            throw new NotSerializableException("Not more then 2^31-1 cells supported");
+        }
+        int[] array = new int[(int) storage.getSize()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = storage.get(i);
+        }
+        ObjectOutputStream.PutField fields = stream.putFields();
+        fields.put("array", array);
+        fields.put("rows", rows);
+        fields.put("columns", columns);
+        fields.put("iteratorI", 0);
+        fields.put("iteratorOffset", 0);
+        fields.put("baseOffset", 0);
+        stream.writeFields();
+    }
 }
\ No newline at end of file
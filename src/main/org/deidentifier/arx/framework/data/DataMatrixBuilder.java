@@ -0,0 +1,145 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.framework.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only builder for data matrices, which is used when the number of rows is not
+ * known in advance. Values are stored in fixed-size blocks, which are released while the
+ * final matrix is being created. As a consequence, building requires only little more
+ * memory than the resulting matrix.
+ * 
+ * @author Fabian Prasser
+ */
+public class DataMatrixBuilder {
+
+    /** The number of values per block */
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    /** The blocks */
+    private final List<int[]> blocks    = new ArrayList<int[]>();
+
+    /** The number of columns */
+    private final int         columns;
+
+    /** The current block */
+    private int[]             block     = null;
+
+    /** The offset in the current block */
+    private int               offset    = 0;
+
+    /** The number of values in each block */
+    private final int         size;
+
+    /** The number of values */
+    private long              values    = 0;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param columns
+     */
+    public DataMatrixBuilder(int columns) {
+        if (columns < 1) {
+            throw new IllegalArgumentException("Number of columns must be positive");
+        }
+        this.columns = columns;
+        this.size = Math.max(1, BLOCK_SIZE / columns) * columns;
+    }
+
+    /**
+     * Appends the next value. Values are expected in row-major order.
+     * 
+     * @param value
+     */
+    public void add(int value) {
+        if (block == null || offset == size) {
+            block = new int[size];
+            blocks.add(block);
+            offset = 0;
+        }
+        block[offset++] = value;
+        values++;
+    }
+
+    /**
+     * Creates the matrix. The builder is empty afterwards.
+     * 
+     * @return
+     */
+    public DataMatrix build() {
+        DataMatrix matrix = new DataMatrix(getNumRows(), columns);
+        copyTo(matrix, 0, null);
+        return matrix;
+    }
+
+    /**
+     * Copies all rows to the given matrix, starting at the given row. If a mapping
+     * is provided, values in each column are translated with <code>mapping[column][value]</code>.
+     * The builder is empty afterwards.
+     * 
+     * @param target
+     * @param row
+     * @param mapping
+     */
+    public void copyTo(DataMatrix target, int row, int[][] mapping) {
+
+        // Check
+        if (values % columns != 0) {
+            throw new IllegalStateException("Incomplete row");
+        }
+
+        // Copy
+        int column = 0;
+        long remaining = values;
+        for (int index = 0; index < blocks.size(); index++) {
+            int[] current = blocks.get(index);
+            int length = (int) Math.min(remaining, current.length);
+            for (int i = 0; i < length; i++) {
+                int value = current[i];
+                target.set(row, column, mapping == null ? value : mapping[column][value]);
+                if (++column == columns) {
+                    column = 0;
+                    row++;
+                }
+            }
+            remaining -= length;
+
+            // Release
+            blocks.set(index, null);
+        }
+
+        // Reset
+        blocks.clear();
+        block = null;
+        offset = 0;
+        values = 0;
+    }
+
+    /**
+     * Returns the number of complete rows
+     * 
+     * @return
+     */
+    public int getNumRows() {
+        return (int) (values / columns);
+    }
+}
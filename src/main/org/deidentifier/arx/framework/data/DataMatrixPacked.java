@@ -0,0 +1,468 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.framework.data;
+
+import java.io.ObjectStreamException;
+import java.util.Arrays;
+
+/**
+ * A data matrix in which the cells of each row are bit-packed into 32-bit words. Each
+ * column occupies the minimal number of bits required to represent the codes of its
+ * domain. The outlier flag (see Data.OUTLIER_MASK), which is stored in the first column,
+ * occupies one additional bit. Columns never span multiple words, and each row
+ * starts with a new word. As a consequence, rows can be hashed and compared word-wise
+ * and concurrent writes to different rows do not interfere with each other.<br>
+ * <br>
+ * Values written into this matrix must not exceed the domains specified when the
+ * matrix was created.
+ * 
+ * @author Fabian Prasser
+ */
+public class DataMatrixPacked extends DataMatrix {
+
+    /** SVUID */
+    private static final long       serialVersionUID = -3049185744702146011L;
+
+    /**
+     * Returns the number of bits needed to represent the codes of a domain of the given size
+     * @param domainSize
+     * @return
+     */
+    private static int getWidth(int domainSize) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(domainSize - 1));
+    }
+
+    /** Backing storage */
+    private transient DataMatrixStorage storage;
+
+    /** The number of rows. */
+    private final int                   rows;
+
+    /** The number of columns. */
+    private final int                   columns;
+
+    /** The number of words per row */
+    private final int                   words;
+
+    /** The word in which each column is stored */
+    private final int[]                 wordIndex;
+
+    /** The offset of each column in its word */
+    private final int[]                 shift;
+
+    /** The mask for values of each column, before shifting */
+    private final int[]                 mask;
+
+    /** The bits occupied by each column, including the outlier flag for the first column */
+    private final int[]                 field;
+
+    /** The bit representing the outlier flag in the first word */
+    private final int                   flag;
+
+    /** Iterate */
+    private transient int               iteratorI        = 0;
+
+    /** Iterate */
+    private transient long              iteratorOffset   = 0;
+
+    /** Iterate */
+    private transient long              baseOffset       = 0;
+
+    /**
+     * Creates a packed copy of the given matrix. The domain sizes define the number of
+     * codes which need to be represented for each column.
+     * 
+     * @param matrix
+     * @param domainSizes
+     */
+    public DataMatrixPacked(DataMatrix matrix, int[] domainSizes) {
+        super(0, 0);
+        if (domainSizes.length != matrix.getNumColumns()) {
+            throw new IllegalArgumentException("Domain sizes do not match the number of columns");
+        }
+
+        // Prepare layout
+        this.rows = matrix.getNumRows();
+        this.columns = matrix.getNumColumns();
+        this.wordIndex = new int[columns];
+        this.shift = new int[columns];
+        this.mask = new int[columns];
+        this.field = new int[columns];
+        
+        // Assign columns to words
+        int word = 0;
+        int offset = 0;
+        int _flag = 0;
+        for (int column = 0; column < columns; column++) {
+            int width = getWidth(domainSizes[column]);
+            int bits = width + (column == 0 ? 1 : 0);
+            if (offset + bits > 32) {
+                word++;
+                offset = 0;
+            }
+            wordIndex[column] = word;
+            shift[column] = offset;
+            mask[column] = width == 32 ? ~0 : (1 << width) - 1;
+            field[column] = (bits == 32 ? ~0 : (1 << bits) - 1) << offset;
+            if (column == 0) {
+                _flag = 1 << (offset + width);
+            }
+            offset += bits;
+        }
+        this.flag = _flag;
+        this.words = columns == 0 ? 0 : word + 1;
+        
+        // Pack data
+        this.storage = DataMatrixStorage.create(matrix.getStorageType(), (long) rows * (long) words);
+        for (int row = 0; row < rows; row++) {
+            this.copyFrom(row, matrix, row);
+        }
+    }
+
+    /**
+     * Creates a new instance with the layout of the given matrix
+     * 
+     * @param layout
+     * @param rows
+     * @param storage
+     */
+    private DataMatrixPacked(DataMatrixPacked layout, int rows, DataMatrixStorage storage) {
+        super(0, 0);
+        this.rows = rows;
+        this.columns = layout.columns;
+        this.words = layout.words;
+        this.wordIndex = layout.wordIndex;
+        this.shift = layout.shift;
+        this.mask = layout.mask;
+        this.field = layout.field;
+        this.flag = layout.flag;
+        this.storage = storage;
+    }
+
+    @Override
+    public void and(int row, int value) {
+        set(row, 0, get(row, 0) & value);
+    }
+
+    @Override
+    public DataMatrix clone() {
+        DataMatrixPacked result = newInstance(this.rows);
+        this.storage.copy(0, result.storage, 0, this.storage.getSize());
+        return result;
+    }
+
+    @Override
+    public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        long offset = (long) row * words;
+        if (isCompatible(sourceMatrix)) {
+            DataMatrixPacked source = (DataMatrixPacked) sourceMatrix;
+            source.storage.copy((long) sourceRow * words, this.storage, offset, words);
+        } else {
+            int word = 0;
+            int index = 0;
+            for (int column = 0; column < columns; column++) {
+                if (wordIndex[column] != index) {
+                    storage.set(offset + index, word);
+                    word = 0;
+                    index++;
+                }
+                word |= encode(column, sourceMatrix.get(sourceRow, column));
+            }
+            if (columns != 0) {
+                storage.set(offset + index, word);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(int row1, int row2) {
+        return storage.equals((long) row1 * words, (long) row2 * words, words);
+    }
+
+    @Override
+    public boolean equals(int row, int[] data) {
+        long offset = (long) row * words;
+        int word = 0;
+        int index = 0;
+        for (int column = 0; column < columns; column++) {
+            if (wordIndex[column] != index) {
+                if (storage.get(offset + index) != word) {
+                    return false;
+                }
+                word = 0;
+                index++;
+            }
+            word |= encode(column, data[column]);
+        }
+        return columns == 0 || storage.get(offset + index) == word;
+    }
+
+    @Override
+    public boolean equalsIgnore(int row1, int row2, int ignore) {
+        int ignoredWord = (ignore >= 0 && ignore < columns) ? wordIndex[ignore] : -1;
+        int ignoredMask = (ignoredWord != -1) ? ~field[ignore] : ~0;
+        long offset1 = (long) row1 * words;
+        long offset2 = (long) row2 * words;
+        for (int i = 0; i < words; i++) {
+            int word1 = storage.get(offset1++);
+            int word2 = storage.get(offset2++);
+            if (i == ignoredWord) {
+                word1 &= ignoredMask;
+                word2 &= ignoredMask;
+            }
+            if (word1 != word2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnoringOutliers(int row1, int row2) {
+        if (words == 0) {
+            return true;
+        }
+        long offset1 = (long) row1 * words;
+        long offset2 = (long) row2 * words;
+        if ((storage.get(offset1) & ~flag) != (storage.get(offset2) & ~flag)) {
+            return false;
+        }
+        return storage.equals(offset1 + 1, offset2 + 1, words - 1);
+    }
+
+    @Override
+    public int get(int row, int col) {
+        return decode(col, storage.get((long) row * words + wordIndex[col]));
+    }
+
+    @Override
+    public int getNumColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getNumRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of 32-bit words used for storing a row
+     * @return
+     */
+    public int getNumWords() {
+        return words;
+    }
+
+    @Override
+    public DataMatrixStorage.Type getStorageType() {
+        return storage.getType();
+    }
+
+    @Override
+    public int getValueAtColumn(int column) {
+        return decode(column, storage.get(baseOffset + wordIndex[column]));
+    }
+
+    @Override
+    public DataMatrix getView() {
+        return new DataMatrixPacked(this, this.rows, this.storage);
+    }
+
+    @Override
+    public int hashCode(int row) {
+        return storage.hashCode((long) row * words, words, 23);
+    }
+
+    @Override
+    public int hashCode(int[] array) {
+        int result = 23;
+        int word = 0;
+        int index = 0;
+        for (int column = 0; column < columns; column++) {
+            if (wordIndex[column] != index) {
+                result = (37 * result) + word;
+                word = 0;
+                index++;
+            }
+            word |= encode(column, array[column]);
+        }
+        return columns == 0 ? result : (37 * result) + word;
+    }
+
+    @Override
+    public int hashCodeIgnore(int row, int ignore) {
+        int ignoredWord = (ignore >= 0 && ignore < columns) ? wordIndex[ignore] : -1;
+        int ignoredMask = (ignoredWord != -1) ? ~field[ignore] : ~0;
+        long offset = (long) row * words;
+        int result = 23;
+        for (int i = 0; i < words; i++) {
+            int word = storage.get(offset++);
+            result = (37 * result) + (i == ignoredWord ? word & ignoredMask : word);
+        }
+        return result;
+    }
+
+    @Override
+    public void iterator(int row) {
+        iteratorOffset = (long) row * words;
+        iteratorI = 0;
+    }
+
+    @Override
+    public boolean iterator_hasNext() {
+        return iteratorI < columns;
+    }
+
+    @Override
+    public int iterator_next() {
+        int result = decode(iteratorI, storage.get(iteratorOffset + wordIndex[iteratorI]));
+        iteratorI++;
+        return result;
+    }
+
+    @Override
+    public void iterator_write(int value) {
+        write(iteratorOffset + wordIndex[iteratorI], iteratorI, value);
+        iteratorI++;
+    }
+
+    @Override
+    public DataMatrixPacked newInstance(int rows) {
+        return new DataMatrixPacked(this, rows, DataMatrixStorage.create(storage.getType(), (long) rows * (long) words));
+    }
+
+    @Override
+    public void or(int row, int value) {
+        set(row, 0, get(row, 0) | value);
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+        write((long) row * words + wordIndex[column], column, value);
+    }
+
+    @Override
+    public void setRow(int row) {
+        this.baseOffset = (long) row * words;
+    }
+
+    @Override
+    public void setRow(int row, int[] data) {
+        long offset = (long) row * words;
+        for (int column = 0; column < data.length; column++) {
+            write(offset + wordIndex[column], column, data[column]);
+        }
+    }
+
+    @Override
+    public void setValueAtColumn(int column, int value) {
+        write(baseOffset + wordIndex[column], column, value);
+    }
+
+    @Override
+    public void swap(int row1, int row2) {
+        long offset1 = (long) row1 * words;
+        long offset2 = (long) row2 * words;
+        for (int i = 0; i < words; i++) {
+            int temp = storage.get(offset1);
+            storage.set(offset1, storage.get(offset2));
+            storage.set(offset2, temp);
+            offset1++;
+            offset2++;
+        }
+    }
+
+    /**
+     * Decodes the value of the given column from the given word
+     * @param column
+     * @param word
+     * @return
+     */
+    private int decode(int column, int word) {
+        int value = (word >>> shift[column]) & mask[column];
+        if (column == 0 && (word & flag) != 0) {
+            value |= Data.OUTLIER_MASK;
+        }
+        return value;
+    }
+
+    /**
+     * Encodes the given value of the given column into the bits of its word
+     * @param column
+     * @param value
+     * @return
+     */
+    private int encode(int column, int value) {
+        int result = (value & mask[column]) << shift[column];
+        if (column == 0 && (value & Data.OUTLIER_MASK) != 0) {
+            result |= flag;
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the given matrix has the same layout as this matrix
+     * @param matrix
+     * @return
+     */
+    private boolean isCompatible(DataMatrix matrix) {
+        if (!(matrix instanceof DataMatrixPacked)) {
+            return false;
+        }
+        DataMatrixPacked other = (DataMatrixPacked) matrix;
+        return other.wordIndex == this.wordIndex ||
+               (Arrays.equals(other.wordIndex, this.wordIndex) &&
+                Arrays.equals(other.field, this.field) &&
+                Arrays.equals(other.mask, this.mask));
+    }
+
+    /**
+     * Writes the value of the given column into the given word
+     * @param offset
+     * @param column
+     * @param value
+     */
+    private void write(long offset, int column, int value) {
+        storage.set(offset, (storage.get(offset) & ~field[column]) | encode(column, value));
+    }
+
+    /**
+     * Serializes this matrix in its unpacked form
+     * @return
+     * @throws ObjectStreamException
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        DataMatrix result = new DataMatrix(rows, columns, storage.getType());
+        for (int row = 0; row < rows; row++) {
+            result.copyFrom(row, this, row);
+        }
+        return result;
+    }
+
+    @Override
+    protected DataMatrix clone(int[] subset) {
+        DataMatrixPacked result = newInstance(subset.length);
+        long targetOffset = 0;
+        for (int source : subset) {
+            this.storage.copy((long) source * words, result.storage, targetOffset, words);
+            targetOffset += words;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.data;
+
+/**
+ * Abstract base class for storages backing a data matrix. Cells are addressed
+ * with long indices.
+ * 
+ * @author Fabian Prasser
+ */
+public abstract class DataMatrixStorage {
+
+    /**
+     * The type of storage.
+     * 
+     * @author Fabian Prasser
+     */
+    public static enum Type {
+
+        /** Stored in an array on the heap */
+        HEAP,
+
+        /** Stored in direct buffers off the heap */
+        OFF_HEAP,
+
+        /** Stored in a temporary memory-mapped file */
+        MEMORY_MAPPED
+    }
+
+    /** The maximal size of an array */
+    static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Creates a new storage with the given number of cells. If the type is
+     * heap and the number of cells exceeds the capacity of an array, the storage
+     * is allocated off the heap.
+     * 
+     * @param type
+     * @param size
+     * @return
+     */
+    public static DataMatrixStorage create(Type type, long size) {
+        if (type == Type.HEAP && size > MAX_ARRAY_SIZE) {
+            type = Type.OFF_HEAP;
+        }
+        switch (type) {
+        case HEAP:
+            return new DataMatrixStorageHeap(new int[(int) size]);
+        case OFF_HEAP:
+            return new DataMatrixStorageOffHeap(size);
+        case MEMORY_MAPPED:
+            return new DataMatrixStorageMemoryMapped(size);
+        default:
+            throw new IllegalArgumentException("Unknown type of storage: " + type);
+        }
+    }
+
+    /**
+     * Copies the given number of cells into the target storage
+     * 
+     * @param sourceIndex
+     * @param target
+     * @param targetIndex
+     * @param length
+     */
+    public void copy(long sourceIndex, DataMatrixStorage target, long targetIndex, long length) {
+        for (long i = 0; i < length; i++) {
+            target.set(targetIndex++, get(sourceIndex++));
+        }
+    }
+
+    /**
+     * Returns whether the given ranges of cells contain the same values.
+     * Blocks of four cells are compared at a time.
+     * 
+     * @param index1
+     * @param index2
+     * @param length
+     * @return
+     */
+    public boolean equals(long index1, long index2, int length) {
+        int i = 0;
+        for (; (i + 3) < length; i += 4) {
+            if (((get(index1) ^ get(index2)) |
+                 (get(index1 + 1) ^ get(index2 + 1)) |
+                 (get(index1 + 2) ^ get(index2 + 2)) |
+                 (get(index1 + 3) ^ get(index2 + 3))) != 0) {
+                return false;
+            }
+            index1 += 4;
+            index2 += 4;
+        }
+        for (; i < length; i++) {
+            if (get(index1++) != get(index2++)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value of the given cell
+     * 
+     * @param index
+     * @return
+     */
+    public abstract int get(long index);
+
+    /**
+     * Returns the number of cells
+     * 
+     * @return
+     */
+    public abstract long getSize();
+
+    /**
+     * Continues the given hash code with the given range of cells. The result equals
+     * <code>result = 37 * result + value</code> computed for each cell. Blocks of four
+     * cells are processed at a time.
+     * 
+     * @param index
+     * @param length
+     * @param result
+     * @return
+     */
+    public int hashCode(long index, int length, int result) {
+        int i = 0;
+        for (; (i + 3) < length; i += 4) {
+            result = (1874161 * result) + // 37 * 37 * 37 * 37
+                     (50653 * get(index)) + // 37 * 37 * 37
+                     (1369 * get(index + 1)) + // 37 * 37
+                     (37 * get(index + 2)) +
+                     get(index + 3);
+            index += 4;
+        }
+        for (; i < length; i++) {
+            result = (37 * result) + get(index++);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the type of this storage
+     * 
+     * @return
+     */
+    public abstract Type getType();
+
+    /**
+     * Sets the value of the given cell
+     * 
+     * @param index
+     * @param value
+     */
+    public abstract void set(long index, int value);
+}
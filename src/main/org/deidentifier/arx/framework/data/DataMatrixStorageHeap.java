@@ -0,0 +1,110 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.data;
+
+/**
+ * A storage backed by an array on the heap.
+ * 
+ * @author Fabian Prasser
+ */
+public class DataMatrixStorageHeap extends DataMatrixStorage {
+
+    /** Backing array */
+    private final int[] array;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param array
+     */
+    DataMatrixStorageHeap(int[] array) {
+        this.array = array != null ? array : new int[0];
+    }
+
+    @Override
+    public void copy(long sourceIndex, DataMatrixStorage target, long targetIndex, long length) {
+        if (target instanceof DataMatrixStorageHeap) {
+            System.arraycopy(this.array, (int) sourceIndex, ((DataMatrixStorageHeap) target).array, (int) targetIndex, (int) length);
+        } else {
+            super.copy(sourceIndex, target, targetIndex, length);
+        }
+    }
+
+    @Override
+    public boolean equals(long index1, long index2, int length) {
+        final int[] array = this.array;
+        int offset1 = (int) index1;
+        int offset2 = (int) index2;
+        int i = 0;
+        for (; (i + 3) < length; i += 4) {
+            if (((array[offset1] ^ array[offset2]) |
+                 (array[offset1 + 1] ^ array[offset2 + 1]) |
+                 (array[offset1 + 2] ^ array[offset2 + 2]) |
+                 (array[offset1 + 3] ^ array[offset2 + 3])) != 0) {
+                return false;
+            }
+            offset1 += 4;
+            offset2 += 4;
+        }
+        for (; i < length; i++) {
+            if (array[offset1++] != array[offset2++]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int get(long index) {
+        return array[(int) index];
+    }
+
+    @Override
+    public long getSize() {
+        return array.length;
+    }
+
+    @Override
+    public int hashCode(long index, int length, int result) {
+        final int[] array = this.array;
+        int offset = (int) index;
+        int i = 0;
+        for (; (i + 3) < length; i += 4) {
+            result = (1874161 * result) + // 37 * 37 * 37 * 37
+                     (50653 * array[offset]) + // 37 * 37 * 37
+                     (1369 * array[offset + 1]) + // 37 * 37
+                     (37 * array[offset + 2]) +
+                     array[offset + 3];
+            offset += 4;
+        }
+        for (; i < length; i++) {
+            result = (37 * result) + array[offset++];
+        }
+        return result;
+    }
+
+    @Override
+    public Type getType() {
+        return Type.HEAP;
+    }
+
+    @Override
+    public void set(long index, int value) {
+        array[(int) index] = value;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A storage backed by a temporary memory-mapped file. The operating system pages
+ * data in and out as required, which means that the size of the storage is not
+ * limited by the available memory.
+ * 
+ * @author Fabian Prasser
+ */
+public class DataMatrixStorageMemoryMapped extends DataMatrixStorageOffHeap {
+
+    /**
+     * Maps a temporary file of the given size into memory
+     * 
+     * @param size
+     * @return
+     */
+    private static IntBuffer[] map(long size) {
+
+        try {
+            // Create file, which is deleted once it has been mapped, if supported by the OS
+            File file = File.createTempFile("arx", ".matrix");
+            file.deleteOnExit();
+            IntBuffer[] chunks = new IntBuffer[getNumChunks(size)];
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(size * 4L);
+                FileChannel channel = raf.getChannel();
+                for (int i = 0; i < chunks.length; i++) {
+                    chunks[i] = channel.map(MapMode.READ_WRITE, i * CHUNK_SIZE * 4L, getChunkSize(size, i) * 4L)
+                                       .order(ByteOrder.nativeOrder())
+                                       .asIntBuffer();
+                }
+            }
+            file.delete();
+            return chunks;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create memory-mapped storage", e);
+        }
+    }
+
+    /**
+     * Creates a new instance
+     * 
+     * @param size
+     */
+    DataMatrixStorageMemoryMapped(long size) {
+        super(size, map(size));
+    }
+
+    @Override
+    public Type getType() {
+        return Type.MEMORY_MAPPED;
+    }
+}
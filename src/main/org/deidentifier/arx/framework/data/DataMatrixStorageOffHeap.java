@@ -0,0 +1,111 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.data;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * A storage backed by direct buffers off the heap. As the size of a single buffer
+ * is limited, cells are distributed amongst chunks of equal size.
+ * 
+ * @author Fabian Prasser
+ */
+public class DataMatrixStorageOffHeap extends DataMatrixStorage {
+
+    /** Number of bits used for addressing cells within a chunk */
+    static final int          CHUNK_BITS = 28;
+
+    /** The maximal number of cells in a chunk */
+    static final long         CHUNK_SIZE = 1L << CHUNK_BITS;
+
+    /** Mask for addressing cells within a chunk */
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Returns the number of chunks required for the given number of cells
+     * 
+     * @param size
+     * @return
+     */
+    static int getNumChunks(long size) {
+        return (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+    }
+
+    /**
+     * Returns the number of cells in the given chunk
+     * 
+     * @param size
+     * @param chunk
+     * @return
+     */
+    static int getChunkSize(long size, int chunk) {
+        return (int) Math.min(CHUNK_SIZE, size - (chunk * CHUNK_SIZE));
+    }
+
+    /** The chunks */
+    private final IntBuffer[] chunks;
+
+    /** The number of cells */
+    private final long        size;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param size
+     */
+    DataMatrixStorageOffHeap(long size) {
+        this.size = size;
+        this.chunks = new IntBuffer[getNumChunks(size)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(getChunkSize(size, i) * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+
+    /**
+     * Creates a new instance for the given chunks
+     * 
+     * @param size
+     * @param chunks
+     */
+    protected DataMatrixStorageOffHeap(long size, IntBuffer[] chunks) {
+        this.size = size;
+        this.chunks = chunks;
+    }
+
+    @Override
+    public int get(long index) {
+        return chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & CHUNK_MASK));
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public Type getType() {
+        return Type.OFF_HEAP;
+    }
+
+    @Override
+    public void set(long index, int value) {
+        chunks[(int) (index >>> CHUNK_BITS)].put((int) (index & CHUNK_MASK), value);
+    }
+}
@@ -83,6 +83,16 @@ public class DataMatrixSubset extends DataMatrix {
         return subset.length;
     }
 
+    @Override
+    public DataMatrix getView() {
+        return new DataMatrixSubset(matrix.getView(), subset);
+    }
+
+    @Override
+    public DataMatrixStorage.Type getStorageType() {
+        return (matrix == null) ? super.getStorageType() : matrix.getStorageType();
+    }
+
     @Override
     public int getValueAtColumn(int column) {
         return matrix.getValueAtColumn(column);
@@ -113,6 +123,11 @@ public class DataMatrixSubset extends DataMatrix {
         matrix.iterator_write(value);
     }
 
+    @Override
+    public DataMatrix newInstance(int rows) {
+        return (matrix == null) ? super.newInstance(rows) : matrix.newInstance(rows);
+    }
+
     @Override
     public void or(int row, int value) {
         matrix.or(subset[row], value);
@@ -141,4 +156,4 @@ public class DataMatrixSubset extends DataMatrix {
     public void swap(int row1, int row2) {
         matrix.swap(subset[row1], subset[row2]);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
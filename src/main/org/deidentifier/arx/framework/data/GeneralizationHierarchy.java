@@ -35,6 +35,9 @@ public class GeneralizationHierarchy {
     /** Input->level->output. */
     protected final int[][] map;
 
+    /** Level->input->output. */
+    protected final int[][] levels;
+
     /** Name. */
     protected final String  attribute;
 
@@ -105,6 +108,14 @@ public class GeneralizationHierarchy {
             }
         }
 
+        // Materialize each level
+        this.levels = new int[height][map.length];
+        for (int row = 0; row < map.length; row++) {
+            for (int level = 0; level < height; level++) {
+                levels[level][row] = map[row][level];
+            }
+        }
+
         // Count distinct values on each level
         this.distinctValues = new int[height];
 
@@ -175,6 +186,16 @@ public class GeneralizationHierarchy {
         return map;
     }
 
+    /**
+     * Returns the array mapping input values to their generalization on the given level.
+     *
+     * @param level
+     * @return
+     */
+    public int[] getArray(final int level) {
+        return levels[level];
+    }
+
     /**
      * Returns the number of distinct values.
      *
@@ -19,15 +19,26 @@ package org.deidentifier.arx.io;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.framework.data.Data;
 
 import com.univocity.parsers.csv.CsvFormat;
 import com.univocity.parsers.csv.CsvParser;
@@ -39,7 +50,56 @@ import com.univocity.parsers.csv.CsvParserSettings;
  * @author Fabian Prasser
  * @author Florian Kohlmayer
  */
-public class CSVDataInput {
+public class CSVDataInput implements IImportEncoder {
+
+    /**
+     * Static helper class for reading a range of bytes from a file
+     * 
+     * @author Fabian Prasser
+     */
+    private static class RangeInputStream extends InputStream {
+
+        /** The channel, shared between streams */
+        private final FileChannel channel;
+
+        /** The end position, exclusive */
+        private final long        end;
+
+        /** The current position */
+        private long              position;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param channel
+         * @param start
+         * @param end
+         */
+        private RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            return read(buffer, 0, 1) == -1 ? -1 : buffer[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            length = (int) Math.min(length, end - position);
+            int read = channel.read(ByteBuffer.wrap(buffer, offset, length), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
     
     /**
      * Static helper class for lazy initialization of a read
@@ -92,6 +152,12 @@ public class CSVDataInput {
 
     /** The data type for each column */
     private final DataType<?>[]     datatypes;
+
+    /** The linebreak */
+    private final char[]            linebreak;
+
+    /** The number of threads used for encoding files */
+    private final int               numberOfThreads;
     
     /**
      * Instantiate.
@@ -188,7 +254,7 @@ public class CSVDataInput {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public CSVDataInput(final File file, final Charset charset,  final CSVSyntax config, final CSVOptions options) throws IOException {
-        this(new FileReader(file),
+        this(new LazyFileReader(file, charset),
              config.getDelimiter(),
              config.getQuote(),
              config.getEscape(),
@@ -365,6 +431,8 @@ public class CSVDataInput {
         } else {
             cleansing = false;
         }
+        this.linebreak = linebreak;
+        this.numberOfThreads = options != null ? Math.max(1, options.getNumberOfThreads()) : 1;
         settings = createSettings(delimiter, quote, escape, linebreak, options);
     }
 
@@ -487,6 +555,50 @@ public class CSVDataInput {
         reader.close();
     }
 
+    /**
+     * Parses the data and encodes it on the fly, without materializing the records as strings.
+     * Assumes that the first line is the header. The dictionary of the result is finalized.
+     * If the data is read from a file and more than one thread has been configured, the file
+     * is split into chunks at line breaks outside of quoted values, which are parsed in parallel.
+     * If any chunk contains a record with an unexpected number of values, the file is parsed
+     * sequentially instead.
+     * 
+     * @return the encoded data, <code>null</code> if there is no header
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public Data encode() throws IOException {
+
+        // Check whether splitting the file is possible
+        if (numberOfThreads > 1 && reader instanceof LazyFileReader) {
+            LazyFileReader file = (LazyFileReader) reader;
+            byte[] separator = String.valueOf(linebreak[linebreak.length - 1]).getBytes(file.charset);
+            byte[] quote = String.valueOf(settings.getFormat().getQuote()).getBytes(file.charset);
+            byte[] escape = String.valueOf(settings.getFormat().getQuoteEscape()).getBytes(file.charset);
+            if (separator.length == 1 && quote.length == 1 && escape.length == 1 &&
+                (file.charset.newEncoder().maxBytesPerChar() == 1f || file.charset.name().equals("UTF-8"))) {
+                Data result = encode(file.file, file.charset, separator[0], quote[0], escape[0]);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+
+        // Sequential encoding
+        CsvParser parser = new CsvParser(settings);
+        parser.beginParsing(reader);
+        try {
+            String[] header = parser.parseNext();
+            if (header == null) {
+                return null;
+            }
+            ImportChunk chunk = new ImportChunk(header.length);
+            encode(parser, chunk, false);
+            return chunk.build(header);
+        } finally {
+            parser.stopParsing();
+        }
+    }
+
     /**
      * Returns an iterator. Assumes that the first line is the header. 
      * <b>You must iterate trough all elements to prevent resource leaks!</b>
@@ -567,6 +679,206 @@ public class CSVDataInput {
         };
     }
 
+    /**
+     * Encodes all records returned by the parser. In strict mode, encoding is aborted
+     * and <code>false</code> is returned as soon as a record with an unexpected number
+     * of values is encountered.
+     * 
+     * @param parser
+     * @param chunk
+     * @param strict
+     * @return
+     */
+    private boolean encode(CsvParser parser, ImportChunk chunk, boolean strict) {
+        int columns = chunk.dictionary.getNumDimensions();
+        String[] record = parser.parseNext();
+        while (record != null) {
+
+            // Abort
+            if (strict && record.length != columns) {
+                return false;
+            }
+
+            // Check
+            if (cleansing && record.length != datatypes.length) {
+                throw new IllegalArgumentException("More columns available in CSV file than data types specified");
+            }
+
+            // Encode, replacing non-matching and missing values with the special NULL string
+            for (int i = 0; i < columns; i++) {
+                String value = DataType.NULL_VALUE;
+                if (i < record.length) {
+                    value = (cleansing && !datatypes[i].isValid(record[i])) ? DataType.NULL_VALUE : record[i];
+                    value = (value != null) ? value : DataType.NULL_VALUE;
+                }
+                chunk.builder.add(chunk.dictionary.register(i, value));
+            }
+            record = parser.parseNext();
+        }
+        return true;
+    }
+
+    /**
+     * Splits the file into chunks at line breaks outside of quoted values and encodes them in
+     * parallel. The local dictionaries are merged in the order of the chunks, which results in
+     * the same encoding as sequential processing. Returns <code>null</code> if a chunk contains
+     * a record with an unexpected number of values, e.g. because quotes have been used in a way
+     * which does not allow to split the file reliably.
+     * 
+     * @param file
+     * @param charset
+     * @param separator
+     * @param quote
+     * @param escape
+     * @return
+     * @throws IOException
+     */
+    private Data encode(final File file, final Charset charset, final byte separator, final byte quote, final byte escape) throws IOException {
+
+        // Parse header
+        CsvParser parser = new CsvParser(settings);
+        parser.beginParsing(new InputStreamReader(new FileInputStream(file), charset));
+        final String[] header = parser.parseNext();
+        parser.stopParsing();
+        if (header == null) {
+            return null;
+        }
+        final int columns = header.length;
+
+        // Prepare
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+            int count = 0;
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                thread.setName("ARX CSV Import " + (count++));
+                return thread;
+            }
+        });
+
+        try (FileInputStream stream = new FileInputStream(file)) {
+
+            // Determine chunks
+            final FileChannel channel = stream.getChannel();
+            final long[] offsets = getChunks(channel, separator, quote, escape);
+
+            // Parse and encode each chunk
+            List<Future<ImportChunk>> futures = new ArrayList<Future<ImportChunk>>();
+            for (int index = 0; index < offsets.length - 1; index++) {
+                final int chunk = index;
+                futures.add(executor.submit(new Callable<ImportChunk>() {
+                    @Override
+                    public ImportChunk call() throws Exception {
+                        ImportChunk result = new ImportChunk(columns);
+                        CsvParser parser = new CsvParser(settings);
+                        parser.beginParsing(new InputStreamReader(new RangeInputStream(channel, offsets[chunk], offsets[chunk + 1]), charset));
+                        try {
+                            if (chunk == 0) {
+                                parser.parseNext();
+                            }
+                            if (!encode(parser, result, true)) {
+                                return null;
+                            }
+                        } finally {
+                            parser.stopParsing();
+                        }
+                        return result;
+                    }
+                }));
+            }
+            List<ImportChunk> chunks = new ArrayList<ImportChunk>();
+            for (Future<ImportChunk> future : futures) {
+                ImportChunk chunk = future.get();
+                if (chunk == null) {
+                    return null;
+                }
+                chunks.add(chunk);
+            }
+
+            // Merge
+            return ImportChunk.merge(chunks, header, executor);
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the file into one chunk per thread. Returns the offsets at which chunks start,
+     * followed by the size of the file. Chunks start after the given separator, if it is not
+     * part of a quoted value. To this end, quotes are tracked from the beginning of the file,
+     * ignoring quotes which are preceded by an escape character that is not the quote itself.
+     * 
+     * @param channel
+     * @param separator
+     * @param quote
+     * @param escape
+     * @return
+     * @throws IOException
+     */
+    private long[] getChunks(FileChannel channel, byte separator, byte quote, byte escape) throws IOException {
+
+        long size = channel.size();
+        List<Long> offsets = new ArrayList<Long>();
+        offsets.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        int chunk = 1;
+        long target = size / numberOfThreads;
+        boolean quoted = false;
+        boolean escaped = false;
+        long position = 0;
+        while (chunk < numberOfThreads && position < size) {
+            
+            // Read
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            
+            // Search for separators outside of quotes
+            for (int i = 0; i < read && chunk < numberOfThreads; i++) {
+                byte value = buffer.get(i);
+                if (escaped) {
+                    escaped = false;
+                } else if (value == escape && escape != quote && quoted) {
+                    escaped = true;
+                } else if (value == quote) {
+                    quoted = !quoted;
+                } else if (value == separator && !quoted && position + i >= target) {
+                    long offset = position + i + 1;
+                    if (offset >= size) {
+                        break;
+                    }
+                    offsets.add(offset);
+                    chunk++;
+                    target = Math.max(offset, size * chunk / numberOfThreads);
+                }
+            }
+            position += read;
+        }
+        offsets.add(size);
+
+        // Convert
+        long[] result = new long[offsets.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = offsets.get(i);
+        }
+        return result;
+    }
+
+
     /**
      * Creates the CsvParserSettings.
      *
@@ -0,0 +1,336 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.deidentifier.arx.DataHandle;
+
+import com.univocity.parsers.csv.CsvFormat;
+import com.univocity.parsers.csv.CsvWriter;
+import com.univocity.parsers.csv.CsvWriterSettings;
+
+/**
+ * Provides methods for writing data handles to CSV files. Instead of iterating over
+ * rows of strings, this class escapes and encodes the dictionary of each column once
+ * and then writes the byte sequences referenced by the encoded data into large buffers.
+ * Data can be partitioned into several files, which are written in parallel.
+ * 
+ * @author Fabian Prasser
+ */
+public class CSVEncodedDataOutput {
+
+    /** Number of rows processed at once. */
+    private static final int    BLOCK_SIZE  = 4096;
+
+    /** Size of the output buffers. */
+    private static final int    BUFFER_SIZE = 1 << 22;
+
+    /** The files. */
+    private final File[]        files;
+
+    /** The charset. */
+    private final Charset       charset;
+
+    /** Settings. */
+    private final CsvWriterSettings settings;
+
+    /** The delimiter. */
+    private final byte[]        delimiter;
+
+    /** The line break. */
+    private final byte[]        linebreak;
+
+    /**
+     * Instantiate.
+     *
+     * @param file the file
+     * @param config the config
+     * @param charset the charset
+     */
+    public CSVEncodedDataOutput(final File file, final CSVSyntax config, final Charset charset) {
+        this(new File[] { file }, config, charset);
+    }
+
+    /**
+     * Instantiate. Data will be partitioned into consecutive ranges of rows, one
+     * per file. Each file contains the header.
+     *
+     * @param files the files
+     * @param config the config
+     * @param charset the charset
+     */
+    public CSVEncodedDataOutput(final File[] files, final CSVSyntax config, final Charset charset) {
+        if (files == null || files.length == 0) {
+            throw new IllegalArgumentException("At least one file must be specified");
+        }
+        this.files = files.clone();
+        this.charset = charset;
+        this.settings = createSettings(config.getDelimiter(), config.getQuote(), config.getEscape(), config.getLinebreak());
+        this.delimiter = String.valueOf(config.getDelimiter()).getBytes(charset);
+        this.linebreak = new String(config.getLinebreak()).getBytes(charset);
+    }
+
+    /**
+     * Writes the given data.
+     *
+     * @param handle the handle
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void write(final DataHandle handle) throws IOException {
+
+        // Prepare
+        int columns = handle.getNumColumns();
+        settings.setMaxColumns(Math.max(settings.getMaxColumns(), columns));
+        CsvWriter writer = new CsvWriter(settings);
+        
+        // Encode header
+        final byte[][] header = new byte[columns][];
+        for (int column = 0; column < columns; column++) {
+            header[column] = encode(writer, handle.getAttributeName(column), column, columns);
+        }
+        
+        // Encode dictionaries
+        final byte[][][] dictionaries = new byte[columns][][];
+        for (int column = 0; column < columns; column++) {
+            String[] dictionary = handle.getEncodedDictionary(column);
+            dictionaries[column] = new byte[dictionary.length][];
+            for (int code = 0; code < dictionary.length; code++) {
+                dictionaries[column][code] = encode(writer, dictionary[code], column, columns);
+            }
+        }
+        
+        // Sequential
+        final int rows = handle.getNumRows();
+        if (files.length == 1) {
+            write(handle, files[0], header, dictionaries, 0, rows);
+            return;
+        }
+
+        // Parallel
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(files.length, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+            int count = 0;
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                thread.setName("ARX CSV Export " + (count++));
+                return thread;
+            }
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int partition = 0; partition < files.length; partition++) {
+                final File file = files[partition];
+                final int from = (int) ((long) rows * partition / files.length);
+                final int to = (int) ((long) rows * (partition + 1) / files.length);
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        write(handle, file, header, dictionaries, from, to);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates the settings.
+     *
+     * @param delimiter the delimiter
+     * @param quote the quote
+     * @param escape the escape
+     * @param linebreak the linebreak
+     * @return the csv writer settings
+     */
+    private CsvWriterSettings createSettings(final char delimiter, final char quote, final char escape, final char[] linebreak) {
+        CsvFormat format = new CsvFormat();
+        format.setDelimiter(delimiter);
+        format.setQuote(quote);
+        format.setQuoteEscape(escape);
+        format.setLineSeparator(linebreak);
+        format.setNormalizedNewline(CSVSyntax.getNormalizedLinebreak(linebreak));
+
+        CsvWriterSettings settings = new CsvWriterSettings();
+        settings.setEmptyValue("");
+        settings.setNullValue("");
+        settings.setFormat(format);
+        return settings;
+    }
+
+    /**
+     * Escapes and encodes the given value, as it would be written in the given column.
+     *
+     * @param writer the writer
+     * @param value the value
+     * @param column the column
+     * @param columns the number of columns
+     * @return the encoded value
+     */
+    private byte[] encode(CsvWriter writer, String value, int column, int columns) {
+        String[] row = new String[columns];
+        row[column] = value;
+        String result = writer.writeRowToString(row);
+        if (result == null) {
+            return new byte[0];
+        }
+        int delimiters = 0;
+        int offset = 0;
+        while (delimiters < column) {
+            if (result.charAt(offset++) == settings.getFormat().getDelimiter()) {
+                delimiters++;
+            }
+        }
+        int end = result.length();
+        delimiters = 0;
+        while (delimiters < columns - 1 - column) {
+            if (result.charAt(--end) == settings.getFormat().getDelimiter()) {
+                delimiters++;
+            }
+        }
+        return result.substring(offset, end).getBytes(charset);
+    }
+
+    /**
+     * Flushes the buffer.
+     *
+     * @param channel the channel
+     * @param buffer the buffer
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Puts the given bytes into the buffer, flushing it if required.
+     *
+     * @param channel the channel
+     * @param buffer the buffer
+     * @param bytes the bytes
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void put(FileChannel channel, ByteBuffer buffer, byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) {
+            flush(channel, buffer);
+            if (bytes.length > buffer.capacity()) {
+                ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+                return;
+            }
+        }
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes a row.
+     *
+     * @param channel the channel
+     * @param buffer the buffer
+     * @param values the encoded values
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void put(FileChannel channel, ByteBuffer buffer, byte[][] values) throws IOException {
+        for (int column = 0; column < values.length; column++) {
+            if (column != 0) {
+                put(channel, buffer, delimiter);
+            }
+            put(channel, buffer, values[column]);
+        }
+        put(channel, buffer, linebreak);
+    }
+
+    /**
+     * Writes the given range of rows into the given file.
+     *
+     * @param handle the handle
+     * @param file the file
+     * @param header the encoded header
+     * @param dictionaries the encoded dictionaries
+     * @param from the first row, inclusive
+     * @param to the last row, exclusive
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void write(DataHandle handle, File file, byte[][] header, byte[][][] dictionaries, int from, int to) throws IOException {
+
+        int columns = header.length;
+        int[][] codes = new int[columns][BLOCK_SIZE];
+        byte[][] row = new byte[columns][];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        
+        try (FileOutputStream stream = new FileOutputStream(file); FileChannel channel = stream.getChannel()) {
+            
+            // Header
+            put(channel, buffer, header);
+            
+            // Data
+            for (int offset = from; offset < to; offset += BLOCK_SIZE) {
+                int length = Math.min(BLOCK_SIZE, to - offset);
+                for (int column = 0; column < columns; column++) {
+                    handle.getEncodedValues(column, offset, offset + length, codes[column]);
+                }
+                for (int i = 0; i < length; i++) {
+                    for (int column = 0; column < columns; column++) {
+                        row[column] = dictionaries[column][codes[column][i]];
+                    }
+                    put(channel, buffer, row);
+                }
+            }
+            
+            // Done
+            flush(channel, buffer);
+        }
+    }
+}
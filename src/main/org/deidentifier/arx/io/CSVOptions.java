@@ -33,6 +33,9 @@ public class CSVOptions implements Serializable { // NO_UCD
 
     /** The max columns. */
     private Integer           maxColumns;
+
+    /** The number of threads used for parsing files. */
+    private Integer           numberOfThreads;
     
     /**
      * Creates new options
@@ -49,6 +52,13 @@ public class CSVOptions implements Serializable { // NO_UCD
         return maxColumns;
     }
 
+    /**
+     * @return the number of threads used for parsing files
+     */
+    public int getNumberOfThreads() {
+        return numberOfThreads == null ? 1 : numberOfThreads;
+    }
+
     /**
      * @param maxColumns the maxColumns to set
      */
@@ -56,6 +66,20 @@ public class CSVOptions implements Serializable { // NO_UCD
         this.maxColumns = maxColumns;
     }
 
+    /**
+     * Sets the number of threads used for parsing files. If more than one thread is used,
+     * files are split into chunks at line breaks, which requires that values do not
+     * contain line breaks.
+     * 
+     * @param numberOfThreads the number of threads to set
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
     /**
      * Applies the options
      * @param settings
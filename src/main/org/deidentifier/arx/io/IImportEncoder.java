@@ -0,0 +1,39 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.io;
+
+import java.io.IOException;
+
+import org.deidentifier.arx.framework.data.Data;
+
+/**
+ * Interface for sources which are able to encode data while reading it
+ * 
+ * @author Fabian Prasser
+ */
+public interface IImportEncoder {
+
+    /**
+     * Reads and encodes the data.
+     *
+     * @return the encoded data, null if there is no header
+     * @throws IOException
+     */
+    public Data encode() throws IOException;
+}
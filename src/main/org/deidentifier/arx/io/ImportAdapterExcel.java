@@ -28,7 +28,6 @@ import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.io.ImportConfigurationExcel.ExcelFileTypes;
 
@@ -37,7 +36,8 @@ import org.deidentifier.arx.io.ImportConfigurationExcel.ExcelFileTypes;
  * 
  * This adapter can import data from Excel files. It handles both XLS and XLSX
  * files. The file type itself is defined by {@link ImportConfigurationExcel}.
- * The files are accessed using Apache POI.
+ * The files are accessed using Apache POI. XLSX files are streamed, which means
+ * that rows are parsed one at a time.
  *
  * @author Karol Babioch
  * @author Fabian Prasser
@@ -48,16 +48,22 @@ public class ImportAdapterExcel extends ImportAdapter {
     /** The configuration describing the Excel file. */
     private ImportConfigurationExcel config;
 
-    /** Actual iterator used to go through data. */
+    /** Actual iterator used to go through data of XLS files. */
     private Iterator<Row>            iterator;
 
+    /** Reader used to go through data of XLSX files. */
+    private XLSXDataInput            reader;
+
     /**
-     * Contains the last row as returned by the iterator.
+     * Contains the last row as returned by the iterator or reader.
      *
      * @note This row cannot be simply returned, but needs to be further
      *       processed, e.g. to return only selected columns.
      */
-    private Row                      row;
+    private String[]                 row;
+
+    /** Row read ahead from XLSX files, if any. */
+    private String[]                 lookahead;
 
     /**
      * Indicates whether the first row has already been returned
@@ -68,7 +74,7 @@ public class ImportAdapterExcel extends ImportAdapter {
      */
     private boolean                  headerReturned = false;
 
-    /** Number of rows within the specified sheet. */
+    /** Number of rows within the specified sheet, -1 if unknown. */
     private int                      totalRows;
 
     /** Current row {@link lastRow} is referencing. */
@@ -80,10 +86,9 @@ public class ImportAdapterExcel extends ImportAdapter {
     /**
      * Creates a new instance of this object with given configuration
      * 
-     * Depending upon the file type it either uses HSSF or XSSF to access the
-     * file. In both cases {@link #iterator} will be assigned a reference to
-     * an iterator, which can then be used to access the actual data on a row by
-     * row basis.
+     * Depending upon the file type it either uses HSSF or a streaming XSSF
+     * reader to access the file. In both cases {@link #readRow()} can then be
+     * used to access the actual data on a row by row basis.
      * 
      * @param config
      *            {@link #config}
@@ -97,35 +102,33 @@ public class ImportAdapterExcel extends ImportAdapter {
         this.config = config;
 
         /* Get row iterator */
-        input = new FileInputStream(config.getFileLocation());
-        Workbook workbook = null;
-
         if (config.getExcelFileType() == ExcelFileTypes.XLS) {
-            workbook = new HSSFWorkbook(input);
+            input = new FileInputStream(config.getFileLocation());
+            Workbook workbook = new HSSFWorkbook(input);
+            workbook.setMissingCellPolicy(Row.CREATE_NULL_AS_BLANK);
+            Sheet sheet = workbook.getSheetAt(config.getSheetIndex());
+            iterator = sheet.iterator();
+            totalRows = sheet.getPhysicalNumberOfRows();
         } else if (config.getExcelFileType() == ExcelFileTypes.XLSX) {
-            workbook = new XSSFWorkbook(input);
+            reader = new XLSXDataInput(config.getFileLocation(), config.getSheetIndex());
         } else {
-            input.close();
             throw new IllegalArgumentException("File type not supported");
         }
 
-        workbook.setMissingCellPolicy(Row.CREATE_NULL_AS_BLANK);
-        Sheet sheet = workbook.getSheetAt(config.getSheetIndex());
-        iterator = sheet.iterator();
-
-        /* Get total number of rows */
-        totalRows = sheet.getPhysicalNumberOfRows();
-
         /* Check whether there is actual data within the file */
-        if (iterator.hasNext()) {
-
-            row = iterator.next();
+        row = readRow();
+        if (reader != null) {
+            totalRows = reader.getNumRows();
+        }
+        if (row != null) {
             if (config.getContainsHeader()) {
-                if (!iterator.hasNext()) {
+                if (!hasNextRow()) {
+                    closeResources();
                     throw new IOException("File contains nothing but header");
                 }
             }
         } else {
+            closeResources();
             throw new IOException("File contains no data");
         }
 
@@ -144,14 +147,17 @@ public class ImportAdapterExcel extends ImportAdapter {
      */
     @Override
     public int getProgress() {
-        return (int) (((double) currentRow / (double) totalRows) * 100d);
+        if (totalRows <= 0) {
+            return 0;
+        }
+        return Math.min(100, (int) (((double) currentRow / (double) totalRows) * 100d));
     }
 
     /**
      * Indicates whether there is another element to return
      * 
      * This returns true when the file contains another line, which could be
-     * accessed by {@link #iterator}.
+     * accessed by {@link #readRow()}.
      *
      * @return
      * @note {@link #row} effectively works as buffer and will always be set
@@ -185,30 +191,20 @@ public class ImportAdapterExcel extends ImportAdapter {
         String[] result = new String[indexes.length];
         for (int i = 0; i < indexes.length; i++) {
 
-            row.getCell(indexes[i]).setCellType(Cell.CELL_TYPE_STRING);
-            result[i] = IOUtil.trim(row.getCell(indexes[i]).getStringCellValue());
+            result[i] = IOUtil.trim(getCell(row, indexes[i]));
 
             if (!dataTypes[i].isValid(result[i])) {
                 if (config.columns.get(i).isCleansing()) {
                     result[i] = DataType.NULL_VALUE;
                 } else {
+                    closeResources();
                     throw new IllegalArgumentException("Data value does not match data type");
                 }
             }
         }
 
         /* Fetches the next row, which will be used in next iteration */
-        if (iterator.hasNext()) {
-            row = iterator.next();
-            currentRow++;
-        } else {
-            row = null;
-            try {
-                input.close();
-            } catch (Exception e) {
-                /* Die silently */
-            }
-        }
+        row = nextRow();
 
         /* Return resulting row */
         return result;
@@ -222,6 +218,22 @@ public class ImportAdapterExcel extends ImportAdapter {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Closes all resources.
+     */
+    private void closeResources() {
+        if (reader != null) {
+            reader.close();
+        }
+        try {
+            if (input != null) {
+                input.close();
+            }
+        } catch (Exception e) {
+            /* Die silently */
+        }
+    }
+
     /**
      * Creates the header row
      * 
@@ -252,8 +264,7 @@ public class ImportAdapterExcel extends ImportAdapter {
 
             ImportColumn column = columns.get(i);
 
-            row.getCell(((ImportColumnExcel) column).getIndex()).setCellType(Cell.CELL_TYPE_STRING);
-            String name = IOUtil.trim(row.getCell(((ImportColumnExcel) column).getIndex()).getStringCellValue());
+            String name = IOUtil.trim(getCell(row, ((ImportColumnExcel) column).getIndex()));
 
             if (config.getContainsHeader() && !name.equals("")) {
                 /* Assign name of file itself */
@@ -273,17 +284,91 @@ public class ImportAdapterExcel extends ImportAdapter {
 
         /* Fetch next row in preparation for next iteration */
         if (config.getContainsHeader()) {
+            row = nextRow();
+        }
+
+        /* Return header */
+        return header;
+    }
+
+    /**
+     * Returns the given cell, an empty string if it does not exist.
+     *
+     * @param row
+     * @param index
+     * @return
+     */
+    private String getCell(String[] row, int index) {
+        return index < row.length ? row[index] : "";
+    }
+
+    /**
+     * Returns whether the underlying source contains another row. For XLSX files
+     * the next row is read ahead.
+     *
+     * @return
+     * @throws IOException
+     */
+    private boolean hasNextRow() throws IOException {
+        if (iterator != null) {
+            return iterator.hasNext();
+        }
+        if (lookahead == null) {
+            lookahead = reader.next();
+        }
+        return lookahead != null;
+    }
 
-            if (iterator.hasNext()) {
-                row = iterator.next();
+    /**
+     * Advances to the next row, closing the file if there are no more rows.
+     *
+     * @return the next row, null if there are no more rows
+     */
+    private String[] nextRow() {
+        try {
+            String[] next = readRow();
+            if (next != null) {
                 currentRow++;
             } else {
-                row = null;
+                closeResources();
             }
+            return next;
+        } catch (IOException e) {
+            closeResources();
+            throw new RuntimeException("Couldn't read data from file", e);
         }
+    }
 
-        /* Return header */
-        return header;
+    /**
+     * Reads the next row from the underlying source.
+     *
+     * @return the row, null if there are no more rows
+     * @throws IOException
+     */
+    private String[] readRow() throws IOException {
+        
+        /* XLSX */
+        if (reader != null) {
+            if (lookahead != null) {
+                String[] result = lookahead;
+                lookahead = null;
+                return result;
+            }
+            return reader.next();
+        }
+        
+        /* XLS */
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Row row = iterator.next();
+        String[] result = new String[Math.max(0, row.getLastCellNum())];
+        for (int i = 0; i < result.length; i++) {
+            Cell cell = row.getCell(i);
+            cell.setCellType(Cell.CELL_TYPE_STRING);
+            result[i] = cell.getStringCellValue();
+        }
+        return result;
     }
 
     /**
@@ -18,24 +18,36 @@
 package org.deidentifier.arx.io;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigInteger;
+import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.framework.data.Data;
 
 /**
  * Import adapter for JDBC
  * 
  * This adapter can import data from JDBC sources. The source itself is
  * described by an appropriate {@link ImportConfigurationJDBC} object.
+ * Only the columns which are to be imported are queried.
  * 
  * @author Karol Babioch
  * @author Fabian Prasser
  */
-public class ImportAdapterJDBC extends ImportAdapter {
+public class ImportAdapterJDBC extends ImportAdapter implements IImportEncoder {
     
     /** The configuration describing the CSV file being used. */
     private ImportConfigurationJDBC config;
@@ -68,6 +80,18 @@ public class ImportAdapterJDBC extends ImportAdapter {
      * @see {@link #getProgress()}
      */
     private int                     totalRows;
+
+    /** The names of the columns to import, as specified in the table. */
+    private String[]                names;
+
+    /** The projection of the columns to import, to be used in queries. */
+    private String                  projection;
+
+    /** The positions of the columns to import in the results of queries. */
+    private int[]                   positions;
+
+    /** Indicates whether the data has already been queried. */
+    private boolean                 opened;
     
     /**
      * Creates a new instance of this object with given configuration.
@@ -87,6 +111,32 @@ public class ImportAdapterJDBC extends ImportAdapter {
         
         try {
             
+            /* Obtain names of columns to import */
+            statement = config.getConnection().createStatement();
+            statement.execute("SELECT * FROM " + config.getTable() + " WHERE 1 = 0");
+            resultSet = statement.getResultSet();
+            names = new String[indexes.length];
+            ResultSetMetaData metadata = resultSet.getMetaData();
+            for (int i = 0; i < indexes.length; i++) {
+                if (indexes[i] > metadata.getColumnCount()) {
+                    closeResources();
+                    throw new IllegalArgumentException("Index for column '" + (indexes[i] - 1) + "' couldn't be found");
+                }
+                names[i] = metadata.getColumnName(indexes[i]);
+            }
+            projection = getProjection(config.getConnection(), names);
+            if (projection != null) {
+                positions = new int[indexes.length];
+                for (int i = 0; i < positions.length; i++) {
+                    positions[i] = i + 1;
+                }
+            } else {
+                projection = "*";
+                positions = indexes;
+            }
+            resultSet.close();
+            statement.close();
+            
             /* Used to keep track of progress */
             statement = config.getConnection().createStatement();
             statement.execute("SELECT COUNT(*) FROM " + config.getTable());
@@ -104,12 +154,10 @@ public class ImportAdapterJDBC extends ImportAdapter {
                 closeResources();
                 throw new IOException("Couldn't determine number of rows");
             }
-            
-            /* Query for actual data */
-            statement = config.getConnection().createStatement();
-            statement.execute("SELECT * FROM " + config.getTable());
-            resultSet = statement.getResultSet();
-            hasNext = resultSet.next();
+            resultSet.close();
+            statement.close();
+            resultSet = null;
+            statement = null;
             
         } catch (SQLException e) {
             closeResources();
@@ -120,6 +168,36 @@ public class ImportAdapterJDBC extends ImportAdapter {
         header = createHeader();
     }
     
+    /**
+     * Reads and encodes the data. If partitioning has been configured, ranges of the
+     * partition column are read in parallel and the results are merged in the order
+     * of the ranges. Otherwise, the data is read sequentially.
+     * 
+     * @return
+     * @throws IOException
+     */
+    @Override
+    public Data encode() throws IOException {
+        
+        try {
+            
+            /* Sequential */
+            if (config.getPartitionColumn() == null || config.getNumberOfThreads() == 1) {
+                ImportChunk chunk = new ImportChunk(header.length);
+                read(config.getConnection(), "SELECT " + projection + " FROM " + config.getTable(), chunk);
+                return chunk.build(header);
+            }
+            
+            /* Parallel */
+            return encode(getConditions());
+            
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage());
+        } finally {
+            closeResources();
+        }
+    }
+    
     @Override
     public Integer getLength() {
         return totalRows;
@@ -138,7 +216,7 @@ public class ImportAdapterJDBC extends ImportAdapter {
     public int getProgress() {
         
         try {
-            return (int) (((double) resultSet.getRow() / (double) totalRows) * 100d);
+            return resultSet == null ? 0 : (int) (((double) resultSet.getRow() / (double) totalRows) * 100d);
         } catch (SQLException e) {
             return 0;
         }
@@ -153,6 +231,7 @@ public class ImportAdapterJDBC extends ImportAdapter {
      */
     @Override
     public boolean hasNext() {
+        open();
         return hasNext;
     }
     
@@ -170,20 +249,17 @@ public class ImportAdapterJDBC extends ImportAdapter {
             return header;
         }
         
+        open();
         try {
             
             /* Create regular row */
             String[] result = new String[indexes.length];
             for (int i = 0; i < indexes.length; i++) {
-                
-                result[i] = IOUtil.trim(resultSet.getString(indexes[i]));
-                if (!dataTypes[i].isValid(result[i])) {
-                    if (config.columns.get(i).isCleansing()) {
-                        result[i] = DataType.NULL_VALUE;
-                    } else {
-                        closeResources();
-                        throw new IllegalArgumentException("Data value does not match data type");
-                    }
+                try {
+                    result[i] = getValue(resultSet, i);
+                } catch (IllegalArgumentException e) {
+                    closeResources();
+                    throw e;
                 }
             }
             
@@ -267,12 +343,7 @@ public class ImportAdapterJDBC extends ImportAdapter {
             } else {
                 
                 /* Assign name from JDBC metadata */
-                try {
-                    /* +1 offset, because counting in JDBC starts at 1 */
-                    header[i] = IOUtil.trim(resultSet.getMetaData().getColumnName(((ImportColumnJDBC) column).getIndex() + 1));
-                } catch (SQLException e) {
-                    throw new IllegalArgumentException("Index for column '" + ((ImportColumnJDBC) column).getIndex() + "' couldn't be found");
-                }
+                header[i] = IOUtil.trim(names[i]);
             }
             column.setAliasName(header[i]);
         }
@@ -281,6 +352,246 @@ public class ImportAdapterJDBC extends ImportAdapter {
         return header;
         
     }
+    
+    /**
+     * Reads the given ranges in parallel and merges the results in order
+     * 
+     * @param conditions
+     * @return
+     * @throws IOException
+     * @throws SQLException
+     */
+    private Data encode(final List<String> conditions) throws IOException, SQLException {
+
+        final List<Connection> connections = new ArrayList<Connection>();
+        ExecutorService executor = null;
+        try {
+
+            // Prepare connections. Without a URL, the ranges are read one after another.
+            int threads = Math.min(config.getNumberOfThreads(), conditions.size());
+            for (int i = 0; i < threads; i++) {
+                Connection connection = config.createConnection();
+                if (connection == null) {
+                    break;
+                }
+                connections.add(connection);
+            }
+            if (connections.isEmpty()) {
+                connections.add(config.getConnection());
+            }
+
+            // Prepare executor
+            executor = Executors.newFixedThreadPool(connections.size(), new ThreadFactory() {
+                int count = 0;
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    thread.setName("ARX JDBC Import " + (count++));
+                    return thread;
+                }
+            });
+            
+            // Each thread reads the ranges assigned to it
+            final ImportChunk[] chunks = new ImportChunk[conditions.size()];
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < connections.size(); thread++) {
+                final Connection connection = connections.get(thread);
+                final int offset = thread;
+                final int step = connections.size();
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int index = offset; index < chunks.length; index += step) {
+                            chunks[index] = new ImportChunk(header.length);
+                            read(connection, "SELECT " + projection + " FROM " + config.getTable() + " WHERE " + conditions.get(index), chunks[index]);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            // Merge
+            List<ImportChunk> list = new ArrayList<ImportChunk>();
+            for (ImportChunk chunk : chunks) {
+                list.add(chunk);
+            }
+            return ImportChunk.merge(list, header, executor);
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            for (Connection connection : connections) {
+                if (connection != config.getConnection()) {
+                    try {
+                        connection.close();
+                    } catch (SQLException e) {
+                        /* Ignore silently */
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the partition column into one range per thread. Returns the conditions selecting
+     * the ranges, followed by a condition selecting rows without a value.
+     * 
+     * @return
+     * @throws SQLException
+     */
+    private List<String> getConditions() throws SQLException {
+
+        // Determine bounds
+        String column = getIdentifier(config.getConnection(), config.getPartitionColumn());
+        column = column != null ? column : config.getPartitionColumn();
+        long min = 0;
+        long max = 0;
+        try (Statement statement = config.getConnection().createStatement()) {
+            statement.execute("SELECT MIN(" + column + "), MAX(" + column + ") FROM " + config.getTable());
+            try (ResultSet bounds = statement.getResultSet()) {
+                if (bounds.next()) {
+                    min = bounds.getLong(1);
+                    max = bounds.getLong(2);
+                }
+            }
+        }
+        
+        // Split into ranges
+        List<String> conditions = new ArrayList<String>();
+        int threads = config.getNumberOfThreads();
+        BigInteger range = BigInteger.valueOf(max).subtract(BigInteger.valueOf(min)).add(BigInteger.ONE);
+        String lower = null;
+        for (int i = 1; i < threads; i++) {
+            long bound = range.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(threads)).add(BigInteger.valueOf(min)).longValue();
+            if (bound <= min || (lower != null && String.valueOf(bound).equals(lower))) {
+                continue;
+            }
+            String upper = String.valueOf(bound);
+            conditions.add((lower == null ? "" : column + " >= " + lower + " AND ") + column + " < " + upper);
+            lower = upper;
+        }
+        conditions.add(lower == null ? column + " IS NOT NULL" : column + " >= " + lower);
+        conditions.add(column + " IS NULL");
+        return conditions;
+    }
+
+    /**
+     * Returns the given identifier, quoted if supported by the database
+     * 
+     * @param connection
+     * @param identifier
+     * @return the identifier, null if it cannot be referenced safely
+     * @throws SQLException
+     */
+    private String getIdentifier(Connection connection, String identifier) throws SQLException {
+        String quote = connection.getMetaData().getIdentifierQuoteString();
+        if (quote == null || quote.trim().isEmpty()) {
+            return identifier.matches("[A-Za-z_][A-Za-z0-9_]*") ? identifier : null;
+        }
+        return quote + identifier.replace(quote, quote + quote) + quote;
+    }
+
+    /**
+     * Returns the projection for the given columns
+     * 
+     * @param connection
+     * @param names
+     * @return the projection, null if the columns cannot be referenced safely
+     * @throws SQLException
+     */
+    private String getProjection(Connection connection, String[] names) throws SQLException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            String identifier = getIdentifier(connection, names[i]);
+            if (identifier == null) {
+                return null;
+            }
+            builder.append(i == 0 ? "" : ", ").append(identifier);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the value in the given column of the current row of the given result set
+     * 
+     * @param resultSet
+     * @param column
+     * @return
+     * @throws SQLException
+     */
+    private String getValue(ResultSet resultSet, int column) throws SQLException {
+        String value = IOUtil.trim(resultSet.getString(positions[column]));
+        if (!dataTypes[column].isValid(value)) {
+            if (config.columns.get(column).isCleansing()) {
+                value = DataType.NULL_VALUE;
+            } else {
+                throw new IllegalArgumentException("Data value does not match data type");
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Opens the result set, if this has not been done before
+     */
+    private void open() {
+        if (opened) {
+            return;
+        }
+        opened = true;
+        try {
+            statement = config.getConnection().createStatement();
+            if (config.getFetchSize() > 0) {
+                statement.setFetchSize(config.getFetchSize());
+            }
+            statement.execute("SELECT " + projection + " FROM " + config.getTable());
+            resultSet = statement.getResultSet();
+            hasNext = resultSet.next();
+        } catch (SQLException e) {
+            closeResources();
+            throw new RuntimeException("Couldn't retrieve data from database");
+        }
+    }
+
+    /**
+     * Reads all rows returned by the given query and encodes them into the given chunk
+     * 
+     * @param connection
+     * @param query
+     * @param chunk
+     * @throws SQLException
+     */
+    private void read(Connection connection, String query, ImportChunk chunk) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (config.getFetchSize() > 0) {
+                statement.setFetchSize(config.getFetchSize());
+            }
+            statement.execute(query);
+            try (ResultSet resultSet = statement.getResultSet()) {
+                while (resultSet.next()) {
+                    for (int i = 0; i < header.length; i++) {
+                        String value = getValue(resultSet, i);
+                        chunk.builder.add(chunk.dictionary.register(i, value != null ? value : DataType.NULL_VALUE));
+                    }
+                }
+            }
+        }
+    }
 
     /**
      * Returns an array with indexes of columns that should be imported
@@ -0,0 +1,140 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.io;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.deidentifier.arx.framework.data.Data;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.DataMatrixBuilder;
+import org.deidentifier.arx.framework.data.Dictionary;
+
+/**
+ * A part of the input which has been encoded independently, with a local dictionary
+ * 
+ * @author Fabian Prasser
+ */
+class ImportChunk {
+
+    /**
+     * Merges the given chunks. The local dictionaries are merged in the order of the chunks,
+     * which results in the same encoding as processing all chunks sequentially. The data is
+     * copied in parallel using the given executor.
+     * 
+     * @param chunks
+     * @param header
+     * @param executor
+     * @return
+     * @throws InterruptedException
+     * @throws ExecutionException
+     */
+    static Data merge(final List<ImportChunk> chunks,
+                      final String[] header,
+                      final ExecutorService executor) throws InterruptedException, ExecutionException {
+
+        // Merge dictionaries in order
+        final int columns = header.length;
+        Dictionary dictionary = new Dictionary(columns);
+        final int[][][] mappings = new int[chunks.size()][][];
+        final int[] rows = new int[chunks.size()];
+        int total = 0;
+        for (int index = 0; index < chunks.size(); index++) {
+            ImportChunk chunk = chunks.get(index);
+            chunk.dictionary.finalizeAll();
+            String[][] values = chunk.dictionary.getMapping();
+            mappings[index] = new int[columns][];
+            for (int column = 0; column < columns; column++) {
+                mappings[index][column] = new int[values[column].length];
+                for (int code = 0; code < values[column].length; code++) {
+                    mappings[index][column][code] = dictionary.register(column, values[column][code]);
+                }
+            }
+            rows[index] = total;
+            total += chunk.builder.getNumRows();
+        }
+
+        // Copy data
+        final DataMatrix matrix = new DataMatrix(total, columns);
+        List<Future<?>> copies = new ArrayList<Future<?>>();
+        for (int index = 0; index < chunks.size(); index++) {
+            final int chunk = index;
+            final DataMatrixBuilder builder = chunks.get(index).builder;
+            copies.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    builder.copyTo(matrix, rows[chunk], mappings[chunk]);
+                }
+            }));
+        }
+        chunks.clear();
+        for (Future<?> future : copies) {
+            future.get();
+        }
+
+        // Done
+        dictionary.finalizeAll();
+        return Data.createWrapper(matrix, header, getColumns(columns), dictionary);
+    }
+
+    /**
+     * Returns the indices of all columns
+     * 
+     * @param columns
+     * @return
+     */
+    private static int[] getColumns(int columns) {
+        int[] result = new int[columns];
+        for (int i = 0; i < columns; i++) {
+            result[i] = i;
+        }
+        return result;
+    }
+
+    /** The local dictionary */
+    final Dictionary        dictionary;
+
+    /** The locally encoded data */
+    final DataMatrixBuilder builder;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param columns
+     */
+    ImportChunk(int columns) {
+        this.dictionary = new Dictionary(columns);
+        this.builder = new DataMatrixBuilder(columns);
+    }
+
+    /**
+     * Returns the data encoded in this chunk
+     * 
+     * @param header
+     * @return
+     */
+    Data build(final String[] header) {
+        DataMatrix matrix = builder.build();
+        dictionary.finalizeAll();
+        return Data.createWrapper(matrix, header, getColumns(header.length), dictionary);
+    }
+}
@@ -51,6 +51,24 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
      * Determines whether we need to manage the JDBC connection.
      */
     private final boolean manageConnection;
+
+    /** URL, used for opening additional connections, if available. */
+    private final String  url;
+
+    /** User, used for opening additional connections, if available. */
+    private final String  user;
+
+    /** Password, used for opening additional connections, if available. */
+    private final String  password;
+
+    /** The number of rows fetched at once, 0 to use the default of the driver. */
+    private int           fetchSize       = 0;
+
+    /** The numeric column by which the table is partitioned for parallel reads, if any. */
+    private String        partitionColumn = null;
+
+    /** The number of threads used for parallel reads. */
+    private int           numberOfThreads = 1;
     
     /**
      * Creates a new instance of this object.
@@ -62,6 +80,9 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         this.connection = connection;
         this.table = table;
         this.manageConnection = false;
+        this.url = null;
+        this.user = null;
+        this.password = null;
     }
     
     /**
@@ -75,6 +96,9 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         this.connection = DriverManager.getConnection(url);
         this.table = table;
         this.manageConnection = true;
+        this.url = url;
+        this.user = null;
+        this.password = null;
     }
     
     /**
@@ -90,6 +114,9 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         this.connection = DriverManager.getConnection(url, user, password);
         this.table = table;
         this.manageConnection = true;
+        this.url = url;
+        this.user = user;
+        this.password = password;
     }
     
     /**
@@ -138,6 +165,81 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         }
     }
     
+    /**
+     * Returns the number of rows fetched at once, 0 if the default of the driver is used.
+     *
+     * @return
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns the number of threads used for parallel reads.
+     *
+     * @return
+     */
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * Returns the numeric column by which the table is partitioned for parallel reads, null if none.
+     *
+     * @return
+     */
+    public String getPartitionColumn() {
+        return partitionColumn;
+    }
+
+    /**
+     * Sets the number of rows fetched at once. 0 means that the default of the driver is used.
+     *
+     * @param fetchSize
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("Fetch size must not be negative");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Enables parallel reads. The table will be split into ranges of the given numeric column,
+     * which are read by the given number of threads. Each thread uses its own connection, if
+     * the configuration has been created with a URL. Otherwise, the ranges are read one after
+     * another using the given connection.
+     *
+     * @param partitionColumn
+     * @param numberOfThreads
+     */
+    public void setPartitioning(String partitionColumn, int numberOfThreads) {
+        if (partitionColumn == null) {
+            throw new IllegalArgumentException("Column must not be null");
+        }
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.partitionColumn = partitionColumn;
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Opens an additional connection to the source, if possible
+     * 
+     * @return the connection, null if the configuration has not been created with a URL
+     * @throws SQLException
+     */
+    protected Connection createConnection() throws SQLException {
+        if (url == null) {
+            return null;
+        } else if (user == null) {
+            return DriverManager.getConnection(url);
+        } else {
+            return DriverManager.getConnection(url, user, password);
+        }
+    }
+
     /**
      * 
      *
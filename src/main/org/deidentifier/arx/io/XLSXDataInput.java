@@ -0,0 +1,332 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.SAXException;
+
+/**
+ * Streaming reader for sheets of XLSX files. Rows are parsed one at a time from the
+ * XML of the sheet, which means that memory requirements do not depend on the number
+ * of rows. Values are converted into strings in the same way as by the user model of
+ * Apache POI, when changing the type of a cell to string.
+ * 
+ * @author Fabian Prasser
+ */
+class XLSXDataInput {
+
+    /** Namespace of relationship identifiers. */
+    private static final String        NAMESPACE_RELATIONSHIPS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    /** Factory for parsers, which neither supports DTDs nor resolves external entities. */
+    private static final XMLInputFactory FACTORY                 = createFactory();
+
+    /** The package. */
+    private final OPCPackage           pkg;
+
+    /** The shared strings. */
+    private ReadOnlySharedStringsTable strings;
+
+    /** The stream of the sheet. */
+    private InputStream                stream;
+
+    /** The parser. */
+    private XMLStreamReader            parser;
+
+    /** The number of rows, as specified in the sheet, -1 if unknown. */
+    private int                        rows                    = -1;
+
+    /** Buffer for cells of the current row. */
+    private String[]                   buffer                  = new String[16];
+
+    /**
+     * Opens the given sheet.
+     *
+     * @param file
+     * @param sheetIndex
+     * @throws IOException
+     */
+    XLSXDataInput(String file, int sheetIndex) throws IOException {
+        try {
+            this.pkg = OPCPackage.open(file, PackageAccess.READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException(e);
+        }
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            this.strings = new ReadOnlySharedStringsTable(pkg);
+            this.stream = reader.getSheet(getSheetId(reader, sheetIndex));
+            this.parser = FACTORY.createXMLStreamReader(stream);
+        } catch (OpenXML4JException | SAXException | XMLStreamException | RuntimeException | IOException e) {
+            close();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+    }
+
+    /**
+     * Creates a factory for parsers, which neither supports DTDs nor resolves external
+     * entities. This prevents XXE attacks via crafted files.
+     *
+     * @return
+     */
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Releases all resources.
+     */
+    void close() {
+        try {
+            if (parser != null) {
+                parser.close();
+            }
+        } catch (Exception e) {
+            /* Die silently */
+        }
+        try {
+            if (stream != null) {
+                stream.close();
+            }
+        } catch (Exception e) {
+            /* Die silently */
+        }
+        pkg.revert();
+        parser = null;
+        stream = null;
+        strings = null;
+    }
+
+    /**
+     * Returns the number of rows as specified in the sheet, -1 if unknown. Available after
+     * the first row has been read.
+     *
+     * @return
+     */
+    int getNumRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the cells of the next row. Missing cells are represented by empty strings.
+     * Returns null if there are no more rows.
+     *
+     * @return
+     * @throws IOException
+     */
+    String[] next() throws IOException {
+        
+        if (parser == null) {
+            return null;
+        }
+        
+        try {
+            while (parser.hasNext()) {
+                if (parser.next() == XMLStreamConstants.START_ELEMENT) {
+                    String name = parser.getLocalName();
+                    if (name.equals("row")) {
+                        return readRow();
+                    } else if (name.equals("dimension")) {
+                        rows = getNumRows(parser.getAttributeValue(null, "ref"));
+                    }
+                }
+            }
+            close();
+            return null;
+        } catch (XMLStreamException e) {
+            close();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Returns the index of the column referenced by the given cell reference, e.g. "AB12".
+     *
+     * @param reference
+     * @return
+     */
+    private int getColumn(String reference) {
+        int column = 0;
+        for (int i = 0; i < reference.length(); i++) {
+            char c = reference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * Returns the number of rows in the given range, e.g. "A1:C10", -1 if unknown.
+     *
+     * @param range
+     * @return
+     */
+    private int getNumRows(String range) {
+        if (range == null || range.indexOf(':') == -1) {
+            return -1;
+        }
+        try {
+            int first = getRow(range.substring(0, range.indexOf(':')));
+            int last = getRow(range.substring(range.indexOf(':') + 1));
+            return last - first + 1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the row number from the given cell reference, e.g. "AB12".
+     *
+     * @param reference
+     * @return
+     */
+    private int getRow(String reference) {
+        int offset = 0;
+        while (offset < reference.length() && !Character.isDigit(reference.charAt(offset))) {
+            offset++;
+        }
+        return Integer.parseInt(reference.substring(offset));
+    }
+
+    /**
+     * Returns the identifier of the relationship of the sheet with the given index.
+     *
+     * @param reader
+     * @param sheetIndex
+     * @return
+     * @throws IOException
+     * @throws OpenXML4JException
+     * @throws XMLStreamException
+     */
+    private String getSheetId(XSSFReader reader, int sheetIndex) throws IOException, OpenXML4JException, XMLStreamException {
+        InputStream workbook = reader.getWorkbookData();
+        try {
+            XMLStreamReader parser = FACTORY.createXMLStreamReader(workbook);
+            int index = 0;
+            while (parser.hasNext()) {
+                if (parser.next() == XMLStreamConstants.START_ELEMENT && parser.getLocalName().equals("sheet")) {
+                    if (index++ == sheetIndex) {
+                        return parser.getAttributeValue(NAMESPACE_RELATIONSHIPS, "id");
+                    }
+                }
+            }
+            throw new IllegalArgumentException("Sheet index (" + sheetIndex + ") is out of range");
+        } finally {
+            workbook.close();
+        }
+    }
+
+    /**
+     * Reads a cell, starting at its start element.
+     *
+     * @return
+     * @throws XMLStreamException
+     */
+    private String readCell() throws XMLStreamException {
+        
+        String type = parser.getAttributeValue(null, "t");
+        String value = null;
+        StringBuilder inline = null;
+        int depth = 1;
+        boolean phonetic = false;
+        
+        while (depth > 0) {
+            int event = parser.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String name = parser.getLocalName();
+                if (name.equals("v")) {
+                    value = parser.getElementText();
+                    depth--;
+                } else if (name.equals("rPh")) {
+                    phonetic = true;
+                } else if (name.equals("t") && !phonetic) {
+                    inline = inline != null ? inline : new StringBuilder();
+                    inline.append(parser.getElementText());
+                    depth--;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                if (parser.getLocalName().equals("rPh")) {
+                    phonetic = false;
+                }
+            }
+        }
+        
+        if ("inlineStr".equals(type)) {
+            return inline != null ? inline.toString() : "";
+        } else if (value == null) {
+            return "";
+        } else if ("s".equals(type)) {
+            return strings.getEntryAt(Integer.parseInt(value.trim()));
+        } else if ("b".equals(type)) {
+            return value.trim().equals("1") ? "TRUE" : "FALSE";
+        } else {
+            return value;
+        }
+    }
+
+    /**
+     * Reads a row, starting at its start element.
+     *
+     * @return
+     * @throws XMLStreamException
+     */
+    private String[] readRow() throws XMLStreamException {
+        
+        int length = 0;
+        int column = -1;
+        while (true) {
+            int event = parser.next();
+            if (event == XMLStreamConstants.START_ELEMENT && parser.getLocalName().equals("c")) {
+                String reference = parser.getAttributeValue(null, "r");
+                column = reference != null ? getColumn(reference) : column + 1;
+                String value = readCell();
+                if (column >= buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.max(column + 1, buffer.length * 2));
+                }
+                for (int i = length; i < column; i++) {
+                    buffer[i] = "";
+                }
+                buffer[column] = value;
+                length = Math.max(length, column + 1);
+            } else if (event == XMLStreamConstants.END_ELEMENT && parser.getLocalName().equals("row")) {
+                return Arrays.copyOf(buffer, length);
+            }
+        }
+    }
+}
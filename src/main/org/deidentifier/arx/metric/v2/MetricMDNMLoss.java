@@ -17,9 +17,8 @@
 
 package org.deidentifier.arx.metric.v2;
 
-import java.util.ArrayList;
+import java.math.BigInteger;
 import java.util.Arrays;
-import java.util.List;
 
 import org.apache.commons.math3.fraction.BigFraction;
 import org.deidentifier.arx.ARXConfiguration;
@@ -35,7 +34,8 @@ import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 import org.deidentifier.arx.framework.lattice.Transformation;
 import org.deidentifier.arx.metric.MetricConfiguration;
 
-import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+import com.carrotsearch.hppc.LongObjectOpenHashMap;
 
 /**
  * This class implements a variant of the Loss metric.
@@ -148,10 +148,9 @@ public class MetricMDNMLoss extends AbstractMetricMultiDimensional {
         // Prepare
         int[] transformation = node.getGeneralization();
         int dimensionsGeneralized = getDimensionsGeneralized();
-        List<ObjectIntOpenHashMap<BigFraction>> dimensionSharesToCount =
-                new ArrayList<ObjectIntOpenHashMap<BigFraction>>(dimensionsGeneralized);
+        IntIntOpenHashMap[] dimensionValuesToCount = new IntIntOpenHashMap[dimensionsGeneralized];
         for (int dimension=0; dimension<dimensionsGeneralized; dimension++){
-            dimensionSharesToCount.add(new ObjectIntOpenHashMap<BigFraction>());
+            dimensionValuesToCount[dimension] = new IntIntOpenHashMap();
         }
 
         // Calculate counts. During these computations, no overflows can occur
@@ -165,11 +164,8 @@ public class MetricMDNMLoss extends AbstractMetricMultiDimensional {
                     if (!m.isNotOutlier) {
                         numOutliers += m.count;
                     } else {
-                        int value = m.next();
-                        int level = transformation[dimension];
-                        BigFraction shareReliable = sharesReliable[dimension].getShare(value, level);
-                        ObjectIntOpenHashMap<BigFraction> sharesToCount = dimensionSharesToCount.get(dimension);
-                        sharesToCount.putOrAdd(shareReliable, m.count, m.count);
+                        // The level is fixed per dimension, hence the share is determined by the value
+                        dimensionValuesToCount[dimension].putOrAdd(m.next(), m.count, m.count);
                     }
                 }
                 numOutliers += m.pcount - m.count;
@@ -177,21 +173,39 @@ public class MetricMDNMLoss extends AbstractMetricMultiDimensional {
             m = m.nextOrdered;
         }
         
-        // Calculate score
-        BigFraction score = new BigFraction(numOutliers);
+        // Calculate score. Numerators are summed up exactly per denominator,
+        // which requires one fraction per distinct denominator only
+        LongObjectOpenHashMap<ScoreAccumulator> denominatorsToSum = new LongObjectOpenHashMap<ScoreAccumulator>();
         for (int dimension=0; dimension<dimensionsGeneralized; dimension++){
             
-            ObjectIntOpenHashMap<BigFraction> sharesToCount = dimensionSharesToCount.get(dimension);
-            final boolean[] states = sharesToCount.allocated;
-            final int[] counts = sharesToCount.values;
-            final Object[] sharesReliable = sharesToCount.keys;
+            IntIntOpenHashMap valuesToCount = dimensionValuesToCount[dimension];
+            final boolean[] states = valuesToCount.allocated;
+            final int[] values = valuesToCount.keys;
+            final int[] counts = valuesToCount.values;
+            final int level = transformation[dimension];
             
             for (int i=0; i<states.length; i++) {
                 if (states[i]) {
-                    score = score.add(((BigFraction)(sharesReliable[i])).multiply(counts[i]));
+                    BigFraction share = sharesReliable[dimension].getShare(values[i], level);
+                    long denominator = share.getDenominator().longValue();
+                    ScoreAccumulator sum = denominatorsToSum.getOrDefault(denominator, null);
+                    if (sum == null) {
+                        sum = new ScoreAccumulator();
+                        denominatorsToSum.put(denominator, sum);
+                    }
+                    sum.add(share.getNumerator().longValue(), counts[i]);
                 }
             }
         }
+        BigFraction score = new BigFraction(numOutliers);
+        final boolean[] states = denominatorsToSum.allocated;
+        final long[] denominators = denominatorsToSum.keys;
+        final Object[] sums = denominatorsToSum.values;
+        for (int i=0; i<states.length; i++) {
+            if (states[i]) {
+                score = score.add(new BigFraction(((ScoreAccumulator)sums[i]).getBigInteger(), BigInteger.valueOf(denominators[i])));
+            }
+        }
 
         // Divide by sensitivity and multiply with -1 so that higher values are better
         score = score.multiply(new BigFraction(-1, dimensionsGeneralized));
@@ -154,9 +154,9 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
             nonSuppressedValueToCount[dimension] = new IntIntOpenHashMap();
         }
 
-        // Compute score. The casts to long are required to avoid integer overflows
-        // when large numbers are being multiplied.
-        BigFraction score = BigFraction.ZERO;
+        // Compute score. The accumulator is exact and falls back to arbitrary
+        // precision only if the primitive sum overflows.
+        ScoreAccumulator sum = new ScoreAccumulator();
         HashGroupifyEntry m = groupify.getFirstEquivalenceClass();
         while (m != null) {
             m.read();
@@ -168,10 +168,10 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
                     nonSuppressedValueToCount[dimension].putOrAdd(value, m.count, m.count);
                 } else {
                     // The attribute value has been suppressed because of record suppression or because of generalization
-                    score = score.add(new BigFraction((long)m.count * (long)rows));
+                    sum.add(m.count, (long)rows);
                 }
                 // Add values for records which have been suppressed by sampling
-                score = score.add(new BigFraction((long)(m.pcount - m.count) * (long)rows));
+                sum.add(m.pcount - m.count, (long)rows);
             }
             m = m.nextOrdered;
         }
@@ -181,10 +181,11 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
             final int [] counts = nonSuppressedValueToCount[dimension].values;
             for (int i=0; i<states.length; i++) {
                 if (states[i]) {
-                    score = score.add(new BigFraction((long)counts[i] * (long)counts[i]));
+                    sum.add(counts[i], counts[i]);
                 }
             }
         }
+        BigFraction score = sum.getBigFraction();
 
         // Adjust sensitivity and multiply with -1 so that higher values are better
         score = score.multiply(BigFraction.MINUS_ONE.divide(new BigFraction(((long)rows * (long)dimensionsGeneralized))));
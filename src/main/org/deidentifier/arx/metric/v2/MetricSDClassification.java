@@ -149,25 +149,26 @@ public class MetricSDClassification extends AbstractMetricSingleDimensional {
         }
         
         // Prepare
-        BigFraction score = BigFraction.ZERO;
+        ScoreAccumulator sum = new ScoreAccumulator();
         
         // Sum up weights for non-QI target variables
         HashGroupifyEntry m = groupify.getFirstEquivalenceClass();
         while (m != null) {
             if (m.count > 0 && m.isNotOutlier) {
                 for (int index : this.responseVariablesNonQI) {
-                    score = score.add(BigInteger.valueOf(getStatistics(m.distributions[index])[1]));
+                    sum.add(getStatistics(m.distributions[index])[1]);
                 }
             }
             m = m.nextOrdered;
         }
+        BigFraction score = sum.getBigFraction();
         
         // Sum up scores for QI target variables
         int i = 0;
         for (int index : this.responseVariablesQI) {
             
             // Init
-            BigFraction scoreQI = BigFraction.ZERO;
+            ScoreAccumulator sumQI = new ScoreAccumulator();
             
             // Group equivalence classes
             MetaHashGroupify mhg = new MetaHashGroupify(groupify, index);
@@ -182,9 +183,10 @@ public class MetricSDClassification extends AbstractMetricSingleDimensional {
             // Sum up weights
             MetaHashGroupifyEntry e = mhg.getFirstEntry();
             while (e != null) {
-                scoreQI = scoreQI.add(BigInteger.valueOf(getStatistics(e.distribution)[1]));
+                sumQI.add(getStatistics(e.distribution)[1]);
                 e = e.nextOrdered;
             }
+            BigFraction scoreQI = sumQI.getBigFraction();
             
             // Obtain scale between 1 (in case the target variable is not generalized) and 0 (in case the target variable is generalized to the highest level)
             BigFraction scale = BigFraction.ONE;
@@ -115,24 +115,24 @@ public class MetricSDNMDiscernability extends AbstractMetricSingleDimensional {
         
         // Prepare
         int numSuppressed = 0;
-        BigFraction penaltyNotSuppressed = BigFraction.ZERO;
+        ScoreAccumulator penalty = new ScoreAccumulator();
         
-        // Sum up penalties. The casts to long are required to avoid integer overflows
-        // when large numbers are being multiplied.
+        // Sum up penalties. The accumulator is exact and falls back to arbitrary
+        // precision only if the primitive sum overflows.
         HashGroupifyEntry m = groupify.getFirstEquivalenceClass();
         while (m != null) {
             if (m.isNotOutlier) {
-                penaltyNotSuppressed = penaltyNotSuppressed.add(new BigFraction((long)m.count * (long)m.count));
+                penalty.add(m.count, m.count);
             } else {
                 numSuppressed += m.count;
             }
             numSuppressed += m.pcount - m.count;
             m = m.nextOrdered;
         }
-        BigFraction penaltySuppressed = new BigFraction(numRows * (long)numSuppressed);
+        penalty.add(numRows, numSuppressed);
         
         // Adjust sensitivity and multiply with -1 so that higher values are better
-        BigFraction score = BigFraction.MINUS_ONE.multiply(penaltySuppressed.add(penaltyNotSuppressed));
+        BigFraction score = BigFraction.MINUS_ONE.multiply(penalty.getBigFraction());
         score = score.divide(new BigFraction(numRows).multiply((k == 1) ? new BigFraction(5) : new BigFraction(k * k).divide(new BigFraction(k - 1)).add(BigFraction.ONE)));
         
         // Return score
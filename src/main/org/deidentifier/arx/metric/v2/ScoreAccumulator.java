@@ -0,0 +1,96 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.metric.v2;
+
+import java.math.BigInteger;
+
+import org.apache.commons.math3.fraction.BigFraction;
+
+/**
+ * Exact accumulator for integral score contributions. Sums are maintained
+ * in a primitive long and only carried over into a BigInteger on overflow.
+ * 
+ * @author Fabian Prasser
+ */
+class ScoreAccumulator {
+
+    /** Primitive part of the sum */
+    private long       sum      = 0L;
+
+    /** Carry, which is only used in case of overflows */
+    private BigInteger carry    = null;
+
+    /**
+     * Adds the given value.
+     *
+     * @param value
+     */
+    void add(long value) {
+        long result = sum + value;
+        if (((sum ^ result) & (value ^ result)) < 0) {
+            carry(BigInteger.valueOf(sum));
+            result = value;
+        }
+        sum = result;
+    }
+
+    /**
+     * Adds the product of the given values.
+     *
+     * @param value1
+     * @param value2
+     */
+    void add(long value1, long value2) {
+        long high = Math.abs(value1) | Math.abs(value2);
+        if ((high >>> 31) == 0) {
+            add(value1 * value2);
+        } else {
+            long result = value1 * value2;
+            if (value1 != 0 && (result / value1 != value2 || (value1 == -1 && value2 == Long.MIN_VALUE))) {
+                carry(BigInteger.valueOf(value1).multiply(BigInteger.valueOf(value2)));
+            } else {
+                add(result);
+            }
+        }
+    }
+
+    /**
+     * Returns the sum as an integer
+     * @return
+     */
+    BigInteger getBigInteger() {
+        return carry == null ? BigInteger.valueOf(sum) : carry.add(BigInteger.valueOf(sum));
+    }
+
+    /**
+     * Returns the sum as a fraction
+     * @return
+     */
+    BigFraction getBigFraction() {
+        return carry == null ? new BigFraction(sum) : new BigFraction(getBigInteger());
+    }
+
+    /**
+     * Carries the given value over
+     * @param value
+     */
+    private void carry(BigInteger value) {
+        carry = carry == null ? value : carry.add(value);
+    }
+}
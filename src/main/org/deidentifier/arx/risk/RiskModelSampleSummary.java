@@ -20,9 +20,7 @@ import java.util.Arrays;
 import java.util.Set;
 
 import org.deidentifier.arx.DataHandleInternal;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.Groupify.Group;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.common.EncodedGroupify;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
@@ -209,8 +207,8 @@ public class RiskModelSampleSummary {
         this.threshold = threshold;
         
         // Prepare
-        Groupify<TupleWrapper> sample;
-        Groupify<TupleWrapper> population;
+        EncodedGroupify sample;
+        EncodedGroupify population;
         if (handle.getSuperset() != null) {
             sample = getGroups(handle, identifiers, 0d, 0.45d, stop, progress, false, suppressed);
             population = getGroups(handle.getSuperset(), identifiers,  0.45d, 0.45d, stop, progress, true, suppressed);
@@ -291,14 +289,14 @@ public class RiskModelSampleSummary {
      * @param suppressed 
      * @return
      */
-    private Groupify<TupleWrapper> getGroups(DataHandleInternal handle,
-                                             Set<String> qis,
-                                             double offset,
-                                             double factor,
-                                             WrappedBoolean stop,
-                                             WrappedInteger progress,
-                                             boolean ignoreOutliers,
-                                             String suppressed) {
+    private EncodedGroupify getGroups(DataHandleInternal handle,
+                                      Set<String> qis,
+                                      double offset,
+                                      double factor,
+                                      WrappedBoolean stop,
+                                      WrappedInteger progress,
+                                      boolean ignoreOutliers,
+                                      String suppressed) {
 
         /* ********************************
          * Check 
@@ -322,7 +320,7 @@ public class RiskModelSampleSummary {
         // Calculate equivalence classes
         int capacity = handle.getNumRows() / 10;
         capacity = capacity > 10 ? capacity : 10;
-        Groupify<TupleWrapper> map = new Groupify<TupleWrapper>(capacity);
+        EncodedGroupify map = new EncodedGroupify(handle, indices, ignoreOutliers, capacity);
         int numRows = handle.getNumRows();
         for (int row = 0; row < numRows; row++) {
 
@@ -332,8 +330,7 @@ public class RiskModelSampleSummary {
             }
 
             if (ignoreOutliers || !handle.isOutlier(row, indices)) {
-                TupleWrapper tuple = new TupleWrapper(handle, indices, row, ignoreOutliers);
-                map.add(tuple);
+                map.add(row);
             }
             if (stop.value) { throw new ComputationInterruptedException(); }
         }
@@ -351,8 +348,8 @@ public class RiskModelSampleSummary {
      * @param stop 
      * @return
      */
-    private JournalistRisk getJournalistRisk(Groupify<TupleWrapper> population,
-                                             Groupify<TupleWrapper> sample,
+    private JournalistRisk getJournalistRisk(EncodedGroupify population,
+                                             EncodedGroupify sample,
                                              double offset,
                                              WrappedBoolean stop,
                                              WrappedInteger progress) {
@@ -366,23 +363,21 @@ public class RiskModelSampleSummary {
         double numClassesInSample = 0d;
         double smallestClassSizeInPopulation = Integer.MAX_VALUE;
         int maxindex = sample.size();
-        int index = 0;
         
         // For each group
-        Group<TupleWrapper> element = sample.first();
-        while (element != null) {
+        for (int group = 0; group < maxindex; group++) {
             
             // Track progress
-            int prog = (int) Math.round(offset + (double) index++ / (double) maxindex * 3.3d);
+            int prog = (int) Math.round(offset + (double) group / (double) maxindex * 3.3d);
             if (prog != progress.value) {
                 progress.value = prog;
             }
             
             // Process
-            int groupSizeInSample = element.getCount();
+            int groupSizeInSample = sample.getCount(group);
             int groupSizeInPopulation = groupSizeInSample;
             if (population != sample) {
-                groupSizeInPopulation = population.get(element.getElement()).getCount();
+                groupSizeInPopulation = population.getCount(population.get(sample, group));
             }
 
             // Compute rA
@@ -399,9 +394,6 @@ public class RiskModelSampleSummary {
             rC1 += groupSizeInPopulation;
             rC2 += (double) groupSizeInSample / (double) groupSizeInPopulation;
 
-            // Next element
-            element = element.next();
-            
             // Stop, if required
             if (stop.value) { throw new ComputationInterruptedException(); }
         }
@@ -430,8 +422,8 @@ public class RiskModelSampleSummary {
      * @param stop 
      * @return
      */
-    private MarketerRisk getMarketerRisk(Groupify<TupleWrapper> population,
-                                         Groupify<TupleWrapper> sample,
+    private MarketerRisk getMarketerRisk(EncodedGroupify population,
+                                         EncodedGroupify sample,
                                          double offset,
                                          WrappedBoolean stop,
                                          WrappedInteger progress) {
@@ -440,32 +432,27 @@ public class RiskModelSampleSummary {
         double rC = 0d;
         double numRecordsInSample = 0d;
         int maxindex = sample.size();
-        int index = 0;
         
         // For each group
-        Group<TupleWrapper> element = sample.first();
-        while (element != null) {
+        for (int group = 0; group < maxindex; group++) {
             
             // Track progress
-            int prog = (int) Math.round(offset + (double) index++ / (double) maxindex * 3.3d);
+            int prog = (int) Math.round(offset + (double) group / (double) maxindex * 3.3d);
             if (prog != progress.value) {
                 progress.value = prog;
             }
             
             // Process
-            int groupSizeInSample = element.getCount();
+            int groupSizeInSample = sample.getCount(group);
             int groupSizeInPopulation = groupSizeInSample;
             if (population != sample) {
-                groupSizeInPopulation = population.get(element.getElement()).getCount();
+                groupSizeInPopulation = population.getCount(population.get(sample, group));
             }
 
             // Compute rC
             numRecordsInSample += groupSizeInSample;
             rC += (double) groupSizeInSample / (double) groupSizeInPopulation;
 
-            // Next element
-            element = element.next();
-            
             // Stop, if required
             if (stop.value) { throw new ComputationInterruptedException(); }
         }
@@ -486,8 +473,8 @@ public class RiskModelSampleSummary {
      * @param stop 
      * @return
      */
-    private ProsecutorRisk getProsecutorRisk(Groupify<TupleWrapper> population,
-                                             Groupify<TupleWrapper> sample,
+    private ProsecutorRisk getProsecutorRisk(EncodedGroupify population,
+                                             EncodedGroupify sample,
                                              double offset,
                                              WrappedBoolean stop,
                                              WrappedInteger progress) {
@@ -500,20 +487,18 @@ public class RiskModelSampleSummary {
         double numClasses = 0d;
         double smallestClassSize = Integer.MAX_VALUE;
         int maxindex = sample.size();
-        int index = 0;
         
         // For each group
-        Group<TupleWrapper> element = sample.first();
-        while (element != null) {
+        for (int group = 0; group < maxindex; group++) {
             
             // Track progress
-            int prog = (int) Math.round(offset + (double) index++ / (double) maxindex * 3.3d);
+            int prog = (int) Math.round(offset + (double) group / (double) maxindex * 3.3d);
             if (prog != progress.value) {
                 progress.value = prog;
             }
 
             // Compute rA
-            int groupSize = element.getCount();
+            int groupSize = sample.getCount(group);
             if (1d / groupSize > threshold) {
                 rA += groupSize;
             }
@@ -525,9 +510,6 @@ public class RiskModelSampleSummary {
             numClasses++;
             numRecords += groupSize;
     
-            // Next element
-            element = element.next();
-            
             // Stop, if required
             if (stop.value) { throw new ComputationInterruptedException(); }
         }
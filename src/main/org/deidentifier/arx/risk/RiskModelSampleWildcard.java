@@ -22,14 +22,21 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.deidentifier.arx.DataHandleInternal;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.Groupify.Group;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.common.EncodedGroupify;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+import org.deidentifier.arx.exceptions.UnexpectedErrorException;
 import org.deidentifier.arx.reliability.ParameterTranslation;
 
 /**
@@ -41,61 +48,204 @@ import org.deidentifier.arx.reliability.ParameterTranslation;
  * @author Fabian Prasser
  */
 public class RiskModelSampleWildcard {
-    
-    /**
-     * Inner node in the index
-     * @author Fabian Prasser
-     */
-    private class InnerNode extends Node {
-        
-        /** Children*/
-        private final List<Node> children = new ArrayList<Node>();
-        
-        /**
-         * Creates a new instance
-         * @param value
-         */
-        protected InnerNode(String value) {
-            super(value);
-        }   
-    }
 
     /**
-     * Leaf node in the index
+     * An inverted index, which maps the values of each attribute to the groups containing them.
+     * Values contained in many groups are additionally represented as bitmaps.
+     * 
      * @author Fabian Prasser
      */
-    private class LeafNode extends Node {
-     
-        /** Pointer to records */
-        private final Group<TupleWrapper> records;
+    private static class Index {
+
+        /** Frequencies of all groups */
+        private final int[]      frequencies;
+
+        /** Canonical identifiers of the values of all groups */
+        private final int[]      values;
+
+        /** Identifier of the wildcard for each attribute, -1 if not contained */
+        private final int[]      wildcards;
+
+        /** Groups containing each value of each attribute */
+        private final int[][][]  lists;
+
+        /** Bitmaps of groups containing each value of each attribute, null for infrequent values */
+        private final long[][][] bitmaps;
+
+        /** Number of groups */
+        private final int        numGroups;
+
+        /** Number of attributes */
+        private final int        numColumns;
+
+        /** Number of records */
+        private final int        numRecords;
 
         /**
          * Creates a new instance
-         * @param value
-         * @param records
-         * @param frequency
+         * @param frequencies
+         * @param values
+         * @param wildcards
+         * @param numRecords
          */
-        protected LeafNode(String value, Group<TupleWrapper> records) {
-            super(value);
-            this.records = records;
+        private Index(int[] frequencies, int[] values, int[] wildcards, int numRecords) {
+            
+            // Store
+            this.frequencies = frequencies;
+            this.values = values;
+            this.wildcards = wildcards;
+            this.numGroups = frequencies.length;
+            this.numColumns = wildcards.length;
+            this.numRecords = numRecords;
+            this.lists = new int[numColumns][][];
+            this.bitmaps = new long[numColumns][][];
+            
+            // Build
+            for (int column = 0; column < numColumns; column++) {
+                
+                // Determine sizes
+                int numValues = 0;
+                for (int group = 0; group < numGroups; group++) {
+                    numValues = Math.max(numValues, values[group * numColumns + column] + 1);
+                }
+                int[] sizes = new int[numValues];
+                for (int group = 0; group < numGroups; group++) {
+                    sizes[values[group * numColumns + column]]++;
+                }
+                
+                // Prepare
+                lists[column] = new int[numValues][];
+                bitmaps[column] = new long[numValues][];
+                for (int value = 0; value < numValues; value++) {
+                    lists[column][value] = new int[sizes[value]];
+                    if (value == wildcards[column] || sizes[value] >= numGroups / 32) {
+                        bitmaps[column][value] = new long[(numGroups + 63) >>> 6];
+                    }
+                    sizes[value] = 0;
+                }
+                
+                // Fill
+                for (int group = 0; group < numGroups; group++) {
+                    int value = values[group * numColumns + column];
+                    lists[column][value][sizes[value]++] = group;
+                    if (bitmaps[column][value] != null) {
+                        bitmaps[column][value][group >>> 6] |= 1L << (group & 63);
+                    }
+                }
+            }
         }
-    }
 
-    /**
-     * Abstract base class for nodes
-     * @author Fabian Prasser
-     */
-    private abstract class Node {
+        /**
+         * Returns the number of records matching the given group. If one of the attributes
+         * is selective, candidates are taken from its inverted list and verified. Otherwise,
+         * the bitmaps of all attributes are intersected.
+         * @param group
+         * @param result Buffer
+         * @param temp Buffer
+         * @return
+         */
+        private int getCount(int group, long[] result, long[] temp) {
+
+            // Select the most selective attribute
+            int offset = group * numColumns;
+            int[] candidates = null;
+            int[] candidatesWildcard = null;
+            int size = Integer.MAX_VALUE;
+            for (int column = 0; column < numColumns; column++) {
+                int value = values[offset + column];
+                int wildcard = wildcards[column];
+                if (value != wildcard) {
+                    int[] _candidates = lists[column][value];
+                    int[] _candidatesWildcard = wildcard == -1 ? null : lists[column][wildcard];
+                    int _size = _candidates.length + (_candidatesWildcard == null ? 0 : _candidatesWildcard.length);
+                    if (_size < size) {
+                        candidates = _candidates;
+                        candidatesWildcard = _candidatesWildcard;
+                        size = _size;
+                    }
+                }
+            }
+            
+            // Only wildcards: matches all records
+            if (candidates == null) {
+                return numRecords;
+            }
+            
+            // Verify candidates
+            int count = 0;
+            if (size <= numGroups / 16) {
+                for (int candidate : candidates) {
+                    count += isMatch(group, candidate) ? frequencies[candidate] : 0;
+                }
+                if (candidatesWildcard != null) {
+                    for (int candidate : candidatesWildcard) {
+                        count += isMatch(group, candidate) ? frequencies[candidate] : 0;
+                    }
+                }
+                return count;
+            }
+            
+            // Intersect bitmaps
+            Arrays.fill(result, -1L);
+            for (int column = 0; column < numColumns; column++) {
+                int value = values[offset + column];
+                int wildcard = wildcards[column];
+                if (value != wildcard) {
+                    long[] bitmap = bitmaps[column][value];
+                    long[] bitmapWildcard = wildcard == -1 ? null : bitmaps[column][wildcard];
+                    if (bitmap == null) {
+                        if (bitmapWildcard == null) {
+                            Arrays.fill(temp, 0L);
+                        } else {
+                            System.arraycopy(bitmapWildcard, 0, temp, 0, temp.length);
+                        }
+                        for (int candidate : lists[column][value]) {
+                            temp[candidate >>> 6] |= 1L << (candidate & 63);
+                        }
+                        bitmap = temp;
+                        bitmapWildcard = null;
+                    }
+                    if (bitmapWildcard == null) {
+                        for (int i = 0; i < result.length; i++) {
+                            result[i] &= bitmap[i];
+                        }
+                    } else {
+                        for (int i = 0; i < result.length; i++) {
+                            result[i] &= bitmap[i] | bitmapWildcard[i];
+                        }
+                    }
+                }
+            }
+            
+            // Sum up
+            for (int i = 0; i < result.length; i++) {
+                long word = result[i];
+                while (word != 0) {
+                    count += frequencies[(i << 6) + Long.numberOfTrailingZeros(word)];
+                    word &= word - 1;
+                }
+            }
+            return count;
+        }
 
-        /** Value at this level*/
-        protected final String value;
-        
         /**
-         * Creates a new instance
-         * @param value
+         * Returns whether the two groups match, considering wildcards
+         * @param group1
+         * @param group2
+         * @return
          */
-        protected Node(String value) {
-            this.value = value;
+        private boolean isMatch(int group1, int group2) {
+            int offset1 = group1 * numColumns;
+            int offset2 = group2 * numColumns;
+            for (int column = 0; column < numColumns; column++) {
+                int value1 = values[offset1 + column];
+                int value2 = values[offset2 + column];
+                int wildcard = wildcards[column];
+                if (value1 != value2 && value1 != wildcard && value2 != wildcard) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
@@ -111,8 +261,6 @@ public class RiskModelSampleWildcard {
     private final int    sizeThreshold;
     /** Records at risk */
     private final double recordsAtRisk;
-    /** Suppressed records */
-    private final String wildcard;
 
     /**
      * Creates a new instance
@@ -131,7 +279,6 @@ public class RiskModelSampleWildcard {
                                   WrappedInteger progress) {
 
         // Init
-        this.wildcard = wildcard;
         this.threshold = threshold;
         this.sizeThreshold = ParameterTranslation.getSizeThreshold(threshold);
         
@@ -140,49 +287,62 @@ public class RiskModelSampleWildcard {
         }
         
         // Calculate groups
-        Groupify<TupleWrapper> groups = getGroups(handle, identifiers, 0d, 0.3d, wildcard, stop, progress);
-        
-        // Map of original frequencies
-        Map<Group<TupleWrapper>, Integer> frequencies = new HashMap<>();
+        EncodedGroupify groups = getGroups(handle, identifiers, 0d, 0.3d, wildcard, stop, progress);
         
-        // Now determine frequencies
-        List<Node> index = new ArrayList<Node>();
-        Group<TupleWrapper> group = groups.first();
+        // Original frequencies and canonical identifiers of the values of each group
         int progressMax = groups.size();
-        int progressCount = 0;
+        int numColumns = identifiers.size();
+        int[] frequencies = new int[progressMax];
+        int[] values = new int[progressMax * numColumns];
+        int[] wildcards = new int[numColumns];
+        Arrays.fill(wildcards, -1);
+        List<Map<String, Integer>> dictionaries = new ArrayList<Map<String, Integer>>();
+        for (int column = 0; column < numColumns; column++) {
+            dictionaries.add(new HashMap<String, Integer>());
+        }
         int numRecords = 0;
-        while (group != null) {
-            progress.value = (int)Math.round((0.3d + (double)(progressCount++) / (double)progressMax * 0.6d) * 100d); 
+        for (int group = 0; group < progressMax; group++) {
             if (stop.value) {
                 throw new ComputationInterruptedException();
             }
-            frequencies.put(group, group.getCount());
-            numRecords += group.getCount();
-            add(stop, frequencies, group, index, 0);
-            index(stop, frequencies, group, index, 0);
-            group = group.next();
+            frequencies[group] = groups.getCount(group);
+            numRecords += groups.getCount(group);
+            String[] _values = groups.getValues(group);
+            for (int column = 0; column < numColumns; column++) {
+                Map<String, Integer> dictionary = dictionaries.get(column);
+                Integer value = dictionary.get(_values[column]);
+                if (value == null) {
+                    value = dictionary.size();
+                    dictionary.put(_values[column], value);
+                    if (_values[column].equals(wildcard)) {
+                        wildcards[column] = value;
+                    }
+                }
+                values[group * numColumns + column] = value;
+            }
         }
         
+        // Build inverted index and determine counts including matches
+        Index index = new Index(frequencies, values, wildcards, numRecords);
+        int[] counts = getCounts(index, stop, progress);
+        
         // And evaluate
         double totalRisk = 0d;
         double highestRisk = 0d;
         double lowestRisk = Double.MAX_VALUE;
         int numAtRisk = 0;
-        group = groups.first();
-        progressCount = 0;
-        while (group != null) {
-            progress.value = (int)Math.round((0.9d + (double)(progressCount++) / (double)progressMax * 0.1d) * 100d);
+        for (int group = 0; group < progressMax; group++) {
+            progress.value = (int)Math.round((0.9d + (double)group / (double)progressMax * 0.1d) * 100d);
             if (stop.value) {
                 throw new ComputationInterruptedException();
             }
-            double risk = 1d / (double) group.getCount();
+            double risk = 1d / (double) counts[group];
             highestRisk = Math.max(highestRisk, risk);
             lowestRisk = Math.min(lowestRisk, risk);
-            totalRisk += risk * (double) frequencies.get(group);
-            if (group.getCount() < sizeThreshold) {
-                numAtRisk += frequencies.get(group);
+            totalRisk += risk * (double) frequencies[group];
+            if (counts[group] < sizeThreshold) {
+                numAtRisk += frequencies[group];
             }
-            group = group.next();
         }
         
         // Records at risk
@@ -256,42 +416,77 @@ public class RiskModelSampleWildcard {
     }
 
     /**
-     * Adds frequency counts
-     * @param stop
-     * @param frequencies 
-     * @param group
+     * Returns the number of records matching each group, executed in parallel
      * @param index
-     * @param depth
+     * @param stop
+     * @param progress
+     * @return
      */
-    private void add(WrappedBoolean stop, Map<Group<TupleWrapper>, Integer> frequencies, Group<TupleWrapper> group, List<Node> index, int depth) {
+    private int[] getCounts(final Index index,
+                            final WrappedBoolean stop,
+                            final WrappedInteger progress) {
 
-        // Extract
-        boolean isLeafLevel = group.getElement().getValues().length - 1 == depth;
-        String value = group.getElement().getValues()[depth];
+        // Prepare
+        final int[] counts = new int[index.numGroups];
+        final AtomicInteger next = new AtomicInteger(0);
+        final AtomicInteger done = new AtomicInteger(0);
+        int threads = Math.max(1, Math.min(counts.length, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            int count = 0;
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task);
+                thread.setDaemon(true);
+                thread.setName("ARX Wildcard Matching " + (count++));
+                return thread;
+            }
+        });
         
-        // For each potential match
-        for (Node node : index) {
-            
-            // Check interrupt
-            if (stop.value) {
-                throw new ComputationInterruptedException();
+        // Execute
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        long[] result = new long[(counts.length + 63) >>> 6];
+                        long[] temp = new long[result.length];
+                        for (int group = next.getAndIncrement(); group < counts.length; group = next.getAndIncrement()) {
+                            if (stop.value) {
+                                throw new ComputationInterruptedException();
+                            }
+                            counts[group] = index.getCount(group, result, temp);
+                            done.incrementAndGet();
+                        }
+                    }
+                }));
             }
-            
-            // Match
-            if (node.value.equals(wildcard) || value.equals(wildcard) || node.value.equals(value)) {
-
-                // Leaf
-                if (isLeafLevel) {
-                    LeafNode leaf = (LeafNode)node;
-                    group.incCount(frequencies.get(leaf.records));
-                    leaf.records.incCount(frequencies.get(group));
-                    
-                // Inner node
-                } else {
-                    add(stop, frequencies, group, ((InnerNode)node).children, depth + 1);
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get(100, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        progress.value = (int)Math.round((0.3d + (double)done.get() / (double)counts.length * 0.6d) * 100d);
+                    }
                 }
             }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            } else {
+                throw new UnexpectedErrorException(e.getCause());
+            }
+        } catch (InterruptedException e) {
+            throw new ComputationInterruptedException(e);
+        } finally {
+            executor.shutdownNow();
         }
+        
+        // Done
+        return counts;
     }
 
     /**
@@ -305,13 +500,13 @@ public class RiskModelSampleWildcard {
      * @param progress
      * @return
      */
-    private Groupify<TupleWrapper> getGroups(DataHandleInternal handle,
-                                             Set<String> qis,
-                                             double offset,
-                                             double factor,
-                                             String wildcard,
-                                             WrappedBoolean stop,
-                                             WrappedInteger progress) {
+    private EncodedGroupify getGroups(DataHandleInternal handle,
+                                      Set<String> qis,
+                                      double offset,
+                                      double factor,
+                                      String wildcard,
+                                      WrappedBoolean stop,
+                                      WrappedInteger progress) {
 
         /* ********************************
          * Check 
@@ -344,7 +539,7 @@ public class RiskModelSampleWildcard {
          * ********************************/
         int capacity = handle.getNumRows() / 10;
         capacity = capacity > 10 ? capacity : 10;
-        Groupify<TupleWrapper> map = new Groupify<TupleWrapper>(capacity);
+        EncodedGroupify map = new EncodedGroupify(handle, indices, false, capacity);
         int numRows = handle.getNumRows();
         for (int row = 0; row < numRows; row++) {
 
@@ -354,8 +549,7 @@ public class RiskModelSampleWildcard {
             }
 
             if (!handle.isOutlier(row, indices)) {
-                TupleWrapper tuple = new TupleWrapper(handle, indices, row);
-                map.add(tuple);
+                map.add(row);
             }
             if (stop.value) { 
                 throw new ComputationInterruptedException();
@@ -365,55 +559,4 @@ public class RiskModelSampleWildcard {
         // Return
         return map;
     }
-    
-    /**
-     * Adds element to index
-     * @param stop
-     * @param frequencies
-     * @param group
-     * @param index
-     * @param depth
-     */
-    private void index(WrappedBoolean stop, Map<Group<TupleWrapper>, Integer> frequencies, Group<TupleWrapper> group, List<Node> index, int depth) {
-
-        // Extract
-        boolean isLeafLevel = group.getElement().getValues().length - 1 == depth;
-        String value = group.getElement().getValues()[depth];
-        
-        // For each potential match
-        for (Node node : index) {
-
-            // Check interrupt
-            if (stop.value) {
-                throw new ComputationInterruptedException();
-            }
-            
-            // Match
-            if (node.value.equals(value)) {
-
-                // Leaf
-                if (isLeafLevel) {
-                    throw new IllegalStateException("Duplicate entry");
-                    
-                // Inner node
-                } else {
-                    
-                    // Go on
-                    index(stop, frequencies, group, ((InnerNode)node).children, depth + 1);
-                    return;
-                }
-            }
-        }
-        
-        // Add new entry
-        if (isLeafLevel) {
-            index.add(new LeafNode(value, group));
-        } else {
-            InnerNode node = new InnerNode(value);
-            index.add(node);
-            
-            // Go on
-            index(stop, frequencies, group, node.children, depth + 1);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,124 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.metric.v2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.apache.commons.math3.fraction.BigFraction;
+import org.junit.Test;
+
+/**
+ * Tests the exact accumulation of scores. The test resides in the package of the
+ * accumulator, which is not visible outside of it.
+ *
+ * @author Fabian Prasser
+ */
+public class TestScoreAccumulator {
+
+    /** Minimal value of a long */
+    private static final BigInteger MIN = BigInteger.valueOf(Long.MIN_VALUE);
+
+    /** Maximal value of a long */
+    private static final BigInteger MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    /**
+     * Sums of values which overflow repeatedly in both directions
+     */
+    @Test
+    public void testSums() {
+
+        ScoreAccumulator accumulator = new ScoreAccumulator();
+        BigInteger reference = BigInteger.ZERO;
+        long[] values = new long[] { Long.MAX_VALUE, Long.MAX_VALUE, 1L, Long.MIN_VALUE, Long.MIN_VALUE,
+                                     Long.MIN_VALUE, -1L, Long.MAX_VALUE - 7L, Long.MAX_VALUE, 5L };
+        for (long value : values) {
+            accumulator.add(value);
+            reference = reference.add(BigInteger.valueOf(value));
+            assertEquals(reference, accumulator.getBigInteger());
+            assertEquals(new BigFraction(reference), accumulator.getBigFraction());
+        }
+    }
+
+    /**
+     * Products at the boundaries of the range of a long
+     */
+    @Test
+    public void testProducts() {
+
+        long[] values = new long[] { 0L, 1L, -1L, 2L, 3037000499L, 3037000500L, -3037000500L, Integer.MAX_VALUE,
+                                     Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1L };
+        ScoreAccumulator accumulator = new ScoreAccumulator();
+        BigInteger reference = BigInteger.ZERO;
+        for (long value1 : values) {
+            for (long value2 : values) {
+                accumulator.add(value1, value2);
+                reference = reference.add(BigInteger.valueOf(value1).multiply(BigInteger.valueOf(value2)));
+                assertEquals(value1 + " * " + value2, reference, accumulator.getBigInteger());
+            }
+        }
+    }
+
+    /**
+     * Shares with large numerators and denominators, which are weighted with large counts and summed
+     * up per denominator, as done when computing scores, compared to a sum of fractions
+     */
+    @Test
+    public void testShares() {
+
+        Random random = new Random(0xDEADBEEF);
+        long[] denominators = new long[] { 1L << 40, 999999999999999989L, Long.MAX_VALUE - 24L, Long.MAX_VALUE };
+        Map<Long, ScoreAccumulator> accumulators = new HashMap<Long, ScoreAccumulator>();
+        Map<Long, BigInteger> numerators = new HashMap<Long, BigInteger>();
+        BigFraction reference = BigFraction.ZERO;
+        for (int i = 0; i < 10000; i++) {
+
+            // Share of at most one and a count of at most Integer.MAX_VALUE
+            long denominator = denominators[random.nextInt(denominators.length)];
+            long numerator = 1L + (long) (random.nextDouble() * (denominator - 1L));
+            int count = 1 + random.nextInt(Integer.MAX_VALUE);
+
+            // Accumulate
+            ScoreAccumulator accumulator = accumulators.get(denominator);
+            if (accumulator == null) {
+                accumulator = new ScoreAccumulator();
+                accumulators.put(denominator, accumulator);
+                numerators.put(denominator, BigInteger.ZERO);
+            }
+            accumulator.add(numerator, count);
+            numerators.put(denominator, numerators.get(denominator).add(BigInteger.valueOf(numerator).multiply(BigInteger.valueOf(count))));
+            reference = reference.add(new BigFraction(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator)).multiply(count));
+        }
+
+        // Compare
+        BigFraction score = BigFraction.ZERO;
+        for (Entry<Long, ScoreAccumulator> entry : accumulators.entrySet()) {
+            BigInteger numerator = numerators.get(entry.getKey());
+            assertTrue("Carry not used", numerator.compareTo(MIN) < 0 || numerator.compareTo(MAX) > 0);
+            assertEquals(numerator, entry.getValue().getBigInteger());
+            score = score.add(new BigFraction(entry.getValue().getBigInteger(), BigInteger.valueOf(entry.getKey())));
+        }
+        assertEquals(reference, score);
+    }
+}
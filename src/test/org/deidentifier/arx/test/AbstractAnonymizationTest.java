@@ -54,6 +54,7 @@ import org.deidentifier.arx.criteria.EnhancedBLikeness;
 import org.deidentifier.arx.criteria.LDiversity;
 import org.deidentifier.arx.criteria.TCloseness;
 import org.deidentifier.arx.exceptions.RollbackRequiredException;
+import org.deidentifier.arx.framework.data.DataMatrixStorage;
 import org.deidentifier.arx.io.CSVHierarchyInput;
 import org.junit.Before;
 import org.junit.Rule;
@@ -104,6 +105,16 @@ public abstract class AbstractAnonymizationTest extends AbstractTest {
         public Map<String, HierarchyBuilder<?>> builders;
         /** Delta accepted when comparing the resulting information loss */
         public Double                           delta              = null;
+        /** Number of threads used by the anonymizer */
+        public int                              numberOfThreads    = 1;
+        /** Type of storage used by the anonymizer */
+        public DataMatrixStorage.Type           storageType        = DataMatrixStorage.Type.HEAP;
+        /** Whether the anonymizer bit-packs the data */
+        public boolean                          bitPacking         = false;
+        /** Maximal number of snapshots in the history */
+        public int                              historySize        = 200;
+        /** Maximal size of the history on disk */
+        public long                             historySizeOnDisk  = 0L;
                                  
         /**
          * Creates a new instance.
@@ -493,6 +504,11 @@ public abstract class AbstractAnonymizationTest extends AbstractTest {
         
         // Create an instance of the anonymizer
         final ARXAnonymizer anonymizer = new ARXAnonymizer();
+        anonymizer.setNumberOfThreads(testCase.numberOfThreads);
+        anonymizer.setStorageType(testCase.storageType);
+        anonymizer.setBitPackingEnabled(testCase.bitPacking);
+        anonymizer.setHistorySize(testCase.historySize);
+        anonymizer.setHistorySizeOnDisk(testCase.historySizeOnDisk);
         testCase.config.setPracticalMonotonicity(testCase.practical);
         
         // Test or warmup
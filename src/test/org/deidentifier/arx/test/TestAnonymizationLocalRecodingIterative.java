@@ -0,0 +1,145 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXProcessStatistics;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.criteria.EntropyLDiversity;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.exceptions.RollbackRequiredException;
+import org.deidentifier.arx.metric.Metric;
+import org.deidentifier.arx.test.AbstractAnonymizationTest.ARXAnonymizationTestCase;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Test for the iterative local recoding methods. Expected hash codes and numbers of steps
+ * have been obtained with the implementation which optimized each iteration independently.
+ *
+ * @author Fabian Prasser
+ */
+@RunWith(Parameterized.class)
+public class TestAnonymizationLocalRecodingIterative extends AbstractTest {
+
+    /**
+     * Returns the test cases.
+     *
+     * @return
+     * @throws IOException
+     */
+    @Parameters(name = "{index}:[{0}]")
+    public static Collection<Object[]> cases() throws IOException {
+        return Arrays.asList(new Object[][] {
+                                              { new ARXAnonymizationTestCase(ARXConfiguration.create(1d, Metric.createLossMetric(0.05d)).addPrivacyModel(new KAnonymity(5)), "./data/adult.csv", "", 0), 905118238, 11, -274586153, 24 },
+                                              { new ARXAnonymizationTestCase(ARXConfiguration.create(1d, Metric.createLossMetric(0.05d)).addPrivacyModel(new EntropyLDiversity("occupation", 5)), "./data/adult.csv", "occupation", 0), -998962150, 28, -911876386, 28 },
+        });
+    }
+
+    /** The test case */
+    private final ARXAnonymizationTestCase testCase;
+
+    /** Expected hash code after iterative optimization */
+    private final int                      hashcodeIterative;
+
+    /** Expected number of steps performed by iterative optimization */
+    private final int                      stepsIterative;
+
+    /** Expected hash code after fast iterative optimization */
+    private final int                      hashcodeIterativeFast;
+
+    /** Expected number of steps performed by fast iterative optimization */
+    private final int                      stepsIterativeFast;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param testCase
+     * @param hashcodeIterative
+     * @param stepsIterative
+     * @param hashcodeIterativeFast
+     * @param stepsIterativeFast
+     */
+    public TestAnonymizationLocalRecodingIterative(final ARXAnonymizationTestCase testCase,
+                                                   final int hashcodeIterative,
+                                                   final int stepsIterative,
+                                                   final int hashcodeIterativeFast,
+                                                   final int stepsIterativeFast) {
+        this.testCase = testCase;
+        this.hashcodeIterative = hashcodeIterative;
+        this.stepsIterative = stepsIterative;
+        this.hashcodeIterativeFast = hashcodeIterativeFast;
+        this.stepsIterativeFast = stepsIterativeFast;
+    }
+
+    /**
+     * Tests iterative optimization
+     *
+     * @throws IOException
+     * @throws RollbackRequiredException
+     */
+    @Test
+    public void testIterative() throws IOException, RollbackRequiredException {
+        ARXResult result = new ARXAnonymizer().anonymize(AbstractAnonymizationTest.getDataObject(testCase), testCase.config);
+        DataHandle output = result.getOutput();
+        ARXProcessStatistics statistics = result.optimizeIterative(output, 0.05d, 100, 0.05d);
+        assertEquals("Number of steps not equal", stepsIterative, statistics.getNumberOfSteps());
+        assertEquals("Hash code not equal", hashcodeIterative, getHashcode(output));
+    }
+
+    /**
+     * Tests fast iterative optimization
+     *
+     * @throws IOException
+     * @throws RollbackRequiredException
+     */
+    @Test
+    public void testIterativeFast() throws IOException, RollbackRequiredException {
+        ARXResult result = new ARXAnonymizer().anonymize(AbstractAnonymizationTest.getDataObject(testCase), testCase.config);
+        DataHandle output = result.getOutput();
+        ARXProcessStatistics statistics = result.optimizeIterativeFast(output, 0.01d);
+        assertEquals("Number of steps not equal", stepsIterativeFast, statistics.getNumberOfSteps());
+        assertEquals("Hash code not equal", hashcodeIterativeFast, getHashcode(output));
+    }
+
+    /**
+     * Returns a hash code of the given data
+     *
+     * @param output
+     * @return
+     */
+    private int getHashcode(DataHandle output) {
+        int hashcode = 23;
+        for (int row = 0; row < output.getNumRows(); row++) {
+            for (int column = 0; column < output.getNumColumns(); column++) {
+                hashcode = (37 * hashcode) + output.getValue(row, column).hashCode();
+            }
+        }
+        return hashcode;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXLattice.ARXNode;
+import org.deidentifier.arx.ARXLattice.Anonymity;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.AttributeType.Hierarchy.DefaultHierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.Data.DefaultData;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.junit.Test;
+
+/**
+ * Tests anonymization of datasets with more quasi-identifiers than
+ * supported by the unrolled transformers.
+ *
+ * @author Fabian Prasser
+ */
+public class TestAnonymizationManyQuasiIdentifiers extends AbstractTest {
+
+    /** Number of quasi-identifiers */
+    private static final int    DIMENSIONS = 17;
+
+    /** Number of records */
+    private static final int    RECORDS    = 200;
+
+    /** Parameter k */
+    private static final int    K          = 3;
+
+    /** Values */
+    private static final String[] VALUES   = new String[] { "a", "b", "c" };
+
+    /**
+     * Compares the classification of all transformations which have been checked
+     * against groupings computed independently.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testClassification() throws IOException {
+
+        // Create data
+        Random random = new Random(0xDEADBEEF);
+        String[][] records = new String[RECORDS][DIMENSIONS];
+        DefaultData data = Data.create();
+        String[] header = new String[DIMENSIONS];
+        for (int column = 0; column < DIMENSIONS; column++) {
+            header[column] = "qi" + column;
+        }
+        data.add(header);
+        for (int row = 0; row < RECORDS; row++) {
+            for (int column = 0; column < DIMENSIONS; column++) {
+                records[row][column] = VALUES[random.nextInt(column < 12 ? 1 + column % 3 : VALUES.length)];
+            }
+            data.add(records[row]);
+        }
+
+        // Create hierarchies
+        for (int column = 0; column < DIMENSIONS; column++) {
+            DefaultHierarchy hierarchy = Hierarchy.create();
+            for (String value : VALUES) {
+                hierarchy.add(value, "*");
+            }
+            data.getDefinition().setAttributeType(header[column], hierarchy);
+        }
+
+        // Anonymize
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(K));
+        config.setSuppressionLimit(0d);
+        config.setHeuristicSearchThreshold(1 << DIMENSIONS);
+        ARXResult result = new ARXAnonymizer().anonymize(data, config);
+        assertNotNull(result.getGlobalOptimum());
+
+        // Compare
+        int checked = 0;
+        for (ARXNode[] level : result.getLattice().getLevels()) {
+            for (ARXNode node : level) {
+                if (node.getAnonymity() == Anonymity.ANONYMOUS || node.getAnonymity() == Anonymity.NOT_ANONYMOUS) {
+                    assertEquals("Invalid classification of " + node, isAnonymous(records, node.getTransformation()), node.getAnonymity() == Anonymity.ANONYMOUS);
+                    checked++;
+                }
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    /**
+     * Returns whether the given transformation results in a k-anonymous dataset
+     *
+     * @param records
+     * @param transformation
+     * @return
+     */
+    private boolean isAnonymous(String[][] records, int[] transformation) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String[] record : records) {
+            StringBuilder key = new StringBuilder();
+            for (int column = 0; column < record.length; column++) {
+                key.append(transformation[column] == 0 ? record[column] : "*").append(';');
+            }
+            Integer count = counts.get(key.toString());
+            counts.put(key.toString(), count == null ? 1 : count + 1);
+        }
+        for (int count : counts.values()) {
+            if (count < K) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -260,4 +260,26 @@ public class TestClassification {
         assertEquals(30162, classResult.getNumMeasurements(), 0d);
     }
 
+    @Test
+    public void testParallelEvaluation() throws IOException, ParseException {
+
+        // Classify sequentially and in parallel
+        ARXClassificationConfiguration<?> config = ARXClassificationConfiguration.createLogisticRegression();
+        StatisticsClassification sequential = getResult().getOutput().getStatistics().getClassificationPerformance(getFeatures(), getClazz(), config);
+        config = ARXClassificationConfiguration.createLogisticRegression().setNumberOfThreads(4);
+        StatisticsClassification parallel = getResult().getOutput().getStatistics().getClassificationPerformance(getFeatures(), getClazz(), config);
+
+        // Compare
+        assertEquals(sequential.getOriginalAccuracy(), parallel.getOriginalAccuracy(), 0d);
+        assertEquals(sequential.getZeroRAccuracy(), parallel.getZeroRAccuracy(), 0d);
+        assertEquals(sequential.getAccuracy(), parallel.getAccuracy(), 0d);
+        assertEquals(sequential.getOriginalAverageError(), parallel.getOriginalAverageError(), 0d);
+        assertEquals(sequential.getZeroRAverageError(), parallel.getZeroRAverageError(), 0d);
+        assertEquals(sequential.getAverageError(), parallel.getAverageError(), 0d);
+        for (String clazz : new String[] { "Divorced", "Widowed", "Married-civ-spouse", "Never-married" }) {
+            assertEquals(sequential.getROCCurve(clazz).getAUC(), parallel.getROCCurve(clazz).getAUC(), 0d);
+            assertEquals(sequential.getROCCurve(clazz).getBrierScore(), parallel.getROCCurve(clazz).getBrierScore(), 0d);
+            assertEquals(sequential.getOriginalROCCurve(clazz).getAUC(), parallel.getOriginalROCCurve(clazz).getAUC(), 0d);
+        }
+    }
 }
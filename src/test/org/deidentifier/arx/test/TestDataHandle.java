@@ -17,10 +17,15 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
 import java.util.Arrays;
 
 import org.deidentifier.arx.ARXAnonymizer;
@@ -34,9 +39,12 @@ import org.deidentifier.arx.Data;
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.DataSelector;
 import org.deidentifier.arx.DataSubset;
+import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.criteria.DPresence;
 import org.deidentifier.arx.criteria.Inclusion;
 import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.io.CSVDataOutput;
+import org.deidentifier.arx.io.CSVSyntax;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -498,4 +506,152 @@ public class TestDataHandle extends AbstractTest {
         
         assertTrue(Arrays.deepEquals(given, expected));
     }
+
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testEncodedValues() throws IllegalArgumentException, IOException {
+        
+        provider.createDataDefinition();
+        final Data data = provider.getData();
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(3));
+        config.setSuppressionLimit(0.5d);
+        
+        final ARXResult result = new ARXAnonymizer().anonymize(data, config);
+        final DataHandle outHandle = result.getOutput(false);
+        outHandle.sort(true, 0);
+        
+        for (DataHandle handle : new DataHandle[] { data.getHandle(), outHandle, outHandle.getView() }) {
+            for (int column = 0; column < handle.getNumColumns(); column++) {
+                String[] dictionary = handle.getEncodedDictionary(column);
+                int[] codes = handle.getEncodedValues(column);
+                assertEquals(handle.getNumRows(), codes.length);
+                for (int row = 0; row < handle.getNumRows(); row++) {
+                    assertEquals(handle.getValue(row, column), dictionary[codes[row]]);
+                }
+            }
+            for (int row = 0; row < handle.getNumRows(); row++) {
+                assertEquals(handle.isOutlier(row), handle.getOutliers().contains(row));
+            }
+        }
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testSaveEncoded() throws IllegalArgumentException, IOException {
+        
+        provider.createDataDefinition();
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(3));
+        config.setSuppressionLimit(0.5d);
+        final ARXResult result = new ARXAnonymizer().anonymize(provider.getData(), config);
+        final Data complex = Data.create(new File("data/test-import.csv"), StandardCharsets.UTF_8, ';', '\"');
+        
+        CSVSyntax syntax = new CSVSyntax(';');
+        for (DataHandle handle : new DataHandle[] { result.getOutput(false), result.getOutput(false).getView(), complex.getHandle() }) {
+            
+            // Expected
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            new CSVDataOutput(stream, syntax.getDelimiter(), syntax.getQuote(), syntax.getEscape(), syntax.getLinebreak(), StandardCharsets.UTF_8).write(handle.iterator());
+            String expected = new String(stream.toByteArray(), StandardCharsets.UTF_8);
+            String header = expected.substring(0, expected.indexOf('\n') + 1);
+            
+            // Single file
+            File file = File.createTempFile("arx", ".csv");
+            handle.save(file, syntax, StandardCharsets.UTF_8);
+            assertEquals(expected, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            file.delete();
+            
+            // Partitioned
+            File[] files = new File[3];
+            for (int i = 0; i < files.length; i++) {
+                files[i] = File.createTempFile("arx", ".csv");
+            }
+            handle.save(files, syntax, StandardCharsets.UTF_8);
+            StringBuilder actual = new StringBuilder();
+            for (int i = 0; i < files.length; i++) {
+                String content = new String(Files.readAllBytes(files[i].toPath()), StandardCharsets.UTF_8);
+                assertTrue(content.startsWith(header));
+                actual.append(i == 0 ? content : content.substring(header.length()));
+                files[i].delete();
+            }
+            assertEquals(expected, actual.toString());
+        }
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     * @throws ParseException
+     */
+    @Test
+    public void testSelector() throws IllegalArgumentException, IOException, ParseException {
+        
+        final Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        data.getDefinition().setDataType("age", DataType.INTEGER);
+        final DataHandle handle = data.getHandle();
+        
+        // Binary operators are evaluated from right to left
+        DataSelector[] selectors = new DataSelector[] {
+                DataSelector.create(data).field("age").geq(40).and().begin().field("sex").equals("Male").or().field("race").equals("White").end(),
+                DataSelector.create(data).field("sex").equals("Male").and().field("race").equals("White").or().field("age").less(20),
+                DataSelector.create(data, "'age' > '39' and 'age' < '50'"),
+                DataSelector.create(data, "('sex' <> 'Male' or 'age' <= '20') and 'race' = 'White'")
+        };
+        
+        for (DataSelector selector : selectors) {
+            assertTrue(selector.isCompiled());
+        }
+        checkSelectors(data, selectors);
+        
+        // Selected rows must follow the order of rows
+        handle.sort(true, 1, 2);
+        checkSelectors(data, selectors);
+        handle.swap(0, handle.getNumRows() - 1);
+        checkSelectors(data, selectors);
+        for (DataSelector selector : selectors) {
+            assertTrue(selector.isCompiled());
+        }
+    }
+    
+    /**
+     * Checks the selectors used in testSelector() against the rows of the data
+     * 
+     * @param data
+     * @param selectors
+     */
+    private void checkSelectors(Data data, DataSelector[] selectors) {
+        
+        DataHandle handle = data.getHandle();
+        for (int row = 0; row < handle.getNumRows(); row++) {
+            boolean male = handle.getValue(row, 0).equals("Male");
+            int age = Integer.valueOf(handle.getValue(row, 1));
+            boolean white = handle.getValue(row, 2).equals("White");
+            assertEquals(age >= 40 && (male || white), selectors[0].isSelected(row));
+            assertEquals(male && (white || age < 20), selectors[1].isSelected(row));
+            assertEquals(age > 39 && age < 50, selectors[2].isSelected(row));
+            assertEquals((!male || age <= 20) && white, selectors[3].isSelected(row));
+        }
+        
+        DataSubset subset = DataSubset.create(data, selectors[0]);
+        for (int row = 0; row < handle.getNumRows(); row++) {
+            boolean male = handle.getValue(row, 0).equals("Male");
+            int age = Integer.valueOf(handle.getValue(row, 1));
+            boolean white = handle.getValue(row, 2).equals("White");
+            assertEquals(age >= 40 && (male || white), subset.getSet().contains(row));
+        }
+        assertEquals(subset.getSet().size(), subset.getArray().length);
+    }
 }
@@ -17,14 +17,33 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataSource;
+import org.deidentifier.arx.io.CSVDataInput;
+import org.deidentifier.arx.io.CSVOptions;
+import org.deidentifier.arx.io.CSVSyntax;
 import org.junit.Test;
 
 import cern.colt.Arrays;
@@ -52,4 +71,220 @@ public class TestDataImport extends AbstractTest {
             System.out.println(Arrays.toString(result.get(result.size() - 1)));
         }
     }
+    
+    /**
+     * Test encoding while parsing, sequentially and in parallel
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void test2() throws IllegalArgumentException, IOException {
+        
+        File file = new File("data/adult.csv");
+        DataHandle expected = Data.create(new CSVDataInput(file, StandardCharsets.UTF_8, ';').iterator()).getHandle();
+        CSVOptions options = new CSVOptions(0);
+        for (int threads : new int[] { 1, 3, 16 }) {
+            options.setNumberOfThreads(threads);
+            DataHandle handle = Data.create(file, StandardCharsets.UTF_8, new CSVSyntax(';'), options).getHandle();
+            assertEquals(expected.getNumRows(), handle.getNumRows());
+            assertEquals(expected.getNumColumns(), handle.getNumColumns());
+            for (int column = 0; column < expected.getNumColumns(); column++) {
+                assertEquals(expected.getAttributeName(column), handle.getAttributeName(column));
+                for (int row = 0; row < expected.getNumRows(); row++) {
+                    assertEquals(expected.getValue(row, column), handle.getValue(row, column));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Test encoding projected JDBC imports, sequentially and in parallel
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     * @throws SQLException
+     * @throws ClassNotFoundException
+     */
+    @Test
+    public void test3() throws IllegalArgumentException, IOException, SQLException, ClassNotFoundException {
+        
+        // Prepare database
+        Class.forName("org.sqlite.JDBC");
+        File database = File.createTempFile("arx", ".db");
+        String url = "jdbc:sqlite:" + database.getAbsolutePath();
+        DataHandle expected = Data.create(new CSVDataInput(new File("data/adult.csv"), StandardCharsets.UTF_8, ';').iterator()).getHandle();
+        try (Connection connection = DriverManager.getConnection(url)) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE adult (id INTEGER, sex TEXT, age TEXT, race TEXT, education TEXT)");
+            }
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO adult VALUES (?, ?, ?, ?, ?)")) {
+                for (int row = 0; row < expected.getNumRows(); row++) {
+                    statement.setInt(1, row * 3);
+                    for (int column = 0; column < 4; column++) {
+                        statement.setString(column + 2, expected.getValue(row, column == 3 ? 4 : column));
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            connection.commit();
+        }
+        
+        // Compare
+        try {
+            for (int threads : new int[] { 0, 1, 3, 4 }) {
+                DataSource source = DataSource.createJDBCSource(url, "adult");
+                source.addColumn("age");
+                source.addColumn("education", "edu");
+                source.addColumn("sex");
+                if (threads == 0) {
+                    source.setFetchSize(100);
+                } else {
+                    source.setPartitioning("id", threads);
+                }
+                DataHandle handle = Data.create(source).getHandle();
+                assertEquals(expected.getNumRows(), handle.getNumRows());
+                assertEquals(3, handle.getNumColumns());
+                assertEquals("age", handle.getAttributeName(0));
+                assertEquals("edu", handle.getAttributeName(1));
+                assertEquals("sex", handle.getAttributeName(2));
+                for (int row = 0; row < expected.getNumRows(); row++) {
+                    assertEquals(expected.getValue(row, 1), handle.getValue(row, 0));
+                    assertEquals(expected.getValue(row, 4), handle.getValue(row, 1));
+                    assertEquals(expected.getValue(row, 0), handle.getValue(row, 2));
+                }
+            }
+        } finally {
+            database.delete();
+        }
+    }
+    
+    /**
+     * Test streaming import of XLSX files
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void test4() throws IllegalArgumentException, IOException {
+        
+        DataHandle[] handles = new DataHandle[2];
+        String[] files = new String[] { "data/test.xls", "data/test.xlsx" };
+        for (int i = 0; i < files.length; i++) {
+            DataSource source = DataSource.createExcelSource(files[i], 0, true);
+            source.addColumn(2, "zip");
+            source.addColumn(0);
+            source.addColumn(1);
+            handles[i] = Data.create(source).getHandle();
+        }
+        assertEquals(7, handles[0].getNumRows());
+        assertEquals(handles[0].getNumRows(), handles[1].getNumRows());
+        assertEquals(handles[0].getNumColumns(), handles[1].getNumColumns());
+        for (int column = 0; column < handles[0].getNumColumns(); column++) {
+            assertEquals(handles[0].getAttributeName(column), handles[1].getAttributeName(column));
+            for (int row = 0; row < handles[0].getNumRows(); row++) {
+                assertEquals(handles[0].getValue(row, column), handles[1].getValue(row, column));
+            }
+        }
+    }
+    
+    /**
+     * Test that external entities in XLSX files are not expanded
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void test5() throws IllegalArgumentException, IOException {
+        
+        // Prepare a workbook whose sheet references a local file via an external entity
+        File secret = File.createTempFile("arx", ".txt");
+        File workbook = File.createTempFile("arx", ".xlsx");
+        try {
+            Files.write(secret.toPath(), "secret".getBytes(StandardCharsets.UTF_8));
+            try (ZipInputStream in = new ZipInputStream(new FileInputStream("data/test.xlsx"));
+                 ZipOutputStream out = new ZipOutputStream(new FileOutputStream(workbook))) {
+                for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                    out.putNextEntry(new ZipEntry(entry.getName()));
+                    if (entry.getName().equals("xl/worksheets/sheet1.xml")) {
+                        String sheet = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                                       "<!DOCTYPE worksheet [<!ENTITY xxe SYSTEM \"" + secret.toURI() + "\">]>" +
+                                       "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">" +
+                                       "<dimension ref=\"A1:A2\"/><sheetData>" +
+                                       "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>value</t></is></c></row>" +
+                                       "<row r=\"2\"><c r=\"A2\" t=\"inlineStr\"><is><t>&xxe;</t></is></c></row>" +
+                                       "</sheetData></worksheet>";
+                        out.write(sheet.getBytes(StandardCharsets.UTF_8));
+                    } else {
+                        byte[] buffer = new byte[4096];
+                        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                            out.write(buffer, 0, read);
+                        }
+                    }
+                    out.closeEntry();
+                }
+            }
+            
+            // Import must either fail or not expand the entity
+            DataSource source = DataSource.createExcelSource(workbook.getAbsolutePath(), 0, true);
+            source.addColumn(0);
+            DataHandle handle;
+            try {
+                handle = Data.create(source).getHandle();
+            } catch (Exception e) {
+                return;
+            }
+            for (int row = 0; row < handle.getNumRows(); row++) {
+                assertFalse(handle.getValue(row, 0).contains("secret"));
+            }
+        } finally {
+            secret.delete();
+            workbook.delete();
+        }
+    }
+    
+    /**
+     * Test encoding CSV files with quoted line breaks in parallel
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void test6() throws IllegalArgumentException, IOException {
+        
+        // Prepare a file in which most line breaks are part of quoted values
+        File file = File.createTempFile("arx", ".csv");
+        try {
+            StringBuilder builder = new StringBuilder();
+            builder.append("id;text;value\n");
+            for (int row = 0; row < 1000; row++) {
+                builder.append(row).append(";\"");
+                for (int line = 0; line < row % 7; line++) {
+                    builder.append("line ").append(line).append(";\"\"quoted\"\"\n");
+                }
+                builder.append("end\";").append(row % 13).append("\n");
+            }
+            Files.write(file.toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+            
+            // Compare
+            DataHandle expected = Data.create(new CSVDataInput(file, StandardCharsets.UTF_8, ';').iterator()).getHandle();
+            assertEquals(1000, expected.getNumRows());
+            CSVOptions options = new CSVOptions(0);
+            for (int threads : new int[] { 3, 16 }) {
+                options.setNumberOfThreads(threads);
+                DataHandle handle = Data.create(file, StandardCharsets.UTF_8, new CSVSyntax(';'), options).getHandle();
+                assertEquals(expected.getNumRows(), handle.getNumRows());
+                assertEquals(expected.getNumColumns(), handle.getNumColumns());
+                for (int column = 0; column < expected.getNumColumns(); column++) {
+                    for (int row = 0; row < expected.getNumRows(); row++) {
+                        assertEquals(expected.getValue(row, column), handle.getValue(row, column));
+                    }
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
 }
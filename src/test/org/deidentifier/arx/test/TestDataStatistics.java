@@ -17,25 +17,36 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FilenameFilter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.deidentifier.arx.ARXAnonymizer;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.AttributeType.MicroAggregationFunction;
+import org.deidentifier.arx.Data;
 import org.deidentifier.arx.DataSubset;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable.Entry;
 import org.deidentifier.arx.aggregates.StatisticsFrequencyDistribution;
+import org.deidentifier.arx.aggregates.StatisticsQuality;
 import org.deidentifier.arx.criteria.DPresence;
 import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.io.CSVHierarchyInput;
 import org.junit.Test;
 
 /**
@@ -296,6 +307,58 @@ public class TestDataStatistics extends AbstractTest {
         assertTrue(Arrays.equals(frequency, distribution.frequency));
     }
     
+    /**
+     * Performs a test.
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testQuality() throws IllegalArgumentException, IOException {
+        
+        // Load data
+        final String dataset = "adult";
+        Data data = Data.create("data/" + dataset + ".csv", StandardCharsets.UTF_8, ';');
+        File[] files = new File("data/").listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.matches(dataset + "_hierarchy_(.)+.csv");
+            }
+        });
+        Pattern pattern = Pattern.compile("_hierarchy_(.*?).csv");
+        for (File file : files) {
+            Matcher matcher = pattern.matcher(file.getName());
+            if (matcher.find()) {
+                CSVHierarchyInput hierarchy = new CSVHierarchyInput(file, StandardCharsets.UTF_8, ';');
+                data.getDefinition().setAttributeType(matcher.group(1), Hierarchy.create(hierarchy.getHierarchy()));
+            }
+        }
+        data.getDefinition().setDataType("age", DataType.INTEGER);
+        data.getDefinition().setMicroAggregationFunction("age", MicroAggregationFunction.createArithmeticMean());
+        
+        // Anonymize
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(1d);
+        ARXResult result = new ARXAnonymizer().anonymize(data, config);
+        
+        // Check
+        StatisticsQuality quality = result.getOutput().getStatistics().getQualityStatistics();
+        assertEquals(0.9255351123866151, quality.getAmbiguity().getValue(), 0d);
+        assertEquals(0.9982982814994679, quality.getAverageClassSize().getValue(), 0d);
+        assertEquals(0.9138812838564397, quality.getDiscernibility().getValue(), 0d);
+        assertEquals(0.37579620334796604, quality.getRecordLevelSquaredError().getValue(), 0d);
+        assertEquals(0.9255354419467897, quality.getGranularity().getValue("age"), 0d);
+        assertEquals(0.5851004575293415, quality.getGranularity().getValue("education"), 0d);
+        assertEquals(0.9250769092508774, quality.getNonUniformEntropy().getValue("age"), 0d);
+        assertEquals(0.3418924407084648, quality.getNonUniformEntropy().getValue("education"), 0d);
+        assertEquals(0.9255354419468205, quality.getGeneralizationIntensity().getValue("age"), 0d);
+        assertEquals(0.3085118139822097, quality.getGeneralizationIntensity().getValue("education"), 0d);
+        assertEquals(0.8994440702177278, quality.getAttributeLevelSquaredError().getValue("age"), 0d);
+        assertEquals(0.3002397602356274, quality.getAttributeLevelSquaredError().getValue("education"), 0d);
+        assertEquals(0.07446455805317953, quality.getMissings().getValue("age"), 0d);
+    }
+    
     /**
      * Checks the two arrays regarding equality, treating a double[][]
      * as a set of comparable double[]'s
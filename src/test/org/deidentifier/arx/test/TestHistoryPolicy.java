@@ -0,0 +1,191 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
+import org.deidentifier.arx.DataSubset;
+import org.deidentifier.arx.criteria.PrivacyCriterion;
+import org.deidentifier.arx.criteria.SampleBasedCriterion;
+import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine;
+import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.Transition;
+import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.TransitionType;
+import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.history.History;
+import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the choice of transition sources and the eviction of snapshots on a
+ * solution space with two attributes with three generalization levels each.
+ *
+ * @author Fabian Prasser
+ */
+public class TestHistoryPolicy extends AbstractTest {
+
+    /** The number of rows */
+    private static final int         ROWS = 10;
+
+    /** A configuration which only requires counters */
+    private ARXConfigurationInternal config;
+
+    /** The solution space */
+    private SolutionSpace<?>         solutionSpace;
+
+    @Override
+    @Before
+    public void setUp() {
+        super.setUp();
+        this.solutionSpace = SolutionSpace.create(new int[] { 0, 0 }, new int[] { 2, 2 });
+        this.config = new ARXConfigurationInternal(ARXConfiguration.create()) {
+            @Override
+            public PrivacyCriterion[] getClassBasedPrivacyModelsAsArray() {
+                return new PrivacyCriterion[0];
+            }
+            @Override
+            public int getRequirements() {
+                return ARXConfiguration.REQUIREMENT_COUNTER;
+            }
+            @Override
+            public SampleBasedCriterion[] getSampleBasedPrivacyModelsAsArray() {
+                return new SampleBasedCriterion[0];
+            }
+            @Override
+            public int getSnapshotLength() {
+                return 2;
+            }
+            @Override
+            public DataSubset getSubset() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Snapshots which save fewer records are evicted first, even if they have been used more recently
+     */
+    @Test
+    public void testEvictionBySavings() {
+
+        History history = getHistory(2);
+        store(history, new int[] { 1, 0 }, 2);
+        store(history, new int[] { 0, 1 }, 8);
+        store(history, new int[] { 2, 2 }, 1);
+
+        // [0, 1] saves two records, [1, 0] saves eight records
+        assertNull(history.get(new int[] { 0, 2 }));
+        assertEquals(2, history.getNumberOfEquivalenceClasses(history.get(new int[] { 2, 0 })));
+        assertArrayEquals(new int[] { 1, 0 }, history.getTransformation());
+    }
+
+    /**
+     * Snapshots without unchecked successors are evicted first, even if they have been used more recently
+     */
+    @Test
+    public void testEvictionBySuccessors() {
+
+        History history = getHistory(2);
+        store(history, new int[] { 1, 0 }, 2);
+        store(history, new int[] { 0, 1 }, 2);
+        solutionSpace.getTransformation(new int[] { 1, 1 }).setProperty(solutionSpace.getPropertyChecked());
+        solutionSpace.getTransformation(new int[] { 0, 2 }).setProperty(solutionSpace.getPropertyChecked());
+        store(history, new int[] { 2, 2 }, 1);
+
+        // All successors of [0, 1] have been checked
+        assertNull(history.get(new int[] { 0, 2 }));
+        assertEquals(2, history.getNumberOfEquivalenceClasses(history.get(new int[] { 2, 0 })));
+        assertArrayEquals(new int[] { 1, 0 }, history.getTransformation());
+    }
+
+    /**
+     * The cheapest source is chosen for each transition, preferring snapshots on ties
+     */
+    @Test
+    public void testTransitions() {
+
+        History history = getHistory(10);
+        TransformationCheckerStateMachine stateMachine = new TransformationCheckerStateMachine(history, ROWS);
+
+        // No source available
+        Transition transition = stateMachine.transition(new int[] { 0, 0 }, 0);
+        assertEquals(TransitionType.UNOPTIMIZED, transition.type);
+        store(history, new int[] { 0, 0 }, 8);
+
+        // Snapshot and roll-up cover eight classes
+        transition = stateMachine.transition(new int[] { 1, 0 }, 8);
+        assertEquals(TransitionType.SNAPSHOT, transition.type);
+        assertEquals(8, history.getNumberOfEquivalenceClasses(transition.snapshot));
+
+        // Roll-up from three classes is cheaper than the snapshot of [0, 0]
+        transition = stateMachine.transition(new int[] { 2, 0 }, 3);
+        assertEquals(TransitionType.ROLLUP, transition.type);
+        assertNull(transition.snapshot);
+        store(history, new int[] { 1, 0 }, 2);
+
+        // Snapshot of [1, 0] is cheaper than a roll-up from five classes
+        transition = stateMachine.transition(new int[] { 2, 1 }, 5);
+        assertEquals(TransitionType.SNAPSHOT, transition.type);
+        assertEquals(2, history.getNumberOfEquivalenceClasses(transition.snapshot));
+        assertArrayEquals(new int[] { 1, 0 }, history.getTransformation());
+
+        // Roll-up is not possible, the snapshot of [0, 0] is the only source
+        transition = stateMachine.transition(new int[] { 0, 1 }, 1);
+        assertEquals(TransitionType.SNAPSHOT, transition.type);
+        assertArrayEquals(new int[] { 0, 0 }, history.getTransformation());
+    }
+
+    /**
+     * Creates a history without a second tier
+     *
+     * @param size
+     * @return
+     */
+    private History getHistory(int size) {
+        History history = new History(ROWS, size, 1d, 1d, 0L, config, new IntArrayDictionary(0), new IntArrayDictionary(0), solutionSpace);
+        history.setStorageStrategy(StorageStrategy.ALL);
+        return history;
+    }
+
+    /**
+     * Stores a snapshot with the given number of classes for the given transformation
+     *
+     * @param history
+     * @param transformation
+     * @param classes
+     */
+    private void store(History history, int[] transformation, int classes) {
+        DataMatrix data = new DataMatrix(classes, 1);
+        for (int row = 0; row < classes; row++) {
+            data.set(row, 0, row);
+        }
+        HashGroupify groupify = new HashGroupify(classes, config, 0, data, data, null, new int[] { -1 });
+        for (int row = 0; row < classes; row++) {
+            groupify.addFromBuffer(row, -1, row, 1, 0);
+        }
+        assertTrue(history.store(solutionSpace.getTransformation(transformation), groupify, null));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2021 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXLattice;
+import org.deidentifier.arx.ARXLattice.ARXNode;
+import org.deidentifier.arx.ARXProcessStatistics;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.junit.Test;
+
+/**
+ * Tests the relationships of lattices built from process statistics
+ *
+ * @author Fabian Prasser
+ */
+public class TestProcessStatisticsLattice extends AbstractTest {
+
+    /** Generalization levels of age, gender and zipcode selected in the individual steps */
+    private static final int[][] STEPS = new int[][] { { 0, 0, 0 },
+                                                       { 1, 0, 0 },
+                                                       { 0, 1, 0 },
+                                                       { 1, 1, 0 },
+                                                       { 2, 0, 0 },
+                                                       { 1, 0, 1 },
+                                                       { 2, 1, 3 } };
+
+    /**
+     * Tests predecessors and successors of known nodes
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testRelationships() throws IOException {
+
+        // Merge the statistics of steps with fixed transformations
+        ARXProcessStatistics statistics = null;
+        for (int[] levels : STEPS) {
+            ARXProcessStatistics step = getStatistics(levels);
+            statistics = statistics == null ? step : statistics.merge(step);
+        }
+
+        // Index nodes
+        ARXLattice lattice = statistics.getLattice();
+        Map<String, ARXNode> nodes = new HashMap<String, ARXNode>();
+        for (ARXNode[] level : lattice.getLevels()) {
+            for (ARXNode node : level) {
+                nodes.put(toString(node), node);
+            }
+        }
+        assertEquals(STEPS.length, nodes.size());
+
+        // Check
+        checkRelationships(nodes, "[0, 0, 0]", new String[] {}, new String[] { "[1, 0, 0]", "[0, 1, 0]" });
+        checkRelationships(nodes, "[1, 0, 0]", new String[] { "[0, 0, 0]" }, new String[] { "[1, 1, 0]", "[2, 0, 0]", "[1, 0, 1]" });
+        checkRelationships(nodes, "[0, 1, 0]", new String[] { "[0, 0, 0]" }, new String[] { "[1, 1, 0]" });
+        checkRelationships(nodes, "[1, 1, 0]", new String[] { "[1, 0, 0]", "[0, 1, 0]" }, new String[] {});
+        checkRelationships(nodes, "[2, 0, 0]", new String[] { "[1, 0, 0]" }, new String[] {});
+        checkRelationships(nodes, "[1, 0, 1]", new String[] { "[1, 0, 0]" }, new String[] {});
+        checkRelationships(nodes, "[2, 1, 3]", new String[] {}, new String[] {});
+    }
+
+    /**
+     * Checks the predecessors and successors of the given node
+     *
+     * @param nodes
+     * @param node
+     * @param predecessors
+     * @param successors
+     */
+    private void checkRelationships(Map<String, ARXNode> nodes, String node, String[] predecessors, String[] successors) {
+        ARXNode actual = nodes.get(node);
+        assertNotNull(node, actual);
+        assertEquals("Predecessors of " + node, new HashSet<String>(Arrays.asList(predecessors)), toString(actual.getPredecessors()));
+        assertEquals("Successors of " + node, new HashSet<String>(Arrays.asList(successors)), toString(actual.getSuccessors()));
+    }
+
+    /**
+     * Returns the statistics of an anonymization process in which the given levels are enforced
+     *
+     * @param levels
+     * @return
+     * @throws IOException
+     */
+    private ARXProcessStatistics getStatistics(int[] levels) throws IOException {
+        DataProvider provider = new DataProvider();
+        provider.createDataDefinition();
+        String[] attributes = new String[] { "age", "gender", "zipcode" };
+        for (int i = 0; i < attributes.length; i++) {
+            provider.getData().getDefinition().setMinimumGeneralization(attributes[i], levels[i]);
+            provider.getData().getDefinition().setMaximumGeneralization(attributes[i], levels[i]);
+        }
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.setSuppressionLimit(1d);
+        return new ARXAnonymizer().anonymize(provider.getData(), config).getProcessStatistics();
+    }
+
+    /**
+     * Returns the levels of age, gender and zipcode of the given node
+     *
+     * @param node
+     * @return
+     */
+    private String toString(ARXNode node) {
+        return Arrays.toString(new int[] { node.getGeneralization("age"),
+                                           node.getGeneralization("gender"),
+                                           node.getGeneralization("zipcode") });
+    }
+
+    /**
+     * Returns the levels of the given nodes
+     *
+     * @param nodes
+     * @return
+     */
+    private Set<String> toString(ARXNode[] nodes) {
+        Set<String> result = new HashSet<String>();
+        for (ARXNode node : nodes) {
+            result.add(toString(node));
+        }
+        return result;
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -24,6 +25,11 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -38,6 +44,7 @@ import org.deidentifier.arx.criteria.KAnonymity;
 import org.deidentifier.arx.io.CSVHierarchyInput;
 import org.deidentifier.arx.metric.Metric;
 import org.deidentifier.arx.metric.Metric.AggregateFunction;
+import org.deidentifier.arx.risk.RiskModelHistogram;
 import org.deidentifier.arx.risk.RiskModelPopulationUniqueness;
 import org.deidentifier.arx.risk.RiskModelPopulationUniqueness.PopulationUniquenessModel;
 import org.junit.Test;
@@ -126,6 +133,47 @@ public class TestRiskMetrics {
         assertTrue("Is: " + risk, risk == 0.001922949406538028);
     }
     
+    /**
+     * Test equivalence classes of an output with suppressed records using the adult dataset.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void testEquivalenceClasses() throws IOException {
+        
+        Data data = getDataObject("./data/adult.csv");
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(0.05d);
+        DataHandle handle = new ARXAnonymizer().anonymize(data, config).getOutput(false);
+        
+        // Group decoded values
+        int[] indices = new int[handle.getDefinition().getQuasiIdentifyingAttributes().size()];
+        int index = 0;
+        for (String attribute : handle.getDefinition().getQuasiIdentifyingAttributes()) {
+            indices[index++] = handle.getColumnIndexOf(attribute);
+        }
+        Arrays.sort(indices);
+        Map<List<String>, Integer> classes = new HashMap<List<String>, Integer>();
+        int records = 0;
+        for (int row = 0; row < handle.getNumRows(); row++) {
+            if (!handle.isOutlier(row)) {
+                List<String> key = new ArrayList<String>();
+                for (int column : indices) {
+                    key.add(handle.getValue(row, column));
+                }
+                Integer count = classes.get(key);
+                classes.put(key, count == null ? 1 : count + 1);
+                records++;
+            }
+        }
+        
+        // Compare
+        RiskModelHistogram histogram = handle.getRiskEstimator().getEquivalenceClassModel();
+        assertEquals(classes.size(), histogram.getNumClasses(), 0d);
+        assertEquals(records, histogram.getNumRecords(), 0d);
+    }
+    
     /**
      * Test decision rule using the test dataset.
      */
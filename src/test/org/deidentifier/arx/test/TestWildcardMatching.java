@@ -19,6 +19,11 @@ package org.deidentifier.arx.test;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
 import org.deidentifier.arx.AttributeType;
 import org.deidentifier.arx.Data;
 import org.deidentifier.arx.DataType;
@@ -156,4 +161,52 @@ public class TestWildcardMatching {
     public void testRiskValues3() {
         compareRiskValues(testData3, expectedWildcardFrequencies3);
     }
+    
+    @Test
+    public void testRiskValuesRandom() {
+        
+        // Random data with one selective and several unselective attributes
+        Random random = new Random(0xDEADBEEF);
+        String[][] values = new String[1000][4];
+        for (int row = 0; row < values.length; row++) {
+            for (int column = 0; column < values[row].length; column++) {
+                int domain = column == 0 ? 50 : 3;
+                values[row][column] = random.nextDouble() < 0.3d ? _AV : String.valueOf(random.nextInt(domain));
+            }
+        }
+        String[][] array = new String[values.length + 1][];
+        array[0] = new String[] { "a", "b", "c", "d" };
+        System.arraycopy(values, 0, array, 1, values.length);
+        
+        // Records only consisting of wildcards are considered suppressed
+        List<String[]> records = new ArrayList<String[]>();
+        for (String[] record : values) {
+            if (!Arrays.equals(record, new String[] { _AV, _AV, _AV, _AV })) {
+                records.add(record);
+            }
+        }
+        
+        // Determine frequencies by comparing all pairs of records
+        int[] frequencies = new int[records.size()];
+        for (int row1 = 0; row1 < records.size(); row1++) {
+            for (int row2 = 0; row2 < records.size(); row2++) {
+                boolean match = true;
+                for (int column = 0; column < array[0].length && match; column++) {
+                    String value1 = records.get(row1)[column];
+                    String value2 = records.get(row2)[column];
+                    match = value1.equals(value2) || value1.equals(_AV) || value2.equals(_AV);
+                }
+                frequencies[row1] += match ? 1 : 0;
+            }
+        }
+        
+        // Compare, with a precision accounting for a different order of summation
+        Data data = Data.create(array);
+        for (int i = 0; i < data.getHandle().getNumColumns(); i++) {
+            data.getDefinition().setAttributeType(data.getHandle().getAttributeName(i), AttributeType.QUASI_IDENTIFYING_ATTRIBUTE);            
+        }
+        RiskModelSampleWildcard riskModel = data.getHandle().getRiskEstimator().getSampleBasedRiskSummaryWildcard(0.0d,  _AV);
+        assertEquals(getHighestRiskFromFrequencies(frequencies), riskModel.getHighestRisk(), 1e-12);
+        assertEquals(getAverageRiskFromFrequencies(frequencies), riskModel.getAverageRisk(), 1e-12);
+    }
 }